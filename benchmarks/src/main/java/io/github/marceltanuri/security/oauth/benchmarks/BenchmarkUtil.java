@@ -0,0 +1,258 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.commons.oauth.token.api.TokenService;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService;
+import io.github.marceltanuri.security.oauth.bff.proxy.ProxyClientPoolRegistry;
+import io.github.marceltanuri.security.oauth.bff.proxy.ProxyEngine;
+import io.github.marceltanuri.security.oauth.bff.proxy.ProxyServiceConfiguration;
+import io.github.marceltanuri.security.oauth.bff.proxy.ResponseCacheRegistry;
+import io.github.marceltanuri.security.oauth.bff.proxy.RouteTableRegistry;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.Map;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Wires the OSGi components of the bundle outside of an OSGi container, the
+ * way Declarative Services would: references are injected into their fields,
+ * and the lifecycle and bind methods are called with the given configuration
+ * and service properties.
+ *
+ * @author Marcel Tanuri
+ */
+public class BenchmarkUtil {
+
+	/**
+	 * Consumes the body of the given response, as the JAX-RS runtime would
+	 * when writing it to the caller, releasing the downstream response.
+	 *
+	 * @param response The {@link Response} to consume.
+	 * @return The status of the response.
+	 * @throws IOException if the body cannot be read.
+	 */
+	public static int consume(Response response) throws IOException {
+		Object entity = response.getEntity();
+
+		if (entity instanceof StreamingOutput) {
+			StreamingOutput streamingOutput = (StreamingOutput)entity;
+
+			streamingOutput.write(OutputStream.nullOutputStream());
+		}
+
+		return response.getStatus();
+	}
+
+	/**
+	 * Creates an instance of the given configuration interface, returning the
+	 * given properties or, for the ones not given, the default values of the
+	 * interface.
+	 *
+	 * @param clazz      The configuration interface.
+	 * @param properties The configuration properties.
+	 * @return The configuration.
+	 */
+	public static <T> T createConfigurable(
+		Class<T> clazz, Map<String, Object> properties) {
+
+		return clazz.cast(
+			Proxy.newProxyInstance(
+				clazz.getClassLoader(), new Class<?>[] {clazz},
+				(proxy, method, arguments) -> {
+					String name = method.getName();
+
+					if (name.equals("annotationType")) {
+						return clazz;
+					}
+
+					if (name.equals("equals")) {
+						return proxy == arguments[0];
+					}
+
+					if (name.equals("hashCode")) {
+						return System.identityHashCode(proxy);
+					}
+
+					if (name.equals("toString")) {
+						return clazz.getName() + properties;
+					}
+
+					Object value = properties.get(name);
+
+					if (value != null) {
+						return value;
+					}
+
+					return method.getDefaultValue();
+				}));
+	}
+
+	/**
+	 * Creates an active OAuth client with the given configuration properties.
+	 * The client must be deactivated once it is no longer used.
+	 *
+	 * @param tokenService The {@link TokenService} fetching access tokens.
+	 * @param properties   The {@link OAuthClientSettings} properties.
+	 * @return The {@link OAuthClientManager}.
+	 */
+	public static OAuthClientManager createOAuthClient(
+		TokenService tokenService, Map<String, Object> properties) {
+
+		OAuthClientManager oAuthClientManager = new OAuthClientManager();
+
+		setFieldValue(oAuthClientManager, "_tokenService", tokenService);
+
+		oAuthClientManager.activate(
+			createConfigurable(OAuthClientSettings.class, properties));
+
+		return oAuthClientManager;
+	}
+
+	/**
+	 * Creates an active proxy service serving the clients of the given
+	 * factory, with the given proxy engines, keyed by the value of their
+	 * {@code proxy.engine} property. The service must be deactivated once it
+	 * is no longer used.
+	 *
+	 * @param oAuthServiceFactory The {@link OAuthServiceFactory} holding the
+	 *                            OAuth clients.
+	 * @param proxyEngines        The {@link ProxyEngine} instances.
+	 * @param properties          The {@link ProxyServiceConfiguration}
+	 *                            properties.
+	 * @return The {@link DefaultOAuthProxyService}.
+	 */
+	public static DefaultOAuthProxyService createProxyService(
+		OAuthServiceFactory oAuthServiceFactory,
+		Map<String, ProxyEngine> proxyEngines, Map<String, Object> properties) {
+
+		ProxyClientPoolRegistry proxyClientPoolRegistry =
+			new ProxyClientPoolRegistry();
+
+		setFieldValue(
+			proxyClientPoolRegistry, "_clientBuilder",
+			ClientBuilder.newBuilder());
+
+		invoke(proxyClientPoolRegistry, "activate");
+
+		DefaultOAuthProxyService defaultOAuthProxyService =
+			new DefaultOAuthProxyService();
+
+		setFieldValue(
+			defaultOAuthProxyService, "_oAuthServiceFactory",
+			oAuthServiceFactory);
+		setFieldValue(
+			defaultOAuthProxyService, "_proxyClientPoolRegistry",
+			proxyClientPoolRegistry);
+		setFieldValue(
+			defaultOAuthProxyService, "_responseCacheRegistry",
+			new ResponseCacheRegistry());
+		setFieldValue(
+			defaultOAuthProxyService, "_routeTableRegistry",
+			new RouteTableRegistry());
+
+		invoke(
+			defaultOAuthProxyService, "activate",
+			createConfigurable(ProxyServiceConfiguration.class, properties));
+
+		for (Map.Entry<String, ProxyEngine> entry : proxyEngines.entrySet()) {
+			invoke(
+				defaultOAuthProxyService, "addProxyEngine", entry.getValue(),
+				Map.of("proxy.engine", entry.getKey()));
+		}
+
+		return defaultOAuthProxyService;
+	}
+
+	/**
+	 * Calls the method of the given component with the given name and number
+	 * of arguments, regardless of its visibility.
+	 *
+	 * @param object     The component.
+	 * @param methodName The name of the method.
+	 * @param arguments  The arguments of the method.
+	 * @return The value returned by the method.
+	 */
+	public static Object invoke(
+		Object object, String methodName, Object... arguments) {
+
+		for (Class<?> clazz = object.getClass(); clazz != null;
+			 clazz = clazz.getSuperclass()) {
+
+			for (Method method : clazz.getDeclaredMethods()) {
+				if (method.getName(
+					).equals(
+						methodName
+					) &&
+					(method.getParameterCount() == arguments.length)) {
+
+					method.setAccessible(true);
+
+					try {
+						return method.invoke(object, arguments);
+					}
+					catch (IllegalAccessException illegalAccessException) {
+						throw new IllegalStateException(illegalAccessException);
+					}
+					catch (InvocationTargetException
+								invocationTargetException) {
+
+						throw new IllegalStateException(
+							invocationTargetException.getCause());
+					}
+				}
+			}
+		}
+
+		throw new IllegalArgumentException(
+			String.format(
+				"No method %s with %d arguments in %s", methodName,
+				arguments.length, object.getClass()));
+	}
+
+	/**
+	 * Injects a value into the field of the given component, regardless of its
+	 * visibility.
+	 *
+	 * @param object    The component.
+	 * @param fieldName The name of the field.
+	 * @param value     The value to inject.
+	 */
+	public static void setFieldValue(
+		Object object, String fieldName, Object value) {
+
+		for (Class<?> clazz = object.getClass(); clazz != null;
+			 clazz = clazz.getSuperclass()) {
+
+			try {
+				Field field = clazz.getDeclaredField(fieldName);
+
+				field.setAccessible(true);
+
+				field.set(object, value);
+
+				return;
+			}
+			catch (NoSuchFieldException noSuchFieldException) {
+			}
+			catch (IllegalAccessException illegalAccessException) {
+				throw new IllegalStateException(illegalAccessException);
+			}
+		}
+
+		throw new IllegalArgumentException(
+			String.format("No field %s in %s", fieldName, object.getClass()));
+	}
+
+}
@@ -0,0 +1,76 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettingsProxy;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the resolution of the client settings: reading the settings that
+ * can be overridden by environment variables, which happens on every proxied
+ * request, and creating a settings snapshot, which happens whenever the
+ * configuration changes.
+ *
+ * @author Marcel Tanuri
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class OAuthClientSettingsBenchmark {
+
+	@Benchmark
+	public OAuthClientSettingsProxy createSnapshot() {
+		return new OAuthClientSettingsProxy(_settings);
+	}
+
+	@Benchmark
+	public void readOverridableSettings(Blackhole blackhole) {
+		blackhole.consume(_settingsProxy.audience());
+		blackhole.consume(_settingsProxy.clientId());
+		blackhole.consume(_settingsProxy.clientSecret());
+		blackhole.consume(_settingsProxy.scope());
+		blackhole.consume(_settingsProxy.serviceBaseUrl());
+		blackhole.consume(_settingsProxy.tokenEndpoint());
+	}
+
+	@Benchmark
+	public void readSettings(Blackhole blackhole) {
+		blackhole.consume(_settingsProxy.clientName());
+		blackhole.consume(_settingsProxy.proxyEngine());
+		blackhole.consume(_settingsProxy.streamResponses());
+		blackhole.consume(_settingsProxy.requestQueueTimeout());
+	}
+
+	@Setup
+	public void setUp() {
+		_settings = BenchmarkUtil.createConfigurable(
+			OAuthClientSettings.class,
+			Map.of(
+				"audience", "https://api.example.com", "clientId", "benchmark",
+				"clientName", "benchmark", "clientSecret", "secret", "scope",
+				"read write", "serviceBaseUrl", "https://api.example.com",
+				"tokenEndpoint", "https://idp.example.com/oauth/token"));
+
+		_settingsProxy = new OAuthClientSettingsProxy(_settings);
+	}
+
+	private OAuthClientSettings _settings;
+	private OAuthClientSettingsProxy _settingsProxy;
+
+}
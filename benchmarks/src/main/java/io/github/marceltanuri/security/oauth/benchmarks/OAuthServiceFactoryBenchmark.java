@@ -0,0 +1,99 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookup of an OAuth client by its name, which starts every
+ * proxied request, with a varying number of registered clients.
+ *
+ * @author Marcel Tanuri
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class OAuthServiceFactoryBenchmark {
+
+	@Benchmark
+	public OAuthClient getOAuthClient() {
+		return _oAuthServiceFactory.getOAuthClient(_clientName);
+	}
+
+	@Benchmark
+	public OAuthClient getUnknownOAuthClient() {
+		return _oAuthServiceFactory.getOAuthClient("unknown");
+	}
+
+	@Setup
+	public void setUp() {
+		StubTokenService stubTokenService = new StubTokenService();
+
+		for (int i = 0; i < clientCount; i++) {
+			String clientName = "client-" + i;
+
+			OAuthClientManager oAuthClientManager =
+				BenchmarkUtil.createOAuthClient(
+					stubTokenService,
+					Map.of(
+						"clientId", clientName, "clientName", clientName,
+						"clientSecret", "secret", "serviceBaseUrl",
+						"https://api.example.com", "tokenEndpoint",
+						"https://idp.example.com/oauth/token"));
+
+			BenchmarkUtil.invoke(
+				_oAuthServiceFactory, "addOAuthService", oAuthClientManager,
+				Map.of("clientName", clientName));
+
+			_oAuthClientManagers.add(oAuthClientManager);
+		}
+
+		_clientName = new String("client-" + (clientCount / 2));
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (OAuthClientManager oAuthClientManager : _oAuthClientManagers) {
+			oAuthClientManager.deactivate();
+		}
+	}
+
+	/**
+	 * The number of registered OAuth clients.
+	 */
+	@Param({"1", "10", "100"})
+	public int clientCount;
+
+	/**
+	 * A copy of the name of a registered client, as a request would carry,
+	 * so that the lookup cannot be answered by reference equality.
+	 */
+	private String _clientName;
+
+	private final List<OAuthClientManager> _oAuthClientManagers =
+		new ArrayList<>();
+	private final OAuthServiceFactory _oAuthServiceFactory =
+		new OAuthServiceFactory();
+
+}
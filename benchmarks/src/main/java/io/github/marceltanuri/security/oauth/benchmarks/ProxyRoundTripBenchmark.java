@@ -0,0 +1,113 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.bff.proxy.HttpClientProxyEngine;
+import io.github.marceltanuri.security.oauth.bff.proxy.JaxRsProxyEngine;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.IOException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a full proxied request, from the client lookup to the last byte
+ * of the response body, against a {@link StubUpstream} running in the same
+ * process, with each proxy engine and a varying response size.
+ *
+ * @author Marcel Tanuri
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true", value = 1)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+public class ProxyRoundTripBenchmark {
+
+	@Benchmark
+	public int executeProxyRequest() throws IOException {
+		return BenchmarkUtil.consume(
+			_defaultOAuthProxyService.executeProxyRequest(_context));
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		_stubUpstream = new StubUpstream(bodySize, 8);
+
+		_oAuthClientManager = BenchmarkUtil.createOAuthClient(
+			new StubTokenService(),
+			Map.of(
+				"clientId", "benchmark", "clientName", "benchmark",
+				"clientSecret", "secret", "proxyEngine", proxyEngine,
+				"serviceBaseUrl", _stubUpstream.getBaseUrl(), "tokenEndpoint",
+				"https://idp.example.com/oauth/token"));
+
+		OAuthServiceFactory oAuthServiceFactory = new OAuthServiceFactory();
+
+		BenchmarkUtil.invoke(
+			oAuthServiceFactory, "addOAuthService", _oAuthClientManager,
+			Map.of("clientName", "benchmark"));
+
+		_defaultOAuthProxyService = BenchmarkUtil.createProxyService(
+			oAuthServiceFactory,
+			Map.of(
+				"http2", new HttpClientProxyEngine(), "jaxrs",
+				new JaxRsProxyEngine()),
+			Map.of());
+
+		_context = ProxyRequestContext.builder(
+		).clientName(
+			"benchmark"
+		).path(
+			"api/v1/orders/12345"
+		).methodHandler(
+			HttpMethodHandler.GET
+		).queryString(
+			"expand=items"
+		).build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkUtil.invoke(_defaultOAuthProxyService, "deactivate");
+
+		_oAuthClientManager.deactivate();
+
+		_stubUpstream.close();
+	}
+
+	/**
+	 * The size, in bytes, of the downstream response body.
+	 */
+	@Param({"1024", "65536"})
+	public int bodySize;
+
+	/**
+	 * The proxy engine of the OAuth client.
+	 */
+	@Param({"http2", "jaxrs"})
+	public String proxyEngine;
+
+	private ProxyRequestContext _context;
+	private DefaultOAuthProxyService _defaultOAuthProxyService;
+	private OAuthClientManager _oAuthClientManager;
+	private StubUpstream _stubUpstream;
+
+}
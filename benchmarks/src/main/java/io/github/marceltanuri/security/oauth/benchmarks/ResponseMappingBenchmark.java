@@ -0,0 +1,119 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.bff.proxy.ProxyEngine;
+import io.github.marceltanuri.security.oauth.bff.proxy.UpstreamResponse;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the request path of the proxy service without any network I/O:
+ * the client lookup, the access token, the route and the target URI, and the
+ * mapping of the downstream response, including the copy of its headers, to
+ * the response returned to the caller. The downstream response is produced
+ * in memory by a {@link ProxyEngine} stub, with a varying number of headers.
+ *
+ * @author Marcel Tanuri
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class ResponseMappingBenchmark {
+
+	@Benchmark
+	public int executeProxyRequest() throws IOException {
+		return BenchmarkUtil.consume(
+			_defaultOAuthProxyService.executeProxyRequest(_context));
+	}
+
+	@Setup
+	public void setUp() {
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+
+		headers.put("Content-Length", List.of(String.valueOf(_BODY.length)));
+		headers.put("Content-Type", List.of("application/json"));
+
+		for (int i = 0; i < headerCount; i++) {
+			headers.put("X-Stub-Header-" + i, List.of("value-" + i));
+		}
+
+		ProxyEngine proxyEngine =
+			(proxyClientPool, targetURI, context, accessToken) ->
+				new UpstreamResponse(
+					200, headers, new ByteArrayInputStream(_BODY), null);
+
+		_oAuthClientManager = BenchmarkUtil.createOAuthClient(
+			new StubTokenService(),
+			Map.of(
+				"clientId", "benchmark", "clientName", "benchmark",
+				"clientSecret", "secret", "proxyEngine", "memory",
+				"serviceBaseUrl", "https://api.example.com", "tokenEndpoint",
+				"https://idp.example.com/oauth/token"));
+
+		OAuthServiceFactory oAuthServiceFactory = new OAuthServiceFactory();
+
+		BenchmarkUtil.invoke(
+			oAuthServiceFactory, "addOAuthService", _oAuthClientManager,
+			Map.of("clientName", "benchmark"));
+
+		_defaultOAuthProxyService = BenchmarkUtil.createProxyService(
+			oAuthServiceFactory, Map.of("memory", proxyEngine), Map.of());
+
+		_context = ProxyRequestContext.builder(
+		).clientName(
+			"benchmark"
+		).path(
+			"api/v1/orders/12345"
+		).methodHandler(
+			HttpMethodHandler.GET
+		).queryString(
+			"expand=items"
+		).build();
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkUtil.invoke(_defaultOAuthProxyService, "deactivate");
+
+		_oAuthClientManager.deactivate();
+	}
+
+	/**
+	 * The number of extra headers of the downstream response.
+	 */
+	@Param({"0", "8", "32"})
+	public int headerCount;
+
+	private static final byte[] _BODY = new byte[256];
+
+	private ProxyRequestContext _context;
+	private DefaultOAuthProxyService _defaultOAuthProxyService;
+	private OAuthClientManager _oAuthClientManager;
+
+}
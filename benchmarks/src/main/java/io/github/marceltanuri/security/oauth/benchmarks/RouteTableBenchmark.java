@@ -0,0 +1,90 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.RouteTable;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the resolution of the target URI of a proxied request: the lookup
+ * of the route matching the request path and the building of the URI from
+ * the service base URL, the rewritten path and the query string.
+ *
+ * @author Marcel Tanuri
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+public class RouteTableBenchmark {
+
+	@Benchmark
+	public RouteTable.Route getRoute() {
+		return _routeTable.getRoute(_PATH);
+	}
+
+	@Benchmark
+	public URI getTargetURI() throws URISyntaxException {
+		RouteTable.Route route = _routeTable.getRoute(_PATH);
+
+		return route.getTargetURI(_PATH, _QUERY_STRING);
+	}
+
+	@Benchmark
+	public URI getTargetURIWithRewrite() throws URISyntaxException {
+		RouteTable.Route route = _routeTable.getRoute(_REWRITTEN_PATH);
+
+		return route.getTargetURI(_REWRITTEN_PATH, _QUERY_STRING);
+	}
+
+	@Setup
+	public void setUp() {
+		_oAuthClientManager = BenchmarkUtil.createOAuthClient(
+			new StubTokenService(),
+			Map.of(
+				"clientId", "benchmark", "clientName", "benchmark",
+				"clientSecret", "secret", "routes",
+				new String[] {
+					"/api/v1/orders;timeout=5000",
+					"/api/v1/products;cache=true",
+					"/legacy;rewrite=/api/v0;retries=0"
+				},
+				"serviceBaseUrl", "https://api.example.com/base/",
+				"tokenEndpoint", "https://idp.example.com/oauth/token"));
+
+		_routeTable = new RouteTable(_oAuthClientManager);
+	}
+
+	@TearDown
+	public void tearDown() {
+		_oAuthClientManager.deactivate();
+	}
+
+	private static final String _PATH = "api/v1/orders/12345/items";
+
+	private static final String _QUERY_STRING = "page=2&size=50&sort=name";
+
+	private static final String _REWRITTEN_PATH = "legacy/customers/12345";
+
+	private OAuthClientManager _oAuthClientManager;
+	private RouteTable _routeTable;
+
+}
@@ -0,0 +1,193 @@
+package io.github.marceltanuri.security.oauth.benchmarks;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process downstream service listening on an ephemeral port of the
+ * loopback interface. It answers every request with a 200 (OK) response
+ * carrying a fixed body and a fixed number of extra headers, optionally after
+ * a fixed latency, or, at the given error rate, with a 503 (Service
+ * Unavailable) response. The JVM should be
+ * started with {@code -Dsun.net.httpserver.nodelay=true}, or the server's
+ * writes are delayed by the Nagle algorithm.
+ *
+ * @author Marcel Tanuri
+ */
+public class StubUpstream implements AutoCloseable {
+
+	/**
+	 * Starts a new {@code StubUpstream}.
+	 *
+	 * @param bodySize    The size, in bytes, of the response body.
+	 * @param headerCount The number of extra response headers.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public StubUpstream(int bodySize, int headerCount) throws IOException {
+		this(bodySize, headerCount, 0, 0);
+	}
+
+	/**
+	 * Starts a new {@code StubUpstream}.
+	 *
+	 * @param bodySize    The size, in bytes, of the response body.
+	 * @param headerCount The number of extra response headers.
+	 * @param latency     The time, in milliseconds, to wait before answering
+	 *                    each request.
+	 * @param errorRate   The fraction of requests, between 0 and 1, answered
+	 *                    with a 503 (Service Unavailable) response.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public StubUpstream(
+			int bodySize, int headerCount, long latency, double errorRate)
+		throws IOException {
+
+		_body = new byte[bodySize];
+
+		Arrays.fill(_body, (byte)'x');
+
+		_headerCount = headerCount;
+		_latency = latency;
+		_errorRate = errorRate;
+
+		_executorService = Executors.newCachedThreadPool(
+			runnable -> {
+				Thread thread = new Thread(runnable, "stub-upstream");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_httpServer = HttpServer.create(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+
+		_httpServer.createContext("/", this::_handle);
+		_httpServer.setExecutor(_executorService);
+
+		_scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+			runnable -> {
+				Thread thread = new Thread(runnable, "stub-upstream-scheduler");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_httpServer.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@Override
+	public void close() {
+		_httpServer.stop(0);
+
+		_executorService.shutdownNow();
+		_scheduledExecutorService.shutdownNow();
+	}
+
+	/**
+	 * Returns the number of requests received.
+	 *
+	 * @return The request count.
+	 */
+	public long getRequestCount() {
+		return _requestCount.sum();
+	}
+
+	/**
+	 * Returns the base URL of the server.
+	 *
+	 * @return The base URL, such as {@code http://127.0.0.1:12345}.
+	 */
+	public String getBaseUrl() {
+		InetSocketAddress inetSocketAddress = _httpServer.getAddress();
+
+		return String.format(
+			"http://%s:%d",
+			inetSocketAddress.getAddress(
+			).getHostAddress(),
+			inetSocketAddress.getPort());
+	}
+
+	private void _handle(HttpExchange httpExchange) throws IOException {
+		_requestCount.increment();
+
+		try (InputStream inputStream = httpExchange.getRequestBody()) {
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+
+		if (_latency <= 0) {
+			_respond(httpExchange);
+
+			return;
+		}
+
+		_scheduledExecutorService.schedule(
+			() -> _executorService.execute(
+				() -> {
+					try {
+						_respond(httpExchange);
+					}
+					catch (IOException ioException) {
+						httpExchange.close();
+					}
+				}),
+			_latency, TimeUnit.MILLISECONDS);
+	}
+
+	private void _respond(HttpExchange httpExchange) throws IOException {
+		if ((_errorRate > 0) &&
+			(ThreadLocalRandom.current(
+			).nextDouble() < _errorRate)) {
+
+			httpExchange.sendResponseHeaders(503, -1);
+
+			httpExchange.close();
+
+			return;
+		}
+
+		Headers headers = httpExchange.getResponseHeaders();
+
+		headers.set("Content-Type", "application/json");
+
+		for (int i = 0; i < _headerCount; i++) {
+			headers.set("X-Stub-Header-" + i, "value-" + i);
+		}
+
+		httpExchange.sendResponseHeaders(200, _body.length);
+
+		try (OutputStream outputStream = httpExchange.getResponseBody()) {
+			outputStream.write(_body);
+		}
+	}
+
+	private final byte[] _body;
+	private final double _errorRate;
+	private final ExecutorService _executorService;
+	private final int _headerCount;
+	private final HttpServer _httpServer;
+	private final long _latency;
+	private final LongAdder _requestCount = new LongAdder();
+	private final ScheduledExecutorService _scheduledExecutorService;
+
+}
@@ -0,0 +1,90 @@
+package io.github.marceltanuri.security.oauth.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marceltanuri.security.commons.oauth.token.api.TokenService;
+import io.github.marceltanuri.security.commons.oauth.token.api.TokenServiceException;
+
+import java.io.IOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Duration;
+
+/**
+ * A {@link TokenService} that requests access tokens from a single token
+ * endpoint with the client credentials grant, such as a
+ * {@link StubTokenEndpoint}. The token endpoint and the credentials of the
+ * given settings are not used.
+ *
+ * @author Marcel Tanuri
+ */
+public class HttpTokenService implements TokenService {
+
+	/**
+	 * Constructs a new {@code HttpTokenService}.
+	 *
+	 * @param tokenEndpoint The URL of the token endpoint.
+	 */
+	public HttpTokenService(String tokenEndpoint) {
+		_tokenEndpointURI = URI.create(tokenEndpoint);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getAccessToken(
+			ClientCredentialsSettings clientCredentialsSettings)
+		throws TokenServiceException {
+
+		HttpRequest httpRequest = HttpRequest.newBuilder(
+			_tokenEndpointURI
+		).header(
+			"Content-Type", "application/x-www-form-urlencoded"
+		).timeout(
+			Duration.ofSeconds(30)
+		).POST(
+			HttpRequest.BodyPublishers.ofString(
+				"grant_type=client_credentials&client_id=load-test")
+		).build();
+
+		try {
+			HttpResponse<String> httpResponse = _httpClient.send(
+				httpRequest, HttpResponse.BodyHandlers.ofString());
+
+			if (httpResponse.statusCode() != 200) {
+				throw new TokenServiceException(
+					"Token endpoint returned status " +
+						httpResponse.statusCode());
+			}
+
+			JsonNode jsonNode = _objectMapper.readTree(httpResponse.body());
+
+			return jsonNode.get(
+				"access_token"
+			).asText();
+		}
+		catch (InterruptedException interruptedException) {
+			Thread.currentThread(
+			).interrupt();
+
+			throw new TokenServiceException(
+				"Interrupted while requesting a token");
+		}
+		catch (IOException ioException) {
+			throw new TokenServiceException(
+				"Unable to request a token: " + ioException.getMessage());
+		}
+	}
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	private final HttpClient _httpClient = HttpClient.newHttpClient();
+	private final URI _tokenEndpointURI;
+
+}
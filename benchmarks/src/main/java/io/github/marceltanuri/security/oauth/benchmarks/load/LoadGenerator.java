@@ -0,0 +1,325 @@
+package io.github.marceltanuri.security.oauth.benchmarks.load;
+
+import io.github.marceltanuri.security.oauth.metrics.LatencyHistogram;
+import io.github.marceltanuri.security.oauth.metrics.LatencySummary;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Duration;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a fixed number of concurrent sessions against the proxy and token
+ * resources of the BFF. Each session sends one request at a time, waiting for
+ * the whole response and an optional think time before sending the next one.
+ * Requests are sent asynchronously, so thousands of sessions only take a few
+ * threads.
+ *
+ * @author Marcel Tanuri
+ */
+public class LoadGenerator {
+
+	/**
+	 * Constructs a new {@code LoadGenerator}.
+	 *
+	 * @param proxyURI   The {@link URI} of the proxied request.
+	 * @param tokenURI   The {@link URI} of the token request.
+	 * @param sessions   The number of concurrent sessions.
+	 * @param thinkTime  The time, in milliseconds, each session waits between
+	 *                   two requests.
+	 * @param tokenRatio The fraction of requests, between 0 and 1, sent to the
+	 *                   token resource instead of the proxy resource.
+	 */
+	public LoadGenerator(
+		URI proxyURI, URI tokenURI, int sessions, long thinkTime,
+		double tokenRatio) {
+
+		_sessions = sessions;
+		_thinkTime = thinkTime;
+		_tokenRatio = tokenRatio;
+
+		_proxyHttpRequest = HttpRequest.newBuilder(
+			proxyURI
+		).timeout(
+			_REQUEST_TIMEOUT
+		).build();
+		_tokenHttpRequest = HttpRequest.newBuilder(
+			tokenURI
+		).timeout(
+			_REQUEST_TIMEOUT
+		).build();
+
+		_executorService = Executors.newFixedThreadPool(
+			Math.max(4, Runtime.getRuntime().availableProcessors() * 2),
+			runnable -> {
+				Thread thread = new Thread(runnable, "load-generator");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		_scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+			runnable -> {
+				Thread thread = new Thread(
+					runnable, "load-generator-scheduler");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_httpClient = HttpClient.newBuilder(
+		).connectTimeout(
+			_REQUEST_TIMEOUT
+		).executor(
+			_executorService
+		).version(
+			HttpClient.Version.HTTP_1_1
+		).build();
+
+		_countDownLatch = new CountDownLatch(sessions);
+	}
+
+	/**
+	 * Starts the sessions, spread evenly over the given ramp-up time.
+	 *
+	 * @param rampUp The time, in milliseconds, over which the sessions are
+	 *               started.
+	 */
+	public void start(long rampUp) {
+		_running = true;
+
+		for (int i = 0; i < _sessions; i++) {
+			_scheduledExecutorService.schedule(
+				this::_sendRequest, (rampUp * i) / _sessions,
+				TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Starts a new recording. The requests completed from now on are recorded
+	 * in it instead of in the previous one.
+	 *
+	 * @return The new {@link Recording}.
+	 */
+	public Recording startRecording() {
+		Recording recording = new Recording();
+
+		_recording = recording;
+
+		return recording;
+	}
+
+	/**
+	 * Stops the sessions, ends the current recording and waits for the
+	 * requests in flight to complete.
+	 *
+	 * @return The ended {@link Recording}.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public Recording stop() throws InterruptedException {
+		Recording recording = _recording;
+
+		recording._end();
+
+		_running = false;
+
+		_countDownLatch.await(
+			_REQUEST_TIMEOUT.toMillis() + 1000, TimeUnit.MILLISECONDS);
+
+		_scheduledExecutorService.shutdownNow();
+		_executorService.shutdownNow();
+
+		return recording;
+	}
+
+	/**
+	 * The latencies and response statuses of the requests completed during a
+	 * period of time.
+	 */
+	public static class Recording {
+
+		/**
+		 * Returns the duration of the recording.
+		 *
+		 * @return The duration, in nanoseconds.
+		 */
+		public long getDuration() {
+			long endTime = _endTime;
+
+			if (endTime == 0) {
+				endTime = System.nanoTime();
+			}
+
+			return endTime - _startTime;
+		}
+
+		/**
+		 * Returns the number of completed proxied requests, by response status
+		 * class, where the first element counts the requests that got no
+		 * response and the others the {@code 1xx} to {@code 5xx} responses.
+		 *
+		 * @return The request counts.
+		 */
+		public long[] getProxyCounts() {
+			return _getCounts(_proxyCounts);
+		}
+
+		/**
+		 * Returns the latencies of the completed proxied requests.
+		 *
+		 * @return The {@link LatencySummary}.
+		 */
+		public LatencySummary getProxyLatency() {
+			return _proxyLatencyHistogram.getSummary();
+		}
+
+		/**
+		 * Returns the number of completed token requests, by response status
+		 * class, like {@link #getProxyCounts()}.
+		 *
+		 * @return The request counts.
+		 */
+		public long[] getTokenCounts() {
+			return _getCounts(_tokenCounts);
+		}
+
+		/**
+		 * Returns the latencies of the completed token requests.
+		 *
+		 * @return The {@link LatencySummary}.
+		 */
+		public LatencySummary getTokenLatency() {
+			return _tokenLatencyHistogram.getSummary();
+		}
+
+		private static long[] _getCounts(LongAdder[] longAdders) {
+			long[] counts = new long[longAdders.length];
+
+			for (int i = 0; i < longAdders.length; i++) {
+				counts[i] = longAdders[i].sum();
+			}
+
+			return counts;
+		}
+
+		private static LongAdder[] _newCounts() {
+			LongAdder[] longAdders = new LongAdder[6];
+
+			for (int i = 0; i < longAdders.length; i++) {
+				longAdders[i] = new LongAdder();
+			}
+
+			return longAdders;
+		}
+
+		private void _end() {
+			_endTime = System.nanoTime();
+		}
+
+		private void _record(boolean token, long nanos, int status) {
+			if (_endTime != 0) {
+				return;
+			}
+
+			int statusClass = 0;
+
+			if ((status >= 100) && (status < 600)) {
+				statusClass = status / 100;
+			}
+
+			if (token) {
+				_tokenCounts[statusClass].increment();
+				_tokenLatencyHistogram.record(nanos);
+			}
+			else {
+				_proxyCounts[statusClass].increment();
+				_proxyLatencyHistogram.record(nanos);
+			}
+		}
+
+		private volatile long _endTime;
+		private final LongAdder[] _proxyCounts = _newCounts();
+		private final LatencyHistogram _proxyLatencyHistogram =
+			new LatencyHistogram();
+		private final long _startTime = System.nanoTime();
+		private final LongAdder[] _tokenCounts = _newCounts();
+		private final LatencyHistogram _tokenLatencyHistogram =
+			new LatencyHistogram();
+
+	}
+
+	private void _sendRequest() {
+		if (!_running) {
+			_countDownLatch.countDown();
+
+			return;
+		}
+
+		boolean token = false;
+
+		if ((_tokenRatio > 0) &&
+			(ThreadLocalRandom.current(
+			).nextDouble() < _tokenRatio)) {
+
+			token = true;
+		}
+
+		HttpRequest httpRequest = _proxyHttpRequest;
+
+		if (token) {
+			httpRequest = _tokenHttpRequest;
+		}
+
+		boolean tokenRequest = token;
+		long startTime = System.nanoTime();
+
+		_httpClient.sendAsync(
+			httpRequest, HttpResponse.BodyHandlers.discarding()
+		).whenComplete(
+			(httpResponse, throwable) -> {
+				int status = 0;
+
+				if (httpResponse != null) {
+					status = httpResponse.statusCode();
+				}
+
+				_recording._record(
+					tokenRequest, System.nanoTime() - startTime, status);
+
+				if (_thinkTime > 0) {
+					_scheduledExecutorService.schedule(
+						this::_sendRequest, _thinkTime, TimeUnit.MILLISECONDS);
+				}
+				else {
+					_executorService.execute(this::_sendRequest);
+				}
+			}
+		);
+	}
+
+	private static final Duration _REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final CountDownLatch _countDownLatch;
+	private final ExecutorService _executorService;
+	private final HttpClient _httpClient;
+	private final HttpRequest _proxyHttpRequest;
+	private volatile Recording _recording = new Recording();
+	private volatile boolean _running;
+	private final ScheduledExecutorService _scheduledExecutorService;
+	private final int _sessions;
+	private final long _thinkTime;
+	private final HttpRequest _tokenHttpRequest;
+	private final double _tokenRatio;
+
+}
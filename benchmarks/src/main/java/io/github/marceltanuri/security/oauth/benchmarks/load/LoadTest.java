@@ -0,0 +1,422 @@
+package io.github.marceltanuri.security.oauth.benchmarks.load;
+
+import io.github.marceltanuri.security.oauth.benchmarks.BenchmarkUtil;
+import io.github.marceltanuri.security.oauth.benchmarks.StubUpstream;
+import io.github.marceltanuri.security.oauth.bff.proxy.CorsPolicyRegistry;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService;
+import io.github.marceltanuri.security.oauth.bff.proxy.HttpClientProxyEngine;
+import io.github.marceltanuri.security.oauth.bff.proxy.JaxRsProxyEngine;
+import io.github.marceltanuri.security.oauth.bff.proxy.ProxyResource;
+import io.github.marceltanuri.security.oauth.bff.token.TokenResource;
+import io.github.marceltanuri.security.oauth.client.OAuthClientManager;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+import io.github.marceltanuri.security.oauth.metrics.LatencySummary;
+
+import java.io.IOException;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import java.net.ServerSocket;
+import java.net.URI;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
+
+/**
+ * A load test of the BFF running entirely on the loopback interface: the
+ * {@link ProxyResource} and {@link TokenResource} are served over HTTP by an
+ * embedded JAX-RS server, backed by a single OAuth client whose tokens are
+ * issued by a {@link StubTokenEndpoint} and whose requests are proxied to a
+ * {@link StubUpstream}. A {@link LoadGenerator} drives concurrent sessions
+ * against both resources, and the throughput, the latency percentiles, the
+ * calls to the token endpoint and the heap use are reported at the end.
+ *
+ * <p>
+ * Options are given as {@code --name=value} arguments, such as
+ * {@code --sessions=5000 --upstreamLatency=50}. See {@link #main(String[])}
+ * for the available options and their default values. The load generator and
+ * the stubs run in the same JVM as the BFF, so the reported heap use is an
+ * upper bound of the heap used by the BFF alone.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class LoadTest {
+
+	/**
+	 * Runs the load test. The available options are:
+	 *
+	 * <ul>
+	 * <li>
+	 * {@code sessions}: the number of concurrent sessions (2000)
+	 * </li>
+	 * <li>
+	 * {@code duration}: the measured time, in seconds (60)
+	 * </li>
+	 * <li>
+	 * {@code warmup}: the time, in seconds, over which the sessions are
+	 * started, before the measurement (15)
+	 * </li>
+	 * <li>
+	 * {@code thinkTime}: the time, in milliseconds, each session waits between
+	 * two requests (0)
+	 * </li>
+	 * <li>
+	 * {@code tokenRatio}: the fraction of requests sent to the token resource
+	 * (0.05)
+	 * </li>
+	 * <li>
+	 * {@code proxyEngine}: the proxy engine of the client, {@code http2} or
+	 * {@code jaxrs} (http2)
+	 * </li>
+	 * <li>
+	 * {@code maxConcurrentRequests}: the maximum number of concurrent
+	 * downstream requests of the client (200)
+	 * </li>
+	 * <li>
+	 * {@code asyncExecutorThreads} and {@code asyncExecutorQueueSize}: the
+	 * worker threads and queue of the proxy service (64 and 1024)
+	 * </li>
+	 * <li>
+	 * {@code upstreamLatency}, {@code upstreamErrorRate} and
+	 * {@code upstreamBodySize}: the latency in milliseconds, the fraction of
+	 * 503 responses and the body size in bytes of the downstream service (20,
+	 * 0 and 1024)
+	 * </li>
+	 * <li>
+	 * {@code tokenLatency}, {@code tokenErrorRate} and {@code tokenLifetime}:
+	 * the latency in milliseconds, the fraction of 503 responses and the token
+	 * lifetime in seconds of the token endpoint (50, 0 and 60)
+	 * </li>
+	 * </ul>
+	 *
+	 * @param args The options, as {@code --name=value} arguments.
+	 * @throws Exception if the load test cannot be run.
+	 */
+	public static void main(String[] args) throws Exception {
+		// Let the stubs answer without waiting for delayed acknowledgements
+
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+
+		Map<String, String> options = _parseOptions(args);
+
+		int sessions = Integer.parseInt(
+			options.getOrDefault("sessions", "2000"));
+		long duration = Long.parseLong(options.getOrDefault("duration", "60"));
+		long warmup = Long.parseLong(options.getOrDefault("warmup", "15"));
+		long thinkTime = Long.parseLong(
+			options.getOrDefault("thinkTime", "0"));
+		double tokenRatio = Double.parseDouble(
+			options.getOrDefault("tokenRatio", "0.05"));
+
+		try (StubTokenEndpoint stubTokenEndpoint = new StubTokenEndpoint(
+				Long.parseLong(options.getOrDefault("tokenLatency", "50")),
+				Double.parseDouble(
+					options.getOrDefault("tokenErrorRate", "0")),
+				Long.parseLong(options.getOrDefault("tokenLifetime", "60")));
+			StubUpstream stubUpstream = new StubUpstream(
+				Integer.parseInt(
+					options.getOrDefault("upstreamBodySize", "1024")),
+				8,
+				Long.parseLong(options.getOrDefault("upstreamLatency", "20")),
+				Double.parseDouble(
+					options.getOrDefault("upstreamErrorRate", "0")))) {
+
+			OAuthClientManager oAuthClientManager =
+				BenchmarkUtil.createOAuthClient(
+					new HttpTokenService(stubTokenEndpoint.getTokenEndpoint()),
+					Map.of(
+						"clientId", "load-test", "clientName", _CLIENT_NAME,
+						"clientSecret", "secret", "maxConcurrentRequests",
+						Integer.parseInt(
+							options.getOrDefault(
+								"maxConcurrentRequests", "200")),
+						"proxyEngine",
+						options.getOrDefault("proxyEngine", "http2"),
+						"serviceBaseUrl", stubUpstream.getBaseUrl(),
+						"tokenEndpoint", stubTokenEndpoint.getTokenEndpoint()));
+
+			OAuthServiceFactory oAuthServiceFactory = new OAuthServiceFactory();
+
+			BenchmarkUtil.invoke(
+				oAuthServiceFactory, "addOAuthService", oAuthClientManager,
+				Map.of("clientName", _CLIENT_NAME));
+
+			DefaultOAuthProxyService defaultOAuthProxyService =
+				BenchmarkUtil.createProxyService(
+					oAuthServiceFactory,
+					Map.of(
+						"http2", new HttpClientProxyEngine(), "jaxrs",
+						new JaxRsProxyEngine()),
+					Map.of(
+						"asyncExecutorThreads",
+						Integer.parseInt(
+							options.getOrDefault("asyncExecutorThreads", "64")),
+						"asyncExecutorQueueSize",
+						Integer.parseInt(
+							options.getOrDefault(
+								"asyncExecutorQueueSize", "1024"))));
+
+			ProxyResource proxyResource = new ProxyResource();
+
+			BenchmarkUtil.setFieldValue(
+				proxyResource, "_corsPolicyRegistry", new CorsPolicyRegistry());
+			BenchmarkUtil.setFieldValue(
+				proxyResource, "_oAuthServiceFactory", oAuthServiceFactory);
+			BenchmarkUtil.setFieldValue(
+				proxyResource, "_proxyService", defaultOAuthProxyService);
+
+			TokenResource tokenResource = new TokenResource();
+
+			BenchmarkUtil.setFieldValue(
+				tokenResource, "_oAuthServiceFactory", oAuthServiceFactory);
+
+			String address = String.format(
+				"http://127.0.0.1:%d/o/oauth-bff", _getFreePort());
+
+			Server server = _startServer(address, proxyResource, tokenResource);
+
+			try {
+				LoadGenerator loadGenerator = new LoadGenerator(
+					URI.create(
+						address + "/" + _CLIENT_NAME +
+							"/proxy/api/v1/orders/12345?expand=items"),
+					URI.create(address + "/" + _CLIENT_NAME + "/token"),
+					sessions, thinkTime, tokenRatio);
+
+				System.out.printf(
+					"Starting %d sessions against %s over %d s%n", sessions,
+					address, warmup);
+
+				loadGenerator.start(TimeUnit.SECONDS.toMillis(warmup));
+
+				Thread.sleep(TimeUnit.SECONDS.toMillis(warmup));
+
+				System.out.printf("Measuring for %d s%n", duration);
+
+				for (MemoryPoolMXBean memoryPoolMXBean :
+						ManagementFactory.getMemoryPoolMXBeans()) {
+
+					memoryPoolMXBean.resetPeakUsage();
+				}
+
+				long gcCount = _getGCCount();
+				long gcTime = _getGCTime();
+				long tokenEndpointCount = stubTokenEndpoint.getRequestCount();
+				long upstreamCount = stubUpstream.getRequestCount();
+
+				loadGenerator.startRecording();
+
+				Thread.sleep(TimeUnit.SECONDS.toMillis(duration));
+
+				LoadGenerator.Recording recording = loadGenerator.stop();
+
+				_printReport(
+					sessions, recording,
+					stubTokenEndpoint.getRequestCount() - tokenEndpointCount,
+					stubUpstream.getRequestCount() - upstreamCount,
+					_getGCCount() - gcCount, _getGCTime() - gcTime,
+					oAuthClientManager.getMetrics());
+			}
+			finally {
+				server.destroy();
+
+				BusFactory.getDefaultBus(
+				).shutdown(
+					true
+				);
+
+				BenchmarkUtil.invoke(defaultOAuthProxyService, "deactivate");
+
+				oAuthClientManager.deactivate();
+			}
+		}
+	}
+
+	private static String _formatCounts(long[] counts) {
+		StringBuilder sb = new StringBuilder();
+
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == 0) {
+				continue;
+			}
+
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+
+			if (i == 0) {
+				sb.append("error");
+			}
+			else {
+				sb.append(i);
+				sb.append("xx");
+			}
+
+			sb.append(" ");
+			sb.append(counts[i]);
+		}
+
+		return sb.toString();
+	}
+
+	private static long _getFreePort() throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(0)) {
+			return serverSocket.getLocalPort();
+		}
+	}
+
+	private static long _getGCCount() {
+		long count = 0;
+
+		for (GarbageCollectorMXBean garbageCollectorMXBean :
+				ManagementFactory.getGarbageCollectorMXBeans()) {
+
+			count += Math.max(0, garbageCollectorMXBean.getCollectionCount());
+		}
+
+		return count;
+	}
+
+	private static long _getGCTime() {
+		long time = 0;
+
+		for (GarbageCollectorMXBean garbageCollectorMXBean :
+				ManagementFactory.getGarbageCollectorMXBeans()) {
+
+			time += Math.max(0, garbageCollectorMXBean.getCollectionTime());
+		}
+
+		return time;
+	}
+
+	private static long _getPeakHeapUsed() {
+		long used = 0;
+
+		for (MemoryPoolMXBean memoryPoolMXBean :
+				ManagementFactory.getMemoryPoolMXBeans()) {
+
+			if (memoryPoolMXBean.getType() == MemoryType.HEAP) {
+				used += memoryPoolMXBean.getPeakUsage(
+				).getUsed();
+			}
+		}
+
+		return used;
+	}
+
+	private static Map<String, String> _parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<>();
+
+		for (String arg : args) {
+			int index = arg.indexOf('=');
+
+			if (!arg.startsWith("--") || (index < 0)) {
+				throw new IllegalArgumentException(
+					"Options must be given as --name=value: " + arg);
+			}
+
+			options.put(arg.substring(2, index), arg.substring(index + 1));
+		}
+
+		return options;
+	}
+
+	private static void _printLatency(
+		String label, LatencySummary latencySummary) {
+
+		System.out.printf(
+			"  %-22s p50 %.3f, p90 %.3f, p99 %.3f, p999 %.3f, max %.3f ms%n",
+			label, latencySummary.getP50(), latencySummary.getP90(),
+			latencySummary.getP99(), latencySummary.getP999(),
+			latencySummary.getMax());
+	}
+
+	private static void _printReport(
+		int sessions, LoadGenerator.Recording recording,
+		long tokenEndpointCount, long upstreamCount, long gcCount, long gcTime,
+		ClientMetrics clientMetrics) {
+
+		double seconds = recording.getDuration() / 1e9;
+
+		LatencySummary proxyLatency = recording.getProxyLatency();
+		LatencySummary tokenLatency = recording.getTokenLatency();
+
+		System.out.println();
+		System.out.printf("Sessions                 %d%n", sessions);
+		System.out.printf("Duration                 %.1f s%n", seconds);
+		System.out.printf(
+			"Throughput               %.1f requests/s%n",
+			(proxyLatency.getCount() + tokenLatency.getCount()) / seconds);
+		System.out.printf(
+			"Proxy requests           %d (%s)%n", proxyLatency.getCount(),
+			_formatCounts(recording.getProxyCounts()));
+
+		_printLatency("latency", proxyLatency);
+
+		for (Map.Entry<String, LatencySummary> entry :
+				new TreeMap<>(
+					clientMetrics.getUpstreamLatencies()
+				).entrySet()) {
+
+			_printLatency(
+				"downstream " + entry.getKey() + " (BFF)", entry.getValue());
+		}
+
+		System.out.printf(
+			"Token requests           %d (%s)%n", tokenLatency.getCount(),
+			_formatCounts(recording.getTokenCounts()));
+
+		_printLatency("latency", tokenLatency);
+
+		System.out.printf("Token endpoint calls     %d%n", tokenEndpointCount);
+		System.out.printf("Downstream calls         %d%n", upstreamCount);
+
+		long peakHeapUsed = _getPeakHeapUsed();
+
+		System.gc();
+
+		Runtime runtime = Runtime.getRuntime();
+
+		System.out.printf(
+			"Heap                     peak %d MB, after GC %d MB, max %d MB%n",
+			_toMegabytes(peakHeapUsed),
+			_toMegabytes(runtime.totalMemory() - runtime.freeMemory()),
+			_toMegabytes(runtime.maxMemory()));
+		System.out.printf(
+			"GC                       %d collections, %d ms%n", gcCount,
+			gcTime);
+	}
+
+	private static Server _startServer(
+		String address, ProxyResource proxyResource,
+		TokenResource tokenResource) {
+
+		JAXRSServerFactoryBean jaxrsServerFactoryBean =
+			new JAXRSServerFactoryBean();
+
+		jaxrsServerFactoryBean.setAddress(address);
+		jaxrsServerFactoryBean.setServiceBeans(
+			List.of(proxyResource, tokenResource));
+
+		return jaxrsServerFactoryBean.create();
+	}
+
+	private static long _toMegabytes(long bytes) {
+		return bytes / (1024 * 1024);
+	}
+
+	private static final String _CLIENT_NAME = "load-test";
+
+}
@@ -0,0 +1,180 @@
+package io.github.marceltanuri.security.oauth.benchmarks.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-process OAuth 2.0 token endpoint listening on an ephemeral port of the
+ * loopback interface. It answers every client credentials request with a new
+ * JWT access token expiring after a fixed lifetime, after a fixed latency, or,
+ * at the given error rate, with a 503 (Service Unavailable) response.
+ *
+ * @author Marcel Tanuri
+ */
+public class StubTokenEndpoint implements AutoCloseable {
+
+	/**
+	 * Starts a new {@code StubTokenEndpoint}.
+	 *
+	 * @param latency       The time, in milliseconds, to wait before answering
+	 *                      each request.
+	 * @param errorRate     The fraction of requests, between 0 and 1, answered
+	 *                      with a 503 (Service Unavailable) response.
+	 * @param tokenLifetime The lifetime, in seconds, of the issued tokens.
+	 * @throws IOException if the server cannot be started.
+	 */
+	public StubTokenEndpoint(long latency, double errorRate, long tokenLifetime)
+		throws IOException {
+
+		_latency = latency;
+		_errorRate = errorRate;
+		_tokenLifetime = tokenLifetime;
+
+		_executorService = Executors.newCachedThreadPool(
+			runnable -> {
+				Thread thread = new Thread(runnable, "stub-token-endpoint");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_httpServer = HttpServer.create(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+
+		_httpServer.createContext(_PATH, this::_handle);
+		_httpServer.setExecutor(_executorService);
+
+		_httpServer.start();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@Override
+	public void close() {
+		_httpServer.stop(0);
+
+		_executorService.shutdownNow();
+	}
+
+	/**
+	 * Returns the number of token requests received.
+	 *
+	 * @return The request count.
+	 */
+	public long getRequestCount() {
+		return _requestCount.sum();
+	}
+
+	/**
+	 * Returns the URL of the token endpoint.
+	 *
+	 * @return The URL, such as {@code http://127.0.0.1:12345/oauth/token}.
+	 */
+	public String getTokenEndpoint() {
+		InetSocketAddress inetSocketAddress = _httpServer.getAddress();
+
+		return String.format(
+			"http://%s:%d%s",
+			inetSocketAddress.getAddress(
+			).getHostAddress(),
+			inetSocketAddress.getPort(), _PATH);
+	}
+
+	private String _createAccessToken() {
+		Base64.Encoder encoder = Base64.getUrlEncoder(
+		).withoutPadding();
+
+		long exp =
+			TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) +
+				_tokenLifetime;
+
+		String payload = String.format(
+			"{\"sub\":\"load-test\",\"exp\":%d,\"jti\":\"%d\"}", exp,
+			_requestCount.sum());
+
+		return String.join(
+			".",
+			encoder.encodeToString(
+				"{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)),
+			encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)),
+			_SIGNATURE);
+	}
+
+	private void _handle(HttpExchange httpExchange) throws IOException {
+		_requestCount.increment();
+
+		try (InputStream inputStream = httpExchange.getRequestBody()) {
+			inputStream.transferTo(OutputStream.nullOutputStream());
+		}
+
+		if (_latency > 0) {
+			try {
+				Thread.sleep(_latency);
+			}
+			catch (InterruptedException interruptedException) {
+				Thread.currentThread(
+				).interrupt();
+			}
+		}
+
+		if ((_errorRate > 0) &&
+			(ThreadLocalRandom.current(
+			).nextDouble() < _errorRate)) {
+
+			httpExchange.sendResponseHeaders(503, -1);
+
+			httpExchange.close();
+
+			return;
+		}
+
+		byte[] bytes = String.format(
+			"{\"access_token\":\"%s\",\"token_type\":\"Bearer\"," +
+				"\"expires_in\":%d}",
+			_createAccessToken(), _tokenLifetime
+		).getBytes(
+			StandardCharsets.UTF_8
+		);
+
+		httpExchange.getResponseHeaders(
+		).set(
+			"Content-Type", "application/json"
+		);
+
+		httpExchange.sendResponseHeaders(200, bytes.length);
+
+		try (OutputStream outputStream = httpExchange.getResponseBody()) {
+			outputStream.write(bytes);
+		}
+	}
+
+	private static final String _PATH = "/oauth/token";
+
+	private static final String _SIGNATURE = "c2lnbmF0dXJl";
+
+	private final double _errorRate;
+	private final ExecutorService _executorService;
+	private final HttpServer _httpServer;
+	private final long _latency;
+	private final LongAdder _requestCount = new LongAdder();
+	private final long _tokenLifetime;
+
+}
@@ -1,5 +1,8 @@
 package io.github.marceltanuri.security.oauth.bff;
 
+import io.github.marceltanuri.security.oauth.bff.metrics.MetricsResource;
+import io.github.marceltanuri.security.oauth.bff.proxy.BatchResource;
+import io.github.marceltanuri.security.oauth.bff.proxy.CompositionResource;
 import io.github.marceltanuri.security.oauth.bff.proxy.ProxyResource;
 import io.github.marceltanuri.security.oauth.bff.token.TokenResource;
 
@@ -29,7 +32,9 @@ public class OAuthBffApplication extends Application {
 
 	/**
 	 * Returns the set of resource classes for the application. This includes
-	 * the {@link ProxyResource} and {@link TokenResource} classes.
+	 * the {@link BatchResource}, {@link CompositionResource}, {@link
+	 * MetricsResource}, {@link ProxyResource} and {@link TokenResource}
+	 * classes.
 	 *
 	 * @return A {@link Set} of resource classes.
 	 */
@@ -37,6 +42,9 @@ public class OAuthBffApplication extends Application {
 	public Set<Class<?>> getClasses() {
 		Set<Class<?>> classes = new HashSet<>();
 
+		classes.add(BatchResource.class);
+		classes.add(CompositionResource.class);
+		classes.add(MetricsResource.class);
 		classes.add(ProxyResource.class);
 		classes.add(TokenResource.class);
 
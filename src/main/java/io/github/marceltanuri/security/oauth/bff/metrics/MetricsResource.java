@@ -0,0 +1,117 @@
+package io.github.marceltanuri.security.oauth.bff.metrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marceltanuri.security.oauth.client.AccessTokenCache;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+import io.github.marceltanuri.security.oauth.metrics.ResponseCacheSummary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * JAX-RS resource class that exposes the {@link ClientMetrics} of each OAuth
+ * client as JSON: the request and token counters, and the latency percentiles
+ * of token acquisition, of the downstream round trip and of the whole request,
+ * by response status class, and the statistics of the response cache. The
+ * same metrics are available through JMX.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(
+	immediate = true,
+	property = {
+		"osgi.jaxrs.application.select=(osgi.jaxrs.name=OAuthBff.Rest)",
+		"osgi.jaxrs.resource=true"
+	},
+	service = MetricsResource.class
+)
+public class MetricsResource {
+
+	/**
+	 * Retrieves the metrics of a specified client.
+	 *
+	 * @param clientName The name of the client configuration, passed as a path
+	 *                   parameter.
+	 * @return A {@link Response} containing the metrics as JSON with a 200 (OK)
+	 *         status, or a 404 (Not Found) response if the client
+	 *         configuration is not found.
+	 * @throws JsonProcessingException if the metrics cannot be serialized.
+	 */
+	@GET
+	@Path("/{clientName}/metrics")
+	@Produces(MediaType.APPLICATION_JSON)
+	public Response getMetrics(@PathParam("clientName") String clientName)
+		throws JsonProcessingException {
+
+		OAuthClient oAuthService = _oAuthServiceFactory.getOAuthClient(
+			clientName);
+
+		if (oAuthService == null) {
+			return Response.status(
+				Response.Status.NOT_FOUND
+			).entity(
+				"OAuth client configuration not found for: " + clientName
+			).type(
+				MediaType.TEXT_PLAIN
+			).build();
+		}
+
+		ClientMetrics clientMetrics = oAuthService.getMetrics();
+
+		AccessTokenCache accessTokenCache = oAuthService.getAccessTokenCache();
+
+		Map<String, Object> token = new LinkedHashMap<>();
+
+		token.put("failureCount", clientMetrics.getTokenFailureCount());
+		token.put("fetchCount", accessTokenCache.getFetchCount());
+		token.put("hitCount", accessTokenCache.getHitCount());
+		token.put("latency", clientMetrics.getTokenLatency());
+		token.put("missCount", accessTokenCache.getMissCount());
+		token.put("refreshCount", accessTokenCache.getRefreshCount());
+
+		Map<String, Object> metrics = new LinkedHashMap<>();
+
+		metrics.put("clientName", oAuthService.getClientName());
+		metrics.put(
+			"coalescedRequestCount", clientMetrics.getCoalescedRequestCount());
+		metrics.put("requestCount", clientMetrics.getRequestCount());
+		metrics.put("requestLatencies", clientMetrics.getRequestLatencies());
+
+		ResponseCacheSummary responseCacheSummary =
+			clientMetrics.getResponseCache();
+
+		if (responseCacheSummary != null) {
+			metrics.put("responseCache", responseCacheSummary);
+		}
+
+		metrics.put("token", token);
+		metrics.put("upstreamLatencies", clientMetrics.getUpstreamLatencies());
+		metrics.put(
+			"virtualThreadRequestCount",
+			clientMetrics.getVirtualThreadRequestCount());
+
+		return Response.ok(
+			_objectMapper.writeValueAsString(metrics)
+		).build();
+	}
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	@Reference
+	private OAuthServiceFactory _oAuthServiceFactory;
+
+}
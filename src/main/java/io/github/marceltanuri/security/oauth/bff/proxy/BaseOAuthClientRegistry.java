@@ -0,0 +1,196 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+
+/**
+ * The base class of the OSGi components that keep one
+ * {@link OAuthClientScoped} object for each {@link OAuthClient} registered in
+ * the OSGi service registry, keyed by client name. An object is built on
+ * first use, or when its client is registered if the subclass prepares it
+ * then, replaced once the client or its settings change, and discarded when
+ * the client is unregistered.
+ *
+ * @author Marcel Tanuri
+ */
+public abstract class BaseOAuthClientRegistry<T extends OAuthClientScoped> {
+
+	/**
+	 * Retrieves the object of the given OAuth client, building it if it does
+	 * not exist yet or was built for another client or other settings.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} whose object to retrieve.
+	 * @return The object of the OAuth client.
+	 */
+	public T get(OAuthClient oAuthClient) {
+		T value = _values.get(oAuthClient.getClientName());
+
+		if (_isCurrent(value, oAuthClient)) {
+			return value;
+		}
+
+		return _values.compute(
+			oAuthClient.getClientName(),
+			(clientName, currentValue) -> {
+				if (_isCurrent(currentValue, oAuthClient)) {
+					return currentValue;
+				}
+
+				if (currentValue != null) {
+					discard(currentValue);
+				}
+
+				return create(oAuthClient);
+			});
+	}
+
+	/**
+	 * A dynamic OSGi lifecycle method called when a new {@link OAuthClient}
+	 * service is registered. It prepares the object of the client.
+	 *
+	 * @param service    The {@link OAuthClient} service being registered.
+	 * @param properties The service's registration properties.
+	 */
+	@Reference(
+		cardinality = ReferenceCardinality.MULTIPLE,
+		policy = ReferencePolicy.DYNAMIC, target = "(clientName=*)"
+	)
+	protected void addOAuthClient(
+		OAuthClient service, Map<String, Object> properties) {
+
+		prepare(service);
+	}
+
+	/**
+	 * Builds the object of the given OAuth client from its current settings.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} to build the object for.
+	 * @return The object of the OAuth client.
+	 */
+	protected abstract T create(OAuthClient oAuthClient);
+
+	/**
+	 * Deactivates the component, discarding every object.
+	 */
+	@Deactivate
+	protected void deactivate() {
+		_values.values(
+		).forEach(
+			this::discard
+		);
+
+		_values.clear();
+	}
+
+	/**
+	 * Releases the resources of an object that was replaced or whose client
+	 * was unregistered. It does nothing by default.
+	 *
+	 * @param value The object being discarded.
+	 */
+	protected void discard(T value) {
+	}
+
+	/**
+	 * Returns the object of the client with the given name, without building
+	 * it.
+	 *
+	 * @param clientName The name of the client.
+	 * @return The object of the client, or {@code null} if it was not built
+	 *         yet.
+	 */
+	protected T getValue(String clientName) {
+		return _values.get(clientName);
+	}
+
+	/**
+	 * Returns the objects of every client.
+	 *
+	 * @return An unmodifiable view of the objects.
+	 */
+	protected Collection<T> getValues() {
+		return Collections.unmodifiableCollection(_values.values());
+	}
+
+	/**
+	 * Prepares the object of a client that was registered or updated. It does
+	 * nothing by default, leaving the object to be built on first use.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} being registered or updated.
+	 */
+	protected void prepare(OAuthClient oAuthClient) {
+	}
+
+	/**
+	 * A dynamic OSGi lifecycle method called when an {@link OAuthClient}
+	 * service is unregistered. It discards the object of the client.
+	 *
+	 * @param service    The {@link OAuthClient} service being unregistered.
+	 * @param properties The service's registration properties.
+	 */
+	protected void removeOAuthClient(
+		OAuthClient service, Map<String, Object> properties) {
+
+		_remove((String)properties.get("clientName"), service);
+	}
+
+	/**
+	 * A dynamic OSGi lifecycle method called when the registration properties
+	 * of an {@link OAuthClient} service change, such as when its configuration
+	 * is modified. It discards the objects kept under the other names of the
+	 * client and prepares the object of the client again. An object built
+	 * from outdated settings is replaced on its next use.
+	 *
+	 * @param service    The {@link OAuthClient} service being updated.
+	 * @param properties The service's new registration properties.
+	 */
+	protected void updatedOAuthClient(
+		OAuthClient service, Map<String, Object> properties) {
+
+		String clientName = (String)properties.get("clientName");
+
+		for (String key : _values.keySet()) {
+			if (!key.equals(clientName)) {
+				_remove(key, service);
+			}
+		}
+
+		prepare(service);
+	}
+
+	private boolean _isCurrent(T value, OAuthClient oAuthClient) {
+		if ((value != null) && (value.getOAuthClient() == oAuthClient) &&
+			(value.getSettings() == oAuthClient.getSettings())) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private void _remove(String clientName, OAuthClient service) {
+		_values.computeIfPresent(
+			clientName,
+			(key, value) -> {
+				if (value.getOAuthClient() != service) {
+					return value;
+				}
+
+				discard(value);
+
+				return null;
+			});
+	}
+
+	private final Map<String, T> _values = new ConcurrentHashMap<>();
+
+}
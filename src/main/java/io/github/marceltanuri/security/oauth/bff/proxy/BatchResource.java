@@ -0,0 +1,547 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.OPTIONS;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * JAX-RS resource class that exposes the batch endpoint of the proxy. A batch
+ * request carries a JSON array of sub-requests for the same client, each with
+ * a method, a path and, optionally, an id, a query string, conditional
+ * request headers and a body. The results carry the response header names in
+ * lower case. The sub-requests are executed in parallel through the {@link
+ * ProxyService}, with the concurrency limited by the client's settings and
+ * one access token shared by all of them, and their statuses, headers and
+ * bodies are returned in a single response.
+ *
+ * <p>
+ * The request is suspended while the sub-requests run, so no container thread
+ * waits for them. By default, the response is a JSON array in the order of
+ * the sub-requests, written once all of them are completed. Callers accepting
+ * {@code application/x-ndjson} get one JSON object per line instead, written
+ * as soon as each sub-request completes, so a slow sub-request does not hold
+ * back the others.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+@Component(
+	immediate = true,
+	property = {
+		"osgi.jaxrs.application.select=(osgi.jaxrs.name=OAuthBff.Rest)",
+		"osgi.jaxrs.resource=true"
+	},
+	service = BatchResource.class
+)
+public class BatchResource {
+
+	/**
+	 * Handles HTTP OPTIONS requests for the batch endpoint locally, answering
+	 * CORS preflight requests from the {@link CorsPolicy} of the client.
+	 *
+	 * @param clientName  The name of the client configuration to use, extracted
+	 *                    from the path.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    CORS request headers.
+	 * @return The {@link Response} to the OPTIONS request.
+	 */
+	@OPTIONS
+	@Path(_BATCH_PATH)
+	public Response batchOptionsRequest(
+		@PathParam("clientName") String clientName,
+		@Context HttpHeaders httpHeaders) {
+
+		OAuthClient oAuthClient = _oAuthServiceFactory.getOAuthClient(
+			clientName);
+
+		if (oAuthClient == null) {
+			return _notFound(clientName);
+		}
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+		String requestMethod = httpHeaders.getHeaderString(
+			"Access-Control-Request-Method");
+
+		if ((origin == null) || (requestMethod == null)) {
+			return Response.noContent(
+			).header(
+				HttpHeaders.ALLOW, "OPTIONS, POST"
+			).build();
+		}
+
+		CorsPolicy corsPolicy = _corsPolicyRegistry.get(oAuthClient);
+
+		return corsPolicy.preflight(
+			origin, requestMethod,
+			httpHeaders.getHeaderString("Access-Control-Request-Headers"));
+	}
+
+	/**
+	 * Handles HTTP POST requests for the batch endpoint, executing the
+	 * sub-requests of the batch and resuming the suspended request once
+	 * their results can be written without waiting. The JSON array is
+	 * written when every result is available. Newline-delimited JSON is
+	 * resumed with the first result, and the thread writing the response then
+	 * waits for each of the others as it completes, which is the price of
+	 * delivering results incrementally.
+	 *
+	 * @param clientName    The name of the client configuration to use,
+	 *                      extracted from the path.
+	 * @param requestBody   The JSON array of sub-requests.
+	 * @param httpHeaders   The {@link HttpHeaders} context, used to extract
+	 *                      the declared length of the body, the accepted
+	 *                      media types and the origin of the request.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with a response
+	 *                      streaming the results of the sub-requests with a
+	 *                      200 (OK) status, a 400 (Bad Request) response if
+	 *                      the batch is invalid or has too many
+	 *                      sub-requests, a 413 (Payload Too Large) response
+	 *                      if its body exceeds the client's {@code
+	 *                      batchMaxRequestSize}, or a 404 (Not Found)
+	 *                      response if the client configuration is not
+	 *                      found.
+	 */
+	@Consumes(MediaType.WILDCARD)
+	@POST
+	@Path(_BATCH_PATH)
+	@Produces({MediaType.APPLICATION_JSON, _APPLICATION_NDJSON})
+	public void executeBatchRequest(
+		@PathParam("clientName") String clientName, InputStream requestBody,
+		@Context HttpHeaders httpHeaders,
+		@Suspended AsyncResponse asyncResponse) {
+
+		OAuthClient oAuthClient = _oAuthServiceFactory.getOAuthClient(
+			clientName);
+
+		if (oAuthClient == null) {
+			asyncResponse.resume(_notFound(clientName));
+
+			return;
+		}
+
+		OAuthClientSettings settings = oAuthClient.getSettings();
+
+		List<JsonNode> ids = new ArrayList<>();
+		List<ProxyRequestContext> contexts = new ArrayList<>();
+
+		try {
+			byte[] bytes = SubRequests.readRequestBody(
+				requestBody, httpHeaders.getLength(),
+				settings.batchMaxRequestSize());
+
+			if (bytes == null) {
+				asyncResponse.resume(
+					_payloadTooLarge(
+						String.format(
+							"A batch cannot be larger than %d bytes",
+							settings.batchMaxRequestSize())));
+
+				return;
+			}
+
+			_parse(
+				clientName, _objectMapper.readTree(bytes), settings, ids,
+				contexts);
+		}
+		catch (IllegalArgumentException illegalArgumentException) {
+			asyncResponse.resume(
+				_badRequest(illegalArgumentException.getMessage()));
+
+			return;
+		}
+		catch (JsonProcessingException jsonProcessingException) {
+			JsonLocation jsonLocation =
+				jsonProcessingException.getLocation();
+
+			if (jsonLocation == null) {
+				asyncResponse.resume(
+					_badRequest("A batch must be valid JSON"));
+
+				return;
+			}
+
+			asyncResponse.resume(
+				_badRequest(
+					String.format(
+						"A batch must be valid JSON (line %d, column %d)",
+						jsonLocation.getLineNr(), jsonLocation.getColumnNr())));
+
+			return;
+		}
+		catch (IOException ioException) {
+			asyncResponse.resume(
+				_badRequest("Invalid batch: " + ioException.getMessage()));
+
+			return;
+		}
+
+		List<CompletionStage<Response>> completionStages =
+			_proxyService.executeProxyRequestsAsync(
+				contexts, settings.batchMaxConcurrency());
+
+		List<CompletableFuture<byte[]>> completableFutures = new ArrayList<>(
+			completionStages.size());
+
+		for (int i = 0; i < completionStages.size(); i++) {
+			JsonNode id = ids.get(i);
+
+			if (id.isMissingNode()) {
+				id = IntNode.valueOf(i);
+			}
+
+			completableFutures.add(
+				_toResult(
+					id, contexts.get(i), completionStages.get(i),
+					settings.batchMaxResponseSize()
+				).toCompletableFuture());
+		}
+
+		CompletableFuture<?>[] completableFuturesArray =
+			completableFutures.toArray(new CompletableFuture<?>[0]);
+
+		Response.ResponseBuilder responseBuilder;
+		CompletableFuture<?> readyCompletableFuture;
+
+		if (_acceptsNdjson(httpHeaders)) {
+			responseBuilder = Response.ok(
+				_writeLines(completableFutures), _APPLICATION_NDJSON);
+
+			readyCompletableFuture = CompletableFuture.anyOf(
+				completableFuturesArray);
+		}
+		else {
+			responseBuilder = Response.ok(
+				_writeArray(completableFutures), MediaType.APPLICATION_JSON);
+
+			readyCompletableFuture = CompletableFuture.allOf(
+				completableFuturesArray);
+		}
+
+		if (completableFuturesArray.length == 0) {
+			readyCompletableFuture = CompletableFuture.completedFuture(null);
+		}
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+
+		readyCompletableFuture.whenComplete(
+			(result, throwable) -> {
+				Response response = responseBuilder.build();
+
+				if (origin != null) {
+					response = _corsPolicyRegistry.get(
+						oAuthClient
+					).apply(
+						response, origin
+					);
+				}
+
+				asyncResponse.resume(response);
+			});
+	}
+
+	/**
+	 * Returns whether the caller explicitly accepts newline-delimited JSON.
+	 *
+	 * @param httpHeaders The JAX-RS {@link HttpHeaders} context.
+	 * @return {@code true} if the results are written one per line.
+	 */
+	private boolean _acceptsNdjson(HttpHeaders httpHeaders) {
+		for (MediaType mediaType : httpHeaders.getAcceptableMediaTypes()) {
+			if (!mediaType.isWildcardType() && !mediaType.isWildcardSubtype() &&
+				mediaType.isCompatible(_APPLICATION_NDJSON_TYPE)) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Creates a bad request response with the given message.
+	 *
+	 * @param message The reason the batch is rejected.
+	 * @return A 400 (Bad Request) {@link Response}.
+	 */
+	private Response _badRequest(String message) {
+		return Response.status(
+			Response.Status.BAD_REQUEST
+		).entity(
+			message
+		).type(
+			MediaType.TEXT_PLAIN
+		).build();
+	}
+
+	/**
+	 * Creates the not found response returned for an unknown client.
+	 *
+	 * @param clientName The name of the client.
+	 * @return A 404 (Not Found) {@link Response}.
+	 */
+	private Response _notFound(String clientName) {
+		return Response.status(
+			Response.Status.NOT_FOUND
+		).entity(
+			"OAuth client configuration not found for: " + clientName
+		).type(
+			MediaType.TEXT_PLAIN
+		).build();
+	}
+
+	/**
+	 * Creates the response rejecting a batch whose body is too large.
+	 *
+	 * @param message The reason the batch is rejected.
+	 * @return A 413 (Payload Too Large) {@link Response}.
+	 */
+	private Response _payloadTooLarge(String message) {
+		return Response.status(
+			Response.Status.REQUEST_ENTITY_TOO_LARGE
+		).entity(
+			message
+		).type(
+			MediaType.TEXT_PLAIN
+		).build();
+	}
+
+	/**
+	 * Parses a batch into the ids and the {@link ProxyRequestContext}s of its
+	 * sub-requests.
+	 *
+	 * @param clientName The name of the client of the batch.
+	 * @param jsonNode   The batch.
+	 * @param settings   The {@link OAuthClientSettings} of the client.
+	 * @param ids        The list the ids of the sub-requests are added to,
+	 *                   missing nodes for sub-requests without one.
+	 * @param contexts   The list the contexts of the sub-requests are added
+	 *                   to.
+	 * @throws IllegalArgumentException if the batch is invalid or too large.
+	 * @throws JsonProcessingException  if the body of a sub-request cannot be
+	 *                                  serialized.
+	 */
+	private void _parse(
+			String clientName, JsonNode jsonNode, OAuthClientSettings settings,
+			List<JsonNode> ids, List<ProxyRequestContext> contexts)
+		throws JsonProcessingException {
+
+		if ((jsonNode == null) || !jsonNode.isArray()) {
+			throw new IllegalArgumentException("A batch must be a JSON array");
+		}
+
+		if (jsonNode.size() > settings.batchMaxRequests()) {
+			throw new IllegalArgumentException(
+				String.format(
+					"A batch cannot have more than %d requests",
+					settings.batchMaxRequests()));
+		}
+
+		for (int i = 0; i < jsonNode.size(); i++) {
+			JsonNode requestJsonNode = jsonNode.get(i);
+
+			ids.add(requestJsonNode.path("id"));
+
+			contexts.add(
+				SubRequests.createContext(clientName, requestJsonNode));
+		}
+	}
+
+	/**
+	 * Returns the stage completed with the serialized result of a
+	 * sub-request. The body is read on the thread completing the sub-request,
+	 * so the downstream connection is released as soon as possible. A
+	 * sub-request that fails unexpectedly gets a result with a 500 (Internal
+	 * Server Error) status, so the other results are still returned.
+	 *
+	 * @param id              The id of the sub-request, or its index if it
+	 *                        has none.
+	 * @param context         The {@link ProxyRequestContext} of the
+	 *                        sub-request.
+	 * @param completionStage The stage of the sub-request.
+	 * @param maxSize         The maximum size, in bytes, of the response body
+	 *                        of the sub-request.
+	 * @return The stage completed with the result, as a JSON object.
+	 */
+	private CompletionStage<byte[]> _toResult(
+		JsonNode id, ProxyRequestContext context,
+		CompletionStage<Response> completionStage, long maxSize) {
+
+		return completionStage.handle(
+			(response, throwable) -> {
+				ObjectNode objectNode = _objectMapper.createObjectNode();
+
+				objectNode.set("id", id);
+
+				if (throwable == null) {
+					try {
+						objectNode.setAll(
+							SubRequests.toObjectNode(response, maxSize));
+
+						return _objectMapper.writeValueAsBytes(objectNode);
+					}
+					catch (IOException ioException) {
+						throwable = ioException;
+					}
+				}
+
+				_log.error(
+					String.format(
+						"Error executing batch request (%s) for client %s",
+						context.getMethodHandler(
+						).name(),
+						context.getClientName()),
+					throwable);
+
+				objectNode.setAll(
+					SubRequests.toObjectNode(
+						Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+						"Error proxying request: " + throwable.getMessage()));
+
+				return objectNode.toString(
+				).getBytes(
+					StandardCharsets.UTF_8
+				);
+			});
+	}
+
+	/**
+	 * Returns the body writing the results of the sub-requests as a JSON
+	 * array, in the order of the sub-requests. It is only written once every
+	 * result is available.
+	 *
+	 * @param completableFutures The results of the sub-requests, in order.
+	 * @return The {@link StreamingOutput} writing the array.
+	 */
+	private StreamingOutput _writeArray(
+		List<CompletableFuture<byte[]>> completableFutures) {
+
+		return outputStream -> {
+			outputStream.write('[');
+
+			for (int i = 0; i < completableFutures.size(); i++) {
+				if (i > 0) {
+					outputStream.write(',');
+				}
+
+				CompletableFuture<byte[]> completableFuture =
+					completableFutures.get(i);
+
+				outputStream.write(completableFuture.join());
+			}
+
+			outputStream.write(']');
+		};
+	}
+
+	/**
+	 * Returns the body writing the results of the sub-requests as
+	 * newline-delimited JSON, in the order the sub-requests complete,
+	 * flushing each result as soon as it is available. The writing thread
+	 * waits for the results that are not available yet.
+	 *
+	 * @param completableFutures The results of the sub-requests.
+	 * @return The {@link StreamingOutput} writing the lines.
+	 */
+	private StreamingOutput _writeLines(
+		List<CompletableFuture<byte[]>> completableFutures) {
+
+		BlockingQueue<byte[]> results = new LinkedBlockingQueue<>();
+
+		for (CompletableFuture<byte[]> completableFuture : completableFutures) {
+			completableFuture.thenAccept(results::add);
+		}
+
+		return outputStream -> {
+			for (int i = 0; i < completableFutures.size(); i++) {
+				try {
+					_writeLine(outputStream, results.take());
+				}
+				catch (InterruptedException interruptedException) {
+					Thread.currentThread(
+					).interrupt();
+
+					throw new IOException(interruptedException);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Writes a result followed by a new line and flushes it to the caller.
+	 *
+	 * @param outputStream The output stream of the batch response.
+	 * @param bytes        The result.
+	 * @throws IOException if writing the result fails.
+	 */
+	private void _writeLine(OutputStream outputStream, byte[] bytes)
+		throws IOException {
+
+		outputStream.write(bytes);
+		outputStream.write('\n');
+		outputStream.flush();
+	}
+
+	private static final String _APPLICATION_NDJSON = "application/x-ndjson";
+
+	private static final MediaType _APPLICATION_NDJSON_TYPE =
+		MediaType.valueOf(_APPLICATION_NDJSON);
+
+	private static final String _BATCH_PATH = "/{clientName}/batch";
+
+	private static final String _ORIGIN = "Origin";
+
+	private static final Log _log = LogFactoryUtil.getLog(BatchResource.class);
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	@Reference
+	private CorsPolicyRegistry _corsPolicyRegistry;
+
+	@Reference
+	private OAuthServiceFactory _oAuthServiceFactory;
+
+	@Reference
+	private ProxyService _proxyService;
+
+}
@@ -0,0 +1,566 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A downstream response stored in a {@link ResponseCache}. It holds the
+ * status, headers and body of the response, together with its freshness
+ * lifetime and the request header values it was selected by, as listed in
+ * its {@code Vary} header.
+ *
+ * <p>
+ * The proxy acts as a shared cache, so only responses the downstream service
+ * explicitly marks as fresh through {@code Cache-Control: s-maxage},
+ * {@code Cache-Control: max-age} or {@code Expires}, or that carry an
+ * {@code ETag} or a {@code Last-Modified} validator, are stored. Responses
+ * marked {@code no-store} or {@code private}, responses setting cookies and
+ * responses varying on {@code *} are never stored. Since every proxied
+ * request is authorized, responses must also be marked {@code public},
+ * {@code s-maxage} or {@code must-revalidate}, as RFC 9111 requires of a
+ * shared cache, unless the route opts out of that check.
+ * </p>
+ *
+ * <p>
+ * Stale responses, including those marked {@code no-cache}, are revalidated
+ * with a conditional request and refreshed from a 304 (Not Modified)
+ * response instead of being fetched again.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class CachedResponse {
+
+	/**
+	 * Returns the freshness lifetime of a downstream response.
+	 *
+	 * @param headers The headers of the response, keyed case-insensitively.
+	 * @return The remaining freshness lifetime, in seconds, taking the
+	 *         {@code Age} of the response into account, or {@code 0} if the
+	 *         response is stale or must be revalidated before each use.
+	 */
+	public static long getFreshnessLifetime(Map<String, List<String>> headers) {
+		Map<String, String> directives = _getCacheControlDirectives(headers);
+
+		if (directives.containsKey("no-cache")) {
+			return 0;
+		}
+
+		long freshnessLifetime = _getSeconds(directives.get("s-maxage"));
+
+		if (freshnessLifetime < 0) {
+			freshnessLifetime = _getSeconds(directives.get("max-age"));
+		}
+
+		if (freshnessLifetime < 0) {
+			freshnessLifetime = _getExpiresLifetime(headers);
+		}
+
+		long age = Math.max(0, _getSeconds(_getHeaderString(headers, "Age")));
+
+		return Math.max(0, freshnessLifetime - age);
+	}
+
+	/**
+	 * Returns whether a downstream response may be stored in a shared cache,
+	 * either because it is fresh or because it can be revalidated. A response
+	 * to an authorized request is only stored if it is marked {@code public},
+	 * {@code s-maxage} or {@code must-revalidate}, as required by RFC 9111.
+	 *
+	 * @param status     The HTTP status code of the response.
+	 * @param headers    The headers of the response, keyed
+	 *                   case-insensitively.
+	 * @param authorized Whether the request carried an {@code Authorization}
+	 *                   header the response may depend on.
+	 * @return {@code true} if the response may be stored.
+	 */
+	public static boolean isStorable(
+		int status, Map<String, List<String>> headers, boolean authorized) {
+
+		if (!_CACHEABLE_STATUSES.contains(status) ||
+			headers.containsKey("Set-Cookie")) {
+
+			return false;
+		}
+
+		Map<String, String> directives = _getCacheControlDirectives(headers);
+
+		if (directives.containsKey("no-store") ||
+			directives.containsKey("private")) {
+
+			return false;
+		}
+
+		if (authorized && !directives.containsKey("must-revalidate") &&
+			!directives.containsKey("public") &&
+			!directives.containsKey("s-maxage")) {
+
+			return false;
+		}
+
+		for (String name : _getVaryHeaderNames(headers)) {
+			if (name.equals("*")) {
+				return false;
+			}
+		}
+
+		if ((getFreshnessLifetime(headers) > 0) ||
+			headers.containsKey("ETag") ||
+			headers.containsKey("Last-Modified")) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether a response with the given headers satisfies the
+	 * validators of a conditional GET request, so that a 304 (Not Modified)
+	 * response can be returned instead. {@code If-None-Match} takes
+	 * precedence over {@code If-Modified-Since}, as required by RFC 9110.
+	 *
+	 * @param headers         The headers of the response, keyed
+	 *                        case-insensitively.
+	 * @param ifNoneMatch     The {@code If-None-Match} request header, or
+	 *                        {@code null} if absent.
+	 * @param ifModifiedSince The {@code If-Modified-Since} request header, or
+	 *                        {@code null} if absent.
+	 * @return {@code true} if the caller already holds the current
+	 *         representation.
+	 */
+	public static boolean isNotModified(
+		Map<String, List<String>> headers, String ifNoneMatch,
+		String ifModifiedSince) {
+
+		if (ifNoneMatch != null) {
+			String eTag = _getHeaderString(headers, "ETag");
+
+			if (eTag == null) {
+				return false;
+			}
+
+			eTag = _getOpaqueTag(eTag);
+
+			for (String entityTag : ifNoneMatch.split(",")) {
+				entityTag = entityTag.trim();
+
+				if (entityTag.equals("*") ||
+					eTag.equals(_getOpaqueTag(entityTag))) {
+
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		if (ifModifiedSince == null) {
+			return false;
+		}
+
+		ZonedDateTime lastModifiedZonedDateTime = _parseDate(
+			_getHeaderString(headers, "Last-Modified"));
+		ZonedDateTime ifModifiedSinceZonedDateTime = _parseDate(
+			ifModifiedSince);
+
+		if ((lastModifiedZonedDateTime == null) ||
+			(ifModifiedSinceZonedDateTime == null)) {
+
+			return false;
+		}
+
+		return !lastModifiedZonedDateTime.isAfter(ifModifiedSinceZonedDateTime);
+	}
+
+	/**
+	 * Constructs a new {@code CachedResponse}.
+	 *
+	 * @param status            The HTTP status code of the response.
+	 * @param headers           The headers of the response, keyed
+	 *                          case-insensitively.
+	 * @param body              The body of the response.
+	 * @param freshnessLifetime The remaining freshness lifetime of the
+	 *                          response, in seconds, as returned by
+	 *                          {@link #getFreshnessLifetime(Map)}.
+	 * @param requestHeaders    The function resolving the values of the
+	 *                          request headers sent downstream.
+	 */
+	public CachedResponse(
+		int status, Map<String, List<String>> headers, byte[] body,
+		long freshnessLifetime, Function<String, String> requestHeaders) {
+
+		Map<String, List<String>> cachedHeaders = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+		long size = _ENTRY_OVERHEAD + body.length;
+
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String name = entry.getKey();
+
+			if (name.equalsIgnoreCase("Age")) {
+				continue;
+			}
+
+			List<String> values = new ArrayList<>(entry.getValue());
+
+			for (String value : values) {
+				size += 2 * (name.length() + value.length());
+			}
+
+			cachedHeaders.put(name, Collections.unmodifiableList(values));
+		}
+
+		Map<String, String> varyHeaderValues = new HashMap<>();
+
+		for (String name : _getVaryHeaderNames(headers)) {
+			varyHeaderValues.put(name, requestHeaders.apply(name));
+		}
+
+		_status = status;
+		_headers = Collections.unmodifiableMap(cachedHeaders);
+		_body = body;
+		_varyHeaderValues = varyHeaderValues;
+		_size = size;
+
+		_initialAge = Math.max(
+			0, _getSeconds(_getHeaderString(headers, "Age")));
+		_storedTime = System.nanoTime();
+		_expirationTime =
+			_storedTime + TimeUnit.SECONDS.toNanos(freshnessLifetime);
+	}
+
+	/**
+	 * Returns the age of the response, which is the age it was received with
+	 * plus the time it has spent in the cache.
+	 *
+	 * @param now The current {@link System#nanoTime()}.
+	 * @return The age of the response, in seconds.
+	 */
+	public long getAge(long now) {
+		return _initialAge + TimeUnit.NANOSECONDS.toSeconds(now - _storedTime);
+	}
+
+	/**
+	 * Returns the body of the response.
+	 *
+	 * @return The body.
+	 */
+	public byte[] getBody() {
+		return _body;
+	}
+
+	/**
+	 * Returns the headers of the response, keyed case-insensitively and
+	 * without its {@code Age} header.
+	 *
+	 * @return An unmodifiable map of the response headers.
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return _headers;
+	}
+
+	/**
+	 * Returns the first value of the given header.
+	 *
+	 * @param name The name of the header.
+	 * @return The first value of the header, or {@code null} if not present.
+	 */
+	public String getHeaderString(String name) {
+		return _getHeaderString(_headers, name);
+	}
+
+	/**
+	 * Returns the approximate memory used by the response.
+	 *
+	 * @return The size, in bytes.
+	 */
+	public long getSize() {
+		return _size;
+	}
+
+	/**
+	 * Returns the HTTP status code of the response.
+	 *
+	 * @return The status code.
+	 */
+	public int getStatus() {
+		return _status;
+	}
+
+	/**
+	 * Returns whether the response carries a validator, an {@code ETag} or a
+	 * {@code Last-Modified} header, that allows revalidating it with a
+	 * conditional request once it is stale.
+	 *
+	 * @return {@code true} if the response can be revalidated.
+	 */
+	public boolean hasValidators() {
+		if (_headers.containsKey("ETag") ||
+			_headers.containsKey("Last-Modified")) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the response is still fresh.
+	 *
+	 * @param now The current {@link System#nanoTime()}.
+	 * @return {@code true} if the response may be served without contacting
+	 *         the downstream service.
+	 */
+	public boolean isFresh(long now) {
+		if ((now - _expirationTime) < 0) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the response satisfies the validators of a conditional
+	 * GET request.
+	 *
+	 * @param ifNoneMatch     The {@code If-None-Match} request header, or
+	 *                        {@code null} if absent.
+	 * @param ifModifiedSince The {@code If-Modified-Since} request header, or
+	 *                        {@code null} if absent.
+	 * @return {@code true} if the caller already holds the response.
+	 * @see    #isNotModified(Map, String, String)
+	 */
+	public boolean isNotModified(String ifNoneMatch, String ifModifiedSince) {
+		return isNotModified(_headers, ifNoneMatch, ifModifiedSince);
+	}
+
+	/**
+	 * Returns whether the response was selected by the same request header
+	 * values as the given request, as listed in its {@code Vary} header.
+	 *
+	 * @param requestHeaders The function resolving the values of the request
+	 *                       headers sent downstream.
+	 * @return {@code true} if the response may be served for the request.
+	 */
+	public boolean matches(Function<String, String> requestHeaders) {
+		for (Map.Entry<String, String> entry : _varyHeaderValues.entrySet()) {
+			if (!Objects.equals(
+					entry.getValue(), requestHeaders.apply(entry.getKey()))) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns a copy of this response refreshed with the headers of a 304
+	 * (Not Modified) response to a conditional request, as described in RFC
+	 * 9111, section 4.3.4. The body is kept, and the freshness lifetime is
+	 * recomputed from the updated headers.
+	 *
+	 * @param headers        The headers of the 304 response, keyed
+	 *                       case-insensitively.
+	 * @param requestHeaders The function resolving the values of the request
+	 *                       headers sent downstream.
+	 * @return The refreshed {@link CachedResponse}.
+	 */
+	public CachedResponse revalidate(
+		Map<String, List<String>> headers,
+		Function<String, String> requestHeaders) {
+
+		Map<String, List<String>> revalidatedHeaders = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+		revalidatedHeaders.putAll(_headers);
+
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			String name = entry.getKey();
+
+			if (!name.equalsIgnoreCase("Content-Length") &&
+				!name.equalsIgnoreCase("Transfer-Encoding")) {
+
+				revalidatedHeaders.put(name, entry.getValue());
+			}
+		}
+
+		return new CachedResponse(
+			_status, revalidatedHeaders, _body,
+			getFreshnessLifetime(revalidatedHeaders),
+			requestHeaders);
+	}
+
+	private static Map<String, String> _getCacheControlDirectives(
+		Map<String, List<String>> headers) {
+
+		List<String> values = headers.get("Cache-Control");
+
+		if (values == null) {
+			return Collections.emptyMap();
+		}
+
+		Map<String, String> directives = new HashMap<>();
+
+		for (String value : values) {
+			for (String directive : value.split(",")) {
+				int index = directive.indexOf('=');
+
+				if (index < 0) {
+					directives.put(
+						directive.trim(
+						).toLowerCase(
+							Locale.ROOT
+						),
+						null);
+
+					continue;
+				}
+
+				String argument = directive.substring(
+					index + 1
+				).trim();
+
+				if (argument.startsWith("\"") && argument.endsWith("\"") &&
+					(argument.length() > 1)) {
+
+					argument = argument.substring(1, argument.length() - 1);
+				}
+
+				directives.put(
+					directive.substring(
+						0, index
+					).trim(
+					).toLowerCase(
+						Locale.ROOT
+					),
+					argument);
+			}
+		}
+
+		return directives;
+	}
+
+	private static long _getExpiresLifetime(Map<String, List<String>> headers) {
+		String expires = _getHeaderString(headers, "Expires");
+
+		if (expires == null) {
+			return 0;
+		}
+
+		ZonedDateTime expiresZonedDateTime = _parseDate(expires);
+
+		if (expiresZonedDateTime == null) {
+			return 0;
+		}
+
+		ZonedDateTime dateZonedDateTime = _parseDate(
+			_getHeaderString(headers, "Date"));
+
+		if (dateZonedDateTime == null) {
+			dateZonedDateTime = ZonedDateTime.now();
+		}
+
+		return expiresZonedDateTime.toEpochSecond() -
+			dateZonedDateTime.toEpochSecond();
+	}
+
+	private static String _getHeaderString(
+		Map<String, List<String>> headers, String name) {
+
+		List<String> values = headers.get(name);
+
+		if ((values == null) || values.isEmpty()) {
+			return null;
+		}
+
+		return values.get(0);
+	}
+
+	private static String _getOpaqueTag(String entityTag) {
+		if (entityTag.startsWith("W/")) {
+			return entityTag.substring(2);
+		}
+
+		return entityTag;
+	}
+
+	private static long _getSeconds(String value) {
+		if (value == null) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(value.trim());
+		}
+		catch (NumberFormatException numberFormatException) {
+			return -1;
+		}
+	}
+
+	private static List<String> _getVaryHeaderNames(
+		Map<String, List<String>> headers) {
+
+		List<String> values = headers.get("Vary");
+
+		if (values == null) {
+			return Collections.emptyList();
+		}
+
+		List<String> names = new ArrayList<>();
+
+		for (String value : values) {
+			for (String name : value.split(",")) {
+				name = name.trim();
+
+				if (!name.isEmpty()) {
+					names.add(name);
+				}
+			}
+		}
+
+		return names;
+	}
+
+	private static ZonedDateTime _parseDate(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		try {
+			return ZonedDateTime.parse(
+				value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+		}
+		catch (DateTimeParseException dateTimeParseException) {
+			return null;
+		}
+	}
+
+	private static final Set<Integer> _CACHEABLE_STATUSES = Set.of(
+		200, 203, 204, 300, 301, 404, 410);
+
+	private static final long _ENTRY_OVERHEAD = 256;
+
+	private final byte[] _body;
+	private final long _expirationTime;
+	private final Map<String, List<String>> _headers;
+	private final long _initialAge;
+	private final long _size;
+	private final int _status;
+	private final long _storedTime;
+	private final Map<String, String> _varyHeaderValues;
+
+}
@@ -0,0 +1,788 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.OPTIONS;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * JAX-RS resource class that exposes the composition endpoint of the BFF. A
+ * composition request carries a plan: a JSON object of named calls, each a
+ * sub-request with the {@code clientName} of the OAuth client executing it,
+ * so a single request can combine the responses of several downstream
+ * services.
+ *
+ * <p>
+ * A call may depend on other calls of the plan, either explicitly, by listing
+ * their names in {@code dependsOn}, or by referencing their response bodies
+ * in its path or query string through placeholders such as {@code
+ * ${user/id}}, the name of the call followed by a JSON pointer into its body.
+ * Calls are executed through the {@link ProxyService} as soon as the calls
+ * they depend on are completed, so independent branches of the plan run
+ * concurrently. A call whose dependency did not succeed, or whose placeholder
+ * cannot be resolved, is not executed and gets a 424 (Failed Dependency)
+ * result.
+ * </p>
+ *
+ * <p>
+ * The response is a JSON object with the result of every call under its
+ * name, in the same form as the results of a {@link BatchResource} batch.
+ * </p>
+ *
+ * <p>
+ * Since a plan may call any client, cross-origin requests are governed by a
+ * CORS policy of the endpoint, from the {@link ProxyServiceConfiguration},
+ * which answers preflight requests. A plan posted from another origin the
+ * policy does not allow is rejected with a 403 (Forbidden) response before
+ * any of its calls is executed. A call of a plan posted from an origin it
+ * allows is only executed if the CORS policy of the call's client allows
+ * that origin too, so the endpoint never reaches a client the origin could
+ * not call directly.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+@Component(
+	configurationPid = "io.github.marceltanuri.security.oauth.bff.proxy.ProxyServiceConfiguration",
+	immediate = true,
+	property = {
+		"osgi.jaxrs.application.select=(osgi.jaxrs.name=OAuthBff.Rest)",
+		"osgi.jaxrs.resource=true"
+	},
+	service = CompositionResource.class
+)
+public class CompositionResource {
+
+	/**
+	 * Handles HTTP OPTIONS requests for the composition endpoint locally,
+	 * answering CORS preflight requests from the CORS policy of the endpoint.
+	 *
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    CORS request headers.
+	 * @return The {@link Response} to the OPTIONS request.
+	 */
+	@OPTIONS
+	@Path(_COMPOSE_PATH)
+	public Response compositionOptionsRequest(
+		@Context HttpHeaders httpHeaders) {
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+		String requestMethod = httpHeaders.getHeaderString(
+			"Access-Control-Request-Method");
+
+		if ((origin == null) || (requestMethod == null)) {
+			return Response.noContent(
+			).header(
+				HttpHeaders.ALLOW, "OPTIONS, POST"
+			).build();
+		}
+
+		return _corsPolicy.preflight(
+			origin, requestMethod,
+			httpHeaders.getHeaderString("Access-Control-Request-Headers"));
+	}
+
+	/**
+	 * Handles HTTP POST requests for the composition endpoint, executing the
+	 * calls of the plan and resuming the suspended request with their merged
+	 * results once all of them are completed.
+	 *
+	 * @param requestBody   The JSON composition plan.
+	 * @param httpHeaders   The {@link HttpHeaders} context, used to extract
+	 *                      the origin of the request and the declared length
+	 *                      of the plan.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the results
+	 *                      of the calls with a 200 (OK) status, with a 403
+	 *                      (Forbidden) response if the plan is posted from
+	 *                      another origin the endpoint does not allow, with a
+	 *                      413 (Payload Too Large) response if the plan is
+	 *                      larger than {@code compositionMaxRequestSize}, or
+	 *                      with a 400 (Bad Request) response if the plan is
+	 *                      invalid or has too many calls.
+	 */
+	@Consumes(MediaType.WILDCARD)
+	@POST
+	@Path(_COMPOSE_PATH)
+	@Produces(MediaType.APPLICATION_JSON)
+	public void executeCompositionRequest(
+		InputStream requestBody, @Context HttpHeaders httpHeaders,
+		@Suspended AsyncResponse asyncResponse) {
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+
+		String corsOrigin = null;
+
+		if (_corsPolicy.isAllowedOrigin(origin)) {
+			corsOrigin = origin;
+		}
+		else if ((origin != null) && !_isSameOrigin(origin, httpHeaders)) {
+			asyncResponse.resume(
+				_forbidden(
+					String.format(
+						"Origin %s is not allowed to call the composition " +
+							"endpoint",
+						origin)));
+
+			return;
+		}
+
+		Map<String, Call> calls;
+
+		try {
+			byte[] bytes = SubRequests.readRequestBody(
+				requestBody, httpHeaders.getLength(),
+				_compositionMaxRequestSize);
+
+			if (bytes == null) {
+				asyncResponse.resume(
+					_payloadTooLarge(
+						String.format(
+							"A composition plan cannot be larger than %d " +
+								"bytes",
+							_compositionMaxRequestSize)));
+
+				return;
+			}
+
+			calls = _parse(_objectMapper.readTree(bytes));
+		}
+		catch (IllegalArgumentException illegalArgumentException) {
+			asyncResponse.resume(
+				_badRequest(illegalArgumentException.getMessage()));
+
+			return;
+		}
+		catch (JsonProcessingException jsonProcessingException) {
+			JsonLocation jsonLocation =
+				jsonProcessingException.getLocation();
+
+			if (jsonLocation == null) {
+				asyncResponse.resume(
+					_badRequest("A composition plan must be valid JSON"));
+
+				return;
+			}
+
+			asyncResponse.resume(
+				_badRequest(
+					String.format(
+						"A composition plan must be valid JSON (line %d, " +
+							"column %d)",
+						jsonLocation.getLineNr(), jsonLocation.getColumnNr())));
+
+			return;
+		}
+		catch (IOException ioException) {
+			asyncResponse.resume(
+				_badRequest(
+					"Invalid composition plan: " + ioException.getMessage()));
+
+			return;
+		}
+
+		Map<String, CompletableFuture<ObjectNode>> completableFutures =
+			new LinkedHashMap<>();
+
+		for (String name : calls.keySet()) {
+			_schedule(name, calls, completableFutures, corsOrigin);
+		}
+
+		CompletableFuture.allOf(
+			completableFutures.values(
+			).toArray(
+				new CompletableFuture<?>[0]
+			)
+		).whenComplete(
+			(result, throwable) -> {
+				ObjectNode objectNode = _objectMapper.createObjectNode();
+
+				for (String name : calls.keySet()) {
+					CompletableFuture<ObjectNode> completableFuture =
+						completableFutures.get(name);
+
+					objectNode.set(name, completableFuture.join());
+				}
+
+				Response response = Response.ok(
+					objectNode.toString(), MediaType.APPLICATION_JSON
+				).build();
+
+				if (origin != null) {
+					response = _corsPolicy.apply(response, origin);
+				}
+
+				asyncResponse.resume(response);
+			}
+		);
+	}
+
+	/**
+	 * Activates the component, reading the maximum number of calls and body
+	 * size of a composition plan and the CORS policy of the endpoint from the
+	 * {@link ProxyServiceConfiguration}.
+	 *
+	 * @param configuration The {@link ProxyServiceConfiguration} of the proxy
+	 *                      service.
+	 */
+	@Activate
+	protected void activate(ProxyServiceConfiguration configuration) {
+		_compositionMaxCalls = configuration.compositionMaxCalls();
+		_compositionMaxRequestSize = configuration.compositionMaxRequestSize();
+		_corsPolicy = new CorsPolicy(configuration);
+	}
+
+	/**
+	 * Creates a bad request response with the given message.
+	 *
+	 * @param message The reason the plan is rejected.
+	 * @return A 400 (Bad Request) {@link Response}.
+	 */
+	private Response _badRequest(String message) {
+		return Response.status(
+			Response.Status.BAD_REQUEST
+		).entity(
+			message
+		).type(
+			MediaType.TEXT_PLAIN
+		).build();
+	}
+
+	/**
+	 * Checks that the given call does not depend, directly or not, on itself.
+	 *
+	 * @param name     The name of the call.
+	 * @param calls    The calls of the plan, by name.
+	 * @param visiting The names of the calls whose dependencies are being
+	 *                 checked.
+	 * @param visited  The names of the calls already checked.
+	 * @throws IllegalArgumentException if the plan has a dependency cycle.
+	 */
+	private void _checkCycles(
+		String name, Map<String, Call> calls, Set<String> visiting,
+		Set<String> visited) {
+
+		if (visited.contains(name)) {
+			return;
+		}
+
+		if (!visiting.add(name)) {
+			throw new IllegalArgumentException(
+				"The composition plan has a dependency cycle through call " +
+					name);
+		}
+
+		Call call = calls.get(name);
+
+		for (String dependency : call._dependencies) {
+			_checkCycles(dependency, calls, visiting, visited);
+		}
+
+		visiting.remove(name);
+		visited.add(name);
+	}
+
+	/**
+	 * Executes a call once the calls it depends on are completed, after
+	 * replacing the placeholders of its path and query string with values
+	 * from their response bodies. The response body of the call is limited to
+	 * the {@code batchMaxResponseSize} of its client. A call of a
+	 * cross-origin plan whose client does not allow the origin gets a 403
+	 * (Forbidden) result instead.
+	 *
+	 * @param call               The {@link Call}.
+	 * @param completableFutures The completed results of the calls it depends
+	 *                           on, by name.
+	 * @param corsOrigin         The origin of the plan, if it is a
+	 *                           cross-origin plan allowed by the endpoint, or
+	 *                           {@code null}.
+	 * @return The stage completed with the result of the call.
+	 */
+	private CompletionStage<ObjectNode> _execute(
+		Call call,
+		Map<String, CompletableFuture<ObjectNode>> completableFutures,
+		String corsOrigin) {
+
+		Map<String, ObjectNode> results = new LinkedHashMap<>();
+
+		for (String dependency : call._dependencies) {
+			CompletableFuture<ObjectNode> completableFuture =
+				completableFutures.get(dependency);
+
+			ObjectNode result = completableFuture.join();
+
+			int status = result.path(
+				"status"
+			).asInt();
+
+			if ((status < 200) || (status >= 300)) {
+				return CompletableFuture.completedFuture(
+					SubRequests.toObjectNode(
+						_FAILED_DEPENDENCY,
+						String.format(
+							"Call %s depends on call %s, which failed with " +
+								"status %d",
+							call._name, dependency, status)));
+			}
+
+			results.put(dependency, result);
+		}
+
+		ObjectNode requestJsonNode = call._jsonNode.deepCopy();
+
+		for (String fieldName : _PLACEHOLDER_FIELD_NAMES) {
+			JsonNode jsonNode = requestJsonNode.path(fieldName);
+
+			if (!jsonNode.isTextual()) {
+				continue;
+			}
+
+			String value = _resolve(jsonNode.asText(), results);
+
+			if (value == null) {
+				return CompletableFuture.completedFuture(
+					SubRequests.toObjectNode(
+						_FAILED_DEPENDENCY,
+						String.format(
+							"Unable to resolve the %s of call %s: %s",
+							fieldName, call._name, jsonNode.asText())));
+			}
+
+			requestJsonNode.put(fieldName, value);
+		}
+
+		ProxyRequestContext context;
+
+		try {
+			context = SubRequests.createContext(
+				requestJsonNode.path(
+					"clientName"
+				).asText(),
+				requestJsonNode);
+		}
+		catch (JsonProcessingException jsonProcessingException) {
+			return CompletableFuture.failedFuture(jsonProcessingException);
+		}
+
+		OAuthClient oAuthClient = _oAuthServiceFactory.getOAuthClient(
+			context.getClientName());
+
+		if (oAuthClient == null) {
+			return CompletableFuture.completedFuture(
+				SubRequests.toObjectNode(
+					Response.Status.NOT_FOUND.getStatusCode(),
+					"OAuth client configuration not found for: " +
+						context.getClientName()));
+		}
+
+		if ((corsOrigin != null) &&
+			!_corsPolicyRegistry.get(
+				oAuthClient
+			).isAllowedOrigin(
+				corsOrigin
+			)) {
+
+			return CompletableFuture.completedFuture(
+				SubRequests.toObjectNode(
+					Response.Status.FORBIDDEN.getStatusCode(),
+					String.format(
+						"Origin %s is not allowed to call client %s",
+						corsOrigin, context.getClientName())));
+		}
+
+		OAuthClientSettings settings = oAuthClient.getSettings();
+
+		return _proxyService.executeProxyRequestsAsync(
+			Collections.singletonList(context), 1
+		).get(
+			0
+		).handle(
+			(response, throwable) -> {
+				if (throwable == null) {
+					try {
+						return SubRequests.toObjectNode(
+							response, settings.batchMaxResponseSize());
+					}
+					catch (IOException ioException) {
+						throwable = ioException;
+					}
+				}
+
+				_log.error(
+					String.format(
+						"Error executing call %s of client %s",
+						call._name, context.getClientName()),
+					throwable);
+
+				return SubRequests.toObjectNode(
+					Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+					"Error proxying request: " + throwable.getMessage());
+			}
+		);
+	}
+
+	/**
+	 * Creates a forbidden response with the given message.
+	 *
+	 * @param message The reason the plan is rejected.
+	 * @return A 403 (Forbidden) {@link Response}.
+	 */
+	private Response _forbidden(String message) {
+		return Response.status(
+			Response.Status.FORBIDDEN
+		).entity(
+			message
+		).type(
+			MediaType.TEXT_PLAIN
+		).header(
+			HttpHeaders.VARY, _ORIGIN
+		).build();
+	}
+
+	/**
+	 * Returns whether the given origin is the origin of the endpoint itself,
+	 * as browsers also send the {@code Origin} header with same-origin
+	 * {@code POST} requests. The scheme is not compared, since a proxy
+	 * terminating TLS in front of the portal changes it.
+	 *
+	 * @param origin      The {@code Origin} header of the request.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract
+	 *                    the {@code Host} header of the request.
+	 * @return {@code true} if the origin has the host and port of the
+	 *         request.
+	 */
+	private boolean _isSameOrigin(String origin, HttpHeaders httpHeaders) {
+		String host = httpHeaders.getHeaderString(HttpHeaders.HOST);
+
+		if (host == null) {
+			return false;
+		}
+
+		try {
+			URI uri = new URI(origin);
+
+			return host.equalsIgnoreCase(uri.getRawAuthority());
+		}
+		catch (URISyntaxException uriSyntaxException) {
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a composition plan and validates its calls and their
+	 * dependencies.
+	 *
+	 * @param planJsonNode The composition plan.
+	 * @return The calls of the plan, by name, in the order of the plan.
+	 * @throws IllegalArgumentException if the plan is invalid or too large.
+	 * @throws JsonProcessingException  if the body of a call cannot be
+	 *                                  serialized.
+	 */
+	private Map<String, Call> _parse(JsonNode planJsonNode)
+		throws JsonProcessingException {
+
+		if ((planJsonNode == null) || !planJsonNode.isObject()) {
+			throw new IllegalArgumentException(
+				"A composition plan must be a JSON object");
+		}
+
+		if (planJsonNode.size() > _compositionMaxCalls) {
+			throw new IllegalArgumentException(
+				String.format(
+					"A composition plan cannot have more than %d calls",
+					_compositionMaxCalls));
+		}
+
+		Map<String, Call> calls = new LinkedHashMap<>();
+
+		Iterator<Map.Entry<String, JsonNode>> iterator = planJsonNode.fields();
+
+		while (iterator.hasNext()) {
+			Map.Entry<String, JsonNode> entry = iterator.next();
+
+			String name = entry.getKey();
+
+			if (!_namePattern.matcher(
+					name
+				).matches()) {
+
+				throw new IllegalArgumentException(
+					"Invalid call name " + name +
+						", only letters, digits, - and _ are allowed");
+			}
+
+			JsonNode callJsonNode = entry.getValue();
+
+			if (!callJsonNode.path(
+					"clientName"
+				).isTextual()) {
+
+				throw new IllegalArgumentException(
+					"Call " + name + " must have a clientName");
+			}
+
+			SubRequests.createContext(
+				callJsonNode.path(
+					"clientName"
+				).asText(),
+				callJsonNode);
+
+			Set<String> dependencies = new LinkedHashSet<>();
+
+			for (JsonNode dependencyJsonNode : callJsonNode.path("dependsOn")) {
+				dependencies.add(dependencyJsonNode.asText());
+			}
+
+			for (String fieldName : _PLACEHOLDER_FIELD_NAMES) {
+				Matcher matcher = _placeholderPattern.matcher(
+					callJsonNode.path(
+						fieldName
+					).asText());
+
+				while (matcher.find()) {
+					dependencies.add(matcher.group(1));
+				}
+			}
+
+			calls.put(name, new Call(name, callJsonNode, dependencies));
+		}
+
+		for (Call call : calls.values()) {
+			for (String dependency : call._dependencies) {
+				if (!calls.containsKey(dependency)) {
+					throw new IllegalArgumentException(
+						String.format(
+							"Call %s depends on unknown call %s", call._name,
+							dependency));
+				}
+			}
+		}
+
+		Set<String> visited = new HashSet<>();
+
+		for (String name : calls.keySet()) {
+			_checkCycles(name, calls, new HashSet<>(), visited);
+		}
+
+		return calls;
+	}
+
+	/**
+	 * Creates the response rejecting a plan whose body is too large.
+	 *
+	 * @param message The reason the plan is rejected.
+	 * @return A 413 (Payload Too Large) {@link Response}.
+	 */
+	private Response _payloadTooLarge(String message) {
+		return Response.status(
+			Response.Status.REQUEST_ENTITY_TOO_LARGE
+		).entity(
+			message
+		).type(
+			MediaType.TEXT_PLAIN
+		).build();
+	}
+
+	/**
+	 * Replaces the placeholders of the given value with the URL-encoded
+	 * values they reference in the response bodies of other calls.
+	 *
+	 * @param value   The path or query string of a call.
+	 * @param results The results of the calls it depends on, by name.
+	 * @return The resolved value, or {@code null} if a placeholder references
+	 *         a missing value, or a JSON object or array.
+	 */
+	private String _resolve(String value, Map<String, ObjectNode> results) {
+		Matcher matcher = _placeholderPattern.matcher(value);
+
+		StringBuilder sb = new StringBuilder();
+
+		while (matcher.find()) {
+			ObjectNode result = results.get(matcher.group(1));
+
+			String pointer = matcher.group(2);
+
+			if (pointer == null) {
+				pointer = "";
+			}
+
+			JsonNode jsonNode = result.path(
+				"body"
+			).at(
+				pointer
+			);
+
+			if (!jsonNode.isValueNode() || jsonNode.isNull()) {
+				return null;
+			}
+
+			matcher.appendReplacement(
+				sb,
+				Matcher.quoteReplacement(
+					URLEncoder.encode(
+						jsonNode.asText(), StandardCharsets.UTF_8
+					).replace(
+						"+", "%20"
+					)));
+		}
+
+		matcher.appendTail(sb);
+
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the stage completed with the result of the given call,
+	 * scheduling the call, after the calls it depends on, if it is not
+	 * scheduled yet. A call without dependencies is started right away.
+	 *
+	 * @param name               The name of the call.
+	 * @param calls              The calls of the plan, by name.
+	 * @param completableFutures The results of the calls already scheduled,
+	 *                           by name.
+	 * @param corsOrigin         The origin of the plan, if it is a
+	 *                           cross-origin plan allowed by the endpoint, or
+	 *                           {@code null}.
+	 * @return The stage completed with the result of the call.
+	 */
+	private CompletableFuture<ObjectNode> _schedule(
+		String name, Map<String, Call> calls,
+		Map<String, CompletableFuture<ObjectNode>> completableFutures,
+		String corsOrigin) {
+
+		CompletableFuture<ObjectNode> completableFuture =
+			completableFutures.get(name);
+
+		if (completableFuture != null) {
+			return completableFuture;
+		}
+
+		Call call = calls.get(name);
+
+		Map<String, CompletableFuture<ObjectNode>> dependencyFutures =
+			new LinkedHashMap<>();
+
+		for (String dependency : call._dependencies) {
+			dependencyFutures.put(
+				dependency,
+				_schedule(dependency, calls, completableFutures, corsOrigin));
+		}
+
+		completableFuture = CompletableFuture.allOf(
+			dependencyFutures.values(
+			).toArray(
+				new CompletableFuture<?>[0]
+			)
+		).thenCompose(
+			result -> _execute(call, dependencyFutures, corsOrigin)
+		).exceptionally(
+			throwable -> {
+				_log.error("Error executing call " + name, throwable);
+
+				return SubRequests.toObjectNode(
+					Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+					"Error executing call " + name);
+			}
+		);
+
+		completableFutures.put(name, completableFuture);
+
+		return completableFuture;
+	}
+
+	private static final String _COMPOSE_PATH = "/compose";
+
+	private static final int _FAILED_DEPENDENCY = 424;
+
+	private static final String _ORIGIN = "Origin";
+
+	private static final String[] _PLACEHOLDER_FIELD_NAMES = {"path", "query"};
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		CompositionResource.class);
+
+	private static final Pattern _namePattern = Pattern.compile(
+		"[A-Za-z0-9_-]+");
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	private static final Pattern _placeholderPattern = Pattern.compile(
+		"\\$\\{([A-Za-z0-9_-]+)(/[^}]*)?\\}");
+
+	private volatile int _compositionMaxCalls;
+	private volatile long _compositionMaxRequestSize;
+	private volatile CorsPolicy _corsPolicy;
+
+	@Reference
+	private CorsPolicyRegistry _corsPolicyRegistry;
+
+	@Reference
+	private OAuthServiceFactory _oAuthServiceFactory;
+
+	@Reference
+	private ProxyService _proxyService;
+
+	/**
+	 * A call of a composition plan, with the names of the calls it depends
+	 * on.
+	 */
+	private static class Call {
+
+		private Call(String name, JsonNode jsonNode, Set<String> dependencies) {
+			_name = name;
+			_jsonNode = jsonNode;
+			_dependencies = dependencies;
+		}
+
+		private final Set<String> _dependencies;
+		private final JsonNode _jsonNode;
+		private final String _name;
+
+	}
+
+}
@@ -0,0 +1,335 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * The cross-origin resource sharing (CORS) policy of a single {@link
+ * OAuthClient}, compiled once from its settings. Preflight requests are
+ * answered from the policy alone, and the responses to actual cross-origin
+ * requests are completed with the headers granting the caller's origin
+ * access to them. Since browsers refuse credentialed responses allowed for
+ * any origin, origins matched only by the {@code *} wildcard are granted
+ * access with a literal {@code *} and without credentials.
+ *
+ * <p>
+ * The composition endpoint, which is not bound to a single client, has a
+ * policy of its own, compiled from the {@link ProxyServiceConfiguration}.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class CorsPolicy implements OAuthClientScoped {
+
+	/**
+	 * Constructs a new {@code CorsPolicy}.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} whose settings provide the
+	 *                    policy.
+	 */
+	public CorsPolicy(OAuthClient oAuthClient) {
+		this(oAuthClient, oAuthClient.getSettings());
+	}
+
+	/**
+	 * Constructs the {@code CorsPolicy} of the composition endpoint, which
+	 * only allows {@code POST} requests.
+	 *
+	 * @param configuration The {@link ProxyServiceConfiguration} providing
+	 *                      the allowed origins and whether credentials are
+	 *                      allowed.
+	 */
+	public CorsPolicy(ProxyServiceConfiguration configuration) {
+		this(
+			null, null, "the composition endpoint",
+			configuration.compositionCorsAllowedOrigins(),
+			_COMPOSITION_ALLOWED_METHODS, _COMPOSITION_ALLOWED_HEADERS,
+			new String[0], configuration.compositionCorsAllowCredentials(),
+			_COMPOSITION_MAX_AGE);
+	}
+
+	/**
+	 * Returns a copy of the given response granting the given origin access
+	 * to it, if the origin is allowed.
+	 *
+	 * @param response The {@link Response} of an actual cross-origin request.
+	 * @param origin   The {@code Origin} header of the request, or {@code
+	 *                 null}.
+	 * @return The completed response, or the given one if the origin is not
+	 *         allowed.
+	 */
+	public Response apply(Response response, String origin) {
+		if (!isAllowedOrigin(origin)) {
+			return response;
+		}
+
+		Response.ResponseBuilder responseBuilder = _grant(
+			Response.fromResponse(response), origin);
+
+		if (!_exposedHeaders.isEmpty()) {
+			responseBuilder.header(
+				"Access-Control-Expose-Headers", _exposedHeaders);
+		}
+
+		return responseBuilder.build();
+	}
+
+	/**
+	 * Returns the OAuth client the policy was compiled for.
+	 *
+	 * @return The {@link OAuthClient}, or {@code null} for the policy of the
+	 *         composition endpoint.
+	 */
+	@Override
+	public OAuthClient getOAuthClient() {
+		return _oAuthClient;
+	}
+
+	/**
+	 * Returns the settings the policy was compiled from.
+	 *
+	 * @return The {@link OAuthClientSettings}, or {@code null} for the policy
+	 *         of the composition endpoint.
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * Returns whether the given origin may call the proxy of the client.
+	 *
+	 * @param origin The {@code Origin} header of the request, or {@code null}.
+	 * @return {@code true} if the origin is allowed.
+	 */
+	public boolean isAllowedOrigin(String origin) {
+		if (origin == null) {
+			return false;
+		}
+
+		if (_anyOrigin) {
+			return true;
+		}
+
+		return _isListedOrigin(origin);
+	}
+
+	/**
+	 * Returns whether cross-origin requests are allowed at all, that is,
+	 * whether any origin is configured.
+	 *
+	 * @return {@code true} if the policy allows some origin.
+	 */
+	public boolean isEnabled() {
+		if (_anyOrigin || !_origins.isEmpty()) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Answers a preflight request. The response grants access, and may be
+	 * cached by the browser for the configured max age, only if the origin,
+	 * the method and every request header are allowed. Otherwise, a 403
+	 * (Forbidden) response without CORS headers is returned, so the browser
+	 * blocks the actual request.
+	 *
+	 * @param origin         The {@code Origin} header of the request.
+	 * @param requestMethod  The {@code Access-Control-Request-Method} header.
+	 * @param requestHeaders The {@code Access-Control-Request-Headers} header,
+	 *                       or {@code null}.
+	 * @return The {@link Response} to the preflight request.
+	 */
+	public Response preflight(
+		String origin, String requestMethod, String requestHeaders) {
+
+		if (!isAllowedOrigin(origin) ||
+			!_methods.contains(
+				requestMethod.trim(
+				).toUpperCase(
+					Locale.ROOT
+				))) {
+
+			return _forbidden();
+		}
+
+		if (requestHeaders != null) {
+			requestHeaders = requestHeaders.trim();
+
+			if (!_anyHeader) {
+				for (String requestHeader : requestHeaders.split(",")) {
+					requestHeader = requestHeader.trim();
+
+					if (!requestHeader.isEmpty() &&
+						!_headers.contains(
+							requestHeader.toLowerCase(Locale.ROOT))) {
+
+						return _forbidden();
+					}
+				}
+			}
+		}
+
+		Response.ResponseBuilder responseBuilder = _grant(
+			Response.noContent(), origin
+		).header(
+			"Access-Control-Allow-Methods", _allowedMethods
+		).header(
+			"Access-Control-Max-Age", _maxAge
+		);
+
+		if ((requestHeaders != null) && !requestHeaders.isEmpty()) {
+			responseBuilder.header(
+				"Access-Control-Allow-Headers", requestHeaders);
+		}
+
+		return responseBuilder.build();
+	}
+
+	private CorsPolicy(
+		OAuthClient oAuthClient, OAuthClientSettings settings) {
+
+		this(
+			oAuthClient, settings, "client " + settings.clientName(),
+			settings.corsAllowedOrigins(), settings.corsAllowedMethods(),
+			settings.corsAllowedHeaders(), settings.corsExposedHeaders(),
+			settings.corsAllowCredentials(), settings.corsMaxAge());
+	}
+
+	private CorsPolicy(
+		OAuthClient oAuthClient, OAuthClientSettings settings, String name,
+		String[] allowedOrigins, String[] allowedMethods,
+		String[] allowedHeaders, String[] exposedHeaders,
+		boolean allowCredentials, int maxAge) {
+
+		_oAuthClient = oAuthClient;
+		_settings = settings;
+
+		boolean anyOrigin = false;
+
+		for (String origin : allowedOrigins) {
+			origin = origin.trim();
+
+			if (origin.equals("*")) {
+				anyOrigin = true;
+			}
+			else if (!origin.isEmpty()) {
+				_origins.add(origin.toLowerCase(Locale.ROOT));
+			}
+		}
+
+		_anyOrigin = anyOrigin;
+
+		boolean anyHeader = false;
+
+		for (String header : allowedHeaders) {
+			header = header.trim();
+
+			if (header.equals("*")) {
+				anyHeader = true;
+			}
+			else if (!header.isEmpty()) {
+				_headers.add(header.toLowerCase(Locale.ROOT));
+			}
+		}
+
+		_anyHeader = anyHeader;
+
+		for (String method : allowedMethods) {
+			method = method.trim();
+
+			if (!method.isEmpty()) {
+				_methods.add(method.toUpperCase(Locale.ROOT));
+			}
+		}
+
+		_allowedMethods = String.join(", ", _methods);
+		_allowCredentials = allowCredentials;
+
+		if (_allowCredentials && _anyOrigin && _log.isWarnEnabled()) {
+			_log.warn(
+				String.format(
+					"CORS credentials of %s are only allowed for its " +
+						"listed origins, not for the * wildcard",
+					name));
+		}
+
+		_exposedHeaders = String.join(", ", exposedHeaders);
+		_maxAge = maxAge;
+	}
+
+	private Response _forbidden() {
+		return Response.status(
+			Response.Status.FORBIDDEN
+		).header(
+			HttpHeaders.VARY, "Origin"
+		).build();
+	}
+
+	/**
+	 * Adds the headers granting the given allowed origin access. A listed
+	 * origin is echoed, with credentials if they are allowed, while an origin
+	 * matched only by the wildcard is granted with a literal {@code *} and
+	 * never with credentials.
+	 *
+	 * @param responseBuilder The {@link Response.ResponseBuilder} to complete.
+	 * @param origin          The allowed origin.
+	 * @return The given response builder.
+	 */
+	private Response.ResponseBuilder _grant(
+		Response.ResponseBuilder responseBuilder, String origin) {
+
+		responseBuilder.header(HttpHeaders.VARY, "Origin");
+
+		if (!_isListedOrigin(origin)) {
+			return responseBuilder.header("Access-Control-Allow-Origin", "*");
+		}
+
+		responseBuilder.header("Access-Control-Allow-Origin", origin);
+
+		if (_allowCredentials) {
+			responseBuilder.header("Access-Control-Allow-Credentials", "true");
+		}
+
+		return responseBuilder;
+	}
+
+	private boolean _isListedOrigin(String origin) {
+		return _origins.contains(origin.toLowerCase(Locale.ROOT));
+	}
+
+	private static final String[] _COMPOSITION_ALLOWED_HEADERS = {
+		"Accept", "Content-Type", "X-CSRF-Token"
+	};
+
+	private static final String[] _COMPOSITION_ALLOWED_METHODS = {"POST"};
+
+	private static final int _COMPOSITION_MAX_AGE = 86400;
+
+	private static final Log _log = LogFactoryUtil.getLog(CorsPolicy.class);
+
+	private final boolean _allowCredentials;
+	private final String _allowedMethods;
+	private final boolean _anyHeader;
+	private final boolean _anyOrigin;
+	private final String _exposedHeaders;
+	private final Set<String> _headers = new HashSet<>();
+	private final int _maxAge;
+	private final Set<String> _methods = new LinkedHashSet<>();
+	private final OAuthClient _oAuthClient;
+	private final Set<String> _origins = new HashSet<>();
+	private final OAuthClientSettings _settings;
+
+}
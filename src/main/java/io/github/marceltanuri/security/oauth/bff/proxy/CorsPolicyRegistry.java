@@ -0,0 +1,23 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * An OSGi component that keeps the compiled {@link CorsPolicy} of each
+ * {@link OAuthClient} registered in the OSGi service registry. Policies are
+ * compiled on first use, recompiled when the settings of the client change,
+ * and discarded when the client is unregistered.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(service = CorsPolicyRegistry.class)
+public class CorsPolicyRegistry extends BaseOAuthClientRegistry<CorsPolicy> {
+
+	@Override
+	protected CorsPolicy create(OAuthClient oAuthClient) {
+		return new CorsPolicy(oAuthClient);
+	}
+
+}
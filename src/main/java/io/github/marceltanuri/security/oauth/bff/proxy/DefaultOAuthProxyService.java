@@ -4,24 +4,59 @@ import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 
 import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientException;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.client.OAuthClientUnavailableException;
 import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+import io.github.marceltanuri.security.oauth.metrics.FlightRecorderEvents;
+import io.github.marceltanuri.security.oauth.metrics.ProxyRequestEvent;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.net.http.HttpTimeoutException;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.metatype.annotations.Designate;
 
 /**
  * Default implementation of the {@link ProxyService}. This class orchestrates
@@ -29,29 +64,51 @@ import org.osgi.service.component.annotations.Reference;
  * <ul>
  *     <li>Retrieving the appropriate {@link OAuthClient} configuration.</li>
  *     <li>Fetching an OAuth 2.0 access token.</li>
- *     <li>Constructing the target URI for the downstream service.</li>
+ *     <li>Resolving the route of the request, which provides the target URI
+ *     for the downstream service and the policies applied to the request.</li>
  *     <li>Executing the request and forwarding the response to the original caller.</li>
  * </ul>
  * It is registered as an OSGi component and relies on an {@link OAuthServiceFactory}
- * to get client configurations.
+ * to get client configurations. Requests are executed through the
+ * {@link ProxyClientPool} of the client, obtained from the
+ * {@link ProxyClientPoolRegistry}, so connections are reused across requests,
+ * and are sent by the {@link ProxyEngine} selected by the client's settings.
+ * Clients configured for asynchronous execution run on a bounded worker pool
+ * sized through {@link ProxyServiceConfiguration}, or on a virtual thread per
+ * request when the JDK supports it. Cacheable GET responses of clients with
+ * the response cache enabled are kept in the {@link ResponseCache} of the
+ * client, obtained from the {@link ResponseCacheRegistry}, and served from it
+ * while they are fresh. Uncompressed responses of clients with compression
+ * enabled are compressed with gzip by a {@link ResponseCompressor} while they
+ * are written to the caller.
  * 
  * @author Marcel Tanuri
  */
 @Component(
+    configurationPid = "io.github.marceltanuri.security.oauth.bff.proxy.ProxyServiceConfiguration",
     immediate = true,
     service = ProxyService.class
 )
+@Designate(ocd = ProxyServiceConfiguration.class)
 public class DefaultOAuthProxyService implements ProxyService {
 
 	/**
-	 * Executes the proxy request based on the provided context.
+	 * Executes the proxy request based on the provided context. The total time
+	 * of the request is recorded in the {@link ClientMetrics} of the client
+	 * and, for the sampled requests of clients with Server-Timing enabled,
+	 * returned with the time of each phase in a {@code Server-Timing} header.
+	 * While a Java Flight Recorder recording includes it, a {@link
+	 * ProxyRequestEvent} is committed for every request, provided that {@link
+	 * FlightRecorderEvents#isAvailable()}.
 	 *
 	 * @param context The {@link ProxyRequestContext} containing all necessary
 	 *                details for the request, such as the client name, path,
 	 *                and HTTP method.
 	 * @return A {@link Response} object that mirrors the response from the
 	 *         downstream service. If an error occurs, it returns an
-	 *         appropriate error response.
+	 *         appropriate error response, such as a 503 (Service Unavailable)
+	 *         with a {@code Retry-After} header while the token endpoint of
+	 *         the client is failing.
 	 */
 	@Override
 	public Response executeProxyRequest(ProxyRequestContext context) {
@@ -70,58 +127,213 @@ public class DefaultOAuthProxyService implements ProxyService {
 			).build();
 		}
 
-		try {
-			String accessToken = _getTokenOrThrow(oAuthService, context);
+		ProxyRequestEvent proxyRequestEvent = null;
 
-			URI targetURI = _buildTargetUri(oAuthService, context);
+		if (FlightRecorderEvents.isAvailable()) {
+			proxyRequestEvent = new ProxyRequestEvent();
 
-			if (_log.isDebugEnabled()) {
-				String logMessage = String.format(
-					"Proxying %s request to URI: %s",
-					context.getMethodHandler(
-					).name(),
-					targetURI);
+			proxyRequestEvent.begin();
+		}
 
-				_log.debug(logMessage);
-			}
+		long startTime = System.nanoTime();
+
+		OAuthClientSettings settings = oAuthService.getSettings();
 
-			return _executeClientCallAndMapResponse(
-				targetURI, context, accessToken);
+		boolean reportServerTiming = false;
+
+		if (settings.serverTimingEnabled() &&
+			(ThreadLocalRandom.current(
+			).nextDouble() < settings.serverTimingSampleRate())) {
+
+			reportServerTiming = true;
 		}
-		catch (RuntimeException runtimeException) {
-			_log.error(
-				String.format(
-					"Error retrieving token for client %s",
-					context.getClientName()),
-				runtimeException);
 
-			String errorMessage = String.format(
-				"Error retrieving token for client %s: %s",
-				context.getClientName(), runtimeException.getMessage());
+		ServerTiming serverTiming = null;
 
-			return Response.status(
-				Response.Status.INTERNAL_SERVER_ERROR
-			).entity(
-				errorMessage
-			).build();
+		if (reportServerTiming ||
+			((proxyRequestEvent != null) && proxyRequestEvent.isEnabled())) {
+
+			serverTiming = new ServerTiming();
 		}
-		catch (Exception exception) {
-			_log	.error(
-				String.format(
-					"Error proxying request (%s)",
-					context.getMethodHandler(
-					).name()),
-				exception);
 
-			String errorMessage = String.format(
-				"Error proxying request: %s", exception.getMessage());
+		Response response = _executeProxyRequest(
+			oAuthService, context, serverTiming);
 
-			return Response.status(
-				Response.Status.INTERNAL_SERVER_ERROR
-			).entity(
-				errorMessage
+		long duration = System.nanoTime() - startTime;
+
+		ClientMetrics clientMetrics = oAuthService.getMetrics();
+
+		clientMetrics.recordRequest(duration, response.getStatus());
+
+		if (VirtualThreads.isVirtual(Thread.currentThread())) {
+			clientMetrics.recordVirtualThreadRequest();
+		}
+
+		if (proxyRequestEvent != null) {
+			proxyRequestEvent.end();
+
+			if ((serverTiming != null) && proxyRequestEvent.shouldCommit()) {
+				ProxyRequestEvents.commit(
+					proxyRequestEvent, context, response, serverTiming);
+			}
+		}
+
+		if (reportServerTiming) {
+			response = Response.fromResponse(
+				response
+			).header(
+				_SERVER_TIMING, serverTiming.toHeaderValue(duration)
 			).build();
 		}
+
+		return response;
+	}
+
+	/**
+	 * Executes the proxy request asynchronously. If the client is configured
+	 * for asynchronous execution, the token acquisition and the downstream
+	 * call run on a worker thread and the returned stage is completed with a
+	 * 504 (Gateway Timeout) response once the configured async timeout
+	 * elapses. A 503 (Service Unavailable) response is returned if the worker
+	 * pool is saturated. Otherwise, the request runs on the calling thread.
+	 *
+	 * <p>
+	 * A coalescable GET request arriving while an identical request is in
+	 * flight does not take a worker thread while it waits: its stage is
+	 * chained onto the in-flight request, and it is only submitted to the
+	 * worker pool if the shared response does not apply to it.
+	 * </p>
+	 *
+	 * @param context The {@link ProxyRequestContext} containing all necessary
+	 *                details for the request.
+	 * @return A {@link CompletionStage} completed with the {@link Response}
+	 *         that mirrors the response from the downstream service.
+	 */
+	@Override
+	public CompletionStage<Response> executeProxyRequestAsync(
+		ProxyRequestContext context) {
+
+		OAuthClient oAuthService = _oAuthServiceFactory.getOAuthClient(
+			context.getClientName());
+
+		if ((oAuthService == null) ||
+			!oAuthService.getSettings(
+			).asyncExecution()) {
+
+			return CompletableFuture.completedFuture(
+				executeProxyRequest(context));
+		}
+
+		OAuthClientSettings settings = oAuthService.getSettings();
+
+		if (RequestCoalescer.isCoalescable(context, settings)) {
+			CompletableFuture<CachedResponse> completableFuture =
+				_requestCoalescer.follow(
+					ResponseCache.getKey(
+						context.getClientName(), context.getPath(),
+						context.getQueryString()),
+					settings.asyncTimeout());
+
+			if (completableFuture != null) {
+				long startTime = System.nanoTime();
+
+				return completableFuture.thenApply(
+					cachedResponse -> _getCoalescedResponse(
+						oAuthService, context, settings, cachedResponse,
+						startTime)
+				).handle(
+					(response, throwable) -> {
+						if (throwable != null) {
+							return CompletableFuture.completedFuture(
+								_toErrorResponse(context, throwable));
+						}
+
+						if (response == null) {
+							return _submitProxyRequest(oAuthService, context);
+						}
+
+						return CompletableFuture.completedFuture(response);
+					}
+				).thenCompose(
+					Function.identity()
+				);
+			}
+		}
+
+		return _submitProxyRequest(oAuthService, context);
+	}
+
+	/**
+	 * Executes a batch of proxy requests in parallel on the executor used for
+	 * asynchronous proxy requests. The access token of each client of the
+	 * batch is acquired once before the requests are started, so they all
+	 * share it instead of racing for it. The requests are then taken in order
+	 * by as many workers as the given concurrency allows, each executing its
+	 * next request once the previous one is completed. If the executor is
+	 * saturated, the batch runs on fewer workers, or every stage is completed
+	 * with a 503 (Service Unavailable) response if none can be started.
+	 *
+	 * @param contexts       The {@link ProxyRequestContext}s of the requests.
+	 * @param maxConcurrency The maximum number of requests executed at the
+	 *                       same time.
+	 * @return A {@link List} of {@link CompletionStage}s, in the order of the
+	 *         given contexts, each completed with the {@link Response} that
+	 *         mirrors the response from the downstream service.
+	 */
+	@Override
+	public List<CompletionStage<Response>> executeProxyRequestsAsync(
+		List<ProxyRequestContext> contexts, int maxConcurrency) {
+
+		List<CompletableFuture<Response>> completableFutures = new ArrayList<>(
+			contexts.size());
+
+		for (int i = 0; i < contexts.size(); i++) {
+			completableFutures.add(new CompletableFuture<>());
+		}
+
+		AtomicInteger nextIndex = new AtomicInteger();
+
+		int workers = Math.max(1, Math.min(maxConcurrency, contexts.size()));
+
+		try {
+			_executorService.submit(
+				() -> {
+					_getAccessTokens(contexts);
+
+					for (int i = 1; i < workers; i++) {
+						try {
+							_executorService.submit(
+								() -> _executeProxyRequests(
+									contexts, completableFutures, nextIndex));
+						}
+						catch (RejectedExecutionException
+									rejectedExecutionException) {
+
+							break;
+						}
+					}
+
+					_executeProxyRequests(
+						contexts, completableFutures, nextIndex);
+				});
+		}
+		catch (RejectedExecutionException rejectedExecutionException) {
+			_log.warn(
+				"Rejected batch of " + contexts.size() + " proxy requests");
+
+			for (CompletableFuture<Response> completableFuture :
+					completableFutures) {
+
+				completableFuture.complete(
+					Response.status(
+						Response.Status.SERVICE_UNAVAILABLE
+					).entity(
+						"Too many concurrent proxy requests"
+					).build());
+			}
+		}
+
+		return new ArrayList<>(completableFutures);
 	}
 
 	/**
@@ -148,6 +360,46 @@ public class DefaultOAuthProxyService implements ProxyService {
 			return _clientName;
 		}
 
+		/**
+		 * Returns the length of the request body, as declared by the caller.
+		 *
+		 * @return The content length, or {@code -1} if it is unknown.
+		 */
+		public long getContentLength() {
+			return _contentLength;
+		}
+
+		/**
+		 * Returns the original content type of the request body.
+		 *
+		 * @return The content type, or {@code null} if not set.
+		 */
+		public String getContentType() {
+			return _contentType;
+		}
+
+		/**
+		 * Returns the value of a caller header forwarded to the downstream
+		 * service.
+		 *
+		 * @param name The name of the header, matched case-insensitively.
+		 * @return The value of the header, or {@code null} if it is not
+		 *         forwarded.
+		 */
+		public String getHeader(String name) {
+			return _headers.get(name);
+		}
+
+		/**
+		 * Returns the caller headers forwarded to the downstream service.
+		 *
+		 * @return An unmodifiable map of the forwarded headers, keyed
+		 *         case-insensitively.
+		 */
+		public Map<String, String> getHeaders() {
+			return _headers;
+		}
+
 		/**
 		 * Returns the HTTP method handler for the request.
 		 *
@@ -176,14 +428,61 @@ public class DefaultOAuthProxyService implements ProxyService {
 		}
 
 		/**
-		 * Returns the request body.
+		 * Returns the request body. The stream is consumed while the request
+		 * is forwarded, so it can only be read once.
 		 *
-		 * @return The request body as a String.
+		 * @return The request body as an {@link InputStream}, or {@code null}
+		 *         if the request has no body.
 		 */
-		public String getRequestBody() {
+		public InputStream getRequestBody() {
 			return _requestBody;
 		}
 
+		/**
+		 * Returns the time the downstream service is given to respond.
+		 *
+		 * @return The timeout, in milliseconds, or {@code 0} if it is not
+		 *         limited.
+		 */
+		public long getTimeout() {
+			return _timeout;
+		}
+
+		/**
+		 * Returns whether the request carries a body to forward.
+		 *
+		 * @return {@code true} if the request has a body.
+		 */
+		public boolean hasRequestBody() {
+			if ((_requestBody == null) || (_contentLength == 0)) {
+				return false;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Creates a new {@link Builder} initialized with the values of this
+		 * request context.
+		 *
+		 * @return A new {@link Builder} instance.
+		 */
+		public Builder toBuilder() {
+			Builder builder = new Builder();
+
+			builder._clientName = _clientName;
+			builder._contentLength = _contentLength;
+			builder._contentType = _contentType;
+			builder._headers.putAll(_headers);
+			builder._methodHandler = _methodHandler;
+			builder._path = _path;
+			builder._queryString = _queryString;
+			builder._requestBody = _requestBody;
+			builder._timeout = _timeout;
+
+			return builder;
+		}
+
 		/**
 		 * A builder class for creating instances of {@link ProxyRequestContext}.
 		 */
@@ -217,6 +516,51 @@ public class DefaultOAuthProxyService implements ProxyService {
 				return this;
 			}
 
+			/**
+			 * Sets the length of the request body for the request context.
+			 *
+			 * @param contentLength The content length, or {@code -1} if it is
+			 *                      unknown.
+			 * @return The builder instance.
+			 */
+			public Builder contentLength(long contentLength) {
+				_contentLength = contentLength;
+
+				return this;
+			}
+
+			/**
+			 * Sets the original content type of the request body for the
+			 * request context.
+			 *
+			 * @param contentType The content type of the request body.
+			 * @return The builder instance.
+			 */
+			public Builder contentType(String contentType) {
+				_contentType = contentType;
+
+				return this;
+			}
+
+			/**
+			 * Sets a caller header to forward to the downstream service.
+			 *
+			 * @param name  The name of the header.
+			 * @param value The value of the header, or {@code null} to not
+			 *              forward the header.
+			 * @return The builder instance.
+			 */
+			public Builder header(String name, String value) {
+				if (value == null) {
+					_headers.remove(name);
+				}
+				else {
+					_headers.put(name, value);
+				}
+
+				return this;
+			}
+
 			/**
 			 * Sets the HTTP method handler for the request context.
 			 *
@@ -259,33 +603,60 @@ public class DefaultOAuthProxyService implements ProxyService {
 			 * @param requestBody The request body.
 			 * @return The builder instance.
 			 */
-			public Builder requestBody(String requestBody) {
+			public Builder requestBody(InputStream requestBody) {
 				_requestBody = requestBody;
 
 				return this;
 			}
 
+			/**
+			 * Sets the time the downstream service is given to respond.
+			 *
+			 * @param timeout The timeout, in milliseconds, or {@code 0} to not
+			 *                limit it.
+			 * @return The builder instance.
+			 */
+			public Builder timeout(long timeout) {
+				_timeout = timeout;
+
+				return this;
+			}
+
 			private String _clientName;
+			private long _contentLength = -1;
+			private String _contentType;
+			private final Map<String, String> _headers = new TreeMap<>(
+				String.CASE_INSENSITIVE_ORDER);
 			private HttpMethodHandler _methodHandler;
 			private String _path;
 			private String _queryString;
-			private String _requestBody;
+			private InputStream _requestBody;
+			private long _timeout;
 
 		}
 
 		private ProxyRequestContext(Builder builder) {
 			_clientName = builder._clientName;
+			_contentLength = builder._contentLength;
+			_contentType = builder._contentType;
+			_headers = Collections.unmodifiableMap(
+				new TreeMap<>(builder._headers));
 			_path = builder._path;
 			_methodHandler = builder._methodHandler;
 			_requestBody = builder._requestBody;
 			_queryString = builder._queryString;
+			_timeout = builder._timeout;
 		}
 
 		private final String _clientName;
+		private final long _contentLength;
+		private final String _contentType;
+		private final Map<String, String> _headers;
 		private final HttpMethodHandler _methodHandler;
 		private final String _path;
 		private final String _queryString;
-		private final String _requestBody;
+		private final InputStream _requestBody;
+		private final long _timeout;
 
 	}
 
@@ -295,7 +666,7 @@ public class DefaultOAuthProxyService implements ProxyService {
 	 */
 	public enum HttpMethodHandler {
 
-		DELETE, GET, POST, PUT;
+		DELETE, GET, HEAD, PATCH, POST, PUT;
 
 		/**
 		 * Executes the corresponding HTTP method on the JAX-RS
@@ -303,7 +674,7 @@ public class DefaultOAuthProxyService implements ProxyService {
 		 *
 		 * @param builder The JAX-RS invocation builder.
 		 * @param entity  The entity to be sent with the request (for POST, PUT,
-		 *                and DELETE).
+		 *                PATCH and DELETE).
 		 * @return The {@link Response} from the downstream service.
 		 * @throws UnsupportedOperationException if the HTTP method is not supported.
 		 */
@@ -313,6 +684,10 @@ public class DefaultOAuthProxyService implements ProxyService {
 					return builder.method("DELETE", entity);
 				case GET:
 					return builder.get();
+				case HEAD:
+					return builder.head();
+				case PATCH:
+					return builder.method("PATCH", entity);
 				case POST:
 					return builder.post(entity);
 				case PUT:
@@ -326,167 +701,902 @@ public class DefaultOAuthProxyService implements ProxyService {
 	}
 
 	/**
-	 * Builds the target URI for the downstream service by combining the service
-	 * base URL with the request path and query string.
+	 * Activates the component, creating the executor used for asynchronous
+	 * proxy requests: a virtual-thread-per-task executor if enabled and
+	 * supported by the running JDK, or a bounded worker pool otherwise, and
+	 * the {@link ResponseCompressor} compressing responses.
 	 *
-	 * @param oAuthService The {@link OAuthClient} configuration containing the
-	 *                     base URL.
-	 * @param context      The {@link ProxyRequestContext} containing the path and
-	 *                     query string.
-	 * @return The constructed {@link URI} for the downstream service.
-	 * @throws Exception if the URI syntax is invalid.
+	 * @param configuration The {@link ProxyServiceConfiguration} of the
+	 *                      service.
 	 */
-	private URI _buildTargetUri(
-			OAuthClient oAuthService, ProxyRequestContext context)
-		throws Exception {
+	@Activate
+	protected void activate(ProxyServiceConfiguration configuration) {
+		_responseCompressor = new ResponseCompressor(
+			configuration.compressionPoolSize());
 
-		String targetBaseUrl = oAuthService.getServiceBaseUrl();
+		if (configuration.asyncExecutorVirtualThreads() &&
+			VirtualThreads.isAvailable()) {
 
-		if (!targetBaseUrl.contains("://")) {
-			targetBaseUrl = "https://" + targetBaseUrl;
+			_executorService = VirtualThreads.newVirtualThreadPerTaskExecutor();
+
+			if (_log.isInfoEnabled()) {
+				_log.info(
+					"Executing asynchronous proxy requests on virtual threads");
+			}
+
+			return;
 		}
 
-		String path = context.getPath();
+		int threads = Math.max(1, configuration.asyncExecutorThreads());
+
+		AtomicInteger counter = new AtomicInteger();
+
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+			threads, threads, 60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(
+				Math.max(1, configuration.asyncExecutorQueueSize())),
+			runnable -> {
+				Thread thread = new Thread(
+					runnable,
+					"oauth-bff-proxy-worker-" + counter.incrementAndGet());
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+		_executorService = threadPoolExecutor;
+	}
+
+	/**
+	 * A dynamic OSGi lifecycle method called when a new {@link ProxyEngine}
+	 * service is registered. It adds the engine to the internal map, using the
+	 * "proxy.engine" property as the key.
+	 *
+	 * @param proxyEngine The {@link ProxyEngine} service being registered.
+	 * @param properties  The service's registration properties.
+	 */
+	@Reference(
+		cardinality = ReferenceCardinality.MULTIPLE,
+		policy = ReferencePolicy.DYNAMIC, target = "(proxy.engine=*)"
+	)
+	protected void addProxyEngine(
+		ProxyEngine proxyEngine, Map<String, Object> properties) {
+
+		_proxyEngines.put((String)properties.get("proxy.engine"), proxyEngine);
+	}
+
+	/**
+	 * Deactivates the component, shutting down the executor and releasing the
+	 * pooled deflaters.
+	 */
+	@Deactivate
+	protected void deactivate() {
+		_executorService.shutdownNow();
+
+		_responseCompressor.close();
+	}
+
+	/**
+	 * A dynamic OSGi lifecycle method called when a {@link ProxyEngine}
+	 * service is unregistered. It removes the engine from the internal map.
+	 *
+	 * @param proxyEngine The {@link ProxyEngine} service being unregistered.
+	 * @param properties  The service's registration properties.
+	 */
+	protected void removeProxyEngine(
+		ProxyEngine proxyEngine, Map<String, Object> properties) {
+
+		_proxyEngines.remove(
+			(String)properties.get("proxy.engine"), proxyEngine);
+	}
+
+	/**
+	 * Waits for the backoff before the next attempt of a request. The backoff
+	 * is drawn at random between zero and a cap that doubles with every
+	 * retry, up to {@link #_RETRY_BACKOFF_MAX}.
+	 *
+	 * @param context  The {@link ProxyRequestContext} of the failed attempt.
+	 * @param retries  The number of retries already made.
+	 * @param deadline The {@link System#nanoTime()} by which all attempts
+	 *                 must complete, or {@code 0} if they are not bounded.
+	 * @return The {@link ProxyRequestContext} of the next attempt, limited to
+	 *         the time left, or {@code null} if no time is left for it.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	private ProxyRequestContext _awaitRetry(
+			ProxyRequestContext context, int retries, long deadline)
+		throws InterruptedException {
+
+		long backoff = Math.min(
+			_RETRY_BACKOFF_MAX, _RETRY_BACKOFF_BASE << Math.min(retries, 16));
+
+		long delay = ThreadLocalRandom.current(
+		).nextLong(
+			backoff + 1
+		);
 
-		String targetPath;
+		if ((deadline != 0) &&
+			((deadline - System.nanoTime()) <=
+				TimeUnit.MILLISECONDS.toNanos(delay))) {
 
-		if (targetBaseUrl.endsWith("/") && path.startsWith("/")) {
-			targetPath = path.substring(1);
+			return null;
 		}
-		else if (!targetBaseUrl.endsWith("/") && !path.startsWith("/")) {
-			targetPath = "/" + path;
+
+		Thread.sleep(delay);
+
+		if (deadline == 0) {
+			return context;
 		}
-		else {
-			targetPath = path;
+
+		long timeout = TimeUnit.NANOSECONDS.toMillis(
+			deadline - System.nanoTime());
+
+		if (timeout <= 0) {
+			return null;
 		}
 
-		String targetUrl = targetBaseUrl + targetPath;
+		return context.toBuilder(
+		).timeout(
+			timeout
+		).build();
+	}
+
+	/**
+	 * Closes the given downstream response, logging any failure.
+	 *
+	 * @param upstreamResponse The {@link UpstreamResponse} to close.
+	 */
+	private void _close(UpstreamResponse upstreamResponse) {
+		try {
+			upstreamResponse.close();
+		}
+		catch (IOException ioException) {
+			_log.debug(ioException);
+		}
+	}
 
-		String queryString = context.getQueryString();
+	/**
+	 * Releases a response that will never be returned to the caller, such as
+	 * one completed after its asynchronous request has timed out.
+	 *
+	 * @param response The {@link Response} to discard.
+	 */
+	private void _discard(Response response) {
+		Object entity = response.getEntity();
 
-		if ((queryString != null) && !queryString.isEmpty()) {
-			targetUrl += "?" + queryString;
+		if (entity instanceof Closeable) {
+			try {
+				((Closeable)entity).close();
+			}
+			catch (IOException ioException) {
+				_log.debug(ioException);
+			}
 		}
 
-		return new URI(targetUrl);
+		response.close();
 	}
 
 	/**
-	 * Executes the client call to the downstream service and maps the response
-	 * to a JAX-RS {@link Response} object that can be returned to the original
-	 * caller.
+	 * Sends the request to the downstream service, retrying it as many times
+	 * as the route allows if it fails or the service answers with a 502 (Bad
+	 * Gateway), 503 (Service Unavailable) or 504 (Gateway Timeout). Only
+	 * requests without a body whose method is idempotent are retried, since
+	 * the request body can only be read once. The round trip time of every
+	 * attempt is recorded in the {@link ClientMetrics} of the client.
 	 *
-	 * @param targetURI   The target {@link URI} of the downstream service.
-	 * @param context     The {@link ProxyRequestContext} for the request.
-	 * @param accessToken The OAuth 2.0 access token.
-	 * @return A {@link Response} object mirroring the downstream service's response.
-	 * @throws Exception if an error occurs during the client call.
+	 * <p>
+	 * Retries back off exponentially with full jitter, so that callers failing
+	 * together do not retry in lockstep against a struggling service. A
+	 * request that timed out is not retried, since the service is likely still
+	 * working on it. When the route has a timeout, it bounds all attempts
+	 * together: each retry is given only the time left, and none is made once
+	 * the backoff would exceed it.
+	 * </p>
+	 *
+	 * @param proxyEngine     The {@link ProxyEngine} sending the request.
+	 * @param proxyClientPool The {@link ProxyClientPool} of the OAuth client.
+	 * @param targetURI       The target {@link URI} of the downstream service.
+	 * @param context         The {@link ProxyRequestContext} for the request.
+	 * @param accessToken     The OAuth 2.0 access token.
+	 * @param route           The {@link RouteTable.Route} matched by the
+	 *                        request.
+	 * @return The {@link UpstreamResponse} of the last attempt.
+	 * @throws Exception if the last attempt fails.
 	 */
-	private Response _executeClientCallAndMapResponse(
-			URI targetURI, ProxyRequestContext context, String accessToken)
+	private UpstreamResponse _execute(
+			ProxyEngine proxyEngine, ProxyClientPool proxyClientPool,
+			URI targetURI, ProxyRequestContext context, String accessToken,
+			RouteTable.Route route)
 		throws Exception {
 
-		Client client = null;
-		Response proxyResponse = null;
-
-		try {
-			client = _clientBuilder.build();
+		ClientMetrics clientMetrics = proxyClientPool.getOAuthClient(
+		).getMetrics();
 
-			WebTarget target = client.target(targetURI);
+		int maxRetries = 0;
 
-			Invocation.Builder requestBuilder = target.request();
+		HttpMethodHandler methodHandler = context.getMethodHandler();
 
-			String maskedToken = (accessToken.length() > 10) ?
-				(accessToken.substring(0, 10) + "...") : accessToken;
+		if ((methodHandler != HttpMethodHandler.PATCH) &&
+			(methodHandler != HttpMethodHandler.POST) &&
+			!context.hasRequestBody()) {
 
-			requestBuilder.header("Authorization", "Bearer " + accessToken);
+			maxRetries = route.getMaxRetries();
+		}
 
-			_log.debug("Request Headers: Authorization=Bearer " + maskedToken);
+		long deadline = 0;
 
-			Entity<String> entity = null;
+		if ((maxRetries > 0) && (context.getTimeout() > 0)) {
+			deadline =
+				System.nanoTime() +
+					TimeUnit.MILLISECONDS.toNanos(context.getTimeout());
+		}
 
-			if ((context.getRequestBody() != null) &&
-				!context.getRequestBody(
-				).isEmpty()) {
+		for (int retries = 0;; retries++) {
+			UpstreamResponse upstreamResponse;
 
-				entity = Entity.entity(
-					context.getRequestBody(), MediaType.APPLICATION_JSON);
+			long startTime = System.nanoTime();
 
-				_log.debug(
-					"Request Headers: Content-Type=" +
-						MediaType.APPLICATION_JSON);
-				_log.debug("Request Body: " + context.getRequestBody());
+			try {
+				upstreamResponse = proxyEngine.execute(
+					proxyClientPool, targetURI, context, accessToken);
 			}
-			else {
-				if ((context.getMethodHandler() == HttpMethodHandler.GET) ||
-					(context.getMethodHandler() == HttpMethodHandler.DELETE)) {
+			catch (InterruptedException interruptedException) {
+				throw interruptedException;
+			}
+			catch (Exception exception) {
+				clientMetrics.recordUpstream(System.nanoTime() - startTime, 0);
 
-					requestBuilder.header("Content-Type", null);
-					_log.debug(
-						"Request Headers: Content-Type=null (Forced omission " +
-							"for GET/DELETE to satisfy AWS)");
+				if ((retries >= maxRetries) || _isTimeout(exception)) {
+					throw exception;
 				}
-				else {
-					_log.debug(
-						"Request Headers: Content-Type=omitted (No Body)");
-				}
-			}
 
-			proxyResponse = context.getMethodHandler(
-			).execute(
-				requestBuilder, entity
-			);
+				context = _awaitRetry(context, retries, deadline);
 
-			String responseEntity = proxyResponse.readEntity(String.class);
+				if (context == null) {
+					throw exception;
+				}
 
-			Response.ResponseBuilder responseBuilder = Response.status(
-				proxyResponse.getStatus()
-			).entity(
-				responseEntity
-			);
+				if (_log.isDebugEnabled()) {
+					_log.debug(
+						"Retrying failed request to " + targetURI, exception);
+				}
 
-			MultivaluedMap<String, Object> headers = proxyResponse.getHeaders();
+				continue;
+			}
 
-			for (Map.Entry<String, List<Object>> headerEntry :
-					headers.entrySet()) {
+			int status = upstreamResponse.getStatus();
 
-				String name = headerEntry.getKey();
+			clientMetrics.recordUpstream(System.nanoTime() - startTime, status);
 
-				if (!name.equalsIgnoreCase("Transfer-Encoding") &&
-					!name.equalsIgnoreCase("Content-Encoding")) {
+			if ((retries >= maxRetries) ||
+				((status != 502) && (status != 503) && (status != 504))) {
 
-					for (Object value : headerEntry.getValue()) {
-						responseBuilder.header(name, value);
-					}
-				}
+				return upstreamResponse;
 			}
 
-			responseBuilder.type(proxyResponse.getMediaType());
+			ProxyRequestContext retryContext = _awaitRetry(
+				context, retries, deadline);
 
-			return responseBuilder.build();
-		}
-		finally {
-			if (client != null) {
-				client.close();
+			if (retryContext == null) {
+				return upstreamResponse;
 			}
 
-			if (proxyResponse != null) {
-				proxyResponse.close();
+			_close(upstreamResponse);
+
+			context = retryContext;
+
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					String.format(
+						"Retrying request to %s after a %d response",
+						targetURI, status));
 			}
 		}
 	}
 
 	/**
-	 * Retrieves the access token from the {@link OAuthClient}. If the token
-	 * retrieval fails, it logs the error and re-throws the exception.
+	 * Executes the client call to the downstream service through the
+	 * {@link ProxyEngine} selected by the client's settings and maps the
+	 * response to a JAX-RS {@link Response} object that can be returned to the
+	 * original caller. When response streaming is enabled for the client, the
+	 * body is bridged through an {@link UpstreamStreamingOutput} and the
+	 * downstream response, together with its pooled connection, is only
+	 * released once the body has been copied to the caller.
 	 *
-	 * @param oAuthService The {@link OAuthClient} service to use for fetching
-	 *                     the token.
-	 * @param context      The {@link ProxyRequestContext} for logging purposes.
-	 * @return The access token as a String.
-	 * @throws RuntimeException if token retrieval fails.
+	 * <p>
+	 * When a response cache is given, a fresh cached response is returned
+	 * without calling the downstream service, and a stale one is revalidated
+	 * with a conditional request. Cacheable responses small enough for the
+	 * cache are read in full and stored. In that case, the caller's own
+	 * validators are evaluated locally, so that the cache is always filled
+	 * with a full response. A 304 (Not Modified) response is returned,
+	 * without a body, whenever the caller already holds the current
+	 * representation.
+	 * </p>
+	 *
+	 * @param targetURI   The target {@link URI} of the downstream service.
+	 * @param context     The {@link ProxyRequestContext} for the request.
+	 * @param accessToken The OAuth 2.0 access token.
+	 * @param proxyClientPool The {@link ProxyClientPool} providing the pooled
+	 *                    clients of the OAuth client.
+	 * @param route       The {@link RouteTable.Route} matched by the request,
+	 *                    providing its retry policy.
+	 * @param responseCache The {@link ResponseCache} of the OAuth client, or
+	 *                    {@code null} if the response must not be cached.
+	 * @param serverTiming The {@link ServerTiming} recording the phases of the
+	 *                    request, or {@code null} if they are not reported.
+	 * @return A {@link Response} object mirroring the downstream service's response.
+	 * @throws Exception if an error occurs during the client call.
 	 */
-	private String _getTokenOrThrow(
+	private Response _executeClientCallAndMapResponse(
+			URI targetURI, ProxyRequestContext context, String accessToken,
+			ProxyClientPool proxyClientPool, RouteTable.Route route,
+			ResponseCache responseCache, ServerTiming serverTiming)
+		throws Exception {
+
+		OAuthClientSettings settings = proxyClientPool.getSettings();
+
+		ProxyEngine proxyEngine = _proxyEngines.get(settings.proxyEngine());
+
+		if (proxyEngine == null) {
+			throw new IllegalStateException(
+				"Proxy engine not available: " + settings.proxyEngine());
+		}
+
+		context = _stripAcceptEncoding(context, settings);
+
+		Function<String, String> requestHeaders = _getRequestHeaders(
+			context, () -> accessToken);
+
+		String cacheKey = ResponseCache.getKey(
+			context.getClientName(), context.getPath(),
+			context.getQueryString());
+
+		ResponseCacheLookup responseCacheLookup = null;
+		CachedResponse staleResponse = null;
+
+		if (responseCache != null) {
+			responseCacheLookup = new ResponseCacheLookup(
+				responseCache, cacheKey, requestHeaders,
+				route.isCacheAuthorized());
+
+			CachedResponse freshResponse =
+				responseCacheLookup.getFreshResponse();
+
+			if (freshResponse != null) {
+				return ProxyResponses.toResponse(
+					freshResponse, context, settings, true);
+			}
+
+			staleResponse = responseCacheLookup.getStaleResponse();
+		}
+
+		CompletableFuture<CachedResponse> coalescingCompletableFuture = null;
+
+		if (RequestCoalescer.isCoalescable(context, settings)) {
+			coalescingCompletableFuture = _requestCoalescer.lead(cacheKey);
+
+			if (coalescingCompletableFuture == null) {
+				CachedResponse coalescedResponse = _requestCoalescer.await(
+					cacheKey, settings.asyncTimeout());
+
+				if ((coalescedResponse != null) &&
+					coalescedResponse.matches(requestHeaders)) {
+
+					ClientMetrics clientMetrics =
+						proxyClientPool.getOAuthClient(
+						).getMetrics();
+
+					clientMetrics.recordCoalescedRequest();
+
+					return ProxyResponses.toResponse(
+						coalescedResponse, context, settings, true);
+				}
+			}
+		}
+
+		ProxyRequestContext upstreamContext = context;
+
+		if ((responseCache != null) || (coalescingCompletableFuture != null)) {
+			upstreamContext = ProxyResponses.getUpstreamContext(
+				context, staleResponse);
+		}
+
+		try {
+			long startTime = System.nanoTime();
+
+			proxyClientPool.lease();
+
+			UpstreamResponse upstreamResponse = null;
+			boolean streaming = false;
+
+			try {
+				if (serverTiming != null) {
+					long leaseTime = System.nanoTime();
+
+					serverTiming.record(
+						ServerTiming.Phase.POOL, leaseTime - startTime);
+
+					startTime = leaseTime;
+				}
+
+				upstreamResponse = _execute(
+					proxyEngine, proxyClientPool, targetURI, upstreamContext,
+					accessToken, route);
+
+				if (serverTiming != null) {
+					long responseTime = System.nanoTime();
+
+					serverTiming.record(
+						ServerTiming.Phase.UPSTREAM, responseTime - startTime);
+
+					startTime = responseTime;
+				}
+
+				if (settings.compressionPassthrough()) {
+					upstreamResponse = _responseCompressor.varyOnAcceptEncoding(
+						upstreamResponse);
+				}
+
+				int status = upstreamResponse.getStatus();
+
+				if ((status == 304) && (staleResponse != null)) {
+					CachedResponse cachedResponse =
+						responseCacheLookup.revalidate(
+							upstreamResponse.getHeaders());
+
+					if (coalescingCompletableFuture != null) {
+						coalescingCompletableFuture.complete(cachedResponse);
+					}
+
+					return ProxyResponses.toResponse(
+						cachedResponse, context, settings, false);
+				}
+
+				if (status == 304) {
+					return ProxyResponses.createNotModifiedResponseBuilder(
+						upstreamResponse.getHeaders()
+					).build();
+				}
+
+				InputStream body = upstreamResponse.getBody();
+
+				long maxBufferSize = 0;
+
+				if (responseCacheLookup != null) {
+					maxBufferSize = responseCacheLookup.getMaxEntrySize(
+						status, upstreamResponse.getHeaders());
+				}
+
+				if (coalescingCompletableFuture != null) {
+					maxBufferSize = Math.max(
+						maxBufferSize, settings.requestCoalescingMaxSize());
+				}
+
+				if (maxBufferSize > 0) {
+					byte[] bytes = new byte[0];
+
+					if (body != null) {
+						bytes = body.readNBytes(
+							(int)Math.min(
+								Integer.MAX_VALUE - 8, maxBufferSize + 1));
+					}
+
+					if (serverTiming != null) {
+						serverTiming.record(
+							ServerTiming.Phase.BODY,
+							System.nanoTime() - startTime);
+					}
+
+					if (bytes.length <= maxBufferSize) {
+						CachedResponse cachedResponse;
+
+						if (responseCacheLookup != null) {
+							cachedResponse = responseCacheLookup.store(
+								status, upstreamResponse.getHeaders(), bytes);
+						}
+						else {
+							cachedResponse = new CachedResponse(
+								status, upstreamResponse.getHeaders(), bytes, 0,
+								requestHeaders);
+						}
+
+						if (coalescingCompletableFuture != null) {
+							coalescingCompletableFuture.complete(
+								cachedResponse);
+						}
+
+						return ProxyResponses.toResponse(
+							cachedResponse, context, settings, false);
+					}
+
+					body = new SequenceInputStream(
+						new ByteArrayInputStream(bytes), body);
+				}
+
+				if ((upstreamContext != context) && (status == 200) &&
+					ProxyResponses.isNotModified(
+						upstreamResponse.getHeaders(), context)) {
+
+					return ProxyResponses.createNotModifiedResponseBuilder(
+						upstreamResponse.getHeaders()
+					).build();
+				}
+
+				Response.ResponseBuilder responseBuilder = Response.status(
+					upstreamResponse.getStatus());
+
+				if ((body != null) && settings.streamResponses()) {
+					UpstreamResponse streamedUpstreamResponse =
+						upstreamResponse;
+
+					responseBuilder.entity(
+						new UpstreamStreamingOutput(
+							body,
+							() -> {
+								_close(streamedUpstreamResponse);
+
+								proxyClientPool.release();
+							}));
+
+					streaming = true;
+				}
+				else if (body != null) {
+					responseBuilder.entity(body.readAllBytes());
+
+					if (serverTiming != null) {
+						serverTiming.record(
+							ServerTiming.Phase.BODY,
+							System.nanoTime() - startTime);
+					}
+				}
+
+				ProxyResponses.copyHeaders(
+					responseBuilder, upstreamResponse.getHeaders(), settings);
+
+				String contentType = upstreamResponse.getHeaderString(
+					"Content-Type");
+
+				if (contentType != null) {
+					responseBuilder.type(contentType);
+				}
+
+				return responseBuilder.build();
+			}
+			finally {
+				if (!streaming) {
+					if (upstreamResponse != null) {
+						_close(upstreamResponse);
+					}
+
+					proxyClientPool.release();
+				}
+			}
+		}
+		catch (Exception exception) {
+			if (coalescingCompletableFuture != null) {
+				coalescingCompletableFuture.completeExceptionally(exception);
+			}
+
+			throw exception;
+		}
+		finally {
+			if (coalescingCompletableFuture != null) {
+				_requestCoalescer.release(
+					cacheKey, coalescingCompletableFuture);
+			}
+		}
+	}
+
+	/**
+	 * Executes the proxy request for the given OAuth client, mapping failures
+	 * to error responses. Only a failure to get the access token is reported
+	 * as a token error; route, engine and downstream failures are reported as
+	 * proxy errors.
+	 *
+	 * @param oAuthService The {@link OAuthClient} of the request.
+	 * @param context      The {@link ProxyRequestContext} for the request.
+	 * @param serverTiming The {@link ServerTiming} recording the phases of
+	 *                     the request, or {@code null} if they are not
+	 *                     reported.
+	 * @return A {@link Response} object that mirrors the response from the
+	 *         downstream service, or an error response.
+	 */
+	private Response _executeProxyRequest(
+		OAuthClient oAuthService, ProxyRequestContext context,
+		ServerTiming serverTiming) {
+
+		long startTime = System.nanoTime();
+
+		String accessToken;
+
+		try {
+			accessToken = _getTokenOrThrow(oAuthService, context);
+		}
+		catch (OAuthClientUnavailableException
+					oAuthClientUnavailableException) {
+
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					oAuthClientUnavailableException.getMessage(),
+					oAuthClientUnavailableException);
+			}
+
+			return Response.status(
+				Response.Status.SERVICE_UNAVAILABLE
+			).header(
+				HttpHeaders.RETRY_AFTER,
+				oAuthClientUnavailableException.getRetryAfter()
+			).entity(
+				oAuthClientUnavailableException.getMessage()
+			).build();
+		}
+		catch (RuntimeException runtimeException) {
+			if (!(runtimeException instanceof OAuthClientException)) {
+				_log.error(
+					String.format(
+						"Error retrieving token for client %s",
+						context.getClientName()),
+					runtimeException);
+			}
+
+			String errorMessage = String.format(
+				"Error retrieving token for client %s: %s",
+				context.getClientName(), runtimeException.getMessage());
+
+			return Response.status(
+				Response.Status.INTERNAL_SERVER_ERROR
+			).entity(
+				errorMessage
+			).build();
+		}
+
+		if (serverTiming != null) {
+			serverTiming.record(
+				ServerTiming.Phase.TOKEN, System.nanoTime() - startTime);
+		}
+
+		try {
+			RouteTable.Route route = _routeTableRegistry.get(
+				oAuthService
+			).getRoute(
+				context.getPath()
+			);
+
+			URI targetURI = route.getTargetURI(
+				context.getPath(), context.getQueryString());
+
+			if (route.getTimeout() > 0) {
+				context = context.toBuilder(
+				).timeout(
+					route.getTimeout()
+				).build();
+			}
+
+			if (_log.isDebugEnabled()) {
+				String logMessage = String.format(
+					"Proxying %s request to URI: %s",
+					context.getMethodHandler(
+					).name(),
+					targetURI);
+
+				_log.debug(logMessage);
+			}
+
+			ResponseCache responseCache = null;
+
+			if ((context.getMethodHandler() == HttpMethodHandler.GET) &&
+				route.isCacheEnabled()) {
+
+				responseCache = _responseCacheRegistry.get(oAuthService);
+			}
+
+			ProxyClientPool proxyClientPool =
+				_proxyClientPoolRegistry.get(oAuthService);
+
+			Response response = _executeClientCallAndMapResponse(
+				targetURI, context, accessToken, proxyClientPool, route,
+				responseCache, serverTiming);
+
+			return _responseCompressor.compress(
+				response, context, proxyClientPool.getSettings());
+		}
+		catch (TimeoutException timeoutException) {
+			_log.error(
+				String.format(
+					"No request slot available for client %s",
+					context.getClientName()),
+				timeoutException);
+
+			return Response.status(
+				Response.Status.SERVICE_UNAVAILABLE
+			).entity(
+				timeoutException.getMessage()
+			).build();
+		}
+		catch (Exception exception) {
+			_log.error(
+				String.format(
+					"Error proxying %s request for client %s",
+					context.getMethodHandler(
+					).name(),
+					context.getClientName()),
+				exception);
+
+			String errorMessage = String.format(
+				"Error proxying request: %s", exception.getMessage());
+
+			return Response.status(
+				Response.Status.INTERNAL_SERVER_ERROR
+			).entity(
+				errorMessage
+			).build();
+		}
+	}
+
+	/**
+	 * Executes the requests of a batch not taken by another worker yet, one
+	 * after another, completing the stage of each request with its response.
+	 *
+	 * @param contexts           The {@link ProxyRequestContext}s of the batch.
+	 * @param completableFutures The stages of the requests, in the same order.
+	 * @param nextIndex          The index of the next request to take.
+	 */
+	private void _executeProxyRequests(
+		List<ProxyRequestContext> contexts,
+		List<CompletableFuture<Response>> completableFutures,
+		AtomicInteger nextIndex) {
+
+		int index;
+
+		while ((index = nextIndex.getAndIncrement()) < contexts.size()) {
+			CompletableFuture<Response> completableFuture =
+				completableFutures.get(index);
+
+			try {
+				Response response = executeProxyRequest(contexts.get(index));
+
+				if (!completableFuture.complete(response)) {
+					_discard(response);
+				}
+			}
+			catch (Throwable throwable) {
+				completableFuture.completeExceptionally(throwable);
+			}
+		}
+	}
+
+	/**
+	 * Acquires the access token of every client of a batch of requests, so
+	 * the requests find it in the token cache of their client. A failure is
+	 * only logged, since each request then fails with the error response of
+	 * the client's token endpoint.
+	 *
+	 * @param contexts The {@link ProxyRequestContext}s of the batch.
+	 */
+	private void _getAccessTokens(List<ProxyRequestContext> contexts) {
+		Set<String> clientNames = new HashSet<>();
+
+		for (ProxyRequestContext context : contexts) {
+			if (!clientNames.add(context.getClientName())) {
+				continue;
+			}
+
+			OAuthClient oAuthService = _oAuthServiceFactory.getOAuthClient(
+				context.getClientName());
+
+			if (oAuthService == null) {
+				continue;
+			}
+
+			try {
+				_getTokenOrThrow(oAuthService, context);
+			}
+			catch (RuntimeException runtimeException) {
+				if (_log.isDebugEnabled()) {
+					_log.debug(
+						"Unable to get the token of a batch for client " +
+							context.getClientName(),
+						runtimeException);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the response of an asynchronous request that followed an
+	 * identical in-flight request, built from the response shared by it.
+	 *
+	 * @param oAuthService   The {@link OAuthClient} of the request.
+	 * @param context        The {@link ProxyRequestContext} for the request.
+	 * @param settings       The {@link OAuthClientSettings} of the client.
+	 * @param cachedResponse The shared {@link CachedResponse}, or {@code
+	 *                       null} if the response could not be shared.
+	 * @param startTime      The {@link System#nanoTime()} at which the
+	 *                       request arrived.
+	 * @return The {@link Response}, or {@code null} if the shared response
+	 *         does not apply to the request, which then calls the downstream
+	 *         service on its own.
+	 */
+	private Response _getCoalescedResponse(
+		OAuthClient oAuthService, ProxyRequestContext context,
+		OAuthClientSettings settings, CachedResponse cachedResponse,
+		long startTime) {
+
+		if (cachedResponse == null) {
+			return null;
+		}
+
+		ProxyRequestContext upstreamContext = _stripAcceptEncoding(
+			context, settings);
+
+		if (!cachedResponse.matches(
+				_getRequestHeaders(
+					upstreamContext, oAuthService::getAccessToken))) {
+
+			return null;
+		}
+
+		ClientMetrics clientMetrics = oAuthService.getMetrics();
+
+		clientMetrics.recordCoalescedRequest();
+
+		Response response = _responseCompressor.compress(
+			ProxyResponses.toResponse(
+				cachedResponse, upstreamContext, settings, true),
+			context, settings);
+
+		clientMetrics.recordRequest(
+			System.nanoTime() - startTime, response.getStatus());
+
+		return response;
+	}
+
+	/**
+	 * Returns the function resolving the values of the request headers sent
+	 * downstream, which select the cached response when the downstream
+	 * service varies its response on them.
+	 *
+	 * @param context             The {@link ProxyRequestContext} for the
+	 *                            request.
+	 * @param accessTokenSupplier The supplier of the OAuth 2.0 access token,
+	 *                            only called if the value of the {@code
+	 *                            Authorization} header is resolved.
+	 * @return The function returning the value of a request header, or
+	 *         {@code null} if the header is not sent.
+	 */
+	private Function<String, String> _getRequestHeaders(
+		ProxyRequestContext context, Supplier<String> accessTokenSupplier) {
+
+		return name -> {
+			if (name.equalsIgnoreCase("Authorization")) {
+				return "Bearer " + accessTokenSupplier.get();
+			}
+
+			if (name.equalsIgnoreCase("Content-Type")) {
+				return context.getContentType();
+			}
+
+			return context.getHeader(name);
+		};
+	}
+
+	/**
+	 * Retrieves the access token from the {@link OAuthClient}. If the token
+	 * retrieval fails, it re-throws the exception. Token endpoint failures are
+	 * already logged, rate limited, by the client's circuit breaker, so they
+	 * are only logged here at debug level.
+	 *
+	 * @param oAuthService The {@link OAuthClient} service to use for fetching
+	 *                     the token.
+	 * @param context      The {@link ProxyRequestContext} for logging purposes.
+	 * @return The access token as a String.
+	 * @throws RuntimeException if token retrieval fails.
+	 */
+	private String _getTokenOrThrow(
 			OAuthClient oAuthService, ProxyRequestContext context)
 		throws RuntimeException {
 
@@ -494,21 +1604,202 @@ public class DefaultOAuthProxyService implements ProxyService {
 			return oAuthService.getAccessToken();
 		}
 		catch (RuntimeException runtimeException) {
-			_log.error(
-				"Error retrieving token for client " + context.getClientName(),
-				runtimeException);
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Error retrieving token for client " +
+						context.getClientName(),
+					runtimeException);
+			}
 
 			throw runtimeException;
 		}
 	}
 
+	/**
+	 * Returns whether the given exception, or one of its causes, reports that
+	 * the downstream service did not answer in time.
+	 *
+	 * @param exception The exception of a failed attempt.
+	 * @return {@code true} if the attempt timed out.
+	 */
+	private boolean _isTimeout(Exception exception) {
+		Throwable throwable = exception;
+
+		while (throwable != null) {
+			if ((throwable instanceof HttpTimeoutException) ||
+				(throwable instanceof SocketTimeoutException) ||
+				(throwable instanceof TimeoutException)) {
+
+				return true;
+			}
+
+			throwable = throwable.getCause();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Removes the {@code Accept-Encoding} header of the request unless the
+	 * client passes compression through, so the downstream service answers
+	 * with an identity encoded body that can be shared and compressed by the
+	 * proxy.
+	 *
+	 * @param context  The {@link ProxyRequestContext} for the request.
+	 * @param settings The {@link OAuthClientSettings} of the client.
+	 * @return The {@link ProxyRequestContext} of the downstream call.
+	 */
+	private ProxyRequestContext _stripAcceptEncoding(
+		ProxyRequestContext context, OAuthClientSettings settings) {
+
+		if (settings.compressionPassthrough() ||
+			(context.getHeader(HttpHeaders.ACCEPT_ENCODING) == null)) {
+
+			return context;
+		}
+
+		return context.toBuilder(
+		).header(
+			HttpHeaders.ACCEPT_ENCODING, null
+		).build();
+	}
+
+	/**
+	 * Submits the proxy request to the executor used for asynchronous proxy
+	 * requests, completing the returned stage with a 504 (Gateway Timeout)
+	 * response once the client's async timeout elapses, or with a 503
+	 * (Service Unavailable) response if the executor is saturated.
+	 *
+	 * @param oAuthService The {@link OAuthClient} of the request.
+	 * @param context      The {@link ProxyRequestContext} for the request.
+	 * @return A {@link CompletableFuture} completed with the {@link Response}
+	 *         that mirrors the response from the downstream service.
+	 */
+	private CompletableFuture<Response> _submitProxyRequest(
+		OAuthClient oAuthService, ProxyRequestContext context) {
+
+		CompletableFuture<Response> completableFuture =
+			new CompletableFuture<>();
+
+		Future<?> future;
+
+		try {
+			future = _executorService.submit(
+				() -> {
+					try {
+						Response response = executeProxyRequest(context);
+
+						if (!completableFuture.complete(response)) {
+							_discard(response);
+						}
+					}
+					catch (Throwable throwable) {
+						completableFuture.completeExceptionally(throwable);
+					}
+				});
+		}
+		catch (RejectedExecutionException rejectedExecutionException) {
+			_log.warn(
+				"Rejected asynchronous proxy request for client " +
+					context.getClientName());
+
+			return CompletableFuture.completedFuture(
+				Response.status(
+					Response.Status.SERVICE_UNAVAILABLE
+				).entity(
+					"Too many concurrent proxy requests"
+				).build());
+		}
+
+		return completableFuture.orTimeout(
+			oAuthService.getSettings(
+			).asyncTimeout(),
+			TimeUnit.MILLISECONDS
+		).exceptionally(
+			throwable -> {
+				future.cancel(true);
+
+				return _toErrorResponse(context, throwable);
+			}
+		);
+	}
+
+
+	/**
+	 * Maps the failure of an asynchronous proxy request to an error response,
+	 * a 504 (Gateway Timeout) if the request timed out.
+	 *
+	 * @param context   The {@link ProxyRequestContext} for the request.
+	 * @param throwable The failure of the request.
+	 * @return The error {@link Response}.
+	 */
+	private Response _toErrorResponse(
+		ProxyRequestContext context, Throwable throwable) {
+
+		if ((throwable instanceof CompletionException) &&
+			(throwable.getCause() != null)) {
+
+			throwable = throwable.getCause();
+		}
+
+		if (throwable instanceof TimeoutException) {
+			return Response.status(
+				Response.Status.GATEWAY_TIMEOUT
+			).entity(
+				String.format(
+					"Timed out proxying request for client %s",
+					context.getClientName())
+			).build();
+		}
+
+		_log.error(
+			String.format(
+				"Error proxying request (%s)",
+				context.getMethodHandler(
+				).name()),
+			throwable);
+
+		return Response.status(
+			Response.Status.INTERNAL_SERVER_ERROR
+		).entity(
+			"Error proxying request: " + throwable.getMessage()
+		).build();
+	}
+
+	/**
+	 * The cap, in milliseconds, of the backoff before the first retry of a
+	 * request, doubled for every further retry.
+	 */
+	private static final long _RETRY_BACKOFF_BASE = 50;
+
+	/**
+	 * The maximum backoff, in milliseconds, between two attempts of a
+	 * request.
+	 */
+	private static final long _RETRY_BACKOFF_MAX = 2000;
+
+	private static final String _SERVER_TIMING = "Server-Timing";
+
 	private static final Log _log = LogFactoryUtil.getLog(
 		DefaultOAuthProxyService.class);
 
-	@Reference
-	private ClientBuilder _clientBuilder;
+	private ExecutorService _executorService;
 
 	@Reference
 	private OAuthServiceFactory _oAuthServiceFactory;
 
+	@Reference
+	private ProxyClientPoolRegistry _proxyClientPoolRegistry;
+
+	private final Map<String, ProxyEngine> _proxyEngines =
+		new ConcurrentHashMap<>();
+	private final RequestCoalescer _requestCoalescer = new RequestCoalescer();
+	private ResponseCompressor _responseCompressor;
+
+	@Reference
+	private ResponseCacheRegistry _responseCacheRegistry;
+
+	@Reference
+	private RouteTableRegistry _routeTableRegistry;
+
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of {@link Deflater} instances producing raw deflate data, as
+ * used inside the gzip format. Each deflater holds about 300 KB of native
+ * memory, so reusing them instead of creating one per compressed response
+ * keeps both the allocation rate and the native memory use flat. Deflaters
+ * returned while the pool is full, or after it is closed, are ended.
+ *
+ * @author Marcel Tanuri
+ */
+class DeflaterPool {
+
+	/**
+	 * Constructs a new {@code DeflaterPool}.
+	 *
+	 * @param maxIdle The maximum number of idle deflaters kept for reuse.
+	 */
+	DeflaterPool(int maxIdle) {
+		_deflaters = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+	}
+
+	/**
+	 * Takes an idle deflater from the pool, or creates a new one if none is
+	 * available.
+	 *
+	 * @param level The compression level, from 1 to 9.
+	 * @return The {@link Deflater}, which must be given back through {@link
+	 *         #release(Deflater)}.
+	 */
+	Deflater acquire(int level) {
+		level = Math.max(
+			Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, level));
+
+		Deflater deflater = _deflaters.poll();
+
+		if (deflater == null) {
+			return new Deflater(level, true);
+		}
+
+		deflater.setLevel(level);
+
+		return deflater;
+	}
+
+	/**
+	 * Ends the idle deflaters and makes the pool end every deflater given
+	 * back from now on.
+	 */
+	void close() {
+		_closed = true;
+
+		Deflater deflater;
+
+		while ((deflater = _deflaters.poll()) != null) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Gives back a deflater taken from the pool, resetting it for the next
+	 * response.
+	 *
+	 * @param deflater The {@link Deflater}.
+	 */
+	void release(Deflater deflater) {
+		deflater.reset();
+
+		if (_closed || !_deflaters.offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	private volatile boolean _closed;
+	private final BlockingQueue<Deflater> _deflaters;
+
+}
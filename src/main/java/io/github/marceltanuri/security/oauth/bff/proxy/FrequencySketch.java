@@ -0,0 +1,94 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+/**
+ * A count-min sketch estimating how often keys have been requested recently,
+ * used by the {@link ResponseCache} to admit a new response only if it is
+ * requested more often than the responses it would evict. Each key is counted
+ * in four rows of four-bit counters, and all counters are halved once the
+ * number of recorded requests reaches ten times the sketch width, so that the
+ * estimate follows changes in popularity. This class is not thread-safe.
+ *
+ * @author Marcel Tanuri
+ */
+final class FrequencySketch {
+
+	/**
+	 * Constructs a new {@code FrequencySketch}.
+	 *
+	 * @param expectedSize The expected number of distinct keys held by the
+	 *                     cache.
+	 */
+	FrequencySketch(int expectedSize) {
+		int width = Integer.highestOneBit(
+			Math.max(_MIN_WIDTH, Math.min(_MAX_WIDTH, expectedSize)) * 2 - 1);
+
+		_counters = new byte[_DEPTH * width];
+		_resetThreshold = 10 * width;
+		_widthMask = width - 1;
+	}
+
+	/**
+	 * Returns the estimated number of recent requests for the key.
+	 *
+	 * @param hashCode The hash code of the key.
+	 * @return The estimated frequency, between {@code 0} and {@code 15}.
+	 */
+	int frequency(int hashCode) {
+		int frequency = _MAX_FREQUENCY;
+
+		for (int i = 0; i < _DEPTH; i++) {
+			frequency = Math.min(frequency, _counters[_getIndex(hashCode, i)]);
+		}
+
+		return frequency;
+	}
+
+	/**
+	 * Records a request for the key.
+	 *
+	 * @param hashCode The hash code of the key.
+	 */
+	void increment(int hashCode) {
+		for (int i = 0; i < _DEPTH; i++) {
+			int index = _getIndex(hashCode, i);
+
+			if (_counters[index] < _MAX_FREQUENCY) {
+				_counters[index]++;
+			}
+		}
+
+		if (++_size >= _resetThreshold) {
+			for (int i = 0; i < _counters.length; i++) {
+				_counters[i] >>= 1;
+			}
+
+			_size /= 2;
+		}
+	}
+
+	private int _getIndex(int hashCode, int row) {
+		int hash = (hashCode + _SEEDS[row]) * 0x9E3779B9;
+
+		hash ^= hash >>> 16;
+
+		return (row * (_widthMask + 1)) + (hash & _widthMask);
+	}
+
+	private static final int _DEPTH = 4;
+
+	private static final int _MAX_FREQUENCY = 15;
+
+	private static final int _MAX_WIDTH = 1 << 16;
+
+	private static final int _MIN_WIDTH = 64;
+
+	private static final int[] _SEEDS = {
+		0x97CB3127, 0x0B3C5B2F, 0x5A7D2C19, 0x2C1B3C6D
+	};
+
+	private final byte[] _counters;
+	private final int _resetThreshold;
+	private int _size;
+	private final int _widthMask;
+
+}
@@ -0,0 +1,150 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * A {@link StreamingOutput} that writes the body of a response compressed in
+ * the gzip format. The body is compressed as it is written, so a streamed
+ * downstream body is never buffered, and every flush of the body is passed on
+ * to the caller as a sync flush of the compressed stream. The deflater is
+ * taken from a {@link DeflaterPool} for the duration of the write only.
+ *
+ * @author Marcel Tanuri
+ */
+class GzipStreamingOutput implements Closeable, StreamingOutput {
+
+	/**
+	 * Constructs a new {@code GzipStreamingOutput}.
+	 *
+	 * @param entity       The uncompressed body, either a byte array or a
+	 *                     {@link StreamingOutput}.
+	 * @param deflaterPool The {@link DeflaterPool} providing the deflater.
+	 * @param level        The compression level, from 1 to 9.
+	 */
+	GzipStreamingOutput(Object entity, DeflaterPool deflaterPool, int level) {
+		_entity = entity;
+		_deflaterPool = deflaterPool;
+		_level = level;
+	}
+
+	/**
+	 * Discards the body without writing it, releasing the downstream response
+	 * if the body is streamed.
+	 *
+	 * @throws IOException if closing the body fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (_entity instanceof Closeable) {
+			Closeable closeable = (Closeable)_entity;
+
+			closeable.close();
+		}
+	}
+
+	/**
+	 * Writes the compressed body to the given output stream.
+	 *
+	 * @param outputStream The output stream of the caller's response.
+	 * @throws IOException if reading or writing the body fails.
+	 */
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		Deflater deflater = _deflaterPool.acquire(_level);
+
+		try {
+			GzipOutputStream gzipOutputStream = new GzipOutputStream(
+				outputStream, deflater);
+
+			if (_entity instanceof byte[]) {
+				gzipOutputStream.write((byte[])_entity);
+			}
+			else {
+				StreamingOutput streamingOutput = (StreamingOutput)_entity;
+
+				streamingOutput.write(gzipOutputStream);
+			}
+
+			gzipOutputStream.finish();
+		}
+		finally {
+			_deflaterPool.release(deflater);
+		}
+	}
+
+	private static final int _BUFFER_SIZE = 8192;
+
+	private static final byte[] _HEADER = {
+		(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff
+	};
+
+	private final DeflaterPool _deflaterPool;
+	private final Object _entity;
+	private final int _level;
+
+	/**
+	 * Writes the gzip header, the raw deflate data and the gzip trailer around
+	 * the bytes written to it. Unlike {@link java.util.zip.GZIPOutputStream},
+	 * it uses the given deflater instead of creating one, and never closes the
+	 * underlying output stream, which belongs to the container.
+	 */
+	private static class GzipOutputStream extends DeflaterOutputStream {
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			if (_finished) {
+				return;
+			}
+
+			_finished = true;
+
+			super.finish();
+
+			long crc = _crc32.getValue();
+			long size = def.getBytesRead();
+
+			byte[] trailer = {
+				(byte)crc, (byte)(crc >> 8), (byte)(crc >> 16),
+				(byte)(crc >> 24), (byte)size, (byte)(size >> 8),
+				(byte)(size >> 16), (byte)(size >> 24)
+			};
+
+			out.write(trailer);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length)
+			throws IOException {
+
+			super.write(bytes, offset, length);
+
+			_crc32.update(bytes, offset, length);
+		}
+
+		private GzipOutputStream(OutputStream outputStream, Deflater deflater)
+			throws IOException {
+
+			super(outputStream, deflater, _BUFFER_SIZE, true);
+
+			outputStream.write(_HEADER);
+		}
+
+		private final CRC32 _crc32 = new CRC32();
+		private boolean _finished;
+
+	}
+
+}
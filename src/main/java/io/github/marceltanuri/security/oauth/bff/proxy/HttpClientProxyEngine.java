@@ -0,0 +1,123 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+
+import java.io.InputStream;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Duration;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * {@link ProxyEngine} implementation backed by the shared
+ * {@link java.net.http.HttpClient} of each OAuth client. The client negotiates
+ * HTTP/2, multiplexing many concurrent proxied requests over a few
+ * connections to each downstream service, and falls back to HTTP/1.1 when the
+ * service does not support it. Services reached over plain {@code http://}
+ * are spoken to in HTTP/1.1, since the cleartext upgrade to HTTP/2 is rarely
+ * supported and costs a round trip.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(property = "proxy.engine=http2", service = ProxyEngine.class)
+public class HttpClientProxyEngine implements ProxyEngine {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UpstreamResponse execute(
+			ProxyClientPool proxyClientPool, URI targetURI,
+			ProxyRequestContext context, String accessToken)
+		throws Exception {
+
+		HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(
+			targetURI
+		).header(
+			"Authorization", "Bearer " + accessToken
+		);
+
+		for (Map.Entry<String, String> entry :
+				context.getHeaders(
+				).entrySet()) {
+
+			requestBuilder.header(entry.getKey(), entry.getValue());
+		}
+
+		HttpRequest.BodyPublisher bodyPublisher =
+			HttpRequest.BodyPublishers.noBody();
+
+		if (context.hasRequestBody()) {
+			String contentType = context.getContentType();
+
+			if (contentType == null) {
+				contentType = "application/octet-stream";
+			}
+
+			requestBuilder.header("Content-Type", contentType);
+
+			bodyPublisher = HttpRequest.BodyPublishers.ofInputStream(
+				context::getRequestBody);
+
+			if (context.getContentLength() > 0) {
+				bodyPublisher = HttpRequest.BodyPublishers.fromPublisher(
+					bodyPublisher, context.getContentLength());
+			}
+		}
+
+		if (context.getTimeout() > 0) {
+			requestBuilder.timeout(Duration.ofMillis(context.getTimeout()));
+		}
+
+		requestBuilder.method(
+			context.getMethodHandler(
+			).name(),
+			bodyPublisher);
+
+		HttpResponse<InputStream> httpResponse = proxyClientPool.getHttpClient(
+		).send(
+			requestBuilder.build(), HttpResponse.BodyHandlers.ofInputStream()
+		);
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				String.format(
+					"Received %s response from %s", httpResponse.version(),
+					targetURI));
+		}
+
+		Map<String, List<String>> headers = new LinkedHashMap<>();
+
+		for (Map.Entry<String, List<String>> entry :
+				httpResponse.headers(
+				).map(
+				).entrySet()) {
+
+			if (!entry.getKey(
+				).startsWith(
+					":"
+				)) {
+
+				headers.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		return new UpstreamResponse(
+			httpResponse.statusCode(), headers, httpResponse.body(), null);
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		HttpClientProxyEngine.class);
+
+}
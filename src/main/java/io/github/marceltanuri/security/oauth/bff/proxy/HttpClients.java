@@ -0,0 +1,69 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.net.http.HttpClient;
+
+/**
+ * Runtime detection of the shutdown of {@link HttpClient}s. The bundle is
+ * compiled for Java 11, where a client is only released once it is garbage
+ * collected, so the Java 21 {@code HttpClient.shutdown()} method is looked up
+ * reflectively once and used only when the running JDK provides it.
+ *
+ * @author Marcel Tanuri
+ */
+final class HttpClients {
+
+	/**
+	 * Initiates an orderly shutdown of the given client, which closes its
+	 * connections once the requests in flight complete, if the running JDK
+	 * supports it. Otherwise, the client is left to the garbage collector.
+	 *
+	 * @param httpClient The {@link HttpClient} to shut down.
+	 */
+	static void shutdown(HttpClient httpClient) {
+		if (_shutdownMethodHandle == null) {
+			return;
+		}
+
+		try {
+			_shutdownMethodHandle.invokeExact(httpClient);
+		}
+		catch (Throwable throwable) {
+			_log.error("Unable to shut down HTTP client", throwable);
+		}
+	}
+
+	private HttpClients() {
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(HttpClients.class);
+
+	private static final MethodHandle _shutdownMethodHandle;
+
+	static {
+		MethodHandle shutdownMethodHandle = null;
+
+		try {
+			shutdownMethodHandle = MethodHandles.publicLookup(
+			).findVirtual(
+				HttpClient.class, "shutdown", MethodType.methodType(void.class)
+			);
+		}
+		catch (ReflectiveOperationException reflectiveOperationException) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"HTTP clients cannot be shut down on Java " +
+						Runtime.version());
+			}
+		}
+
+		_shutdownMethodHandle = shutdownMethodHandle;
+	}
+
+}
@@ -0,0 +1,171 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+
+import java.io.InputStream;
+
+import java.net.URI;
+
+import java.util.Map;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * {@link ProxyEngine} implementation backed by the pooled JAX-RS
+ * {@link javax.ws.rs.client.Client} of each OAuth client. This is the default
+ * engine and speaks HTTP/1.1.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(property = "proxy.engine=jaxrs", service = ProxyEngine.class)
+public class JaxRsProxyEngine implements ProxyEngine {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public UpstreamResponse execute(
+			ProxyClientPool proxyClientPool, URI targetURI,
+			ProxyRequestContext context, String accessToken)
+		throws Exception {
+
+		WebTarget target = proxyClientPool.getClient(
+		).target(
+			targetURI
+		);
+
+		target.property(
+			_CONNECTION_TIMEOUT, proxyClientPool.getConnectTimeout());
+
+		if (context.getTimeout() > 0) {
+			target.property(_RECEIVE_TIMEOUT, context.getTimeout());
+		}
+
+		Invocation.Builder requestBuilder = target.request();
+
+		if (context.getMethodHandler() == HttpMethodHandler.PATCH) {
+			requestBuilder.property(_USE_METHOD_REFLECTION, Boolean.TRUE);
+		}
+
+		if (!proxyClientPool.isConnectionKeepAlive()) {
+			requestBuilder.header("Connection", "close");
+		}
+
+		String maskedToken = (accessToken.length() > 10) ?
+			(accessToken.substring(0, 10) + "...") : accessToken;
+
+		requestBuilder.header("Authorization", "Bearer " + accessToken);
+
+		_log.debug("Request Headers: Authorization=Bearer " + maskedToken);
+
+		for (Map.Entry<String, String> entry :
+				context.getHeaders(
+				).entrySet()) {
+
+			requestBuilder.header(entry.getKey(), entry.getValue());
+
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Request Headers: " + entry.getKey() + "=" +
+						entry.getValue());
+			}
+		}
+
+		Entity<InputStream> entity = null;
+
+		if (context.hasRequestBody()) {
+			MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM_TYPE;
+
+			if (context.getContentType() != null) {
+				mediaType = MediaType.valueOf(context.getContentType());
+			}
+
+			entity = Entity.entity(context.getRequestBody(), mediaType);
+
+			if (context.getContentLength() > 0) {
+				requestBuilder.header(
+					"Content-Length", context.getContentLength());
+			}
+
+			if (_log.isDebugEnabled()) {
+				_log.debug("Request Headers: Content-Type=" + mediaType);
+				_log.debug(
+					"Request Headers: Content-Length=" +
+						context.getContentLength());
+			}
+		}
+		else {
+			if ((context.getMethodHandler() == HttpMethodHandler.GET) ||
+				(context.getMethodHandler() == HttpMethodHandler.HEAD) ||
+				(context.getMethodHandler() == HttpMethodHandler.DELETE)) {
+
+				requestBuilder.header("Content-Type", null);
+				_log.debug(
+					"Request Headers: Content-Type=null (Forced omission " +
+						"for GET/HEAD/DELETE to satisfy AWS)");
+			}
+			else {
+				_log.debug("Request Headers: Content-Type=omitted (No Body)");
+			}
+		}
+
+		Response proxyResponse = context.getMethodHandler(
+		).execute(
+			requestBuilder, entity
+		);
+
+		try {
+			InputStream body = null;
+
+			if (proxyResponse.hasEntity()) {
+				body = proxyResponse.readEntity(InputStream.class);
+			}
+
+			return new UpstreamResponse(
+				proxyResponse.getStatus(), proxyResponse.getStringHeaders(),
+				body, proxyResponse::close);
+		}
+		catch (RuntimeException runtimeException) {
+			proxyResponse.close();
+
+			throw runtimeException;
+		}
+	}
+
+	/**
+	 * The target property holding the time, in milliseconds, the Apache CXF
+	 * client bundled with Liferay waits for a new connection. CXF reads it
+	 * from the target configuration when the request is built, so it must be
+	 * set before {@link WebTarget#request()}.
+	 */
+	private static final String _CONNECTION_TIMEOUT = "http.connection.timeout";
+
+	/**
+	 * The target property holding the time, in milliseconds, the Apache CXF
+	 * client bundled with Liferay waits for the response. Like {@link
+	 * #_CONNECTION_TIMEOUT}, it is ignored when set on the request.
+	 */
+	private static final String _RECEIVE_TIMEOUT = "http.receive.timeout";
+
+	/**
+	 * The request property letting the {@link java.net.HttpURLConnection}
+	 * based transport of Apache CXF send methods the JDK does not know, such
+	 * as PATCH.
+	 */
+	private static final String _USE_METHOD_REFLECTION =
+		"use.httpurlconnection.method.reflection";
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		JaxRsProxyEngine.class);
+
+}
@@ -0,0 +1,29 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+/**
+ * Defines the contract for the objects built from the settings of a single
+ * {@link OAuthClient} and kept by a {@link BaseOAuthClientRegistry}, which
+ * replaces them once the client or its settings change.
+ *
+ * @author Marcel Tanuri
+ */
+public interface OAuthClientScoped {
+
+	/**
+	 * Returns the {@link OAuthClient} this object belongs to.
+	 *
+	 * @return The OAuth client.
+	 */
+	public OAuthClient getOAuthClient();
+
+	/**
+	 * Returns the settings snapshot this object was built from.
+	 *
+	 * @return The {@link OAuthClientSettings}.
+	 */
+	public OAuthClientSettings getSettings();
+
+}
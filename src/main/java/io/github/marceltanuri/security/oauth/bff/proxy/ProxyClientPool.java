@@ -0,0 +1,303 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.net.http.HttpClient;
+
+import java.time.Duration;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.ws.rs.client.Client;
+
+/**
+ * The long-lived, pooled HTTP clients dedicated to a single
+ * {@link OAuthClient}: a JAX-RS {@link Client} and a
+ * {@link HttpClient} negotiating HTTP/2, each built lazily for
+ * the {@link ProxyEngine} that uses it. The clients, and therefore their
+ * connections, are reused across proxied requests instead of being built and
+ * closed for every call. The number of concurrent leases is bounded by the
+ * configured maximum number of concurrent requests, which limits requests in
+ * flight rather than connections. Connections are not limited per client:
+ * the HTTP conduit of the JAX-RS client pools them in the keep-alive cache
+ * of the JDK, which is shared by the whole JVM and closes them once idle, so
+ * the JAX-RS client is kept until the pool is closed, and rebuilding it would
+ * only repeat TLS handshakes. The HTTP client, which keeps its connections
+ * open for as long as it lives, is shut down once it stays unused for longer
+ * than the configured HTTP/2 idle timeout, and built again lazily on the
+ * next use. Requests
+ * of the HTTP client multiplexed as HTTP/2 streams are not bounded by the
+ * pool, since the stream limit of the service applies to them.
+ *
+ * @author Marcel Tanuri
+ */
+public class ProxyClientPool implements AutoCloseable, OAuthClientScoped {
+
+	/**
+	 * Constructs a new {@code ProxyClientPool} for the given OAuth client.
+	 *
+	 * @param oAuthClient   The {@link OAuthClient} this pool belongs to.
+	 * @param clientFactory The factory used to build the underlying JAX-RS
+	 *                      {@link Client}.
+	 */
+	public ProxyClientPool(
+		OAuthClient oAuthClient, Supplier<Client> clientFactory) {
+
+		OAuthClientSettings settings = oAuthClient.getSettings();
+
+		_oAuthClient = oAuthClient;
+		_settings = settings;
+		_clientFactory = clientFactory;
+
+		_clientName = oAuthClient.getClientName();
+		_connectionKeepAlive = settings.connectionKeepAlive();
+		_connectTimeout = settings.connectTimeout();
+		_http2IdleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(
+			settings.http2IdleTimeout());
+		_requestQueueTimeout = settings.requestQueueTimeout();
+
+		String serviceBaseUrl = oAuthClient.getServiceBaseUrl();
+
+		if ((serviceBaseUrl != null) &&
+			serviceBaseUrl.regionMatches(true, 0, "http://", 0, 7)) {
+
+			_httpVersion = HttpClient.Version.HTTP_1_1;
+		}
+		else {
+			_httpVersion = HttpClient.Version.HTTP_2;
+		}
+
+		if (_HTTP2_PROXY_ENGINE.equals(settings.proxyEngine()) &&
+			(_httpVersion == HttpClient.Version.HTTP_2)) {
+
+			_semaphore = null;
+		}
+		else {
+			_semaphore = new Semaphore(
+				Math.max(1, settings.maxConcurrentRequests()));
+		}
+	}
+
+	/**
+	 * Closes the pool. The underlying clients are closed immediately if the
+	 * pool is not leased, or as soon as the last lease is released otherwise.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			_closed = true;
+
+			if (_leased == 0) {
+				_closeClient();
+			}
+		}
+	}
+
+	/**
+	 * Drops the HTTP client, and with it its connections, if the pool is not
+	 * leased and has not been used for longer than the configured HTTP/2 idle
+	 * timeout. The JAX-RS client is kept.
+	 *
+	 * @param now The current value of {@link System#nanoTime()}.
+	 */
+	public void evictIdle(long now) {
+		synchronized (this) {
+			if ((_leased == 0) &&
+				((now - _lastReleaseTime) >= _http2IdleTimeoutNanos)) {
+
+				_closeHttpClient();
+			}
+		}
+	}
+
+	/**
+	 * Returns the pooled JAX-RS client, building it if needed. It must only be
+	 * called while holding a lease.
+	 *
+	 * @return The pooled JAX-RS {@link Client}.
+	 */
+	public Client getClient() {
+		synchronized (this) {
+			_checkOpen();
+
+			if (_client == null) {
+				_client = _clientFactory.get();
+			}
+
+			return _client;
+		}
+	}
+
+	/**
+	 * Returns the time, in milliseconds, to wait for a new connection to the
+	 * service, or {@code 0} to wait indefinitely.
+	 *
+	 * @return The connect timeout, in milliseconds.
+	 */
+	public long getConnectTimeout() {
+		return _connectTimeout;
+	}
+
+	/**
+	 * Returns the pooled HTTP client, building it if needed. Over {@code
+	 * https}, the client negotiates HTTP/2, multiplexing concurrent requests
+	 * over a few connections, and falls back to HTTP/1.1 when the service does
+	 * not support it. Over cleartext {@code http}, it speaks HTTP/1.1, so new
+	 * connections do not attempt an upgrade to HTTP/2. It must only be called
+	 * while holding a lease.
+	 *
+	 * @return The pooled {@link HttpClient}.
+	 */
+	public HttpClient getHttpClient() {
+		synchronized (this) {
+			_checkOpen();
+
+			if (_httpClient == null) {
+				HttpClient.Builder builder = HttpClient.newBuilder(
+				).version(
+					_httpVersion
+				).followRedirects(
+					HttpClient.Redirect.NEVER
+				);
+
+				if (_connectTimeout > 0) {
+					builder.connectTimeout(Duration.ofMillis(_connectTimeout));
+				}
+
+				_httpClient = builder.build();
+			}
+
+			return _httpClient;
+		}
+	}
+
+	/**
+	 * Returns the {@link OAuthClient} this pool belongs to.
+	 *
+	 * @return The OAuth client.
+	 */
+	@Override
+	public OAuthClient getOAuthClient() {
+		return _oAuthClient;
+	}
+
+	/**
+	 * Returns the settings snapshot the pool was built from.
+	 *
+	 * @return The {@link OAuthClientSettings}.
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * Returns whether connections should be kept alive between requests.
+	 *
+	 * @return {@code true} if connections are kept alive.
+	 */
+	public boolean isConnectionKeepAlive() {
+		return _connectionKeepAlive;
+	}
+
+	/**
+	 * Leases the pool, waiting while the maximum number of concurrent
+	 * requests is in flight for up to the configured request queue timeout.
+	 * Every successful lease must be paired with a call to {@link
+	 * #release()}.
+	 *
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 * @throws TimeoutException     if no lease becomes available in time.
+	 */
+	public void lease() throws InterruptedException, TimeoutException {
+		if ((_semaphore != null) &&
+			!_semaphore.tryAcquire(
+				_requestQueueTimeout, TimeUnit.MILLISECONDS)) {
+
+			throw new TimeoutException(
+				String.format(
+					"Timed out waiting for a free request slot for client %s",
+					_clientName));
+		}
+
+		synchronized (this) {
+			if (_closed) {
+				_releaseSemaphore();
+
+				_checkOpen();
+			}
+
+			_leased++;
+		}
+	}
+
+	/**
+	 * Releases a lease previously obtained through {@link #lease()}.
+	 */
+	public void release() {
+		synchronized (this) {
+			_leased--;
+			_lastReleaseTime = System.nanoTime();
+
+			if (_closed && (_leased == 0)) {
+				_closeClient();
+			}
+		}
+
+		_releaseSemaphore();
+	}
+
+	private void _checkOpen() {
+		if (_closed) {
+			throw new IllegalStateException(
+				"Connection pool is closed for client " + _clientName);
+		}
+	}
+
+	private void _closeClient() {
+		if (_client != null) {
+			_client.close();
+
+			_client = null;
+		}
+
+		_closeHttpClient();
+	}
+
+	private void _closeHttpClient() {
+		if (_httpClient != null) {
+			HttpClients.shutdown(_httpClient);
+
+			_httpClient = null;
+		}
+	}
+
+	private void _releaseSemaphore() {
+		if (_semaphore != null) {
+			_semaphore.release();
+		}
+	}
+
+	private static final String _HTTP2_PROXY_ENGINE = "http2";
+
+	private Client _client;
+	private final Supplier<Client> _clientFactory;
+	private final String _clientName;
+	private boolean _closed;
+	private final boolean _connectionKeepAlive;
+	private final long _connectTimeout;
+	private final long _http2IdleTimeoutNanos;
+	private HttpClient _httpClient;
+	private final HttpClient.Version _httpVersion;
+	private long _lastReleaseTime = System.nanoTime();
+	private int _leased;
+	private final OAuthClient _oAuthClient;
+	private final long _requestQueueTimeout;
+	private final Semaphore _semaphore;
+	private final OAuthClientSettings _settings;
+
+}
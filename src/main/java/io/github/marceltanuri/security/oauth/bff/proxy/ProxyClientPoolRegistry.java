@@ -0,0 +1,105 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * An OSGi component that keeps one {@link ProxyClientPool} for each
+ * {@link OAuthClient} registered in the OSGi service registry. Pools are
+ * created when a client is registered, closed when they are replaced or
+ * their client is unregistered, and periodically checked for idle eviction.
+ * A replaced pool is closed once its last lease is released.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(service = ProxyClientPoolRegistry.class)
+public class ProxyClientPoolRegistry
+	extends BaseOAuthClientRegistry<ProxyClientPool> {
+
+	/**
+	 * Activates the component, starting the background task that evicts idle
+	 * pools.
+	 */
+	@Activate
+	protected void activate() {
+		_scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+			runnable -> {
+				Thread thread = new Thread(
+					runnable, "oauth-bff-proxy-client-pool-evictor");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_scheduledExecutorService.scheduleWithFixedDelay(
+			this::_evictIdle, _EVICTION_INTERVAL, _EVICTION_INTERVAL,
+			TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	protected ProxyClientPool create(OAuthClient oAuthClient) {
+		return new ProxyClientPool(oAuthClient, this::_buildClient);
+	}
+
+	/**
+	 * Deactivates the component, stopping the eviction task and closing every
+	 * pool.
+	 */
+	@Deactivate
+	@Override
+	protected void deactivate() {
+		_scheduledExecutorService.shutdownNow();
+
+		super.deactivate();
+	}
+
+	@Override
+	protected void discard(ProxyClientPool proxyClientPool) {
+		proxyClientPool.close();
+	}
+
+	/**
+	 * Creates the pool of the client, so that it is ready for the first
+	 * request.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} being registered or updated.
+	 */
+	@Override
+	protected void prepare(OAuthClient oAuthClient) {
+		get(oAuthClient);
+	}
+
+	private Client _buildClient() {
+		synchronized (_clientBuilder) {
+			return _clientBuilder.build();
+		}
+	}
+
+	private void _evictIdle() {
+		long now = System.nanoTime();
+
+		for (ProxyClientPool proxyClientPool : getValues()) {
+			proxyClientPool.evictIdle(now);
+		}
+	}
+
+	private static final long _EVICTION_INTERVAL = 5000;
+
+	@Reference
+	private ClientBuilder _clientBuilder;
+
+	private ScheduledExecutorService _scheduledExecutorService;
+
+}
@@ -0,0 +1,36 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.net.URI;
+
+/**
+ * Defines the contract for the HTTP engine used by the
+ * {@link DefaultOAuthProxyService} to send requests to downstream services.
+ * Implementations are registered as OSGi services with a
+ * {@code proxy.engine} property, whose value is matched against the
+ * {@code proxyEngine} setting of each OAuth client.
+ *
+ * @author Marcel Tanuri
+ */
+public interface ProxyEngine {
+
+	/**
+	 * Sends the request described by the given context to the downstream
+	 * service. The caller holds a lease on the given pool for the whole
+	 * exchange, including the consumption of the response body.
+	 *
+	 * @param proxyClientPool The {@link ProxyClientPool} of the OAuth client,
+	 *                        providing the long-lived HTTP clients.
+	 * @param targetURI       The target {@link URI} of the downstream service.
+	 * @param context         The {@link DefaultOAuthProxyService.ProxyRequestContext}
+	 *                        of the request.
+	 * @param accessToken     The OAuth 2.0 access token.
+	 * @return The {@link UpstreamResponse} of the downstream service.
+	 * @throws Exception if the request fails.
+	 */
+	public UpstreamResponse execute(
+			ProxyClientPool proxyClientPool, URI targetURI,
+			DefaultOAuthProxyService.ProxyRequestContext context,
+			String accessToken)
+		throws Exception;
+
+}
@@ -0,0 +1,63 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.metrics.ProxyRequestEvent;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * Fills in and commits {@link ProxyRequestEvent}s. It is kept apart from
+ * {@link DefaultOAuthProxyService} so that no method signature of the
+ * component refers to {@code jdk.jfr} types, which the OSGi runtime resolves
+ * when it introspects the component, and which may not be available.
+ *
+ * @author Marcel Tanuri
+ */
+final class ProxyRequestEvents {
+
+	/**
+	 * Fills in the given event with the outcome of the request and commits
+	 * it.
+	 *
+	 * @param proxyRequestEvent The {@link ProxyRequestEvent} of the request.
+	 * @param context           The {@link ProxyRequestContext} for the
+	 *                          request.
+	 * @param response          The {@link Response} returned to the caller.
+	 * @param serverTiming      The {@link ServerTiming} holding the time spent
+	 *                          in each phase of the request.
+	 */
+	static void commit(
+		ProxyRequestEvent proxyRequestEvent, ProxyRequestContext context,
+		Response response, ServerTiming serverTiming) {
+
+		long responseSize = response.getLength();
+
+		Object entity = response.getEntity();
+
+		if (entity instanceof byte[]) {
+			responseSize = ((byte[])entity).length;
+		}
+
+		proxyRequestEvent.setBodyDuration(
+			serverTiming.getDuration(ServerTiming.Phase.BODY));
+		proxyRequestEvent.setClientName(context.getClientName());
+		proxyRequestEvent.setMethod(
+			context.getMethodHandler(
+			).name());
+		proxyRequestEvent.setPath(context.getPath());
+		proxyRequestEvent.setPoolDuration(
+			serverTiming.getDuration(ServerTiming.Phase.POOL));
+		proxyRequestEvent.setResponseSize(responseSize);
+		proxyRequestEvent.setStatus(response.getStatus());
+		proxyRequestEvent.setTokenDuration(
+			serverTiming.getDuration(ServerTiming.Phase.TOKEN));
+		proxyRequestEvent.setUpstreamDuration(
+			serverTiming.getDuration(ServerTiming.Phase.UPSTREAM));
+
+		proxyRequestEvent.commit();
+	}
+
+	private ProxyRequestEvents() {
+	}
+
+}
@@ -2,16 +2,26 @@ package io.github.marceltanuri.security.oauth.bff.proxy;
 
 import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
 import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+
+import java.io.InputStream;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HEAD;
+import javax.ws.rs.OPTIONS;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
@@ -22,10 +32,23 @@ import org.osgi.service.component.annotations.Reference;
 /**
  * JAX-RS resource class that exposes endpoints for the proxy service.
  * This class defines the API paths for proxying requests to downstream
- * services, handling different HTTP methods (GET, POST, PUT, DELETE).
+ * services, handling different HTTP methods (GET, HEAD, POST, PUT, PATCH,
+ * DELETE).
  * It extracts path parameters, the request body, and query strings to
  * construct a {@link ProxyRequestContext} and then delegates the execution
- * to the {@link ProxyService}.
+ * to the {@link ProxyService}. Request bodies are bound as raw streams, so
+ * they are forwarded byte for byte with their original content type, and
+ * the conditional request headers and accepted content encodings are
+ * forwarded as well. Every request is suspended and resumed once the proxy
+ * service completes it, so clients configured for asynchronous execution do
+ * not hold a container thread during the downstream round trip.
+ *
+ * <p>
+ * OPTIONS requests are answered locally. CORS preflight requests are
+ * answered from the {@link CorsPolicy} of the client, without a token lookup
+ * or a downstream call, and the responses to actual cross-origin requests
+ * carry the headers granting the caller's origin access to them.
+ * </p>
  *
  * @author Marcel Tanuri
  */
@@ -45,18 +68,23 @@ public class ProxyResource {
 	 * @param clientName The name of the client configuration to use, extracted
 	 *                   from the path.
 	 * @param path       The downstream service path to proxy the request to.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                   conditional request headers.
 	 * @param uriInfo    The {@link UriInfo} context, used to extract the query
 	 *                   string.
-	 * @return A {@link Response} from the downstream service.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
 	 */
 	@DELETE
 	@Path(_PROXY_PATH)
 	@Produces(MediaType.WILDCARD)
-	public Response proxyDeleteRequest(
+	public void proxyDeleteRequest(
 		@PathParam("clientName") String clientName,
-		@PathParam("path") String path, @Context UriInfo uriInfo) {
+		@PathParam("path") String path, @Context HttpHeaders httpHeaders,
+		@Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
 
-		ProxyRequestContext context = ProxyRequestContext.builder(
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
 		).clientName(
 			clientName
 		).path(
@@ -67,7 +95,7 @@ public class ProxyResource {
 			_getQueryString(uriInfo)
 		).build();
 
-		return _executeProxyRequest(context);
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
 	}
 
 	/**
@@ -76,18 +104,23 @@ public class ProxyResource {
 	 * @param clientName The name of the client configuration to use, extracted
 	 *                   from the path.
 	 * @param path       The downstream service path to proxy the request to.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                   conditional request headers.
 	 * @param uriInfo    The {@link UriInfo} context, used to extract the query
 	 *                   string.
-	 * @return A {@link Response} from the downstream service.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
 	 */
 	@GET
 	@Path(_PROXY_PATH)
 	@Produces(MediaType.WILDCARD)
-	public Response proxyGetRequest(
+	public void proxyGetRequest(
 		@PathParam("clientName") String clientName,
-		@PathParam("path") String path, @Context UriInfo uriInfo) {
+		@PathParam("path") String path, @Context HttpHeaders httpHeaders,
+		@Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
 
-		ProxyRequestContext context = ProxyRequestContext.builder(
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
 		).clientName(
 			clientName
 		).path(
@@ -98,7 +131,136 @@ public class ProxyResource {
 			_getQueryString(uriInfo)
 		).build();
 
-		return _executeProxyRequest(context);
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
+	}
+
+	/**
+	 * Handles HTTP HEAD requests for the proxy, which are sent downstream as
+	 * HEAD requests instead of GET requests whose body is discarded.
+	 *
+	 * @param clientName The name of the client configuration to use, extracted
+	 *                   from the path.
+	 * @param path       The downstream service path to proxy the request to.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                   conditional request headers.
+	 * @param uriInfo    The {@link UriInfo} context, used to extract the query
+	 *                   string.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
+	 */
+	@HEAD
+	@Path(_PROXY_PATH)
+	@Produces(MediaType.WILDCARD)
+	public void proxyHeadRequest(
+		@PathParam("clientName") String clientName,
+		@PathParam("path") String path, @Context HttpHeaders httpHeaders,
+		@Context UriInfo uriInfo, @Suspended AsyncResponse asyncResponse) {
+
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
+		).clientName(
+			clientName
+		).path(
+			path
+		).methodHandler(
+			HttpMethodHandler.HEAD
+		).queryString(
+			_getQueryString(uriInfo)
+		).build();
+
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
+	}
+
+	/**
+	 * Handles HTTP OPTIONS requests for the proxy locally. A CORS preflight
+	 * request is answered from the {@link CorsPolicy} of the client, and any
+	 * other OPTIONS request with the methods supported by the proxy.
+	 *
+	 * @param clientName  The name of the client configuration to use, extracted
+	 *                    from the path.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    CORS request headers.
+	 * @return The {@link Response} to the OPTIONS request.
+	 */
+	@OPTIONS
+	@Path(_PROXY_PATH)
+	public Response proxyOptionsRequest(
+		@PathParam("clientName") String clientName,
+		@Context HttpHeaders httpHeaders) {
+
+		OAuthClient oAuthClient = _oAuthServiceFactory.getOAuthClient(
+			clientName);
+
+		if (oAuthClient == null) {
+			return Response.status(
+				Response.Status.NOT_FOUND
+			).entity(
+				"OAuth client configuration not found for: " + clientName
+			).build();
+		}
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+		String requestMethod = httpHeaders.getHeaderString(
+			"Access-Control-Request-Method");
+
+		if ((origin == null) || (requestMethod == null)) {
+			return Response.noContent(
+			).header(
+				HttpHeaders.ALLOW, _ALLOWED_METHODS
+			).build();
+		}
+
+		CorsPolicy corsPolicy = _corsPolicyRegistry.get(oAuthClient);
+
+		return corsPolicy.preflight(
+			origin, requestMethod,
+			httpHeaders.getHeaderString("Access-Control-Request-Headers"));
+	}
+
+	/**
+	 * Handles HTTP PATCH requests for the proxy.
+	 *
+	 * @param clientName  The name of the client configuration to use, extracted
+	 *                    from the path.
+	 * @param path        The downstream service path to proxy the request to.
+	 * @param requestBody The body of the PATCH request, as a raw stream.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    content type and length of the body and the
+	 *                    conditional request headers.
+	 * @param uriInfo     The {@link UriInfo} context, used to extract the query
+	 *                    string.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
+	 */
+	@Consumes(MediaType.WILDCARD)
+	@PATCH
+	@Path(_PROXY_PATH)
+	@Produces(MediaType.WILDCARD)
+	public void proxyPatchRequest(
+		@PathParam("clientName") String clientName,
+		@PathParam("path") String path, InputStream requestBody,
+		@Context HttpHeaders httpHeaders, @Context UriInfo uriInfo,
+		@Suspended AsyncResponse asyncResponse) {
+
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
+		).clientName(
+			clientName
+		).path(
+			path
+		).methodHandler(
+			HttpMethodHandler.PATCH
+		).requestBody(
+			_getRequestBody(requestBody, httpHeaders)
+		).contentType(
+			httpHeaders.getHeaderString(HttpHeaders.CONTENT_TYPE)
+		).contentLength(
+			_getContentLength(httpHeaders)
+		).queryString(
+			_getQueryString(uriInfo)
+		).build();
+
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
 	}
 
 	/**
@@ -107,21 +269,27 @@ public class ProxyResource {
 	 * @param clientName  The name of the client configuration to use, extracted
 	 *                    from the path.
 	 * @param path        The downstream service path to proxy the request to.
-	 * @param requestBody The body of the POST request.
+	 * @param requestBody The body of the POST request, as a raw stream.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    content type and length of the body and the
+	 *                    conditional request headers.
 	 * @param uriInfo     The {@link UriInfo} context, used to extract the query
 	 *                    string.
-	 * @return A {@link Response} from the downstream service.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
 	 */
 	@Consumes(MediaType.WILDCARD)
 	@POST
 	@Path(_PROXY_PATH)
 	@Produces(MediaType.WILDCARD)
-	public Response proxyPostRequest(
+	public void proxyPostRequest(
 		@PathParam("clientName") String clientName,
-		@PathParam("path") String path, String requestBody,
-		@Context UriInfo uriInfo) {
+		@PathParam("path") String path, InputStream requestBody,
+		@Context HttpHeaders httpHeaders, @Context UriInfo uriInfo,
+		@Suspended AsyncResponse asyncResponse) {
 
-		ProxyRequestContext context = ProxyRequestContext.builder(
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
 		).clientName(
 			clientName
 		).path(
@@ -129,12 +297,16 @@ public class ProxyResource {
 		).methodHandler(
 			HttpMethodHandler.POST
 		).requestBody(
-			requestBody
+			_getRequestBody(requestBody, httpHeaders)
+		).contentType(
+			httpHeaders.getHeaderString(HttpHeaders.CONTENT_TYPE)
+		).contentLength(
+			_getContentLength(httpHeaders)
 		).queryString(
 			_getQueryString(uriInfo)
 		).build();
 
-		return _executeProxyRequest(context);
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
 	}
 
 	/**
@@ -143,21 +315,27 @@ public class ProxyResource {
 	 * @param clientName  The name of the client configuration to use, extracted
 	 *                    from the path.
 	 * @param path        The downstream service path to proxy the request to.
-	 * @param requestBody The body of the PUT request.
+	 * @param requestBody The body of the PUT request, as a raw stream.
+	 * @param httpHeaders The {@link HttpHeaders} context, used to extract the
+	 *                    content type and length of the body and the
+	 *                    conditional request headers.
 	 * @param uriInfo     The {@link UriInfo} context, used to extract the query
 	 *                    string.
-	 * @return A {@link Response} from the downstream service.
+	 * @param asyncResponse The {@link AsyncResponse} resumed with the
+	 *                      {@link Response} from the downstream service.
 	 */
 	@Consumes(MediaType.WILDCARD)
 	@Path(_PROXY_PATH)
 	@Produces(MediaType.WILDCARD)
 	@PUT
-	public Response proxyPutRequest(
+	public void proxyPutRequest(
 		@PathParam("clientName") String clientName,
-		@PathParam("path") String path, String requestBody,
-		@Context UriInfo uriInfo) {
+		@PathParam("path") String path, InputStream requestBody,
+		@Context HttpHeaders httpHeaders, @Context UriInfo uriInfo,
+		@Suspended AsyncResponse asyncResponse) {
 
-		ProxyRequestContext context = ProxyRequestContext.builder(
+		ProxyRequestContext context = _createBuilder(
+			httpHeaders
 		).clientName(
 			clientName
 		).path(
@@ -165,23 +343,131 @@ public class ProxyResource {
 		).methodHandler(
 			HttpMethodHandler.PUT
 		).requestBody(
-			requestBody
+			_getRequestBody(requestBody, httpHeaders)
+		).contentType(
+			httpHeaders.getHeaderString(HttpHeaders.CONTENT_TYPE)
+		).contentLength(
+			_getContentLength(httpHeaders)
 		).queryString(
 			_getQueryString(uriInfo)
 		).build();
 
-		return _executeProxyRequest(context);
+		_executeProxyRequest(context, httpHeaders, asyncResponse);
+	}
+
+	/**
+	 * Creates a {@link ProxyRequestContext.Builder} with the caller headers
+	 * that are forwarded to the downstream service: the conditional request
+	 * headers, so that the downstream service can answer with a 304 (Not
+	 * Modified) or a 412 (Precondition Failed), and the accepted content
+	 * encodings, which are only sent downstream when the client relays
+	 * compressed responses.
+	 *
+	 * @param httpHeaders The JAX-RS {@link HttpHeaders} context.
+	 * @return A new {@link ProxyRequestContext.Builder} instance.
+	 */
+	private ProxyRequestContext.Builder _createBuilder(
+		HttpHeaders httpHeaders) {
+
+		ProxyRequestContext.Builder builder = ProxyRequestContext.builder();
+
+		for (String name : _FORWARDED_HEADER_NAMES) {
+			builder.header(name, httpHeaders.getHeaderString(name));
+		}
+
+		return builder;
 	}
 
 	/**
 	 * Executes the generic proxy request by delegating it to the injected
-	 * {@link ProxyService}.
+	 * {@link ProxyService} and resumes the suspended request once the
+	 * response is available. The response to a cross-origin request from an
+	 * origin allowed by the {@link CorsPolicy} of the client is completed with
+	 * the CORS response headers.
+	 *
+	 * @param context       The {@link ProxyRequestContext} containing all
+	 *                      request details.
+	 * @param httpHeaders   The {@link HttpHeaders} context, used to extract
+	 *                      the origin of the request.
+	 * @param asyncResponse The {@link AsyncResponse} of the suspended request.
+	 */
+	private void _executeProxyRequest(
+		ProxyRequestContext context, HttpHeaders httpHeaders,
+		AsyncResponse asyncResponse) {
+
+		String origin = httpHeaders.getHeaderString(_ORIGIN);
+
+		CorsPolicy corsPolicy = _getCorsPolicy(context.getClientName(), origin);
+
+		_proxyService.executeProxyRequestAsync(
+			context
+		).whenComplete(
+			(response, throwable) -> {
+				if (throwable != null) {
+					asyncResponse.resume(throwable);
+				}
+				else if (corsPolicy != null) {
+					asyncResponse.resume(corsPolicy.apply(response, origin));
+				}
+				else {
+					asyncResponse.resume(response);
+				}
+			}
+		);
+	}
+
+	/**
+	 * Extracts the declared length of the request body from the
+	 * {@link HttpHeaders}.
 	 *
-	 * @param context The {@link ProxyRequestContext} containing all request details.
-	 * @return The {@link Response} returned by the proxy service.
+	 * @param httpHeaders The JAX-RS {@link HttpHeaders} context.
+	 * @return The content length, or {@code -1} if it is absent or invalid.
 	 */
-	private Response _executeProxyRequest(ProxyRequestContext context) {
-		return _proxyService.executeProxyRequest(context);
+	private long _getContentLength(HttpHeaders httpHeaders) {
+		String contentLength = httpHeaders.getHeaderString(
+			HttpHeaders.CONTENT_LENGTH);
+
+		if (contentLength == null) {
+			return -1;
+		}
+
+		try {
+			return Long.parseLong(contentLength.trim());
+		}
+		catch (NumberFormatException numberFormatException) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the {@link CorsPolicy} of the given client if it allows the
+	 * given origin.
+	 *
+	 * @param clientName The name of the client.
+	 * @param origin     The {@code Origin} header of the request, or {@code
+	 *                   null}.
+	 * @return The {@link CorsPolicy}, or {@code null} if the request is not a
+	 *         cross-origin request allowed by the client.
+	 */
+	private CorsPolicy _getCorsPolicy(String clientName, String origin) {
+		if (origin == null) {
+			return null;
+		}
+
+		OAuthClient oAuthClient = _oAuthServiceFactory.getOAuthClient(
+			clientName);
+
+		if (oAuthClient == null) {
+			return null;
+		}
+
+		CorsPolicy corsPolicy = _corsPolicyRegistry.get(oAuthClient);
+
+		if (!corsPolicy.isAllowedOrigin(origin)) {
+			return null;
+		}
+
+		return corsPolicy;
 	}
 
 	/**
@@ -195,8 +481,45 @@ public class ProxyResource {
 		).getQuery();
 	}
 
+	/**
+	 * Returns the request body stream only if the request declares a body,
+	 * either through a content length or a chunked transfer encoding.
+	 *
+	 * @param requestBody The raw request body stream.
+	 * @param httpHeaders The JAX-RS {@link HttpHeaders} context.
+	 * @return The request body stream, or {@code null} if there is no body.
+	 */
+	private InputStream _getRequestBody(
+		InputStream requestBody, HttpHeaders httpHeaders) {
+
+		if ((httpHeaders.getHeaderString(HttpHeaders.CONTENT_LENGTH) == null) &&
+			(httpHeaders.getHeaderString("Transfer-Encoding") == null)) {
+
+			return null;
+		}
+
+		return requestBody;
+	}
+
+	private static final String _ALLOWED_METHODS =
+		"DELETE, GET, HEAD, OPTIONS, PATCH, POST, PUT";
+
+	private static final String[] _FORWARDED_HEADER_NAMES = {
+		HttpHeaders.ACCEPT_ENCODING, HttpHeaders.IF_MATCH,
+		HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_NONE_MATCH,
+		HttpHeaders.IF_UNMODIFIED_SINCE
+	};
+
+	private static final String _ORIGIN = "Origin";
+
 	private static final String _PROXY_PATH = "/{clientName}/proxy/{path: .*}";
 
+	@Reference
+	private CorsPolicyRegistry _corsPolicyRegistry;
+
+	@Reference
+	private OAuthServiceFactory _oAuthServiceFactory;
+
 	@Reference
 	private ProxyService _proxyService;
 
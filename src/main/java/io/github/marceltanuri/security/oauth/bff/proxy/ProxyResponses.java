@@ -0,0 +1,197 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * Maps downstream and buffered responses to the JAX-RS {@link Response}s
+ * returned to the caller of the {@link ProxyService}, and derives the
+ * conditional request sent downstream when a response is cached or shared
+ * with coalesced requests.
+ *
+ * @author Marcel Tanuri
+ */
+final class ProxyResponses {
+
+	/**
+	 * Copies the downstream response headers to the response returned to the
+	 * caller, except for the ones describing the transfer of the downstream
+	 * body. The {@code Content-Encoding} header is only copied when the
+	 * client relays compressed responses unchanged.
+	 *
+	 * @param responseBuilder The {@link Response.ResponseBuilder} of the
+	 *                        response returned to the caller.
+	 * @param headers         The downstream response headers.
+	 * @param settings        The {@link OAuthClientSettings} of the client.
+	 */
+	static void copyHeaders(
+		Response.ResponseBuilder responseBuilder,
+		Map<String, List<String>> headers, OAuthClientSettings settings) {
+
+		for (Map.Entry<String, List<String>> headerEntry :
+				headers.entrySet()) {
+
+			String name = headerEntry.getKey();
+
+			if (!name.equalsIgnoreCase("Transfer-Encoding") &&
+				(settings.compressionPassthrough() ||
+				 !name.equalsIgnoreCase("Content-Encoding"))) {
+
+				for (String value : headerEntry.getValue()) {
+					responseBuilder.header(name, value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the builder of a 304 (Not Modified) response, carrying only the
+	 * headers RFC 9110 requires, or allows, in such a response.
+	 *
+	 * @param headers The headers of the response the caller already holds.
+	 * @return A {@link Response.ResponseBuilder} without a body.
+	 */
+	static Response.ResponseBuilder createNotModifiedResponseBuilder(
+		Map<String, List<String>> headers) {
+
+		Response.ResponseBuilder responseBuilder = Response.notModified();
+
+		for (String name : _NOT_MODIFIED_HEADER_NAMES) {
+			List<String> values = headers.get(name);
+
+			if (values != null) {
+				for (String value : values) {
+					responseBuilder.header(name, value);
+				}
+			}
+		}
+
+		return responseBuilder;
+	}
+
+	/**
+	 * Returns the request context sent downstream when the response is cached
+	 * or shared with coalesced requests. The caller's {@code If-None-Match}
+	 * and {@code If-Modified-Since} headers are replaced with the validators
+	 * of the stale cached response, if any, so that the downstream service
+	 * either confirms the cached response with a 304 (Not Modified) or
+	 * returns a full response that can be cached and shared. The caller's
+	 * validators are then checked locally.
+	 *
+	 * @param context        The {@link ProxyRequestContext} for the request.
+	 * @param cachedResponse The stale {@link CachedResponse} to revalidate, or
+	 *                       {@code null} if there is none.
+	 * @return The {@link ProxyRequestContext} to send downstream.
+	 */
+	static ProxyRequestContext getUpstreamContext(
+		ProxyRequestContext context, CachedResponse cachedResponse) {
+
+		ProxyRequestContext.Builder builder = context.toBuilder(
+		).header(
+			HttpHeaders.IF_MODIFIED_SINCE, null
+		).header(
+			HttpHeaders.IF_NONE_MATCH, null
+		);
+
+		if (cachedResponse != null) {
+			builder.header(
+				HttpHeaders.IF_MODIFIED_SINCE,
+				cachedResponse.getHeaderString(HttpHeaders.LAST_MODIFIED)
+			).header(
+				HttpHeaders.IF_NONE_MATCH,
+				cachedResponse.getHeaderString(HttpHeaders.ETAG)
+			);
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Returns whether the caller already holds the representation described
+	 * by the given response headers, according to its conditional request
+	 * headers.
+	 *
+	 * @param headers The headers of the response.
+	 * @param context The {@link ProxyRequestContext} for the request.
+	 * @return {@code true} if a 304 (Not Modified) response can be returned.
+	 */
+	static boolean isNotModified(
+		Map<String, List<String>> headers, ProxyRequestContext context) {
+
+		return CachedResponse.isNotModified(
+			headers, context.getHeader(HttpHeaders.IF_NONE_MATCH),
+			context.getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+	}
+
+	/**
+	 * Maps a buffered response to a JAX-RS {@link Response} object. Responses
+	 * served from the cache or shared with a coalesced request carry an
+	 * {@code Age} header telling the caller how long ago they were received
+	 * from the downstream service. A 304 (Not Modified) response is returned
+	 * instead if the caller already holds the buffered representation.
+	 *
+	 * @param cachedResponse The {@link CachedResponse} to map.
+	 * @param context        The {@link ProxyRequestContext} for the request.
+	 * @param settings       The {@link OAuthClientSettings} of the client.
+	 * @param shared         Whether the response was not fetched for this
+	 *                       request.
+	 * @return A {@link Response} object mirroring the buffered response.
+	 */
+	static Response toResponse(
+		CachedResponse cachedResponse, ProxyRequestContext context,
+		OAuthClientSettings settings, boolean shared) {
+
+		long age = cachedResponse.getAge(System.nanoTime());
+
+		if ((cachedResponse.getStatus() == 200) &&
+			isNotModified(cachedResponse.getHeaders(), context)) {
+
+			Response.ResponseBuilder responseBuilder =
+				createNotModifiedResponseBuilder(cachedResponse.getHeaders());
+
+			if (shared || (age > 0)) {
+				responseBuilder.header("Age", age);
+			}
+
+			return responseBuilder.build();
+		}
+
+		Response.ResponseBuilder responseBuilder = Response.status(
+			cachedResponse.getStatus());
+
+		byte[] body = cachedResponse.getBody();
+
+		if (body.length > 0) {
+			responseBuilder.entity(body);
+		}
+
+		copyHeaders(responseBuilder, cachedResponse.getHeaders(), settings);
+
+		if (shared || (age > 0)) {
+			responseBuilder.header("Age", age);
+		}
+
+		String contentType = cachedResponse.getHeaderString("Content-Type");
+
+		if (contentType != null) {
+			responseBuilder.type(contentType);
+		}
+
+		return responseBuilder.build();
+	}
+
+	private ProxyResponses() {
+	}
+
+	private static final String[] _NOT_MODIFIED_HEADER_NAMES = {
+		"Cache-Control", "Content-Location", "Date", "ETag", "Expires",
+		"Last-Modified", "Vary"
+	};
+
+}
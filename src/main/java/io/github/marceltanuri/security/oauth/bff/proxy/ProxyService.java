@@ -1,5 +1,10 @@
 package io.github.marceltanuri.security.oauth.bff.proxy;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import javax.ws.rs.core.Response;
 
 /**
@@ -23,4 +28,51 @@ public interface ProxyService {
 	public Response executeProxyRequest(
 		DefaultOAuthProxyService.ProxyRequestContext context);
 
-}
\ No newline at end of file
+	/**
+	 * Executes a proxy request asynchronously. The default implementation runs
+	 * {@link #executeProxyRequest} on the calling thread and returns an
+	 * already completed stage; implementations should override it to execute
+	 * the request without blocking the caller.
+	 *
+	 * @param context The context containing all necessary information for the
+	 *                proxy request.
+	 * @return A {@link CompletionStage} completed with the {@link Response}
+	 *         from the downstream service.
+	 */
+	public default CompletionStage<Response> executeProxyRequestAsync(
+		DefaultOAuthProxyService.ProxyRequestContext context) {
+
+		return CompletableFuture.completedFuture(executeProxyRequest(context));
+	}
+
+	/**
+	 * Executes a batch of proxy requests, at most the given number of them at
+	 * the same time. The default implementation runs them one after another
+	 * on the calling thread and returns already completed stages;
+	 * implementations should override it to execute the requests in parallel
+	 * without blocking the caller.
+	 *
+	 * @param contexts       The contexts of the proxy requests.
+	 * @param maxConcurrency The maximum number of requests executed at the
+	 *                       same time.
+	 * @return A {@link List} of {@link CompletionStage}s, in the order of the
+	 *         given contexts, each completed with the {@link Response} from
+	 *         the downstream service.
+	 */
+	public default List<CompletionStage<Response>> executeProxyRequestsAsync(
+		List<DefaultOAuthProxyService.ProxyRequestContext> contexts,
+		int maxConcurrency) {
+
+		List<CompletionStage<Response>> completionStages = new ArrayList<>(
+			contexts.size());
+
+		for (DefaultOAuthProxyService.ProxyRequestContext context : contexts) {
+			completionStages.add(
+				CompletableFuture.completedFuture(
+					executeProxyRequest(context)));
+		}
+
+		return completionStages;
+	}
+
+}
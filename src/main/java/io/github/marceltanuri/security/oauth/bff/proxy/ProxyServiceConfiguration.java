@@ -0,0 +1,102 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Global settings of the {@link DefaultOAuthProxyService} and of the {@link
+ * CompositionResource}, shared by every configured OAuth client.
+ *
+ * @author Marcel Tanuri
+ */
+@ObjectClassDefinition(
+	id = "io.github.marceltanuri.security.oauth.bff.proxy.ProxyServiceConfiguration",
+	name = "OAuth BFF Proxy Service Settings"
+)
+public @interface ProxyServiceConfiguration {
+
+	/**
+	 * The maximum number of worker threads executing asynchronous proxy
+	 * requests.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of worker threads executing asynchronous proxy requests.",
+		name = "Async Executor Threads"
+	)
+	int asyncExecutorThreads() default 64;
+
+	/**
+	 * The maximum number of asynchronous proxy requests waiting for a worker
+	 * thread. Requests beyond this limit are rejected with a 503.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of asynchronous proxy requests waiting for a worker thread. Requests beyond this limit are rejected with a 503.",
+		name = "Async Executor Queue Size"
+	)
+	int asyncExecutorQueueSize() default 1024;
+
+	/**
+	 * Whether asynchronous proxy requests run on a virtual thread per request
+	 * when the JDK supports it (Java 21 or later). The thread and queue limits
+	 * above only apply when virtual threads are not used.
+	 */
+	@AttributeDefinition(
+		description = "Whether asynchronous proxy requests run on a virtual thread per request when the JDK supports it (Java 21 or later). The thread and queue limits above only apply when virtual threads are not used.",
+		name = "Async Executor Virtual Threads"
+	)
+	boolean asyncExecutorVirtualThreads() default true;
+
+	/**
+	 * The maximum number of idle gzip compressors kept for reuse by the
+	 * clients compressing their responses.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of idle gzip compressors kept for reuse by the clients compressing their responses.",
+		name = "Compression Pool Size"
+	)
+	int compressionPoolSize() default 64;
+
+	/**
+	 * The maximum number of calls of a composition plan. Larger plans are
+	 * rejected with a 400.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of calls of a composition plan. Larger plans are rejected with a 400.",
+		name = "Composition Max Calls"
+	)
+	int compositionMaxCalls() default 16;
+
+	/**
+	 * The maximum size, in bytes, of the body of a composition request.
+	 * Larger plans are rejected with a 413 without being read further.
+	 */
+	@AttributeDefinition(
+		description = "The maximum size, in bytes, of the body of a composition request. Larger plans are rejected with a 413 without being read further.",
+		name = "Composition Max Request Size"
+	)
+	long compositionMaxRequestSize() default 1048576;
+
+	/**
+	 * The origins, such as https://app.example.com, allowed to post
+	 * composition plans from a browser, one per entry, or * for any origin.
+	 * Each call of a cross-origin plan must also be allowed by the CORS
+	 * policy of its client. CORS is disabled when no origin is configured.
+	 */
+	@AttributeDefinition(
+		description = "The origins, such as https://app.example.com, allowed to post composition plans from a browser, one per entry, or * for any origin. Each call of a cross-origin plan must also be allowed by the CORS policy of its client. CORS is disabled when no origin is configured.",
+		name = "Composition CORS Allowed Origins"
+	)
+	String[] compositionCorsAllowedOrigins() default {};
+
+	/**
+	 * Whether cross-origin composition requests may carry cookies, such as the
+	 * session cookie of the portal. Only listed origins are allowed
+	 * credentials, never origins matched by the * wildcard.
+	 */
+	@AttributeDefinition(
+		description = "Whether cross-origin composition requests may carry cookies, such as the session cookie of the portal. Only listed origins are allowed credentials, never origins matched by the * wildcard.",
+		name = "Composition CORS Allow Credentials"
+	)
+	boolean compositionCorsAllowCredentials() default false;
+
+}
@@ -0,0 +1,157 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * The in-flight GET requests whose downstream call is shared by identical
+ * concurrent requests, keyed by their cache key. The first request of a key
+ * leads and calls the downstream service, and the requests arriving while
+ * it is in flight follow it, receiving its buffered response instead of
+ * calling the downstream service on their own.
+ *
+ * @author Marcel Tanuri
+ */
+class RequestCoalescer {
+
+	/**
+	 * Returns whether the request may share the downstream call of identical
+	 * concurrent requests. Only GET requests of clients with request
+	 * coalescing enabled are coalesced, unless they carry preconditions that
+	 * the downstream service has to evaluate.
+	 *
+	 * @param context  The {@link ProxyRequestContext} for the request.
+	 * @param settings The {@link OAuthClientSettings} of the client.
+	 * @return {@code true} if the request may be coalesced.
+	 */
+	static boolean isCoalescable(
+		ProxyRequestContext context, OAuthClientSettings settings) {
+
+		if ((context.getMethodHandler() != HttpMethodHandler.GET) ||
+			!settings.requestCoalescing() ||
+			(context.getHeader(HttpHeaders.IF_MATCH) != null) ||
+			(context.getHeader(HttpHeaders.IF_UNMODIFIED_SINCE) != null)) {
+
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Waits for the response of the in-flight request of the given key. The
+	 * wait is bounded by the given timeout, after which the request calls the
+	 * downstream service on its own.
+	 *
+	 * @param key     The cache key of the request.
+	 * @param timeout The maximum time, in milliseconds, to wait.
+	 * @return The shared {@link CachedResponse}, or {@code null} if no
+	 *         request is in flight, or its response could not be shared or
+	 *         was not received in time.
+	 * @throws Exception if the shared downstream call failed.
+	 */
+	CachedResponse await(String key, long timeout) throws Exception {
+		CompletableFuture<CachedResponse> completableFuture =
+			_inFlightCompletableFutures.get(key);
+
+		if (completableFuture == null) {
+			return null;
+		}
+
+		try {
+			return completableFuture.get(timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException executionException) {
+			Throwable cause = executionException.getCause();
+
+			if (cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+
+			throw executionException;
+		}
+		catch (TimeoutException timeoutException) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a stage completed with the response of the in-flight request
+	 * of the given key, without waiting for it. The stage is completed with
+	 * {@code null} if the response cannot be shared, exceptionally if the
+	 * shared downstream call failed, and with a {@link TimeoutException} once
+	 * the given timeout elapses.
+	 *
+	 * @param key     The cache key of the request.
+	 * @param timeout The maximum time, in milliseconds, to wait.
+	 * @return The {@link CompletableFuture} of the shared {@link
+	 *         CachedResponse}, or {@code null} if no request is in flight.
+	 */
+	CompletableFuture<CachedResponse> follow(String key, long timeout) {
+		CompletableFuture<CachedResponse> completableFuture =
+			_inFlightCompletableFutures.get(key);
+
+		if (completableFuture == null) {
+			return null;
+		}
+
+		return completableFuture.copy(
+		).orTimeout(
+			timeout, TimeUnit.MILLISECONDS
+		);
+	}
+
+	/**
+	 * Registers the request as the in-flight request of the given key, unless
+	 * another one already is. The leader must complete the returned future
+	 * with its buffered response, or exceptionally, and then {@link
+	 * #release(String, CompletableFuture)} it.
+	 *
+	 * @param key The cache key of the request.
+	 * @return The {@link CompletableFuture} to complete with the shared
+	 *         response, or {@code null} if another request leads.
+	 */
+	CompletableFuture<CachedResponse> lead(String key) {
+		CompletableFuture<CachedResponse> completableFuture =
+			new CompletableFuture<>();
+
+		if (_inFlightCompletableFutures.putIfAbsent(key, completableFuture) !=
+				null) {
+
+			return null;
+		}
+
+		return completableFuture;
+	}
+
+	/**
+	 * Unregisters the in-flight request of the given key, completing the
+	 * requests still following it with {@code null} if its response was not
+	 * shared, so they call the downstream service on their own.
+	 *
+	 * @param key               The cache key of the request.
+	 * @param completableFuture The {@link CompletableFuture} returned by
+	 *                          {@link #lead(String)}.
+	 */
+	void release(
+		String key, CompletableFuture<CachedResponse> completableFuture) {
+
+		_inFlightCompletableFutures.remove(key, completableFuture);
+
+		completableFuture.complete(null);
+	}
+
+	private final Map<String, CompletableFuture<CachedResponse>>
+		_inFlightCompletableFutures = new ConcurrentHashMap<>();
+
+}
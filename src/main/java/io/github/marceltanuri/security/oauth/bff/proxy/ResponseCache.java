@@ -0,0 +1,473 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.metrics.ResponseCacheSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * An in-memory cache of the downstream GET responses of a single
+ * {@link OAuthClient}, bounded by the configured number of bytes. Responses
+ * are keyed by the client name and the canonical form of the request path
+ * and query string, so that equivalent URLs share a single entry.
+ *
+ * <p>
+ * When the cache is full, the least recently used responses are evicted, but
+ * only if the new response has been requested more often than each of them
+ * according to a {@link FrequencySketch}. This keeps popular responses cached
+ * when a burst of one-off requests passes through. Stale responses that can
+ * be revalidated are kept until they are evicted.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class ResponseCache implements OAuthClientScoped {
+
+	/**
+	 * Returns the cache key of a request.
+	 *
+	 * @param clientName  The name of the client configuration.
+	 * @param path        The downstream service path.
+	 * @param queryString The query string, or {@code null} if there is none.
+	 * @return The cache key, built from the client name, the path with
+	 *         normalized percent-encoding, and the query string with
+	 *         normalized percent-encoding and parameters sorted by name.
+	 */
+	public static String getKey(
+		String clientName, String path, String queryString) {
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(clientName);
+		sb.append('\n');
+
+		if ((path == null) || !path.startsWith("/")) {
+			sb.append('/');
+		}
+
+		if (path != null) {
+			sb.append(_normalize(path));
+		}
+
+		if ((queryString == null) || queryString.isEmpty()) {
+			return sb.toString();
+		}
+
+		List<String> parameters = new ArrayList<>();
+
+		for (String parameter : queryString.split("&")) {
+			if (!parameter.isEmpty()) {
+				parameters.add(_normalize(parameter));
+			}
+		}
+
+		parameters.sort(Comparator.comparing(ResponseCache::_getParameterName));
+
+		char separator = '?';
+
+		for (String parameter : parameters) {
+			sb.append(separator);
+			sb.append(parameter);
+
+			separator = '&';
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Constructs a new {@code ResponseCache}.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} whose responses are cached,
+	 *                    providing the cache size limits.
+	 */
+	public ResponseCache(OAuthClient oAuthClient) {
+		OAuthClientSettings settings = oAuthClient.getSettings();
+
+		_oAuthClient = oAuthClient;
+		_settings = settings;
+
+		_maxEntrySize = Math.max(0, settings.responseCacheMaxEntrySize());
+		_maxSize = Math.max(0, settings.responseCacheMaxSize());
+
+		_frequencySketch = new FrequencySketch(
+			(int)Math.min(Integer.MAX_VALUE, _maxSize / _AVERAGE_ENTRY_SIZE));
+	}
+
+	/**
+	 * Discards every cached response.
+	 */
+	public synchronized void clear() {
+		_cachedResponses.clear();
+
+		_size = 0;
+	}
+
+	/**
+	 * Returns the cached response for the request, recording the request in
+	 * the frequency sketch. Only fresh responses count as hits; stale
+	 * responses are returned for revalidation if they carry validators, and
+	 * discarded otherwise.
+	 *
+	 * @param key            The cache key of the request, as returned by
+	 *                       {@link #getKey(String, String, String)}.
+	 * @param requestHeaders The function resolving the values of the request
+	 *                       headers sent downstream.
+	 * @return The {@link CachedResponse}, which may be stale, or {@code null}
+	 *         if none is cached, it is stale without validators, or it was
+	 *         selected by other request header values.
+	 */
+	public CachedResponse get(
+		String key, Function<String, String> requestHeaders) {
+
+		CachedResponse cachedResponse;
+		boolean fresh = false;
+
+		synchronized (this) {
+			_frequencySketch.increment(key.hashCode());
+
+			cachedResponse = _cachedResponses.get(key);
+
+			if (cachedResponse != null) {
+				fresh = cachedResponse.isFresh(System.nanoTime());
+
+				if (!fresh && !cachedResponse.hasValidators()) {
+					_remove(key);
+
+					cachedResponse = null;
+				}
+			}
+		}
+
+		if ((cachedResponse == null) ||
+			!cachedResponse.matches(requestHeaders)) {
+
+			_missCount.increment();
+
+			return null;
+		}
+
+		if (fresh) {
+			_hitCount.increment();
+		}
+		else {
+			_missCount.increment();
+		}
+
+		return cachedResponse;
+	}
+
+	/**
+	 * Returns the number of cached responses.
+	 *
+	 * @return The entry count.
+	 */
+	public synchronized int getEntryCount() {
+		return _cachedResponses.size();
+	}
+
+	/**
+	 * Returns the number of responses evicted to make room for new ones.
+	 *
+	 * @return The eviction count.
+	 */
+	public long getEvictionCount() {
+		return _evictionCount.sum();
+	}
+
+	/**
+	 * Returns the number of requests served from the cache.
+	 *
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return _hitCount.sum();
+	}
+
+	/**
+	 * Returns the fraction of requests served from the cache.
+	 *
+	 * @return The hit ratio, between {@code 0} and {@code 1}.
+	 */
+	public double getHitRatio() {
+		long hitCount = _hitCount.sum();
+
+		long requestCount = hitCount + _missCount.sum();
+
+		if (requestCount == 0) {
+			return 0;
+		}
+
+		return (double)hitCount / requestCount;
+	}
+
+	/**
+	 * Returns the maximum size of a response body that may be cached.
+	 *
+	 * @return The maximum entry size, in bytes.
+	 */
+	public long getMaxEntrySize() {
+		return _maxEntrySize;
+	}
+
+	/**
+	 * Returns the maximum memory used by the cached responses.
+	 *
+	 * @return The maximum size, in bytes.
+	 */
+	public long getMaxSize() {
+		return _maxSize;
+	}
+
+	/**
+	 * Returns the number of requests not served from the cache.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return _missCount.sum();
+	}
+
+	/**
+	 * Returns the {@link OAuthClient} whose responses are cached.
+	 *
+	 * @return The {@link OAuthClient}.
+	 */
+	@Override
+	public OAuthClient getOAuthClient() {
+		return _oAuthClient;
+	}
+
+	/**
+	 * Returns the number of stale responses refreshed from a 304 (Not
+	 * Modified) response instead of being fetched again.
+	 *
+	 * @return The revalidation count.
+	 */
+	public long getRevalidationCount() {
+		return _revalidationCount.sum();
+	}
+
+	/**
+	 * Returns the settings snapshot the cache was built from.
+	 *
+	 * @return The {@link OAuthClientSettings}.
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * Returns the approximate memory used by the cached responses.
+	 *
+	 * @return The size, in bytes.
+	 */
+	public synchronized long getSize() {
+		return _size;
+	}
+
+	/**
+	 * Returns a summary of the statistics of the cache.
+	 *
+	 * @return The {@link ResponseCacheSummary}.
+	 */
+	public ResponseCacheSummary getSummary() {
+		int entryCount;
+		long size;
+
+		synchronized (this) {
+			entryCount = _cachedResponses.size();
+			size = _size;
+		}
+
+		return new ResponseCacheSummary(
+			entryCount, getEvictionCount(), getHitCount(), getHitRatio(),
+			_maxSize, getMissCount(), getRevalidationCount(), size);
+	}
+
+	/**
+	 * Stores a response, evicting the least recently used responses if the
+	 * cache is full. The response is not stored if it is larger than the
+	 * cache, or if any of the responses it would evict has been requested at
+	 * least as often.
+	 *
+	 * @param key            The cache key of the request, as returned by
+	 *                       {@link #getKey(String, String, String)}.
+	 * @param cachedResponse The {@link CachedResponse} to store.
+	 * @return {@code true} if the response was stored.
+	 */
+	public synchronized boolean put(String key, CachedResponse cachedResponse) {
+		long size = cachedResponse.getSize();
+
+		if (size > _maxSize) {
+			return false;
+		}
+
+		_remove(key);
+
+		long excessSize = _size + size - _maxSize;
+
+		if (excessSize > 0) {
+			int frequency = _frequencySketch.frequency(key.hashCode());
+			long now = System.nanoTime();
+			List<String> victimKeys = new ArrayList<>();
+
+			Iterator<Map.Entry<String, CachedResponse>> iterator =
+				_cachedResponses.entrySet(
+				).iterator();
+
+			while ((excessSize > 0) && iterator.hasNext()) {
+				Map.Entry<String, CachedResponse> entry = iterator.next();
+
+				CachedResponse victimCachedResponse = entry.getValue();
+
+				if (victimCachedResponse.isFresh(now) &&
+					(_frequencySketch.frequency(
+						entry.getKey(
+						).hashCode()) >= frequency)) {
+
+					return false;
+				}
+
+				victimKeys.add(entry.getKey());
+
+				excessSize -= victimCachedResponse.getSize();
+			}
+
+			for (String victimKey : victimKeys) {
+				_remove(victimKey);
+
+				_evictionCount.increment();
+			}
+		}
+
+		_cachedResponses.put(key, cachedResponse);
+
+		_size += size;
+
+		return true;
+	}
+
+	/**
+	 * Refreshes a stale response with the headers of the 304 (Not Modified)
+	 * response to its revalidation and stores the result.
+	 *
+	 * @param key            The cache key of the request, as returned by
+	 *                       {@link #getKey(String, String, String)}.
+	 * @param cachedResponse The stale {@link CachedResponse}.
+	 * @param headers        The headers of the 304 response, keyed
+	 *                       case-insensitively.
+	 * @param requestHeaders The function resolving the values of the request
+	 *                       headers sent downstream.
+	 * @return The refreshed {@link CachedResponse}.
+	 */
+	public CachedResponse revalidate(
+		String key, CachedResponse cachedResponse,
+		Map<String, List<String>> headers,
+		Function<String, String> requestHeaders) {
+
+		CachedResponse revalidatedCachedResponse = cachedResponse.revalidate(
+			headers, requestHeaders);
+
+		put(key, revalidatedCachedResponse);
+
+		_revalidationCount.increment();
+
+		return revalidatedCachedResponse;
+	}
+
+	private static String _getParameterName(String parameter) {
+		int index = parameter.indexOf('=');
+
+		if (index < 0) {
+			return parameter;
+		}
+
+		return parameter.substring(0, index);
+	}
+
+	/**
+	 * Upper-cases percent-encoded octets and decodes the ones that stand for
+	 * unreserved characters, which does not change the meaning of the value.
+	 */
+	private static String _normalize(String value) {
+		if (value.indexOf('%') < 0) {
+			return value;
+		}
+
+		StringBuilder sb = new StringBuilder(value.length());
+
+		int length = value.length();
+
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+
+			if ((c != '%') || ((i + 2) >= length)) {
+				sb.append(c);
+
+				continue;
+			}
+
+			int high = Character.digit(value.charAt(i + 1), 16);
+			int low = Character.digit(value.charAt(i + 2), 16);
+
+			if ((high < 0) || (low < 0)) {
+				sb.append(c);
+
+				continue;
+			}
+
+			char decoded = (char)((high << 4) | low);
+
+			if (((decoded >= 'A') && (decoded <= 'Z')) ||
+				((decoded >= 'a') && (decoded <= 'z')) ||
+				((decoded >= '0') && (decoded <= '9')) || (decoded == '-') ||
+				(decoded == '.') || (decoded == '_') || (decoded == '~')) {
+
+				sb.append(decoded);
+			}
+			else {
+				sb.append('%');
+				sb.append(Character.toUpperCase(value.charAt(i + 1)));
+				sb.append(Character.toUpperCase(value.charAt(i + 2)));
+			}
+
+			i += 2;
+		}
+
+		return sb.toString();
+	}
+
+	private void _remove(String key) {
+		CachedResponse cachedResponse = _cachedResponses.remove(key);
+
+		if (cachedResponse != null) {
+			_size -= cachedResponse.getSize();
+		}
+	}
+
+	private static final long _AVERAGE_ENTRY_SIZE = 4096;
+
+	private final Map<String, CachedResponse> _cachedResponses =
+		new LinkedHashMap<>(16, 0.75F, true);
+	private final LongAdder _evictionCount = new LongAdder();
+	private final FrequencySketch _frequencySketch;
+	private final LongAdder _hitCount = new LongAdder();
+	private final long _maxEntrySize;
+	private final long _maxSize;
+	private final LongAdder _missCount = new LongAdder();
+	private final OAuthClient _oAuthClient;
+	private final LongAdder _revalidationCount = new LongAdder();
+	private final OAuthClientSettings _settings;
+	private long _size;
+
+}
@@ -0,0 +1,139 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The lookup of a single GET request in the {@link ResponseCache} of its
+ * client, carrying the cached response found for the request, if any, to its
+ * revalidation or replacement once the downstream service answers.
+ *
+ * @author Marcel Tanuri
+ */
+class ResponseCacheLookup {
+
+	/**
+	 * Constructs a new {@code ResponseCacheLookup}, looking the request up in
+	 * the given cache.
+	 *
+	 * @param responseCache   The {@link ResponseCache} of the client.
+	 * @param key             The cache key of the request, as returned by
+	 *                        {@link ResponseCache#getKey(String, String,
+	 *                        String)}.
+	 * @param requestHeaders  The function resolving the values of the request
+	 *                        headers sent downstream.
+	 * @param cacheAuthorized Whether the response may be cached although the
+	 *                        request carries an access token, as allowed by
+	 *                        its route.
+	 */
+	ResponseCacheLookup(
+		ResponseCache responseCache, String key,
+		Function<String, String> requestHeaders, boolean cacheAuthorized) {
+
+		_responseCache = responseCache;
+		_key = key;
+		_requestHeaders = requestHeaders;
+		_cacheAuthorized = cacheAuthorized;
+
+		_cachedResponse = responseCache.get(key, requestHeaders);
+	}
+
+	/**
+	 * Returns the cached response if it is fresh and can be returned without
+	 * calling the downstream service.
+	 *
+	 * @return The fresh {@link CachedResponse}, or {@code null} if there is
+	 *         none.
+	 */
+	CachedResponse getFreshResponse() {
+		if ((_cachedResponse != null) &&
+			_cachedResponse.isFresh(System.nanoTime())) {
+
+			return _cachedResponse;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the maximum size of a response body that can be stored, if the
+	 * given downstream response can be stored at all.
+	 *
+	 * @param status  The status of the downstream response.
+	 * @param headers The headers of the downstream response.
+	 * @return The maximum size, in bytes, or {@code 0} if the response cannot
+	 *         be stored.
+	 */
+	long getMaxEntrySize(int status, Map<String, List<String>> headers) {
+		if (!CachedResponse.isStorable(status, headers, !_cacheAuthorized)) {
+			return 0;
+		}
+
+		return _responseCache.getMaxEntrySize();
+	}
+
+	/**
+	 * Returns the stale cached response whose validators are sent downstream
+	 * to revalidate it.
+	 *
+	 * @return The stale {@link CachedResponse}, or {@code null} if there is
+	 *         none.
+	 */
+	CachedResponse getStaleResponse() {
+		if (getFreshResponse() != null) {
+			return null;
+		}
+
+		return _cachedResponse;
+	}
+
+	/**
+	 * Refreshes the stale cached response with the headers of the 304 (Not
+	 * Modified) response to its revalidation and stores the result.
+	 *
+	 * @param headers The headers of the 304 response.
+	 * @return The refreshed {@link CachedResponse}.
+	 */
+	CachedResponse revalidate(Map<String, List<String>> headers) {
+		return _responseCache.revalidate(
+			_key, _cachedResponse, headers, _requestHeaders);
+	}
+
+	/**
+	 * Buffers the given downstream response, storing it in the cache if it
+	 * can be stored and its body is not larger than the maximum entry size.
+	 *
+	 * @param status  The status of the downstream response.
+	 * @param headers The headers of the downstream response.
+	 * @param body    The body of the downstream response.
+	 * @return The {@link CachedResponse} buffering the response.
+	 */
+	CachedResponse store(
+		int status, Map<String, List<String>> headers, byte[] body) {
+
+		long maxEntrySize = getMaxEntrySize(status, headers);
+
+		if (maxEntrySize == 0) {
+			return new CachedResponse(
+				status, headers, body, 0, _requestHeaders);
+		}
+
+		CachedResponse cachedResponse = new CachedResponse(
+			status, headers, body, CachedResponse.getFreshnessLifetime(headers),
+			_requestHeaders);
+
+		if (body.length <= maxEntrySize) {
+			_responseCache.put(_key, cachedResponse);
+		}
+
+		return cachedResponse;
+	}
+
+	private final boolean _cacheAuthorized;
+	private final CachedResponse _cachedResponse;
+	private final String _key;
+	private final Function<String, String> _requestHeaders;
+	private final ResponseCache _responseCache;
+
+}
@@ -0,0 +1,59 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+import io.github.marceltanuri.security.oauth.metrics.ResponseCacheSummary;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * An OSGi component that keeps one {@link ResponseCache} for each
+ * {@link OAuthClient} registered in the OSGi service registry. Caches are
+ * created on first use and cleared when their client is unregistered or
+ * replaced. The statistics of the cache of a client are reported by its
+ * {@link ClientMetrics}.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(service = ResponseCacheRegistry.class)
+public class ResponseCacheRegistry
+	extends BaseOAuthClientRegistry<ResponseCache> {
+
+	/**
+	 * Returns the statistics of the response cache of the given client.
+	 *
+	 * @param clientName The name of the client.
+	 * @return The {@link ResponseCacheSummary}, or {@code null} if the client
+	 *         has not cached any response.
+	 */
+	public ResponseCacheSummary getResponseCacheSummary(String clientName) {
+		ResponseCache responseCache = getValue(clientName);
+
+		if (responseCache == null) {
+			return null;
+		}
+
+		return responseCache.getSummary();
+	}
+
+	@Override
+	protected ResponseCache create(OAuthClient oAuthClient) {
+		return new ResponseCache(oAuthClient);
+	}
+
+	@Override
+	protected void discard(ResponseCache responseCache) {
+		responseCache.clear();
+	}
+
+	@Override
+	protected void prepare(OAuthClient oAuthClient) {
+		String clientName = oAuthClient.getClientName();
+
+		ClientMetrics clientMetrics = oAuthClient.getMetrics();
+
+		clientMetrics.setResponseCacheSummarySupplier(
+			() -> getResponseCacheSummary(clientName));
+	}
+
+}
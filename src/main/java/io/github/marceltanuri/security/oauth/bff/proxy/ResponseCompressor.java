@@ -0,0 +1,307 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Compresses proxied responses with gzip for the clients with compression
+ * enabled, using deflaters reused across requests, and marks the responses
+ * relayed with the caller's accepted encodings as varying on them.
+ *
+ * @author Marcel Tanuri
+ */
+class ResponseCompressor {
+
+	/**
+	 * Constructs a new {@code ResponseCompressor}.
+	 *
+	 * @param maxIdleDeflaters The maximum number of idle deflaters kept for
+	 *                         reuse.
+	 */
+	ResponseCompressor(int maxIdleDeflaters) {
+		_deflaterPool = new DeflaterPool(maxIdleDeflaters);
+	}
+
+	/**
+	 * Releases the pooled deflaters.
+	 */
+	void close() {
+		_deflaterPool.close();
+	}
+
+	/**
+	 * Compresses the body of the given response with gzip if the client
+	 * compresses responses, the response is not already encoded, its content
+	 * type is compressible and its size is not below the configured minimum.
+	 * Such responses vary on {@code Accept-Encoding}, but are only compressed
+	 * for callers accepting gzip. The compressed response has no {@code
+	 * Content-Length}, and its entity tag, if any, is made weak, as its bytes
+	 * differ from the downstream representation.
+	 *
+	 * @param response The {@link Response} mapped from the downstream
+	 *                 response.
+	 * @param context  The {@link ProxyRequestContext} for the request.
+	 * @param settings The {@link OAuthClientSettings} of the client.
+	 * @return The given response, or a copy of it with the compressed body.
+	 */
+	Response compress(
+		Response response, ProxyRequestContext context,
+		OAuthClientSettings settings) {
+
+		if (!settings.compressionEnabled() ||
+			!_isCompressible(response, settings)) {
+
+			return response;
+		}
+
+		Object entity = response.getEntity();
+
+		long length = response.getLength();
+
+		if (entity instanceof byte[]) {
+			length = ((byte[])entity).length;
+		}
+
+		if ((length >= 0) && (length < settings.compressionMinSize())) {
+			return response;
+		}
+
+		Response.ResponseBuilder responseBuilder = Response.fromResponse(
+			response);
+
+		if (!_isVaryingOnAcceptEncoding(
+				response.getStringHeaders(
+				).get(
+					HttpHeaders.VARY
+				))) {
+
+			responseBuilder.header(
+				HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+
+		if (!_acceptsGzip(context.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			return responseBuilder.build();
+		}
+
+		String entityTag = response.getHeaderString(HttpHeaders.ETAG);
+
+		if ((entityTag != null) && !entityTag.startsWith("W/")) {
+			responseBuilder.header(
+				HttpHeaders.ETAG, null
+			).header(
+				HttpHeaders.ETAG, "W/" + entityTag
+			);
+		}
+
+		return responseBuilder.header(
+			HttpHeaders.CONTENT_ENCODING, _GZIP
+		).header(
+			HttpHeaders.CONTENT_LENGTH, null
+		).entity(
+			new GzipStreamingOutput(
+				entity, _deflaterPool, settings.compressionLevel())
+		).build();
+	}
+
+	/**
+	 * Makes sure the given downstream response lists {@code Accept-Encoding}
+	 * in its {@code Vary} header. The response was selected by the caller's
+	 * accepted content encodings, so neither the response cache nor
+	 * coalesced requests may share it with callers accepting other
+	 * encodings, and neither may the caches between the BFF and the caller.
+	 *
+	 * @param upstreamResponse The {@link UpstreamResponse} received from the
+	 *                         downstream service.
+	 * @return The given response, or a copy of it with the {@code Vary}
+	 *         header completed.
+	 */
+	UpstreamResponse varyOnAcceptEncoding(
+		UpstreamResponse upstreamResponse) {
+
+		List<String> values = upstreamResponse.getHeaders(
+		).get(
+			"Vary"
+		);
+
+		if (_isVaryingOnAcceptEncoding(values)) {
+			return upstreamResponse;
+		}
+
+		List<String> varyValues = new ArrayList<>();
+
+		if (values != null) {
+			varyValues.addAll(values);
+		}
+
+		varyValues.add(HttpHeaders.ACCEPT_ENCODING);
+
+		Map<String, List<String>> headers = new LinkedHashMap<>(
+			upstreamResponse.getHeaders());
+
+		headers.put("Vary", varyValues);
+
+		return new UpstreamResponse(
+			upstreamResponse.getStatus(), headers, upstreamResponse.getBody(),
+			upstreamResponse);
+	}
+
+	/**
+	 * Returns whether the given {@code Accept-Encoding} header of the caller
+	 * accepts gzip, either by name or through a wildcard, with a non-zero
+	 * quality value.
+	 *
+	 * @param acceptEncoding The {@code Accept-Encoding} header, or {@code
+	 *                       null}.
+	 * @return {@code true} if the caller accepts gzip.
+	 */
+	private boolean _acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+
+		Boolean wildcard = null;
+
+		for (String element : acceptEncoding.split(",")) {
+			String[] parameters = element.split(";");
+
+			String coding = parameters[0].trim();
+
+			boolean accepted = true;
+
+			for (int i = 1; i < parameters.length; i++) {
+				String parameter = parameters[i].trim();
+
+				if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+					try {
+						accepted =
+							Double.parseDouble(parameter.substring(2)) > 0;
+					}
+					catch (NumberFormatException numberFormatException) {
+						accepted = false;
+					}
+				}
+			}
+
+			if (coding.equalsIgnoreCase(_GZIP) ||
+				coding.equalsIgnoreCase("x-gzip")) {
+
+				return accepted;
+			}
+
+			if (coding.equals("*")) {
+				wildcard = accepted;
+			}
+		}
+
+		return Boolean.TRUE.equals(wildcard);
+	}
+
+	/**
+	 * Returns whether the given response can be compressed: it has a body,
+	 * which is not already encoded or a partial one, its content type is
+	 * listed in the client's settings and it does not forbid transformations
+	 * through {@code Cache-Control: no-transform}.
+	 *
+	 * @param response The {@link Response} mapped from the downstream
+	 *                 response.
+	 * @param settings The {@link OAuthClientSettings} of the client.
+	 * @return {@code true} if the response can be compressed.
+	 */
+	private boolean _isCompressible(
+		Response response, OAuthClientSettings settings) {
+
+		Object entity = response.getEntity();
+
+		if (!(entity instanceof byte[]) &&
+			!(entity instanceof StreamingOutput)) {
+
+			return false;
+		}
+
+		if ((response.getStatus() == 206) ||
+			(response.getHeaderString(HttpHeaders.CONTENT_ENCODING) != null)) {
+
+			return false;
+		}
+
+		String cacheControl = response.getHeaderString(
+			HttpHeaders.CACHE_CONTROL);
+
+		if ((cacheControl != null) &&
+			cacheControl.toLowerCase(
+			).contains(
+				"no-transform"
+			)) {
+
+			return false;
+		}
+
+		MediaType mediaType = response.getMediaType();
+
+		if (mediaType == null) {
+			return false;
+		}
+
+		for (String contentType : settings.compressionContentTypes()) {
+			if (contentType.endsWith("/*")) {
+				if (mediaType.getType(
+					).equalsIgnoreCase(
+						contentType.substring(0, contentType.length() - 2)
+					)) {
+
+					return true;
+				}
+			}
+			else if (contentType.equalsIgnoreCase(
+						mediaType.getType() + "/" + mediaType.getSubtype())) {
+
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the given {@code Vary} header values already list
+	 * {@code Accept-Encoding}, or vary on every request header.
+	 *
+	 * @param values The {@code Vary} header values, or {@code null}.
+	 * @return {@code true} if the response varies on the caller's accepted
+	 *         encodings.
+	 */
+	private boolean _isVaryingOnAcceptEncoding(List<String> values) {
+		if (values == null) {
+			return false;
+		}
+
+		for (String value : values) {
+			for (String name : value.split(",")) {
+				name = name.trim();
+
+				if (name.equals("*") ||
+					name.equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)) {
+
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static final String _GZIP = "gzip";
+
+	private final DeflaterPool _deflaterPool;
+
+}
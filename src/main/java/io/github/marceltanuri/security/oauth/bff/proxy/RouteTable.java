@@ -0,0 +1,469 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The routes of a single {@link OAuthClient}, compiled once from its settings.
+ * The service base URL is validated and normalized up front, and the path
+ * rules are kept in a prefix trie keyed by path segment, so that dispatching a
+ * request is a single lookup followed by a string append.
+ *
+ * <p>
+ * Each rule is configured as {@code /prefix;rewrite=/target;timeout=5000;
+ * cache=true;retries=2}, where every policy is optional. The {@code cache}
+ * policy also accepts {@code authorized}, which caches responses to the
+ * authorized requests of the route even when the downstream service does
+ * not explicitly allow a shared cache to store them. Requests matching no
+ * rule use the default route, which carries the policies of the client.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class RouteTable implements OAuthClientScoped {
+
+	/**
+	 * Constructs a new {@code RouteTable}. Invalid rules are logged and
+	 * ignored.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} whose settings provide the
+	 *                    service base URL and the rules.
+	 * @throws IllegalArgumentException if the service base URL is invalid.
+	 */
+	public RouteTable(OAuthClient oAuthClient) {
+		OAuthClientSettings settings = oAuthClient.getSettings();
+
+		_oAuthClient = oAuthClient;
+		_settings = settings;
+
+		String baseURL = oAuthClient.getServiceBaseUrl();
+
+		if (!baseURL.contains("://")) {
+			baseURL = "https://" + baseURL;
+		}
+
+		while (baseURL.endsWith("/")) {
+			baseURL = baseURL.substring(0, baseURL.length() - 1);
+		}
+
+		_baseURI = URI.create(baseURL);
+
+		_rootNode._route = new Route(
+			baseURL, "", null, 0, settings.responseCacheEnabled(), false, 0);
+
+		List<Route> routes = new ArrayList<>();
+
+		for (String rule : settings.routes()) {
+			if ((rule == null) || rule.trim(
+				).isEmpty()) {
+
+				continue;
+			}
+
+			try {
+				Route route = _parseRoute(
+					baseURL, rule, settings.responseCacheEnabled());
+
+				_put(route);
+
+				routes.add(route);
+			}
+			catch (IllegalArgumentException illegalArgumentException) {
+				_log.error(
+					String.format(
+						"Ignoring invalid route \"%s\" of client %s", rule,
+						oAuthClient.getClientName()),
+					illegalArgumentException);
+			}
+		}
+
+		_routes = Collections.unmodifiableList(routes);
+	}
+
+	/**
+	 * Returns the normalized service base URL of the client.
+	 *
+	 * @return The base {@link URI}, without a trailing slash.
+	 */
+	public URI getBaseURI() {
+		return _baseURI;
+	}
+
+	/**
+	 * Returns the {@link OAuthClient} whose routes are compiled.
+	 *
+	 * @return The {@link OAuthClient}.
+	 */
+	@Override
+	public OAuthClient getOAuthClient() {
+		return _oAuthClient;
+	}
+
+	/**
+	 * Returns the route with the longest prefix matching the given path,
+	 * segment by segment.
+	 *
+	 * @param path The downstream service path, with or without a leading
+	 *             slash.
+	 * @return The matching {@link Route}, or the default route of the client if
+	 *         no rule matches.
+	 */
+	public Route getRoute(String path) {
+		Node node = _rootNode;
+		Route route = _rootNode._route;
+
+		if (path == null) {
+			return route;
+		}
+
+		int length = path.length();
+		int start = 0;
+
+		while (start < length) {
+			if (path.charAt(start) == '/') {
+				start++;
+
+				continue;
+			}
+
+			int end = path.indexOf('/', start);
+
+			if (end < 0) {
+				end = length;
+			}
+
+			node = node._children.get(path.substring(start, end));
+
+			if (node == null) {
+				break;
+			}
+
+			if (node._route != null) {
+				route = node._route;
+			}
+
+			start = end;
+		}
+
+		return route;
+	}
+
+	/**
+	 * Returns the configured rules, in configuration order.
+	 *
+	 * @return An unmodifiable list of the valid configured routes, without the
+	 *         default route.
+	 */
+	public List<Route> getRoutes() {
+		return _routes;
+	}
+
+	/**
+	 * Returns the settings snapshot the route table was built from.
+	 *
+	 * @return The {@link OAuthClientSettings}.
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _settings;
+	}
+
+	/**
+	 * A path rule of the client, with the policies applied to the requests it
+	 * matches.
+	 */
+	public static class Route {
+
+		/**
+		 * Returns the maximum number of times a failed request without a body
+		 * is retried, if its method is idempotent.
+		 *
+		 * @return The maximum number of retries.
+		 */
+		public int getMaxRetries() {
+			return _maxRetries;
+		}
+
+		/**
+		 * Returns the path prefix matched by the route.
+		 *
+		 * @return The prefix, without a trailing slash, or an empty string for
+		 *         the default route.
+		 */
+		public String getPrefix() {
+			return _prefix;
+		}
+
+		/**
+		 * Returns the path replacing the matched prefix downstream.
+		 *
+		 * @return The rewrite path, or {@code null} if the path is forwarded
+		 *         as is.
+		 */
+		public String getRewrite() {
+			return _rewrite;
+		}
+
+		/**
+		 * Builds the target URI of a request matched by the route, by
+		 * appending the path, rewritten if the route says so, and the query
+		 * string to the service base URL.
+		 *
+		 * <p>
+		 * The URI is built as a single string, sized up front, and parsed
+		 * once. {@link URI} has no constructor that skips validation: the
+		 * multi-argument ones build the same string and parse it as well,
+		 * after quoting every {@code %}, which would double-encode the
+		 * already encoded paths and query strings of sub-requests. Resolving
+		 * against the base URI would parse the relative reference just the
+		 * same and drop the last segment of the base path.
+		 * </p>
+		 *
+		 * @param path        The downstream service path.
+		 * @param queryString The query string, or {@code null} if there is
+		 *                    none.
+		 * @return The target {@link URI} of the downstream service.
+		 * @throws URISyntaxException if the path or the query string is not a
+		 *                            valid URI component.
+		 */
+		public URI getTargetURI(String path, String queryString)
+			throws URISyntaxException {
+
+			StringBuilder sb = new StringBuilder(
+				_baseURL.length() + path.length() + 1 +
+					((queryString == null) ? 0 : queryString.length() + 1));
+
+			sb.append(_baseURL);
+
+			if (_rewrite == null) {
+				if (!path.startsWith("/")) {
+					sb.append('/');
+				}
+
+				sb.append(path);
+			}
+			else {
+				sb.append(_rewrite);
+
+				String remainingPath = _getRemainingPath(path);
+
+				if (remainingPath.isEmpty() && _rewrite.isEmpty()) {
+					sb.append('/');
+				}
+				else {
+					sb.append(remainingPath);
+				}
+			}
+
+			if ((queryString != null) && !queryString.isEmpty()) {
+				sb.append('?');
+				sb.append(queryString);
+			}
+
+			return new URI(sb.toString());
+		}
+
+		/**
+		 * Returns the time the downstream service is given to respond to a
+		 * request matched by the route.
+		 *
+		 * @return The timeout, in milliseconds, or {@code 0} if it is not
+		 *         limited by the route.
+		 */
+		public long getTimeout() {
+			return _timeout;
+		}
+
+		/**
+		 * Returns whether responses to the route's requests may be cached
+		 * although the requests are authorized and the responses lack the
+		 * {@code public}, {@code s-maxage} or {@code must-revalidate}
+		 * directives RFC 9111 requires for that. It suits services whose
+		 * responses do not depend on the access token of the client.
+		 *
+		 * @return {@code true} if the route opted out of the check.
+		 */
+		public boolean isCacheAuthorized() {
+			return _cacheAuthorized;
+		}
+
+		/**
+		 * Returns whether cacheable GET responses of the route are cached.
+		 *
+		 * @return {@code true} if the response cache is enabled for the route.
+		 */
+		public boolean isCacheEnabled() {
+			return _cacheEnabled;
+		}
+
+		private Route(
+			String baseURL, String prefix, String rewrite, long timeout,
+			boolean cacheEnabled, boolean cacheAuthorized, int maxRetries) {
+
+			_baseURL = baseURL;
+			_prefix = prefix;
+			_rewrite = rewrite;
+			_timeout = timeout;
+			_cacheEnabled = cacheEnabled;
+			_cacheAuthorized = cacheAuthorized;
+			_maxRetries = maxRetries;
+
+			List<String> prefixSegments = _getSegments(prefix);
+
+			_prefixSegments = prefixSegments.toArray(new String[0]);
+		}
+
+		/**
+		 * Returns the part of the path following the matched prefix, starting
+		 * with a slash unless it is empty.
+		 */
+		private String _getRemainingPath(String path) {
+			int index = 0;
+
+			for (String prefixSegment : _prefixSegments) {
+				index =
+					path.indexOf(prefixSegment, index) + prefixSegment.length();
+			}
+
+			if ((index < path.length()) && (path.charAt(index) != '/')) {
+				return "/" + path.substring(index);
+			}
+
+			return path.substring(index);
+		}
+
+		private final String _baseURL;
+		private final boolean _cacheAuthorized;
+		private final boolean _cacheEnabled;
+		private final int _maxRetries;
+		private final String _prefix;
+		private final String[] _prefixSegments;
+		private final String _rewrite;
+		private final long _timeout;
+
+	}
+
+	private static List<String> _getSegments(String path) {
+		List<String> segments = new ArrayList<>();
+
+		for (String segment : path.split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(segment);
+			}
+		}
+
+		return segments;
+	}
+
+	private static Route _parseRoute(
+		String baseURL, String rule, boolean cacheEnabled) {
+
+		String[] parts = rule.split(";");
+
+		String prefix = "/" + String.join("/", _getSegments(parts[0].trim()));
+
+		if (prefix.equals("/")) {
+			prefix = "";
+		}
+
+		String rewrite = null;
+		long timeout = 0;
+		boolean cacheAuthorized = false;
+		int maxRetries = 0;
+
+		for (int i = 1; i < parts.length; i++) {
+			String part = parts[i].trim();
+
+			if (part.isEmpty()) {
+				continue;
+			}
+
+			int index = part.indexOf('=');
+
+			if (index < 0) {
+				throw new IllegalArgumentException(
+					"Missing value of policy " + part);
+			}
+
+			String name = part.substring(
+				0, index
+			).trim();
+			String value = part.substring(
+				index + 1
+			).trim();
+
+			if (name.equals("cache")) {
+				if (value.equals("authorized")) {
+					cacheEnabled = true;
+					cacheAuthorized = true;
+				}
+				else {
+					cacheEnabled = Boolean.parseBoolean(value);
+					cacheAuthorized = false;
+				}
+			}
+			else if (name.equals("retries")) {
+				maxRetries = Math.max(0, Integer.parseInt(value));
+			}
+			else if (name.equals("rewrite")) {
+				rewrite = value;
+
+				while (rewrite.endsWith("/")) {
+					rewrite = rewrite.substring(0, rewrite.length() - 1);
+				}
+
+				if (!rewrite.isEmpty() && !rewrite.startsWith("/")) {
+					rewrite = "/" + rewrite;
+				}
+			}
+			else if (name.equals("timeout")) {
+				timeout = Math.max(0, Long.parseLong(value));
+			}
+			else {
+				throw new IllegalArgumentException("Unknown policy " + name);
+			}
+		}
+
+		return new Route(
+			baseURL, prefix, rewrite, timeout, cacheEnabled, cacheAuthorized,
+			maxRetries);
+	}
+
+	private void _put(Route route) {
+		Node node = _rootNode;
+
+		for (String segment : _getSegments(route.getPrefix())) {
+			node = node._children.computeIfAbsent(segment, key -> new Node());
+		}
+
+		node._route = route;
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(RouteTable.class);
+
+	private final URI _baseURI;
+	private final OAuthClient _oAuthClient;
+	private final Node _rootNode = new Node();
+	private final List<Route> _routes;
+	private final OAuthClientSettings _settings;
+
+	private static class Node {
+
+		private final Map<String, Node> _children = new HashMap<>();
+		private Route _route;
+
+	}
+
+}
@@ -0,0 +1,50 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * An OSGi component that keeps the compiled {@link RouteTable} of each
+ * {@link OAuthClient} registered in the OSGi service registry. Route tables
+ * are compiled when a client is registered, recompiled when it is replaced,
+ * and discarded when it is unregistered. Retrieving the route table of a
+ * client throws an {@link IllegalArgumentException} if the service base URL
+ * of the client is invalid.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(service = RouteTableRegistry.class)
+public class RouteTableRegistry extends BaseOAuthClientRegistry<RouteTable> {
+
+	@Override
+	protected RouteTable create(OAuthClient oAuthClient) {
+		return new RouteTable(oAuthClient);
+	}
+
+	/**
+	 * Compiles the route table of the client, so that configuration errors
+	 * are reported before the first request.
+	 *
+	 * @param oAuthClient The {@link OAuthClient} being registered or updated.
+	 */
+	@Override
+	protected void prepare(OAuthClient oAuthClient) {
+		try {
+			get(oAuthClient);
+		}
+		catch (IllegalArgumentException illegalArgumentException) {
+			_log.error(
+				"Invalid oAuthClient base URL for client " +
+					oAuthClient.getClientName(),
+				illegalArgumentException);
+		}
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		RouteTableRegistry.class);
+
+}
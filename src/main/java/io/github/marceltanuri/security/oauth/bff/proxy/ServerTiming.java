@@ -0,0 +1,153 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.util.Arrays;
+
+/**
+ * Collects the time spent in each phase of a single proxy request, measured
+ * with {@link System#nanoTime()}, and formats it as the value of a {@code
+ * Server-Timing} response header, so browser developer tools and real user
+ * monitoring can tell the time spent in the BFF from the time spent in the
+ * downstream service, and report them in Java Flight Recorder events.
+ * Instances are confined to the thread executing the request.
+ *
+ * @author Marcel Tanuri
+ */
+class ServerTiming {
+
+	/**
+	 * Constructs a new {@code ServerTiming} with no phase recorded.
+	 */
+	ServerTiming() {
+		Arrays.fill(_durations, -1);
+	}
+
+	/**
+	 * Returns the time spent in a phase of the request.
+	 *
+	 * @param phase The {@link Phase}.
+	 * @return The time spent, in nanoseconds, or {@code 0} if the phase was
+	 *         not recorded.
+	 */
+	long getDuration(Phase phase) {
+		return Math.max(0, _durations[phase.ordinal()]);
+	}
+
+	/**
+	 * Adds the given time to a phase of the request. The times of a phase run
+	 * more than once, such as retried downstream calls, are added up.
+	 *
+	 * @param phase The {@link Phase}.
+	 * @param nanos The time spent, in nanoseconds.
+	 */
+	void record(Phase phase, long nanos) {
+		int index = phase.ordinal();
+
+		if (_durations[index] < 0) {
+			_durations[index] = nanos;
+		}
+		else {
+			_durations[index] += nanos;
+		}
+	}
+
+	/**
+	 * Returns the value of the {@code Server-Timing} header, listing the
+	 * recorded phases in order, followed by the total time of the request.
+	 *
+	 * @param totalNanos The total time of the request, in nanoseconds.
+	 * @return The header value, with durations in milliseconds.
+	 */
+	String toHeaderValue(long totalNanos) {
+		StringBuilder sb = new StringBuilder(160);
+
+		for (Phase phase : Phase.values()) {
+			long nanos = _durations[phase.ordinal()];
+
+			if (nanos < 0) {
+				continue;
+			}
+
+			_appendMetric(sb, phase._name, phase._description, nanos);
+
+			sb.append(", ");
+		}
+
+		_appendMetric(sb, "bff-total", "BFF total", totalNanos);
+
+		return sb.toString();
+	}
+
+	/**
+	 * The phases of a proxy request.
+	 */
+	enum Phase {
+
+		/**
+		 * Getting the access token of the client, from its cache or from the
+		 * token endpoint.
+		 */
+		TOKEN("bff-token", "Access token"),
+
+		/**
+		 * Waiting for a free connection of the client's pool.
+		 */
+		POOL("bff-pool", "Request slot wait"),
+
+		/**
+		 * Sending the request until the downstream response headers are
+		 * received, including connection setup and retries.
+		 */
+		UPSTREAM("bff-upstream", "Upstream time to first byte"),
+
+		/**
+		 * Reading the downstream response body, when it is buffered before
+		 * the response is returned. Streamed bodies are copied after the
+		 * response headers are sent, so their copy is not included.
+		 */
+		BODY("bff-body", "Body read");
+
+		private Phase(String name, String description) {
+			_name = name;
+			_description = description;
+		}
+
+		private final String _description;
+		private final String _name;
+
+	}
+
+	private static void _appendMetric(
+		StringBuilder sb, String name, String description, long nanos) {
+
+		long micros = nanos / 1000;
+
+		sb.append(
+			name
+		).append(
+			";desc=\""
+		).append(
+			description
+		).append(
+			"\";dur="
+		).append(
+			micros / 1000
+		).append(
+			'.'
+		);
+
+		long fraction = micros % 1000;
+
+		if (fraction < 100) {
+			sb.append('0');
+		}
+
+		if (fraction < 10) {
+			sb.append('0');
+		}
+
+		sb.append(fraction);
+	}
+
+	private final long[] _durations = new long[Phase.values().length];
+
+}
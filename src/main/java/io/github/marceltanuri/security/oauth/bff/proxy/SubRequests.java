@@ -0,0 +1,527 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Conversions between the JSON form of the sub-requests of batch and
+ * composition requests and the {@link ProxyRequestContext}s and {@link
+ * Response}s of the {@link ProxyService}. A sub-request is a JSON object with
+ * a {@code path} and, optionally, a {@code method}, a {@code query} string,
+ * conditional request {@code headers} and a {@code body}.
+ *
+ * @author Marcel Tanuri
+ */
+final class SubRequests {
+
+	/**
+	 * Creates the {@link ProxyRequestContext} of a sub-request. A body given
+	 * as a JSON string is sent as is, with the content type of the
+	 * sub-request, and any other JSON body is sent as {@code
+	 * application/json}.
+	 *
+	 * @param clientName      The name of the client of the sub-request.
+	 * @param requestJsonNode The sub-request.
+	 * @return The {@link ProxyRequestContext} of the sub-request.
+	 * @throws IllegalArgumentException if the sub-request is invalid.
+	 * @throws JsonProcessingException  if the body cannot be serialized.
+	 */
+	static ProxyRequestContext createContext(
+			String clientName, JsonNode requestJsonNode)
+		throws JsonProcessingException {
+
+		if (!requestJsonNode.isObject()) {
+			throw new IllegalArgumentException(
+				"A sub-request must be a JSON object");
+		}
+
+		String method = requestJsonNode.path(
+			"method"
+		).asText(
+			"GET"
+		).toUpperCase(
+			Locale.ROOT
+		);
+
+		HttpMethodHandler methodHandler;
+
+		try {
+			methodHandler = HttpMethodHandler.valueOf(method);
+		}
+		catch (IllegalArgumentException illegalArgumentException) {
+			throw new IllegalArgumentException(
+				"Unsupported sub-request method " + method,
+				illegalArgumentException);
+		}
+
+		JsonNode pathJsonNode = requestJsonNode.path("path");
+
+		if (!pathJsonNode.isTextual()) {
+			throw new IllegalArgumentException(
+				"A sub-request must have a path");
+		}
+
+		String path = pathJsonNode.asText();
+
+		if (path.startsWith("/")) {
+			path = path.substring(1);
+		}
+
+		ProxyRequestContext.Builder builder = ProxyRequestContext.builder(
+		).clientName(
+			clientName
+		).path(
+			path
+		).methodHandler(
+			methodHandler
+		);
+
+		JsonNode queryJsonNode = requestJsonNode.path("query");
+
+		if (queryJsonNode.isTextual()) {
+			builder.queryString(queryJsonNode.asText());
+		}
+
+		JsonNode headersJsonNode = requestJsonNode.path("headers");
+
+		String contentType = null;
+
+		Iterator<Map.Entry<String, JsonNode>> iterator =
+			headersJsonNode.fields();
+
+		while (iterator.hasNext()) {
+			Map.Entry<String, JsonNode> entry = iterator.next();
+
+			String name = entry.getKey();
+
+			if (name.equalsIgnoreCase(HttpHeaders.CONTENT_TYPE)) {
+				contentType = entry.getValue(
+				).asText();
+
+				continue;
+			}
+
+			for (String forwardedHeaderName : _FORWARDED_HEADER_NAMES) {
+				if (name.equalsIgnoreCase(forwardedHeaderName)) {
+					builder.header(
+						forwardedHeaderName,
+						entry.getValue(
+						).asText());
+				}
+			}
+		}
+
+		JsonNode bodyJsonNode = requestJsonNode.path("body");
+
+		if (bodyJsonNode.isMissingNode() || bodyJsonNode.isNull()) {
+			return builder.build();
+		}
+
+		byte[] bytes;
+
+		if (bodyJsonNode.isTextual()) {
+			bytes = bodyJsonNode.asText(
+			).getBytes(
+				StandardCharsets.UTF_8
+			);
+
+			if (contentType == null) {
+				contentType = MediaType.TEXT_PLAIN + ";charset=UTF-8";
+			}
+		}
+		else {
+			bytes = _objectMapper.writeValueAsBytes(bodyJsonNode);
+
+			if (contentType == null) {
+				contentType = MediaType.APPLICATION_JSON;
+			}
+		}
+
+		return builder.requestBody(
+			new ByteArrayInputStream(bytes)
+		).contentType(
+			contentType
+		).contentLength(
+			bytes.length
+		).build();
+	}
+
+	/**
+	 * Reads the body of a batch or composition request, unless it is larger
+	 * than the given maximum size, from its declared length or from the bytes
+	 * read so far. The body is never read past the maximum size, so a single
+	 * large request cannot exhaust the memory of the BFF before it is parsed.
+	 *
+	 * @param inputStream   The body of the request.
+	 * @param contentLength The declared length of the body, or {@code -1} if
+	 *                      it is not declared.
+	 * @param maxSize       The maximum size, in bytes, of the body.
+	 * @return The body, or {@code null} if it is larger than the maximum
+	 *         size.
+	 * @throws IOException if reading the body fails.
+	 */
+	static byte[] readRequestBody(
+			InputStream inputStream, long contentLength, long maxSize)
+		throws IOException {
+
+		int limit = (int)Math.min(maxSize, _MAX_ARRAY_SIZE);
+
+		if (contentLength > limit) {
+			return null;
+		}
+
+		if (inputStream == null) {
+			return new byte[0];
+		}
+
+		byte[] bytes = inputStream.readNBytes(limit + 1);
+
+		if (bytes.length > limit) {
+			return null;
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * Returns the result of a sub-request: its status, headers, with their
+	 * names in lower case, and body. JSON bodies are embedded as JSON, text
+	 * bodies as strings and other bodies as base64 strings, flagged by a
+	 * {@code bodyEncoding} field. Error messages of the proxy service itself,
+	 * which have no media type, are text. The body is read whole and the
+	 * response is released. A body larger than the given maximum size is not
+	 * read further, and the result is a 502 (Bad Gateway) error instead, so
+	 * a single large response cannot exhaust the memory of the BFF.
+	 *
+	 * @param response The {@link Response} of the sub-request.
+	 * @param maxSize  The maximum size, in bytes, of the body.
+	 * @return The result, as a JSON object.
+	 * @throws IOException if reading the body fails.
+	 */
+	static ObjectNode toObjectNode(Response response, long maxSize)
+		throws IOException {
+
+		ObjectNode objectNode = _objectMapper.createObjectNode();
+
+		objectNode.put("status", response.getStatus());
+
+		ObjectNode headersObjectNode = objectNode.putObject("headers");
+
+		for (Map.Entry<String, List<String>> entry :
+				response.getStringHeaders(
+				).entrySet()) {
+
+			String name = entry.getKey(
+			).toLowerCase(
+				Locale.ROOT
+			);
+
+			if (!headersObjectNode.has(name)) {
+				headersObjectNode.put(
+					name, String.join(", ", entry.getValue()));
+			}
+		}
+
+		MediaType mediaType = response.getMediaType();
+
+		if ((mediaType == null) && (response.getEntity() instanceof String)) {
+			mediaType = MediaType.TEXT_PLAIN_TYPE;
+		}
+
+		byte[] bytes;
+
+		try {
+			bytes = _readEntity(response, maxSize);
+		}
+		catch (BodyTooLargeException bodyTooLargeException) {
+			return toObjectNode(
+				Response.Status.BAD_GATEWAY.getStatusCode(),
+				String.format(
+					"The response body of the sub-request is larger than %d " +
+						"bytes",
+					maxSize));
+		}
+
+		if (bytes.length == 0) {
+			return objectNode;
+		}
+
+		if ((mediaType != null) && _isJson(mediaType)) {
+			try {
+				objectNode.set("body", _objectMapper.readTree(bytes));
+
+				return objectNode;
+			}
+			catch (JsonProcessingException jsonProcessingException) {
+				_log.debug(jsonProcessingException);
+			}
+		}
+
+		if ((mediaType != null) && _isText(mediaType)) {
+			String charset = mediaType.getParameters(
+			).getOrDefault(
+				MediaType.CHARSET_PARAMETER, "UTF-8"
+			);
+
+			objectNode.put("body", new String(bytes, Charset.forName(charset)));
+		}
+		else {
+			objectNode.put(
+				"body",
+				Base64.getEncoder(
+				).encodeToString(
+					bytes
+				));
+			objectNode.put("bodyEncoding", "base64");
+		}
+
+		return objectNode;
+	}
+
+	/**
+	 * Returns the result of a sub-request that could not be executed.
+	 *
+	 * @param status  The status code of the result.
+	 * @param message The reason the sub-request was not executed.
+	 * @return The result, as a JSON object.
+	 */
+	static ObjectNode toObjectNode(int status, String message) {
+		ObjectNode objectNode = _objectMapper.createObjectNode();
+
+		objectNode.put("status", status);
+		objectNode.put("body", message);
+
+		return objectNode;
+	}
+
+	/**
+	 * Releases the response of a sub-request whose body is not read.
+	 *
+	 * @param response The {@link Response} to close.
+	 */
+	private static void _close(Response response) {
+		Object entity = response.getEntity();
+
+		if (entity instanceof Closeable) {
+			try {
+				((Closeable)entity).close();
+			}
+			catch (IOException ioException) {
+				_log.debug(ioException);
+			}
+		}
+
+		response.close();
+	}
+
+	/**
+	 * Returns whether a body of the given media type is embedded as JSON in
+	 * the result of a sub-request.
+	 *
+	 * @param mediaType The {@link MediaType} of the body.
+	 * @return {@code true} if the body is JSON.
+	 */
+	private static boolean _isJson(MediaType mediaType) {
+		String subtype = mediaType.getSubtype();
+
+		if (subtype.equals("json") || subtype.endsWith("+json")) {
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether a body of the given media type is written as text in
+	 * the result of a sub-request, instead of base64.
+	 *
+	 * @param mediaType The {@link MediaType} of the body.
+	 * @return {@code true} if the body is text.
+	 */
+	private static boolean _isText(MediaType mediaType) {
+		if (mediaType.getParameters(
+			).containsKey(
+				MediaType.CHARSET_PARAMETER
+			) ||
+			mediaType.getType(
+			).equals(
+				"text"
+			)) {
+
+			return true;
+		}
+
+		String subtype = mediaType.getSubtype();
+
+		if (subtype.equals("javascript") || subtype.equals("xml") ||
+			subtype.endsWith("+xml")) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Reads the whole body of the response of a sub-request and releases the
+	 * response. Reading stops as soon as the body is known to be larger than
+	 * the given maximum size, from its declared length or from the bytes read
+	 * so far.
+	 *
+	 * @param response The {@link Response} of the sub-request.
+	 * @param maxSize  The maximum size, in bytes, of the body.
+	 * @return The body, empty if the response has none.
+	 * @throws BodyTooLargeException if the body is larger than the maximum
+	 *                               size.
+	 * @throws IOException           if reading the body fails.
+	 */
+	private static byte[] _readEntity(Response response, long maxSize)
+		throws IOException {
+
+		Object entity = response.getEntity();
+
+		int limit = (int)Math.min(maxSize, _MAX_ARRAY_SIZE);
+
+		try {
+			if (entity == null) {
+				return new byte[0];
+			}
+
+			if (response.getLength() > limit) {
+				throw new BodyTooLargeException();
+			}
+
+			byte[] bytes;
+
+			if (entity instanceof byte[]) {
+				bytes = (byte[])entity;
+			}
+			else if (entity instanceof InputStream) {
+				InputStream inputStream = (InputStream)entity;
+
+				bytes = inputStream.readNBytes(limit + 1);
+			}
+			else if (entity instanceof StreamingOutput) {
+				BoundedOutputStream boundedOutputStream =
+					new BoundedOutputStream(limit);
+
+				StreamingOutput streamingOutput = (StreamingOutput)entity;
+
+				streamingOutput.write(boundedOutputStream);
+
+				bytes = boundedOutputStream._toByteArray();
+			}
+			else {
+				bytes = String.valueOf(
+					entity
+				).getBytes(
+					StandardCharsets.UTF_8
+				);
+			}
+
+			if (bytes.length > limit) {
+				throw new BodyTooLargeException();
+			}
+
+			return bytes;
+		}
+		finally {
+			_close(response);
+		}
+	}
+
+	private SubRequests() {
+	}
+
+	private static final String[] _FORWARDED_HEADER_NAMES = {
+		HttpHeaders.IF_MATCH, HttpHeaders.IF_MODIFIED_SINCE,
+		HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_UNMODIFIED_SINCE
+	};
+
+	private static final int _MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private static final Log _log = LogFactoryUtil.getLog(SubRequests.class);
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	/**
+	 * Signals that the body of a sub-request is larger than its maximum size.
+	 */
+	private static class BodyTooLargeException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+	/**
+	 * An output stream collecting the body written by a {@link
+	 * StreamingOutput}, failing as soon as it exceeds its maximum size.
+	 */
+	private static class BoundedOutputStream extends OutputStream {
+
+		@Override
+		public void write(byte[] bytes, int offset, int length)
+			throws IOException {
+
+			_checkSize(length);
+
+			_byteArrayOutputStream.write(bytes, offset, length);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			_checkSize(1);
+
+			_byteArrayOutputStream.write(b);
+		}
+
+		private BoundedOutputStream(int maxSize) {
+			_maxSize = maxSize;
+		}
+
+		private void _checkSize(int length) throws BodyTooLargeException {
+			if (length > (_maxSize - _byteArrayOutputStream.size())) {
+				throw new BodyTooLargeException();
+			}
+		}
+
+		private byte[] _toByteArray() {
+			return _byteArrayOutputStream.toByteArray();
+		}
+
+		private final ByteArrayOutputStream _byteArrayOutputStream =
+			new ByteArrayOutputStream();
+		private final int _maxSize;
+
+	}
+
+}
@@ -0,0 +1,123 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An engine-neutral view of a response received from a downstream service.
+ * It is produced by a {@link ProxyEngine} and mapped to the caller's response
+ * by the {@link DefaultOAuthProxyService}. Header names are case-insensitive.
+ * The response must be closed once its body has been consumed.
+ *
+ * @author Marcel Tanuri
+ */
+public class UpstreamResponse implements Closeable {
+
+	/**
+	 * Constructs a new {@code UpstreamResponse}.
+	 *
+	 * @param status    The HTTP status code of the response.
+	 * @param headers   The headers of the response.
+	 * @param body      The body of the response, or {@code null} if it has no
+	 *                  body.
+	 * @param closeable The resource released when the response is closed, or
+	 *                  {@code null} if there is none.
+	 */
+	public UpstreamResponse(
+		int status, Map<String, List<String>> headers, InputStream body,
+		Closeable closeable) {
+
+		Map<String, List<String>> caseInsensitiveHeaders = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+		caseInsensitiveHeaders.putAll(headers);
+
+		_status = status;
+		_headers = Collections.unmodifiableMap(caseInsensitiveHeaders);
+		_body = body;
+		_closeable = closeable;
+	}
+
+	/**
+	 * Closes the body of the response and releases its underlying resource.
+	 * Calling this method more than once has no effect.
+	 *
+	 * @throws IOException if closing the body or the resource fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (_closed) {
+			return;
+		}
+
+		_closed = true;
+
+		try {
+			if (_body != null) {
+				_body.close();
+			}
+		}
+		finally {
+			if (_closeable != null) {
+				_closeable.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the body of the response.
+	 *
+	 * @return The body as an {@link InputStream}, or {@code null} if the
+	 *         response has no body.
+	 */
+	public InputStream getBody() {
+		return _body;
+	}
+
+	/**
+	 * Returns the headers of the response, keyed case-insensitively.
+	 *
+	 * @return An unmodifiable map of the response headers.
+	 */
+	public Map<String, List<String>> getHeaders() {
+		return _headers;
+	}
+
+	/**
+	 * Returns the first value of the given header.
+	 *
+	 * @param name The name of the header.
+	 * @return The first value of the header, or {@code null} if not present.
+	 */
+	public String getHeaderString(String name) {
+		List<String> values = _headers.get(name);
+
+		if ((values == null) || values.isEmpty()) {
+			return null;
+		}
+
+		return values.get(0);
+	}
+
+	/**
+	 * Returns the HTTP status code of the response.
+	 *
+	 * @return The status code.
+	 */
+	public int getStatus() {
+		return _status;
+	}
+
+	private final InputStream _body;
+	private final Closeable _closeable;
+	private boolean _closed;
+	private final Map<String, List<String>> _headers;
+	private final int _status;
+
+}
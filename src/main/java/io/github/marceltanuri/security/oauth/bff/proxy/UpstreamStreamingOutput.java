@@ -0,0 +1,86 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * A {@link StreamingOutput} that bridges the body of a downstream response to
+ * the caller, copying the bytes to the servlet output as they arrive instead
+ * of buffering the whole body in memory. Once the copy finishes, successfully
+ * or not, the given close action releases the downstream response. If the
+ * body is never written, {@link #close()} must be called instead.
+ *
+ * @author Marcel Tanuri
+ */
+class UpstreamStreamingOutput implements Closeable, StreamingOutput {
+
+	/**
+	 * Constructs a new {@code UpstreamStreamingOutput}.
+	 *
+	 * @param inputStream The body of the downstream response.
+	 * @param closeAction The action releasing the downstream response, run
+	 *                    exactly once after the body is copied.
+	 */
+	UpstreamStreamingOutput(InputStream inputStream, Runnable closeAction) {
+		_inputStream = inputStream;
+		_closeAction = closeAction;
+	}
+
+	/**
+	 * Discards the downstream body without copying it and releases the
+	 * downstream response.
+	 *
+	 * @throws IOException if closing the body fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			_inputStream.close();
+		}
+		finally {
+			if (_closed.compareAndSet(false, true)) {
+				_closeAction.run();
+			}
+		}
+	}
+
+	/**
+	 * Copies the downstream body to the given output stream, flushing after
+	 * every chunk read so that the caller receives bytes as soon as the
+	 * downstream service sends them.
+	 *
+	 * @param outputStream The output stream of the caller's response.
+	 * @throws IOException if reading or writing the body fails.
+	 */
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+		try (InputStream inputStream = _inputStream) {
+			byte[] buffer = new byte[_BUFFER_SIZE];
+
+			int read;
+
+			while ((read = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, read);
+				outputStream.flush();
+			}
+		}
+		finally {
+			if (_closed.compareAndSet(false, true)) {
+				_closeAction.run();
+			}
+		}
+	}
+
+	private static final int _BUFFER_SIZE = 8192;
+
+	private final Runnable _closeAction;
+	private final AtomicBoolean _closed = new AtomicBoolean();
+	private final InputStream _inputStream;
+
+}
@@ -0,0 +1,119 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runtime detection of virtual threads. The bundle is compiled for Java 11,
+ * so the Java 21 virtual thread API is looked up reflectively once and used
+ * only when the running JDK provides it.
+ *
+ * @author Marcel Tanuri
+ */
+final class VirtualThreads {
+
+	/**
+	 * Returns whether the running JDK supports virtual threads.
+	 *
+	 * @return {@code true} if virtual threads are available.
+	 */
+	static boolean isAvailable() {
+		if ((_isVirtualMethodHandle != null) &&
+			(_newVirtualThreadPerTaskExecutorMethodHandle != null)) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns whether the given thread is a virtual thread.
+	 *
+	 * @param thread The thread to check.
+	 * @return {@code true} if the thread is virtual.
+	 */
+	static boolean isVirtual(Thread thread) {
+		if (_isVirtualMethodHandle == null) {
+			return false;
+		}
+
+		try {
+			return (boolean)_isVirtualMethodHandle.invokeExact(thread);
+		}
+		catch (Throwable throwable) {
+			return false;
+		}
+	}
+
+	/**
+	 * Creates an executor that starts a new virtual thread for each task.
+	 *
+	 * @return The executor.
+	 * @throws IllegalStateException if virtual threads are not available.
+	 */
+	static ExecutorService newVirtualThreadPerTaskExecutor() {
+		if (!isAvailable()) {
+			throw new IllegalStateException(
+				"Virtual threads are not available on Java " +
+					Runtime.version());
+		}
+
+		try {
+			return (ExecutorService)
+				_newVirtualThreadPerTaskExecutorMethodHandle.invokeExact();
+		}
+		catch (Throwable throwable) {
+			throw new IllegalStateException(
+				"Unable to create virtual thread executor", throwable);
+		}
+	}
+
+	private VirtualThreads() {
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		VirtualThreads.class);
+
+	private static final MethodHandle _isVirtualMethodHandle;
+	private static final MethodHandle
+		_newVirtualThreadPerTaskExecutorMethodHandle;
+
+	static {
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+		MethodHandle isVirtualMethodHandle = null;
+		MethodHandle newVirtualThreadPerTaskExecutorMethodHandle = null;
+
+		try {
+			isVirtualMethodHandle = lookup.findVirtual(
+				Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+			newVirtualThreadPerTaskExecutorMethodHandle = lookup.findStatic(
+				Executors.class,
+				"newVirtualThreadPerTaskExecutor",
+				MethodType.methodType(ExecutorService.class));
+		}
+		catch (ReflectiveOperationException reflectiveOperationException) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Virtual threads are not available on Java " +
+						Runtime.version());
+			}
+
+			isVirtualMethodHandle = null;
+			newVirtualThreadPerTaskExecutorMethodHandle = null;
+		}
+
+		_isVirtualMethodHandle = isVirtualMethodHandle;
+		_newVirtualThreadPerTaskExecutorMethodHandle =
+			newVirtualThreadPerTaskExecutorMethodHandle;
+	}
+
+}
@@ -1,12 +1,15 @@
 package io.github.marceltanuri.security.oauth.bff.token;
 
 import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientException;
+import io.github.marceltanuri.security.oauth.client.OAuthClientUnavailableException;
 import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -44,7 +47,8 @@ public class TokenResource {
 	 *         200 (OK) status. If the client configuration is not found, it
 	 *         returns a 404 (Not Found) response. If an error occurs during
 	 *         token retrieval, it returns a 500 (Internal Server Error)
-	 *         response with an error message.
+	 *         response with an error message, or a 503 (Service Unavailable)
+	 *         response while the token endpoint of the client is failing.
 	 */
 	@GET
 	@Path("/{clientName}/token")
@@ -66,8 +70,23 @@ public class TokenResource {
 				oAuthService.getAccessToken()
 			).build();
 		}
+		catch (OAuthClientUnavailableException
+					oAuthClientUnavailableException) {
+
+			return Response.status(
+				Response.Status.SERVICE_UNAVAILABLE
+			).header(
+				HttpHeaders.RETRY_AFTER,
+				oAuthClientUnavailableException.getRetryAfter()
+			).entity(
+				oAuthClientUnavailableException.getMessage()
+			).build();
+		}
 		catch (RuntimeException runtimeException) {
-			_log.error(runtimeException);
+			if (!(runtimeException instanceof OAuthClientException)) {
+				_log.error(runtimeException);
+			}
+
 			return Response.status(
 				Response.Status.INTERNAL_SERVER_ERROR
 			).entity(
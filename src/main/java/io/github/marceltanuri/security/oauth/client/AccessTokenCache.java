@@ -0,0 +1,410 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * An in-process cache of the access token of a single {@link OAuthClient}.
+ * The token is stored together with its lifetime and served lock-free while it
+ * is valid. Once the configured fraction of its lifetime has elapsed, the
+ * {@link TokenRefreshScheduler} refreshes it in the background, so request
+ * threads keep being served with the current token instead of waiting on the
+ * identity provider.
+ * Concurrent fetches are collapsed into a single call to the identity
+ * provider, shared by all waiting requests for up to the configured token
+ * fetch timeout. Fetches go through a {@link TokenCircuitBreaker}, so that
+ * requests fail fast while the token endpoint is failing.
+ *
+ * <p>
+ * The lifetime is read from the {@code exp} claim when the token is a JWT.
+ * Opaque tokens are assumed to live for the configured default token
+ * lifetime.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class AccessTokenCache {
+
+	/**
+	 * Constructs a new {@code AccessTokenCache}.
+	 *
+	 * @param settings            The {@link OAuthClientSettings} of the client,
+	 *                            providing the refresh threshold, the default
+	 *                            token lifetime, the token fetch timeout and
+	 *                            the circuit breaker settings.
+	 * @param accessTokenSupplier The supplier fetching a new access token from
+	 *                            the identity provider.
+	 */
+	public AccessTokenCache(
+		OAuthClientSettings settings, Supplier<String> accessTokenSupplier) {
+
+		_clientName = settings.clientName();
+		_accessTokenSupplier = accessTokenSupplier;
+
+		_defaultTokenLifetimeNanos = TimeUnit.SECONDS.toNanos(
+			settings.tokenDefaultLifetime());
+		_tokenCircuitBreaker = new TokenCircuitBreaker(settings);
+		_tokenFetchTimeout = settings.tokenFetchTimeout();
+		_tokenRefreshThreshold = Math.min(
+			1.0, Math.max(0.0, settings.tokenRefreshThreshold()));
+	}
+
+	/**
+	 * Takes over the cached token of another cache, such as the cache of the
+	 * previous configuration of the same client, so that reconfiguring the
+	 * client does not force a token fetch. Nothing is taken over if the other
+	 * cache holds no valid token.
+	 *
+	 * @param accessTokenCache The {@link AccessTokenCache} to take the token
+	 *                         from.
+	 */
+	public void copyFrom(AccessTokenCache accessTokenCache) {
+		CachedAccessToken cachedAccessToken =
+			accessTokenCache._cachedAccessToken;
+
+		if ((cachedAccessToken != null) &&
+			cachedAccessToken.isValid(System.nanoTime())) {
+
+			_cachedAccessToken = cachedAccessToken;
+		}
+	}
+
+	/**
+	 * Returns a valid access token, fetching it synchronously only when no
+	 * valid token is cached. If another request is already fetching a token,
+	 * this request waits for and shares its result instead.
+	 *
+	 * @return A valid access token.
+	 * @throws OAuthClientUnavailableException if a new token has to be fetched
+	 *                                         and the token endpoint is known
+	 *                                         to be failing.
+	 * @throws RuntimeException                if a new token has to be fetched
+	 *                                         and the fetch fails, or if the
+	 *                                         shared fetch does not complete
+	 *                                         within the token fetch timeout.
+	 */
+	public String getAccessToken() {
+		CachedAccessToken cachedAccessToken = _cachedAccessToken;
+
+		long now = System.nanoTime();
+
+		if ((cachedAccessToken != null) && cachedAccessToken.isValid(now)) {
+			_hitCount.increment();
+
+			return cachedAccessToken._accessToken;
+		}
+
+		_missCount.increment();
+
+		return _load(false)._accessToken;
+	}
+
+	/**
+	 * Returns the number of tokens fetched from the identity provider.
+	 *
+	 * @return The fetch count.
+	 */
+	public long getFetchCount() {
+		return _fetchCount.sum();
+	}
+
+	/**
+	 * Returns the number of requests served with a cached token.
+	 *
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return _hitCount.sum();
+	}
+
+	/**
+	 * Returns the number of requests that had to fetch a token synchronously.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return _missCount.sum();
+	}
+
+	/**
+	 * Returns the time left until the cached token is due for a refresh.
+	 *
+	 * @return The refresh delay, in nanoseconds, or {@code 0} if no valid
+	 *         token is cached or the refresh is already due.
+	 */
+	public long getRefreshDelay() {
+		CachedAccessToken cachedAccessToken = _cachedAccessToken;
+
+		long now = System.nanoTime();
+
+		if ((cachedAccessToken == null) || !cachedAccessToken.isValid(now)) {
+			return 0;
+		}
+
+		return Math.max(0, cachedAccessToken._refreshTime - now);
+	}
+
+	/**
+	 * Returns the number of tokens refreshed ahead of their expiry.
+	 *
+	 * @return The refresh count.
+	 */
+	public long getRefreshCount() {
+		return _refreshCount.sum();
+	}
+
+	/**
+	 * Returns the circuit breaker guarding the token endpoint.
+	 *
+	 * @return The {@link TokenCircuitBreaker}.
+	 */
+	public TokenCircuitBreaker getTokenCircuitBreaker() {
+		return _tokenCircuitBreaker;
+	}
+
+	/**
+	 * Returns whether a token is cached and has not expired yet.
+	 *
+	 * @return {@code true} if a valid token is cached.
+	 */
+	public boolean hasAccessToken() {
+		CachedAccessToken cachedAccessToken = _cachedAccessToken;
+
+		if ((cachedAccessToken != null) &&
+			cachedAccessToken.isValid(System.nanoTime())) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Discards the cached token, so that the next request fetches a new one.
+	 */
+	public void invalidate() {
+		_cachedAccessToken = null;
+	}
+
+	/**
+	 * Fetches a new token synchronously, even if the cached one is not due
+	 * for a refresh yet. It is meant for background refreshes and shares the
+	 * fetch with any concurrent request.
+	 *
+	 * @throws RuntimeException if the token fetch fails.
+	 */
+	public void refresh() {
+		_load(true);
+
+		_refreshCount.increment();
+	}
+
+	private CachedAccessToken _await(
+		CompletableFuture<CachedAccessToken> completableFuture) {
+
+		try {
+			return completableFuture.get(
+				_tokenFetchTimeout, TimeUnit.MILLISECONDS);
+		}
+		catch (ExecutionException executionException) {
+			Throwable cause = executionException.getCause();
+
+			if (cause instanceof OAuthClientUnavailableException) {
+				OAuthClientUnavailableException
+					oAuthClientUnavailableException =
+						(OAuthClientUnavailableException)cause;
+
+				throw new OAuthClientUnavailableException(
+					oAuthClientUnavailableException.getMessage(),
+					oAuthClientUnavailableException,
+					oAuthClientUnavailableException.getRetryAfter());
+			}
+
+			throw new OAuthClientException(
+				"failed to obtain OAuth access token", cause);
+		}
+		catch (InterruptedException interruptedException) {
+			Thread.currentThread(
+			).interrupt();
+
+			throw new OAuthClientException(
+				"Interrupted while waiting for the access token of client " +
+					_clientName,
+				interruptedException);
+		}
+		catch (TimeoutException timeoutException) {
+			throw new OAuthClientException(
+				"Timed out waiting for the access token of client " +
+					_clientName,
+				timeoutException);
+		}
+	}
+
+	private CachedAccessToken _fetch() {
+		String accessToken = _tokenCircuitBreaker.execute(
+			_accessTokenSupplier);
+
+		_fetchCount.increment();
+
+		long now = System.nanoTime();
+
+		long lifetimeNanos = _getLifetimeNanos(accessToken);
+
+		long expirySkewNanos = Math.min(_EXPIRY_SKEW_NANOS, lifetimeNanos / 10);
+
+		CachedAccessToken cachedAccessToken = new CachedAccessToken(
+			accessToken, now + lifetimeNanos - expirySkewNanos,
+			now + (long)(lifetimeNanos * _tokenRefreshThreshold));
+
+		_cachedAccessToken = cachedAccessToken;
+
+		return cachedAccessToken;
+	}
+
+	private long _getLifetimeNanos(String accessToken) {
+		String[] parts = accessToken.split("\\.");
+
+		if (parts.length != 3) {
+			return _defaultTokenLifetimeNanos;
+		}
+
+		try {
+			JsonNode jsonNode = _objectMapper.readTree(
+				Base64.getUrlDecoder(
+				).decode(
+					parts[1]
+				));
+
+			JsonNode expJsonNode = jsonNode.get("exp");
+
+			if ((expJsonNode == null) || !expJsonNode.canConvertToLong()) {
+				return _defaultTokenLifetimeNanos;
+			}
+
+			return TimeUnit.MILLISECONDS.toNanos(
+				TimeUnit.SECONDS.toMillis(expJsonNode.asLong()) -
+					System.currentTimeMillis());
+		}
+		catch (Exception exception) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Unable to read the expiry of the access token of " +
+						"client " + _clientName,
+					exception);
+			}
+
+			return _defaultTokenLifetimeNanos;
+		}
+	}
+
+	/**
+	 * Loads a new token, making sure only one fetch is in flight at a time.
+	 * The first caller fetches the token and publishes the result; concurrent
+	 * callers wait for it. Unless forced, no fetch happens if a concurrent
+	 * load has just cached a fresh token.
+	 */
+	private CachedAccessToken _load(boolean force) {
+		CompletableFuture<CachedAccessToken> completableFuture =
+			new CompletableFuture<>();
+
+		CompletableFuture<CachedAccessToken> inFlightCompletableFuture =
+			_inFlightCompletableFuture.compareAndExchange(
+				null, completableFuture);
+
+		if (inFlightCompletableFuture != null) {
+			return _await(inFlightCompletableFuture);
+		}
+
+		try {
+			CachedAccessToken cachedAccessToken = _cachedAccessToken;
+
+			long now = System.nanoTime();
+
+			if (force || (cachedAccessToken == null) ||
+				!cachedAccessToken.isValid(now) ||
+				cachedAccessToken.isRefreshDue(now)) {
+
+				cachedAccessToken = _fetch();
+			}
+
+			completableFuture.complete(cachedAccessToken);
+
+			return cachedAccessToken;
+		}
+		catch (RuntimeException runtimeException) {
+			completableFuture.completeExceptionally(runtimeException);
+
+			throw runtimeException;
+		}
+		finally {
+			_inFlightCompletableFuture.set(null);
+		}
+	}
+
+	private static final long _EXPIRY_SKEW_NANOS = TimeUnit.SECONDS.toNanos(
+		5);
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		AccessTokenCache.class);
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	private final Supplier<String> _accessTokenSupplier;
+	private volatile CachedAccessToken _cachedAccessToken;
+	private final String _clientName;
+	private final long _defaultTokenLifetimeNanos;
+	private final LongAdder _fetchCount = new LongAdder();
+	private final LongAdder _hitCount = new LongAdder();
+	private final AtomicReference<CompletableFuture<CachedAccessToken>>
+		_inFlightCompletableFuture = new AtomicReference<>();
+	private final LongAdder _missCount = new LongAdder();
+	private final LongAdder _refreshCount = new LongAdder();
+	private final TokenCircuitBreaker _tokenCircuitBreaker;
+	private final long _tokenFetchTimeout;
+	private final double _tokenRefreshThreshold;
+
+	private static class CachedAccessToken {
+
+		public boolean isRefreshDue(long now) {
+			if ((now - _refreshTime) >= 0) {
+				return true;
+			}
+
+			return false;
+		}
+
+		public boolean isValid(long now) {
+			if ((now - _expirationTime) < 0) {
+				return true;
+			}
+
+			return false;
+		}
+
+		private CachedAccessToken(
+			String accessToken, long expirationTime, long refreshTime) {
+
+			_accessToken = accessToken;
+			_expirationTime = expirationTime;
+			_refreshTime = refreshTime;
+		}
+
+		private final String _accessToken;
+		private final long _expirationTime;
+		private final long _refreshTime;
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package io.github.marceltanuri.security.oauth.client;
 
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+
 /**
  *
  * @author Marcel Tanuri
@@ -12,6 +14,14 @@ public interface OAuthClient {
 	 */
 	public String getAccessToken();
 
+	/**
+	 * Retrieves the cache holding the access token of this client, exposing
+	 * its hit, miss and refresh counters.
+	 *
+	 * @return The {@link AccessTokenCache} of the OAuth client.
+	 */
+	public AccessTokenCache getAccessTokenCache();
+
 	/**
 	 * Retrieves the audience for which the access token is intended.
 	 *
@@ -33,6 +43,13 @@ public interface OAuthClient {
 	 */
 	public String getClientName();
 
+	/**
+	 * Retrieves the latency and throughput metrics of this client.
+	 *
+	 * @return The {@link ClientMetrics} of the OAuth client.
+	 */
+	public ClientMetrics getMetrics();
+
 	/**
 	 * Retrieves the scope of the access request.
 	 *
@@ -47,6 +64,14 @@ public interface OAuthClient {
 	 */
 	public String getServiceBaseUrl();
 
+	/**
+	 * Retrieves the full settings of this client, including the connection
+	 * settings used when proxying requests to the service.
+	 *
+	 * @return The {@link OAuthClientSettings} of the OAuth client.
+	 */
+	public OAuthClientSettings getSettings();
+
 	/**
 	 * Retrieves the token endpoint of the OAuth service.
 	 *
@@ -1,17 +1,21 @@
 package io.github.marceltanuri.security.oauth.client;
 
-import com.liferay.portal.kernel.log.Log;
-import com.liferay.portal.kernel.log.LogFactoryUtil;
-
 import io.github.marceltanuri.security.commons.oauth.token.api.TokenService;
 import io.github.marceltanuri.security.commons.oauth.token.api.TokenServiceException;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+import io.github.marceltanuri.security.oauth.metrics.FlightRecorderEvents;
+import io.github.marceltanuri.security.oauth.metrics.TokenFetchEvent;
 
 
 /**
  * Default implementation of the {@link OAuthClient} interface. This class is
  * responsible for obtaining an OAuth 2.0 access token by delegating the request
  * to a {@link TokenService}. It is initialized with a set of
- * {@link OAuthClientSettings}.
+ * {@link OAuthClientSettings}. Tokens are kept in an {@link AccessTokenCache}
+ * and refreshed ahead of their expiry on the given executor. The time spent
+ * acquiring each token is recorded in the {@link ClientMetrics} of the client,
+ * and every call to the token endpoint is reported as a {@link
+ * TokenFetchEvent} to Java Flight Recorder.
  */
 public class OAuthClientDefaultServiceImpl implements OAuthClient {
 
@@ -19,14 +23,19 @@ public class OAuthClientDefaultServiceImpl implements OAuthClient {
 	 * Constructs a new {@code OAuthClientDefaultServiceImpl} with the specified
 	 * settings and token service.
 	 *
-	 * @param settings     The {@link OAuthClientSettings} containing the
-	 *                     configuration for this client.
-	 * @param tokenService The {@link TokenService} used to fetch the access token.
+	 * @param settings      The {@link OAuthClientSettings} containing the
+	 *                      configuration for this client.
+	 * @param tokenService  The {@link TokenService} used to fetch the access
+	 *                      token.
+	 * @param clientMetrics The {@link ClientMetrics} recording the token
+	 *                      acquisitions of the client.
 	 */
 	public OAuthClientDefaultServiceImpl(
-		OAuthClientSettings settings, TokenService tokenService) {
+		OAuthClientSettings settings, TokenService tokenService,
+		ClientMetrics clientMetrics) {
 
 		_settings = settings;
+		_clientMetrics = clientMetrics;
 
 		_clientCredentialsSettings =
 			TokenService.ClientCredentialsSettings.builder(
@@ -43,34 +52,51 @@ public class OAuthClientDefaultServiceImpl implements OAuthClient {
 			).build();
 
 		_tokenService = tokenService;
+
+		_accessTokenCache = new AccessTokenCache(
+			settings, this::_fetchAccessToken);
 	}
 
 	/**
-	 * Retrieves a valid OAuth 2.0 access token using the configured
-	 * {@link TokenService}. If the token fetch fails, it logs an error and
-	 * throws a {@link RuntimeException}.
+	 * Retrieves a valid OAuth 2.0 access token from the
+	 * {@link AccessTokenCache}, which only calls the configured
+	 * {@link TokenService} when no valid token is cached.
 	 *
 	 * @return A valid access token as a String.
-	 * @throws RuntimeException if the underlying {@link TokenService} fails to
-	 *                          retrieve a token.
+	 * @throws OAuthClientUnavailableException if the token endpoint is known
+	 *                                         to be failing.
+	 * @throws RuntimeException                if the underlying
+	 *                                         {@link TokenService} fails to
+	 *                                         retrieve a token.
 	 */
 	@Override
 	public String getAccessToken() {
+		long startTime = System.nanoTime();
+
 		try {
-			return _tokenService.getAccessToken(_clientCredentialsSettings);
+			String accessToken = _accessTokenCache.getAccessToken();
+
+			_clientMetrics.recordTokenAcquisition(
+				System.nanoTime() - startTime, true);
+
+			return accessToken;
 		}
-		catch (TokenServiceException tokenServiceException) {
-			_log.error("Error fetching access token", tokenServiceException);
-			_log.error(
-				"Failed to obtain OAuth access token. " +
-					_clientCredentialsSettings.toString());
-			tokenServiceException.printStackTrace();
-			System.out.println(tokenServiceException.getMessage());
-			throw new RuntimeException(
-				"failed to obtain OAuth access token", tokenServiceException);
+		catch (RuntimeException runtimeException) {
+			_clientMetrics.recordTokenAcquisition(
+				System.nanoTime() - startTime, false);
+
+			throw runtimeException;
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public AccessTokenCache getAccessTokenCache() {
+		return _accessTokenCache;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -95,6 +121,14 @@ public class OAuthClientDefaultServiceImpl implements OAuthClient {
 		return _settings.clientName();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientMetrics getMetrics() {
+		return _clientMetrics;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -111,6 +145,14 @@ public class OAuthClientDefaultServiceImpl implements OAuthClient {
 		return _settings.serviceBaseUrl();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _settings;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -119,10 +161,94 @@ public class OAuthClientDefaultServiceImpl implements OAuthClient {
 		return _settings.tokenEndpoint();
 	}
 
-	private static final Log _log = LogFactoryUtil.getLog(
-		OAuthClientDefaultServiceImpl.class);
+	/**
+	 * Ends the given event and, if it is recorded, fills it in with the
+	 * outcome of the token fetch and commits it. Does nothing if the event is
+	 * {@code null} because Java Flight Recorder is not available.
+	 *
+	 * @param tokenFetchEvent The {@link TokenFetchEvent} of the token fetch, or
+	 *                        {@code null}.
+	 * @param refresh         Whether the fetch replaces a token that has not
+	 *                        expired yet.
+	 * @param exception       The exception the fetch failed with, or
+	 *                        {@code null} if it succeeded.
+	 */
+	private void _commit(
+		TokenFetchEvent tokenFetchEvent, boolean refresh, Exception exception) {
+
+		if (tokenFetchEvent == null) {
+			return;
+		}
+
+		tokenFetchEvent.end();
+
+		if (!tokenFetchEvent.shouldCommit()) {
+			return;
+		}
+
+		tokenFetchEvent.setClientName(_settings.clientName());
+		tokenFetchEvent.setRefresh(refresh);
+		tokenFetchEvent.setTokenEndpoint(_settings.tokenEndpoint());
+
+		if (exception == null) {
+			tokenFetchEvent.setSuccess(true);
+		}
+		else {
+			tokenFetchEvent.setError(exception.getMessage());
+		}
+
+		tokenFetchEvent.commit();
+	}
+
+	/**
+	 * Fetches a new access token from the configured {@link TokenService}. If
+	 * the token fetch fails, it throws an {@link OAuthClientException}, which
+	 * is logged by the {@link TokenCircuitBreaker} of the
+	 * {@link AccessTokenCache}. The fetch is reported as a refresh when it
+	 * replaces a token that has not expired yet. No {@link TokenFetchEvent} is
+	 * created unless {@link FlightRecorderEvents#isAvailable()}.
+	 *
+	 * @return A new access token as a String.
+	 */
+	private String _fetchAccessToken() {
+		TokenFetchEvent tokenFetchEvent = null;
+
+		boolean refresh = false;
+
+		if (FlightRecorderEvents.isAvailable()) {
+			tokenFetchEvent = new TokenFetchEvent();
+
+			if (tokenFetchEvent.isEnabled()) {
+				refresh = _accessTokenCache.hasAccessToken();
+			}
+
+			tokenFetchEvent.begin();
+		}
+
+		try {
+			String accessToken = _tokenService.getAccessToken(
+				_clientCredentialsSettings);
+
+			_commit(tokenFetchEvent, refresh, null);
+
+			return accessToken;
+		}
+		catch (TokenServiceException tokenServiceException) {
+			_commit(tokenFetchEvent, refresh, tokenServiceException);
+
+			throw new OAuthClientException(
+				"failed to obtain OAuth access token", tokenServiceException);
+		}
+		catch (RuntimeException runtimeException) {
+			_commit(tokenFetchEvent, refresh, runtimeException);
+
+			throw runtimeException;
+		}
+	}
 
+	private final AccessTokenCache _accessTokenCache;
 	private TokenService.ClientCredentialsSettings _clientCredentialsSettings;
+	private final ClientMetrics _clientMetrics;
 	private OAuthClientSettings _settings;
 	private TokenService _tokenService;
 
@@ -1,10 +1,23 @@
 package io.github.marceltanuri.security.oauth.client;
 
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
 import io.github.marceltanuri.security.commons.oauth.token.api.TokenService;
+import io.github.marceltanuri.security.oauth.metrics.ClientMetrics;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.Objects;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.metatype.annotations.Designate;
 
@@ -13,7 +26,8 @@ import org.osgi.service.metatype.annotations.Designate;
  * instances of the {@link OAuthClient} service. Each instance is configured
  * through the OSGi Configuration Admin service using the properties defined in
  * {@link OAuthClientSettings}. This manager delegates all client operations to an
- * internal {@link OAuthClientDefaultServiceImpl} instance.
+ * internal {@link OAuthClientDefaultServiceImpl} instance, which is replaced
+ * atomically when the configuration is modified.
  *
  * @author Marcel Tanuri
  */
@@ -28,7 +42,8 @@ public class OAuthClientManager implements OAuthClient {
 	/**
 	 * Activates the component, creating and initializing a new instance of the
 	 * default OAuth client implementation ({@link OAuthClientDefaultServiceImpl})
-	 * with the provided settings.
+	 * with the provided settings. Its access token is fetched and refreshed
+	 * in the background by the {@link TokenRefreshScheduler}.
 	 *
 	 * @param settings The {@link OAuthClientSettings} configuration for this
 	 *                 client instance.
@@ -36,7 +51,18 @@ public class OAuthClientManager implements OAuthClient {
 	@Activate
 	public void activate(OAuthClientSettings settings) {
 		_service = new OAuthClientDefaultServiceImpl(
-			new OAuthClientSettingsProxy(settings), _tokenService);
+			new OAuthClientSettingsProxy(settings), _tokenService,
+			_clientMetrics);
+
+		_registerMBean(settings.clientName());
+	}
+
+	/**
+	 * Deactivates the component, unregistering the metrics MBean.
+	 */
+	@Deactivate
+	public void deactivate() {
+		_unregisterMBean();
 	}
 
 	/**
@@ -47,6 +73,14 @@ public class OAuthClientManager implements OAuthClient {
 		return _service.getAccessToken();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public AccessTokenCache getAccessTokenCache() {
+		return _service.getAccessTokenCache();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -71,6 +105,14 @@ public class OAuthClientManager implements OAuthClient {
 		return _service.getClientName();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ClientMetrics getMetrics() {
+		return _clientMetrics;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -87,6 +129,14 @@ public class OAuthClientManager implements OAuthClient {
 		return _service.getServiceBaseUrl();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public OAuthClientSettings getSettings() {
+		return _service.getSettings();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -95,7 +145,107 @@ public class OAuthClientManager implements OAuthClient {
 		return _service.getTokenEndpoint();
 	}
 
-	private OAuthClient _service;
+	/**
+	 * Applies a configuration change without unregistering the service. A new
+	 * settings snapshot and client implementation are built and swapped in
+	 * atomically, so requests keep being served throughout the change. The
+	 * cached access token is carried over unless the credentials or the token
+	 * endpoint changed, in which case the {@link TokenRefreshScheduler}
+	 * fetches a new token in the background. The pools, caches and routes
+	 * built from the previous settings are replaced on their next use.
+	 *
+	 * @param settings The new {@link OAuthClientSettings} configuration for
+	 *                 this client instance.
+	 */
+	@Modified
+	public void modified(OAuthClientSettings settings) {
+		OAuthClient previousService = _service;
+
+		OAuthClientSettings previousSettings = previousService.getSettings();
+
+		OAuthClient service = new OAuthClientDefaultServiceImpl(
+			new OAuthClientSettingsProxy(settings), _tokenService,
+			_clientMetrics);
+
+		if (_isTokenReusable(previousSettings, service.getSettings())) {
+			AccessTokenCache accessTokenCache = service.getAccessTokenCache();
+
+			accessTokenCache.copyFrom(previousService.getAccessTokenCache());
+		}
+
+		_service = service;
+
+		if (!Objects.equals(
+				previousSettings.clientName(), settings.clientName())) {
+
+			_unregisterMBean();
+			_registerMBean(settings.clientName());
+		}
+	}
+
+	private boolean _isTokenReusable(
+		OAuthClientSettings previousSettings, OAuthClientSettings settings) {
+
+		if (Objects.equals(previousSettings.audience(), settings.audience()) &&
+			Objects.equals(previousSettings.clientId(), settings.clientId()) &&
+			Objects.equals(
+				previousSettings.clientSecret(), settings.clientSecret()) &&
+			Objects.equals(previousSettings.scope(), settings.scope()) &&
+			Objects.equals(
+				previousSettings.tokenEndpoint(), settings.tokenEndpoint())) {
+
+			return true;
+		}
+
+		return false;
+	}
+
+	private void _registerMBean(String clientName) {
+		try {
+			ObjectName objectName = new ObjectName(
+				"io.github.marceltanuri.security.oauth:type=ClientMetrics," +
+					"name=" + ObjectName.quote(clientName));
+
+			ManagementFactory.getPlatformMBeanServer(
+			).registerMBean(
+				_clientMetrics, objectName
+			);
+
+			_objectName = objectName;
+		}
+		catch (JMException jmException) {
+			_log.error(
+				"Unable to register the metrics MBean of client " + clientName,
+				jmException);
+		}
+	}
+
+	private void _unregisterMBean() {
+		if (_objectName == null) {
+			return;
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer(
+			).unregisterMBean(
+				_objectName
+			);
+		}
+		catch (JMException jmException) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(jmException);
+			}
+		}
+
+		_objectName = null;
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		OAuthClientManager.class);
+
+	private final ClientMetrics _clientMetrics = new ClientMetrics();
+	private ObjectName _objectName;
+	private volatile OAuthClient _service;
 
 	@Reference
 	private TokenService _tokenService;
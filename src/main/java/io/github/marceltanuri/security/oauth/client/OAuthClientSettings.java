@@ -70,4 +70,421 @@ public @interface OAuthClientSettings {
 	)
 	String serviceBaseUrl() default "";
 
-}
\ No newline at end of file
+	/**
+	 * Whether connections to the service are kept alive and reused across
+	 * proxied requests. Only the jaxrs proxy engine honors it, by sending
+	 * Connection: close when disabled. The Java HTTP client of the http2
+	 * engine does not allow that header and always keeps connections alive.
+	 */
+	@AttributeDefinition(
+		description = "Whether connections to the service are kept alive and reused across proxied requests. Only the jaxrs proxy engine honors it, by sending Connection: close when disabled. The Java HTTP client of the http2 engine does not allow that header and always keeps connections alive.",
+		name = "Connection Keep-Alive"
+	)
+	boolean connectionKeepAlive() default true;
+
+	/**
+	 * The maximum number of proxied requests to the service in flight at the
+	 * same time. Further requests wait for one of them to complete, for up to
+	 * the request queue timeout. It bounds concurrency, not the number of
+	 * open connections, which the HTTP client of each engine manages. It
+	 * does not apply to the http2 engine over https, since HTTP/2 multiplexes
+	 * the requests over a single connection.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of proxied requests to the service in flight at the same time. Further requests wait for one of them to complete, for up to the request queue timeout. It bounds concurrency, not the number of open connections, which the HTTP client of each engine manages. It does not apply to the http2 engine over https, since HTTP/2 multiplexes the requests over a single connection.",
+		name = "Max Concurrent Requests"
+	)
+	int maxConcurrentRequests() default 50;
+
+	/**
+	 * The time, in milliseconds, after which the unused HTTP client of the
+	 * http2 proxy engine is dropped together with its connections. It does not
+	 * apply to the jaxrs engine, whose connections are pooled by the JDK for
+	 * the whole JVM and closed when idle regardless of this setting.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, after which the unused HTTP client of the http2 proxy engine is dropped together with its connections. It does not apply to the jaxrs engine, whose connections are pooled by the JDK for the whole JVM and closed when idle regardless of this setting.",
+		name = "HTTP/2 Idle Timeout"
+	)
+	long http2IdleTimeout() default 60000;
+
+	/**
+	 * The time, in milliseconds, a request waits while the maximum number of
+	 * concurrent requests is in flight before failing. It does not wait for a
+	 * connection, since connections are not limited per client.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, a request waits while the maximum number of concurrent requests is in flight before failing. It does not wait for a connection, since connections are not limited per client.",
+		name = "Request Queue Timeout"
+	)
+	long requestQueueTimeout() default 5000;
+
+	/**
+	 * Whether downstream response bodies are streamed to the caller as they
+	 * arrive instead of being buffered in memory first.
+	 */
+	@AttributeDefinition(
+		description = "Whether downstream response bodies are streamed to the caller as they arrive instead of being buffered in memory first.",
+		name = "Stream Responses"
+	)
+	boolean streamResponses() default true;
+
+	/**
+	 * Whether proxied requests are executed asynchronously on a worker thread,
+	 * releasing the container thread during the downstream round trip.
+	 */
+	@AttributeDefinition(
+		description = "Whether proxied requests are executed asynchronously on a worker thread, releasing the container thread during the downstream round trip.",
+		name = "Async Execution"
+	)
+	boolean asyncExecution() default false;
+
+	/**
+	 * The time, in milliseconds, after which an asynchronous proxy request is
+	 * aborted with a 504.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, after which an asynchronous proxy request is aborted with a 504.",
+		name = "Async Timeout"
+	)
+	long asyncTimeout() default 30000;
+
+	/**
+	 * The engine used to send proxied requests: jaxrs for the JAX-RS client
+	 * over HTTP/1.1, or http2 for the Java HTTP client negotiating HTTP/2 with
+	 * fallback to HTTP/1.1.
+	 */
+	@AttributeDefinition(
+		description = "The engine used to send proxied requests: jaxrs for the JAX-RS client over HTTP/1.1, or http2 for the Java HTTP client negotiating HTTP/2 with fallback to HTTP/1.1.",
+		name = "Proxy Engine"
+	)
+	String proxyEngine() default "jaxrs";
+
+	/**
+	 * The lifetime, in seconds, assumed for access tokens whose expiry cannot
+	 * be read from a JWT exp claim.
+	 */
+	@AttributeDefinition(
+		description = "The lifetime, in seconds, assumed for access tokens whose expiry cannot be read from a JWT exp claim.",
+		name = "Token Default Lifetime"
+	)
+	long tokenDefaultLifetime() default 300;
+
+	/**
+	 * The fraction of the lifetime of a cached access token after which it is
+	 * refreshed in the background.
+	 */
+	@AttributeDefinition(
+		description = "The fraction of the lifetime of a cached access token after which it is refreshed in the background.",
+		name = "Token Refresh Threshold"
+	)
+	double tokenRefreshThreshold() default 0.75;
+
+	/**
+	 * The maximum time, in milliseconds, a request waits for an access token
+	 * being fetched by a concurrent request.
+	 */
+	@AttributeDefinition(
+		description = "The maximum time, in milliseconds, a request waits for an access token being fetched by a concurrent request.",
+		name = "Token Fetch Timeout"
+	)
+	long tokenFetchTimeout() default 10000;
+
+	/**
+	 * The number of consecutive failed token fetches after which the circuit to
+	 * the token endpoint is opened and requests fail fast with a 503.
+	 */
+	@AttributeDefinition(
+		description = "The number of consecutive failed token fetches after which the circuit to the token endpoint is opened and requests fail fast with a 503.",
+		name = "Token Failure Threshold"
+	)
+	int tokenFailureThreshold() default 5;
+
+	/**
+	 * The time, in milliseconds, the circuit to the token endpoint stays open
+	 * before a single probe fetch is allowed through.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, the circuit to the token endpoint stays open before a single probe fetch is allowed through.",
+		name = "Token Circuit Open Duration"
+	)
+	long tokenCircuitOpenDuration() default 30000;
+
+	/**
+	 * The time, in milliseconds, a failed token fetch is remembered, during
+	 * which requests fail fast instead of calling the token endpoint again.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, a failed token fetch is remembered, during which requests fail fast instead of calling the token endpoint again.",
+		name = "Token Failure Cache Duration"
+	)
+	long tokenFailureCacheDuration() default 1000;
+
+	/**
+	 * Whether GET responses the downstream service marks as cacheable through
+	 * Cache-Control or Expires are cached in memory and served without
+	 * contacting it while they are fresh.
+	 */
+	@AttributeDefinition(
+		description = "Whether GET responses the downstream service marks as cacheable through Cache-Control or Expires are cached in memory and served without contacting it while they are fresh.",
+		name = "Response Cache Enabled"
+	)
+	boolean responseCacheEnabled() default false;
+
+	/**
+	 * The maximum memory, in bytes, used by the cached responses of the client.
+	 */
+	@AttributeDefinition(
+		description = "The maximum memory, in bytes, used by the cached responses of the client.",
+		name = "Response Cache Max Size"
+	)
+	long responseCacheMaxSize() default 16777216;
+
+	/**
+	 * The maximum size, in bytes, of a response body that may be cached. Larger
+	 * responses are streamed to the caller without being cached.
+	 */
+	@AttributeDefinition(
+		description = "The maximum size, in bytes, of a response body that may be cached. Larger responses are streamed to the caller without being cached.",
+		name = "Response Cache Max Entry Size"
+	)
+	long responseCacheMaxEntrySize() default 1048576;
+
+	/**
+	 * Whether identical concurrent GET requests, with the same path and query
+	 * string, share a single downstream call and its response.
+	 */
+	@AttributeDefinition(
+		description = "Whether identical concurrent GET requests, with the same path and query string, share a single downstream call and its response.",
+		name = "Request Coalescing"
+	)
+	boolean requestCoalescing() default false;
+
+	/**
+	 * The maximum size, in bytes, of a response body shared by coalesced
+	 * requests. Requests waiting on a larger response call the downstream
+	 * service on their own.
+	 */
+	@AttributeDefinition(
+		description = "The maximum size, in bytes, of a response body shared by coalesced requests. Requests waiting on a larger response call the downstream service on their own.",
+		name = "Request Coalescing Max Size"
+	)
+	long requestCoalescingMaxSize() default 1048576;
+
+	/**
+	 * The path rules of the downstream service, one per entry, in the form
+	 * /prefix;rewrite=/target;timeout=5000;cache=true;retries=2. Requests are
+	 * matched against the longest prefix, segment by segment, and every policy
+	 * is optional. The rewrite replaces the matched prefix, the timeout is the
+	 * time in milliseconds the service is given to respond, cache overrides
+	 * Response Cache Enabled, and retries is the number of times a failed GET,
+	 * PUT or DELETE request without a body is retried.
+	 */
+	@AttributeDefinition(
+		description = "The path rules of the downstream service, one per entry, in the form /prefix;rewrite=/target;timeout=5000;cache=true;retries=2. Requests are matched against the longest prefix, segment by segment, and every policy is optional. The rewrite replaces the matched prefix, the timeout is the time in milliseconds the service is given to respond, cache overrides Response Cache Enabled, and retries is the number of times a failed GET, PUT or DELETE request without a body is retried.",
+		name = "Routes"
+	)
+	String[] routes() default {};
+
+	/**
+	 * Whether the caller's Accept-Encoding header is forwarded to the
+	 * downstream service and compressed responses are relayed unchanged, with
+	 * their Content-Encoding header and a Vary header on Accept-Encoding.
+	 * Otherwise, the downstream service is not told which encodings the caller
+	 * accepts.
+	 */
+	@AttributeDefinition(
+		description = "Whether the caller's Accept-Encoding header is forwarded to the downstream service and compressed responses are relayed unchanged, with their Content-Encoding header and a Vary header on Accept-Encoding. Otherwise, the downstream service is not told which encodings the caller accepts.",
+		name = "Compression Passthrough"
+	)
+	boolean compressionPassthrough() default false;
+
+	/**
+	 * Whether uncompressed responses are compressed with gzip for callers that
+	 * accept it, when their content type is listed in Compression Content Types
+	 * and their size is at least Compression Min Size. Responses of unknown
+	 * size are always compressed.
+	 */
+	@AttributeDefinition(
+		description = "Whether uncompressed responses are compressed with gzip for callers that accept it, when their content type is listed in Compression Content Types and their size is at least Compression Min Size. Responses of unknown size are always compressed.",
+		name = "Compression Enabled"
+	)
+	boolean compressionEnabled() default false;
+
+	/**
+	 * The media types of the responses that are compressed, one per entry. An
+	 * entry ending with /* matches every subtype of its type.
+	 */
+	@AttributeDefinition(
+		description = "The media types of the responses that are compressed, one per entry. An entry ending with /* matches every subtype of its type.",
+		name = "Compression Content Types"
+	)
+	String[] compressionContentTypes() default {
+		"application/javascript", "application/json",
+		"application/problem+json", "application/xml", "image/svg+xml",
+		"text/*"
+	};
+
+	/**
+	 * The gzip compression level, from 1 (fastest) to 9 (smallest).
+	 */
+	@AttributeDefinition(
+		description = "The gzip compression level, from 1 (fastest) to 9 (smallest).",
+		name = "Compression Level"
+	)
+	int compressionLevel() default 6;
+
+	/**
+	 * The minimum size, in bytes, of a response body that is compressed.
+	 */
+	@AttributeDefinition(
+		description = "The minimum size, in bytes, of a response body that is compressed.",
+		name = "Compression Min Size"
+	)
+	int compressionMinSize() default 1024;
+
+	/**
+	 * Whether proxied responses carry a Server-Timing header with the time
+	 * spent getting the access token, waiting for a free request slot, waiting
+	 * for the downstream response headers and reading a buffered body, and the
+	 * total time spent in the BFF. The header discloses timing details to the
+	 * caller, so it is disabled by default.
+	 */
+	@AttributeDefinition(
+		description = "Whether proxied responses carry a Server-Timing header with the time spent getting the access token, waiting for a free request slot, waiting for the downstream response headers and reading a buffered body, and the total time spent in the BFF. The header discloses timing details to the caller, so it is disabled by default.",
+		name = "Server Timing Enabled"
+	)
+	boolean serverTimingEnabled() default false;
+
+	/**
+	 * The fraction of proxied responses, between 0 and 1, that carry a Server-
+	 * Timing header when it is enabled.
+	 */
+	@AttributeDefinition(
+		description = "The fraction of proxied responses, between 0 and 1, that carry a Server-Timing header when it is enabled.",
+		name = "Server Timing Sample Rate"
+	)
+	double serverTimingSampleRate() default 1.0;
+
+	/**
+	 * The origins, such as https://app.example.com, allowed to call the proxy
+	 * of this client from a browser, one per entry, or * for any origin.
+	 * Preflight requests are answered by the BFF without a token lookup or a
+	 * downstream call. CORS is disabled when no origin is configured.
+	 */
+	@AttributeDefinition(
+		description = "The origins, such as https://app.example.com, allowed to call the proxy of this client from a browser, one per entry, or * for any origin. Preflight requests are answered by the BFF without a token lookup or a downstream call. CORS is disabled when no origin is configured.",
+		name = "CORS Allowed Origins"
+	)
+	String[] corsAllowedOrigins() default {};
+
+	/**
+	 * The HTTP methods allowed in cross-origin requests, one per entry.
+	 */
+	@AttributeDefinition(
+		description = "The HTTP methods allowed in cross-origin requests, one per entry.",
+		name = "CORS Allowed Methods"
+	)
+	String[] corsAllowedMethods() default {
+		"DELETE", "GET", "HEAD", "PATCH", "POST", "PUT"
+	};
+
+	/**
+	 * The request headers allowed in cross-origin requests, one per entry, or *
+	 * for any header.
+	 */
+	@AttributeDefinition(
+		description = "The request headers allowed in cross-origin requests, one per entry, or * for any header.",
+		name = "CORS Allowed Headers"
+	)
+	String[] corsAllowedHeaders() default {
+		"Accept", "Accept-Language", "Content-Language", "Content-Type",
+		"If-Match", "If-Modified-Since", "If-None-Match", "If-Unmodified-Since",
+		"X-CSRF-Token"
+	};
+
+	/**
+	 * The response headers, besides the CORS-safelisted ones, that scripts of
+	 * an allowed origin can read, one per entry.
+	 */
+	@AttributeDefinition(
+		description = "The response headers, besides the CORS-safelisted ones, that scripts of an allowed origin can read, one per entry.",
+		name = "CORS Exposed Headers"
+	)
+	String[] corsExposedHeaders() default {};
+
+	/**
+	 * Whether cross-origin requests may carry cookies, such as the session
+	 * cookie of the portal. Only listed origins are allowed credentials, never
+	 * origins matched by the * wildcard.
+	 */
+	@AttributeDefinition(
+		description = "Whether cross-origin requests may carry cookies, such as the session cookie of the portal. Only listed origins are allowed credentials, never origins matched by the * wildcard.",
+		name = "CORS Allow Credentials"
+	)
+	boolean corsAllowCredentials() default false;
+
+	/**
+	 * The time, in seconds, browsers may cache the answer to a preflight
+	 * request. Browsers cap it, at 2 hours for Chromium and 24 hours for
+	 * Firefox.
+	 */
+	@AttributeDefinition(
+		description = "The time, in seconds, browsers may cache the answer to a preflight request. Browsers cap it, at 2 hours for Chromium and 24 hours for Firefox.",
+		name = "CORS Max Age"
+	)
+	int corsMaxAge() default 86400;
+
+	/**
+	 * The maximum number of sub-requests accepted in a single batch request.
+	 * Larger batches are rejected with a 400.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of sub-requests accepted in a single batch request. Larger batches are rejected with a 400.",
+		name = "Batch Max Requests"
+	)
+	int batchMaxRequests() default 50;
+
+	/**
+	 * The maximum size, in bytes, of the body of a batch request. Larger
+	 * batches are rejected with a 413 without being read further.
+	 */
+	@AttributeDefinition(
+		description = "The maximum size, in bytes, of the body of a batch request. Larger batches are rejected with a 413 without being read further.",
+		name = "Batch Max Request Size"
+	)
+	long batchMaxRequestSize() default 1048576;
+
+	/**
+	 * The maximum number of sub-requests of a batch request executed at the
+	 * same time.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of sub-requests of a batch request executed at the same time.",
+		name = "Batch Max Concurrency"
+	)
+	int batchMaxConcurrency() default 8;
+
+	/**
+	 * The maximum size, in bytes, of the response body of a sub-request of a
+	 * batch or composition request. Larger bodies are not read, and the
+	 * sub-request gets a 502 result instead.
+	 */
+	@AttributeDefinition(
+		description = "The maximum size, in bytes, of the response body of a sub-request of a batch or composition request. Larger bodies are not read, and the sub-request gets a 502 result instead.",
+		name = "Batch Max Response Size"
+	)
+	long batchMaxResponseSize() default 1048576;
+
+	/**
+	 * The time, in milliseconds, to wait for a new connection to the service to
+	 * be established before failing the request. 0 waits for as long as the
+	 * operating system allows.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, to wait for a new connection to the service to be established before failing the request. 0 waits for as long as the operating system allows.",
+		name = "Connect Timeout"
+	)
+	long connectTimeout() default 5000;
+
+}
@@ -2,10 +2,90 @@ package io.github.marceltanuri.security.oauth.client;
 
 import java.lang.annotation.Annotation;
 
+/**
+ * An immutable snapshot of the {@link OAuthClientSettings} of a client
+ * configuration. Every setting is copied once, when the snapshot is created,
+ * resolving the environment variable overrides, so reading a setting on the
+ * request path costs a field access rather than a call into the Configuration
+ * Admin proxy. Array settings are copied on the way in and out, so the
+ * snapshot cannot be changed through them. A new snapshot is created whenever
+ * the configuration changes.
+ *
+ * @author Marcel Tanuri
+ */
 public class OAuthClientSettingsProxy implements OAuthClientSettings {
 
+	/**
+	 * Constructs a new {@code OAuthClientSettingsProxy}, copying every value
+	 * of the given settings and resolving their environment variable
+	 * overrides once.
+	 *
+	 * @param settings The {@link OAuthClientSettings} provided by the OSGi
+	 *                 Configuration Admin service.
+	 */
 	public OAuthClientSettingsProxy(OAuthClientSettings settings) {
-		_settings = settings;
+		_annotationType = settings.annotationType();
+		_asyncExecution = settings.asyncExecution();
+		_asyncTimeout = settings.asyncTimeout();
+		_batchMaxConcurrency = settings.batchMaxConcurrency();
+		_batchMaxRequests = settings.batchMaxRequests();
+		_batchMaxRequestSize = settings.batchMaxRequestSize();
+		_batchMaxResponseSize = settings.batchMaxResponseSize();
+		_clientName = settings.clientName();
+		_compressionContentTypes = settings.compressionContentTypes(
+		).clone();
+		_compressionEnabled = settings.compressionEnabled();
+		_compressionLevel = settings.compressionLevel();
+		_compressionMinSize = settings.compressionMinSize();
+		_compressionPassthrough = settings.compressionPassthrough();
+		_connectionKeepAlive = settings.connectionKeepAlive();
+		_connectTimeout = settings.connectTimeout();
+		_corsAllowCredentials = settings.corsAllowCredentials();
+		_corsAllowedHeaders = settings.corsAllowedHeaders(
+		).clone();
+		_corsAllowedMethods = settings.corsAllowedMethods(
+		).clone();
+		_corsAllowedOrigins = settings.corsAllowedOrigins(
+		).clone();
+		_corsExposedHeaders = settings.corsExposedHeaders(
+		).clone();
+		_corsMaxAge = settings.corsMaxAge();
+		_http2IdleTimeout = settings.http2IdleTimeout();
+		_maxConcurrentRequests = settings.maxConcurrentRequests();
+		_proxyEngine = settings.proxyEngine();
+		_requestCoalescing = settings.requestCoalescing();
+		_requestCoalescingMaxSize = settings.requestCoalescingMaxSize();
+		_requestQueueTimeout = settings.requestQueueTimeout();
+		_responseCacheEnabled = settings.responseCacheEnabled();
+		_responseCacheMaxEntrySize = settings.responseCacheMaxEntrySize();
+		_responseCacheMaxSize = settings.responseCacheMaxSize();
+		_routes = settings.routes(
+		).clone();
+		_serverTimingEnabled = settings.serverTimingEnabled();
+		_serverTimingSampleRate = settings.serverTimingSampleRate();
+		_streamResponses = settings.streamResponses();
+		_tokenCircuitOpenDuration = settings.tokenCircuitOpenDuration();
+		_tokenDefaultLifetime = settings.tokenDefaultLifetime();
+		_tokenFailureCacheDuration = settings.tokenFailureCacheDuration();
+		_tokenFailureThreshold = settings.tokenFailureThreshold();
+		_tokenFetchTimeout = settings.tokenFetchTimeout();
+		_tokenRefreshThreshold = settings.tokenRefreshThreshold();
+
+		String normalizedClientName = _normalizeForEnvVar(
+			settings.clientName());
+
+		_audience = _getEnvValue(
+			normalizedClientName, "AUDIENCE", settings.audience());
+		_clientId = _getEnvValue(
+			normalizedClientName, "CLIENT_ID", settings.clientId());
+		_clientSecret = _getEnvValue(
+			normalizedClientName, "CLIENT_SECRET", settings.clientSecret());
+		_scope = _getEnvValue(normalizedClientName, "SCOPE", settings.scope());
+		_serviceBaseUrl = _getEnvValue(
+			normalizedClientName, "SERVICE_BASE_URL",
+			settings.serviceBaseUrl());
+		_tokenEndpoint = _getEnvValue(
+			normalizedClientName, "TOKEN_ENDPOINT", settings.tokenEndpoint());
 	}
 
 	/**
@@ -13,7 +93,31 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public Class<? extends Annotation> annotationType() {
-		return _settings.annotationType();
+		return _annotationType;
+	}
+
+	/**
+	 * Returns the async execution flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if proxied requests are executed asynchronously.
+	 */
+	@Override
+	public boolean asyncExecution() {
+		return _asyncExecution;
+	}
+
+	/**
+	 * Returns the async timeout from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The async timeout, in milliseconds.
+	 */
+	@Override
+	public long asyncTimeout() {
+		return _asyncTimeout;
 	}
 
 	/**
@@ -24,17 +128,59 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String audience() {
-		String clientName = _settings.clientName();
+		return _audience;
+	}
 
-		String normalizedClientName = _normalizeForEnvVar(clientName);
+	/**
+	 * Returns the maximum number of sub-requests of a batch executed at the
+	 * same time from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The maximum number of concurrent sub-requests.
+	 */
+	@Override
+	public int batchMaxConcurrency() {
+		return _batchMaxConcurrency;
+	}
 
-		String envValue = _getEnvValue(normalizedClientName, "AUDIENCE");
+	/**
+	 * Returns the maximum number of sub-requests of a batch from the wrapped
+	 * settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The maximum number of sub-requests of a batch.
+	 */
+	@Override
+	public int batchMaxRequests() {
+		return _batchMaxRequests;
+	}
 
-		if (envValue != null) {
-			return envValue;
-		}
+	/**
+	 * Returns the maximum body size of a batch request from the wrapped
+	 * settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The maximum body size of a batch request, in bytes.
+	 */
+	@Override
+	public long batchMaxRequestSize() {
+		return _batchMaxRequestSize;
+	}
 
-		return _settings.audience();
+	/**
+	 * Returns the maximum response body size of a sub-request from the
+	 * wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The maximum response body size of a sub-request, in bytes.
+	 */
+	@Override
+	public long batchMaxResponseSize() {
+		return _batchMaxResponseSize;
 	}
 
 	/**
@@ -45,17 +191,7 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String clientId() {
-		String clientName = _settings.clientName();
-
-		String normalizedClientName = _normalizeForEnvVar(clientName);
-
-		String envValue = _getEnvValue(normalizedClientName, "CLIENT_ID");
-
-		if (envValue != null) {
-			return envValue;
-		}
-
-		return _settings.clientId();
+		return _clientId;
 	}
 
 	/**
@@ -67,7 +203,7 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String clientName() {
-		return _settings.clientName();
+		return _clientName;
 	}
 
 	/**
@@ -78,17 +214,286 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String clientSecret() {
-		String clientName = _settings.clientName();
+		return _clientSecret;
+	}
 
-		String normalizedClientName = _normalizeForEnvVar(clientName);
+	/**
+	 * Returns the compressed content types from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the media types of the compressed responses.
+	 */
+	@Override
+	public String[] compressionContentTypes() {
+		return _compressionContentTypes.clone();
+	}
 
-		String envValue = _getEnvValue(normalizedClientName, "CLIENT_SECRET");
+	/**
+	 * Returns the compression enabled flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if uncompressed responses are compressed.
+	 */
+	@Override
+	public boolean compressionEnabled() {
+		return _compressionEnabled;
+	}
 
-		if (envValue != null) {
-			return envValue;
-		}
+	/**
+	 * Returns the compression level from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The gzip compression level.
+	 */
+	@Override
+	public int compressionLevel() {
+		return _compressionLevel;
+	}
 
-		return _settings.clientSecret();
+	/**
+	 * Returns the compression minimum size from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The minimum compressed body size, in bytes.
+	 */
+	@Override
+	public int compressionMinSize() {
+		return _compressionMinSize;
+	}
+
+	/**
+	 * Returns the compression passthrough flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if compressed responses are relayed unchanged.
+	 */
+	@Override
+	public boolean compressionPassthrough() {
+		return _compressionPassthrough;
+	}
+
+	/**
+	 * Returns the connection keep-alive flag from the wrapped settings. Only
+	 * the {@code jaxrs} engine honors it.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if connections are kept alive.
+	 */
+	@Override
+	public boolean connectionKeepAlive() {
+		return _connectionKeepAlive;
+	}
+
+	/**
+	 * Returns the connect timeout from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The connect timeout, in milliseconds.
+	 */
+	@Override
+	public long connectTimeout() {
+		return _connectTimeout;
+	}
+
+	/**
+	 * Returns the CORS allowed origins from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the allowed origins.
+	 */
+	@Override
+	public String[] corsAllowedOrigins() {
+		return _corsAllowedOrigins.clone();
+	}
+
+	/**
+	 * Returns the CORS allowed methods from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the allowed methods.
+	 */
+	@Override
+	public String[] corsAllowedMethods() {
+		return _corsAllowedMethods.clone();
+	}
+
+	/**
+	 * Returns the CORS allowed headers from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the allowed request headers.
+	 */
+	@Override
+	public String[] corsAllowedHeaders() {
+		return _corsAllowedHeaders.clone();
+	}
+
+	/**
+	 * Returns the CORS exposed headers from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the exposed response headers.
+	 */
+	@Override
+	public String[] corsExposedHeaders() {
+		return _corsExposedHeaders.clone();
+	}
+
+	/**
+	 * Returns the CORS allow credentials flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if cross-origin requests may carry credentials.
+	 */
+	@Override
+	public boolean corsAllowCredentials() {
+		return _corsAllowCredentials;
+	}
+
+	/**
+	 * Returns the CORS preflight max age from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The preflight max age, in seconds.
+	 */
+	@Override
+	public int corsMaxAge() {
+		return _corsMaxAge;
+	}
+
+	/**
+	 * Returns the HTTP/2 idle timeout from the wrapped settings. Only the
+	 * {@code http2} engine honors it.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The HTTP/2 idle timeout, in milliseconds.
+	 */
+	@Override
+	public long http2IdleTimeout() {
+		return _http2IdleTimeout;
+	}
+
+	/**
+	 * Returns the maximum number of concurrent requests from the wrapped
+	 * settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The maximum number of concurrent requests.
+	 */
+	@Override
+	public int maxConcurrentRequests() {
+		return _maxConcurrentRequests;
+	}
+
+	/**
+	 * Returns the proxy engine from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The name of the proxy engine.
+	 */
+	@Override
+	public String proxyEngine() {
+		return _proxyEngine;
+	}
+
+	/**
+	 * Returns the request coalescing flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return Whether request coalescing is enabled.
+	 */
+	@Override
+	public boolean requestCoalescing() {
+		return _requestCoalescing;
+	}
+
+	/**
+	 * Returns the request coalescing max size from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The request coalescing max size, in bytes.
+	 */
+	@Override
+	public long requestCoalescingMaxSize() {
+		return _requestCoalescingMaxSize;
+	}
+
+	/**
+	 * Returns the request queue timeout from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The request queue timeout, in milliseconds.
+	 */
+	@Override
+	public long requestQueueTimeout() {
+		return _requestQueueTimeout;
+	}
+
+	/**
+	 * Returns the response cache enabled flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return Whether the response cache is enabled.
+	 */
+	@Override
+	public boolean responseCacheEnabled() {
+		return _responseCacheEnabled;
+	}
+
+	/**
+	 * Returns the response cache max entry size from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The response cache max entry size, in bytes.
+	 */
+	@Override
+	public long responseCacheMaxEntrySize() {
+		return _responseCacheMaxEntrySize;
+	}
+
+	/**
+	 * Returns the response cache max size from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The response cache max size, in bytes.
+	 */
+	@Override
+	public long responseCacheMaxSize() {
+		return _responseCacheMaxSize;
+	}
+
+	/**
+	 * Returns the routes from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return A copy of the route rules.
+	 */
+	@Override
+	public String[] routes() {
+		return _routes.clone();
 	}
 
 	/**
@@ -99,17 +504,31 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String scope() {
-		String clientName = _settings.clientName();
-
-		String normalizedClientName = _normalizeForEnvVar(clientName);
-
-		String envValue = _getEnvValue(normalizedClientName, "SCOPE");
+		return _scope;
+	}
 
-		if (envValue != null) {
-			return envValue;
-		}
+	/**
+	 * Returns the Server-Timing enabled flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if proxied responses carry a Server-Timing header.
+	 */
+	@Override
+	public boolean serverTimingEnabled() {
+		return _serverTimingEnabled;
+	}
 
-		return _settings.scope();
+	/**
+	 * Returns the Server-Timing sample rate from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The fraction of responses carrying a Server-Timing header.
+	 */
+	@Override
+	public double serverTimingSampleRate() {
+		return _serverTimingSampleRate;
 	}
 
 	/**
@@ -120,18 +539,43 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String serviceBaseUrl() {
-		String clientName = _settings.clientName();
-
-		String normalizedClientName = _normalizeForEnvVar(clientName);
+		return _serviceBaseUrl;
+	}
 
-		String envValue = _getEnvValue(
-			normalizedClientName, "SERVICE_BASE_URL");
+	/**
+	 * Returns the stream responses flag from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return {@code true} if response bodies are streamed.
+	 */
+	@Override
+	public boolean streamResponses() {
+		return _streamResponses;
+	}
 
-		if (envValue != null) {
-			return envValue;
-		}
+	/**
+	 * Returns the token circuit open duration from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The token circuit open duration, in milliseconds.
+	 */
+	@Override
+	public long tokenCircuitOpenDuration() {
+		return _tokenCircuitOpenDuration;
+	}
 
-		return _settings.serviceBaseUrl();
+	/**
+	 * Returns the default token lifetime from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The default token lifetime, in seconds.
+	 */
+	@Override
+	public long tokenDefaultLifetime() {
+		return _tokenDefaultLifetime;
 	}
 
 	/**
@@ -142,31 +586,60 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 	 */
 	@Override
 	public String tokenEndpoint() {
-		String clientName = _settings.clientName();
-
-		String normalizedClientName = _normalizeForEnvVar(clientName);
-
-		String envValue = _getEnvValue(normalizedClientName, "TOKEN_ENDPOINT");
+		return _tokenEndpoint;
+	}
 
-		if (envValue != null) {
-			return envValue;
-		}
+	/**
+	 * Returns the token failure cache duration from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The token failure cache duration, in milliseconds.
+	 */
+	@Override
+	public long tokenFailureCacheDuration() {
+		return _tokenFailureCacheDuration;
+	}
 
-		return _settings.tokenEndpoint();
+	/**
+	 * Returns the token failure threshold from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The token failure threshold.
+	 */
+	@Override
+	public int tokenFailureThreshold() {
+		return _tokenFailureThreshold;
 	}
 
-	private static String _normalizeForEnvVar(String name) {
-		if (name == null) {
-			return "";
-		}
+	/**
+	 * Returns the token fetch timeout from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The token fetch timeout, in milliseconds.
+	 */
+	@Override
+	public long tokenFetchTimeout() {
+		return _tokenFetchTimeout;
+	}
 
-		return name.toUpperCase(
-		).replaceAll(
-			"[^A-Z0-9_]+", "_"
-		);
+	/**
+	 * Returns the token refresh threshold from the wrapped settings.
+	 *
+	 * This setting cannot be overridden by an environment variable.
+	 *
+	 * @return The fraction of the token lifetime after which it is refreshed.
+	 */
+	@Override
+	public double tokenRefreshThreshold() {
+		return _tokenRefreshThreshold;
 	}
 
-	private String _getEnvValue(String normalizedClientName, String suffix) {
+	private static String _getEnvValue(
+		String normalizedClientName, String suffix, String defaultValue) {
+
 		for (String prefix : _ENV_VAR_PREFIXES) {
 			String envVarName =
 				prefix + "_" + normalizedClientName + "_" + suffix;
@@ -178,7 +651,18 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 			}
 		}
 
-		return null;
+		return defaultValue;
+	}
+
+	private static String _normalizeForEnvVar(String name) {
+		if (name == null) {
+			return "";
+		}
+
+		return name.toUpperCase(
+		).replaceAll(
+			"[^A-Z0-9_]+", "_"
+		);
 	}
 
 	private static final String[] _ENV_VAR_PREFIXES = {
@@ -186,9 +670,53 @@ public class OAuthClientSettingsProxy implements OAuthClientSettings {
 			OAuthClientSettings.class.getPackage(
 			).getName()),
 		"OAUTH2_CLIENTS"
-
 	};
 
-	private final OAuthClientSettings _settings;
+	private final Class<? extends Annotation> _annotationType;
+	private final boolean _asyncExecution;
+	private final long _asyncTimeout;
+	private final String _audience;
+	private final int _batchMaxConcurrency;
+	private final int _batchMaxRequests;
+	private final long _batchMaxRequestSize;
+	private final long _batchMaxResponseSize;
+	private final String _clientId;
+	private final String _clientName;
+	private final String _clientSecret;
+	private final String[] _compressionContentTypes;
+	private final boolean _compressionEnabled;
+	private final int _compressionLevel;
+	private final int _compressionMinSize;
+	private final boolean _compressionPassthrough;
+	private final boolean _connectionKeepAlive;
+	private final long _connectTimeout;
+	private final boolean _corsAllowCredentials;
+	private final String[] _corsAllowedHeaders;
+	private final String[] _corsAllowedMethods;
+	private final String[] _corsAllowedOrigins;
+	private final String[] _corsExposedHeaders;
+	private final int _corsMaxAge;
+	private final long _http2IdleTimeout;
+	private final int _maxConcurrentRequests;
+	private final String _proxyEngine;
+	private final boolean _requestCoalescing;
+	private final long _requestCoalescingMaxSize;
+	private final long _requestQueueTimeout;
+	private final boolean _responseCacheEnabled;
+	private final long _responseCacheMaxEntrySize;
+	private final long _responseCacheMaxSize;
+	private final String[] _routes;
+	private final String _scope;
+	private final boolean _serverTimingEnabled;
+	private final double _serverTimingSampleRate;
+	private final String _serviceBaseUrl;
+	private final boolean _streamResponses;
+	private final long _tokenCircuitOpenDuration;
+	private final long _tokenDefaultLifetime;
+	private final String _tokenEndpoint;
+	private final long _tokenFailureCacheDuration;
+	private final int _tokenFailureThreshold;
+	private final long _tokenFetchTimeout;
+	private final double _tokenRefreshThreshold;
 
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package io.github.marceltanuri.security.oauth.client;
+
+/**
+ * Unchecked exception thrown when an access token is not fetched because the
+ * token endpoint of the client is known to be failing. Callers are expected to
+ * fail fast, typically with a 503 (Service Unavailable) response, and retry
+ * later.
+ *
+ * @author Marcel Tanuri
+ */
+public class OAuthClientUnavailableException extends OAuthClientException {
+
+	/**
+	 * Constructs a new {@code OAuthClientUnavailableException} with the
+	 * specified detail message, cause and retry delay.
+	 *
+	 * @param message    The detail message.
+	 * @param cause      The last failure of the token endpoint.
+	 * @param retryAfter The time, in seconds, after which the token endpoint
+	 *                   may be called again.
+	 */
+	public OAuthClientUnavailableException(
+		String message, Throwable cause, long retryAfter) {
+
+		super(message, cause);
+
+		_retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the time after which the token endpoint may be called again.
+	 *
+	 * @return The retry delay, in seconds.
+	 */
+	public long getRetryAfter() {
+		return _retryAfter;
+	}
+
+	private final long _retryAfter;
+
+}
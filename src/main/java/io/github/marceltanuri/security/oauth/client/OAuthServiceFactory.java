@@ -1,5 +1,7 @@
 package io.github.marceltanuri.security.oauth.client;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -30,6 +32,15 @@ public class OAuthServiceFactory {
 		return _clients.get(clientName);
 	}
 
+	/**
+	 * Retrieves all registered {@link OAuthClient} services.
+	 *
+	 * @return An unmodifiable, live view of the registered OAuth clients.
+	 */
+	public Collection<OAuthClient> getOAuthClients() {
+		return Collections.unmodifiableCollection(_clients.values());
+	}
+
 	/**
 	 * A dynamic OSGi lifecycle method called when a new {@link OAuthClient}
 	 * service is registered. It adds the service to the internal map, using the
@@ -65,6 +76,30 @@ public class OAuthServiceFactory {
 		_clients.remove(clientName, service);
 	}
 
+	/**
+	 * A dynamic OSGi lifecycle method called when the registration properties
+	 * of an {@link OAuthClient} service change, such as when its configuration
+	 * is modified. The service stays available throughout the change, and is
+	 * moved to its new client name if it was renamed.
+	 *
+	 * @param service    The {@link OAuthClient} service being updated.
+	 * @param properties The service's new registration properties.
+	 */
+	protected void updatedOAuthService(
+		OAuthClient service, Map<String, Object> properties) {
+
+		String clientName = (String)properties.get("clientName");
+
+		_clients.put(clientName, service);
+
+		_clients.entrySet(
+		).removeIf(
+			entry ->
+				(entry.getValue() == service) &&
+				!clientName.equals(entry.getKey())
+		);
+	}
+
 	private final Map<String, OAuthClient> _clients = new ConcurrentHashMap<>();
 
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A circuit breaker guarding the token endpoint of a single
+ * {@link OAuthClient}. A failed token fetch is remembered for the configured
+ * failure cache duration, during which callers fail fast instead of calling
+ * the token endpoint again. Once the configured number of consecutive fetches
+ * has failed, the circuit opens and stays open for the configured open
+ * duration. After that, a single probe fetch is let through: the circuit
+ * closes if it succeeds and opens again if it fails.
+ *
+ * <p>
+ * Failures are logged at most once per minute, together with the number of
+ * failures suppressed in between, so that an identity provider outage does
+ * not flood the log.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class TokenCircuitBreaker {
+
+	/**
+	 * Constructs a new {@code TokenCircuitBreaker}.
+	 *
+	 * @param settings The {@link OAuthClientSettings} of the client, providing
+	 *                 the failure threshold, the open duration and the failure
+	 *                 cache duration.
+	 */
+	public TokenCircuitBreaker(OAuthClientSettings settings) {
+		_clientName = settings.clientName();
+
+		_failureCacheDurationNanos = TimeUnit.MILLISECONDS.toNanos(
+			Math.max(0, settings.tokenFailureCacheDuration()));
+		_failureThreshold = Math.max(1, settings.tokenFailureThreshold());
+		_openDurationNanos = TimeUnit.MILLISECONDS.toNanos(
+			Math.max(0, settings.tokenCircuitOpenDuration()));
+
+		_lastLogTime = System.nanoTime() - _LOG_INTERVAL_NANOS;
+	}
+
+	/**
+	 * Fetches an access token through the given supplier, unless the circuit
+	 * is open or a recent failure is still cached.
+	 *
+	 * @param  accessTokenSupplier The supplier fetching the access token from
+	 *                             the identity provider.
+	 * @return The access token.
+	 * @throws OAuthClientUnavailableException if the token endpoint is not
+	 *                                         called because it is failing.
+	 * @throws RuntimeException                if the supplier fails.
+	 */
+	public String execute(Supplier<String> accessTokenSupplier) {
+		_acquirePermission();
+
+		String accessToken;
+
+		try {
+			accessToken = accessTokenSupplier.get();
+		}
+		catch (Error | RuntimeException throwable) {
+			_onFailure(throwable);
+
+			throw throwable;
+		}
+
+		_onSuccess();
+
+		return accessToken;
+	}
+
+	/**
+	 * Returns the number of consecutive failed token fetches.
+	 *
+	 * @return The consecutive failure count.
+	 */
+	public synchronized int getConsecutiveFailureCount() {
+		return _consecutiveFailureCount;
+	}
+
+	/**
+	 * Returns the current state of the circuit.
+	 *
+	 * @return The state.
+	 */
+	public synchronized State getState() {
+		return _state;
+	}
+
+	/**
+	 * The states of the circuit.
+	 */
+	public enum State {
+
+		CLOSED, HALF_OPEN, OPEN
+
+	}
+
+	private synchronized void _acquirePermission() {
+		long now = System.nanoTime();
+
+		if (_state == State.CLOSED) {
+			if ((_lastFailure != null) &&
+				((now - _failureCacheExpirationTime) < 0)) {
+
+				throw _newOAuthClientUnavailableException(
+					"The last access token fetch of client " + _clientName +
+						" failed",
+					_failureCacheExpirationTime - now);
+			}
+
+			return;
+		}
+
+		if ((_state == State.OPEN) && ((now - _openExpirationTime) >= 0)) {
+			_state = State.HALF_OPEN;
+
+			return;
+		}
+
+		throw _newOAuthClientUnavailableException(
+			"The token endpoint of client " + _clientName + " is unavailable",
+			Math.max(_openExpirationTime - now, 0));
+	}
+
+	private OAuthClientUnavailableException _newOAuthClientUnavailableException(
+		String message, long retryAfterNanos) {
+
+		return new OAuthClientUnavailableException(
+			message, _lastFailure,
+			Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + 1));
+	}
+
+	private synchronized void _onFailure(Throwable throwable) {
+		long now = System.nanoTime();
+
+		_consecutiveFailureCount++;
+		_failureCacheExpirationTime = now + _failureCacheDurationNanos;
+		_lastFailure = throwable;
+
+		if ((_state == State.HALF_OPEN) ||
+			(_consecutiveFailureCount >= _failureThreshold)) {
+
+			_openExpirationTime = now + _openDurationNanos;
+			_state = State.OPEN;
+		}
+
+		if ((now - _lastLogTime) < _LOG_INTERVAL_NANOS) {
+			_suppressedFailureCount++;
+
+			return;
+		}
+
+		_log.error(
+			String.format(
+				"Unable to fetch the access token of client %s (%d " +
+					"consecutive failures, %d failures not logged, circuit " +
+						"%s)",
+				_clientName, _consecutiveFailureCount, _suppressedFailureCount,
+				_state),
+			throwable);
+
+		_lastLogTime = now;
+		_suppressedFailureCount = 0;
+	}
+
+	private synchronized void _onSuccess() {
+		if ((_state != State.CLOSED) && _log.isInfoEnabled()) {
+			_log.info(
+				"The token endpoint of client " + _clientName +
+					" is available again");
+		}
+
+		_consecutiveFailureCount = 0;
+		_lastFailure = null;
+		_state = State.CLOSED;
+		_suppressedFailureCount = 0;
+	}
+
+	private static final long _LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(
+		1);
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		TokenCircuitBreaker.class);
+
+	private final String _clientName;
+	private int _consecutiveFailureCount;
+	private final long _failureCacheDurationNanos;
+	private long _failureCacheExpirationTime;
+	private final int _failureThreshold;
+	private Throwable _lastFailure;
+	private long _lastLogTime;
+	private final long _openDurationNanos;
+	private long _openExpirationTime;
+	private State _state = State.CLOSED;
+	private long _suppressedFailureCount;
+
+}
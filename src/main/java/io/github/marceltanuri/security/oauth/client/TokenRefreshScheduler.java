@@ -0,0 +1,240 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.Designate;
+
+/**
+ * An OSGi component that keeps the access token of every {@link OAuthClient}
+ * registered in the {@link OAuthServiceFactory} fresh in the background, so
+ * that token fetching stays off the request path. Tokens are fetched as soon
+ * as a client is registered and refreshed ahead of their due time by a random
+ * jitter, spreading the load on the identity provider across clients and
+ * cluster nodes. Refreshes run on a bounded worker pool, and a client stops
+ * being tracked once it is unregistered.
+ *
+ * @author Marcel Tanuri
+ */
+@Component(
+	configurationPid = "io.github.marceltanuri.security.oauth.client.TokenRefreshSchedulerConfiguration",
+	immediate = true, service = TokenRefreshScheduler.class
+)
+@Designate(ocd = TokenRefreshSchedulerConfiguration.class)
+public class TokenRefreshScheduler {
+
+	/**
+	 * Activates the component, starting the periodic check of the registered
+	 * clients and the worker pool running the refreshes.
+	 *
+	 * @param configuration The {@link TokenRefreshSchedulerConfiguration} of
+	 *                      the scheduler.
+	 */
+	@Activate
+	protected void activate(TokenRefreshSchedulerConfiguration configuration) {
+		if (!configuration.enabled()) {
+			return;
+		}
+
+		_jitterNanos = TimeUnit.MILLISECONDS.toNanos(
+			Math.max(0, configuration.jitter()));
+		_retryDelayNanos = TimeUnit.MILLISECONDS.toNanos(
+			Math.max(0, configuration.retryDelay()));
+
+		int workerThreads = Math.max(1, configuration.workerThreads());
+
+		AtomicInteger counter = new AtomicInteger();
+
+		_threadPoolExecutor = new ThreadPoolExecutor(
+			workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(),
+			runnable -> {
+				Thread thread = new Thread(
+					runnable,
+					"oauth-token-refresh-worker-" + counter.incrementAndGet());
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		_threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+		_scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(
+			runnable -> {
+				Thread thread = new Thread(
+					runnable, "oauth-token-refresh-scheduler");
+
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+		long checkInterval = Math.max(1, configuration.checkInterval());
+
+		_scheduledExecutorService.scheduleWithFixedDelay(
+			this::_check, 0, checkInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Deactivates the component, stopping the periodic check and the worker
+	 * pool.
+	 */
+	@Deactivate
+	protected void deactivate() {
+		if (_scheduledExecutorService != null) {
+			_scheduledExecutorService.shutdownNow();
+		}
+
+		if (_threadPoolExecutor != null) {
+			_threadPoolExecutor.shutdownNow();
+		}
+
+		_scheduledRefreshes.clear();
+	}
+
+	/**
+	 * Returns the random time a refresh is moved ahead of its due time. It is
+	 * bounded by the configured jitter and by half of the refresh delay, so
+	 * that short-lived tokens are not refreshed right after being fetched.
+	 *
+	 * @param refreshDelay The time, in nanoseconds, until the refresh is due.
+	 * @return The jitter, in nanoseconds.
+	 */
+	long getJitter(long refreshDelay) {
+		long bound = Math.min(_jitterNanos, refreshDelay / 2);
+
+		if (bound <= 0) {
+			return 0;
+		}
+
+		return ThreadLocalRandom.current(
+		).nextLong(
+			bound
+		);
+	}
+
+	private void _check() {
+		try {
+			Collection<OAuthClient> oAuthClients =
+				_oAuthServiceFactory.getOAuthClients();
+
+			_scheduledRefreshes.keySet(
+			).removeIf(
+				oAuthClient -> !oAuthClients.contains(oAuthClient)
+			);
+
+			long now = System.nanoTime();
+
+			for (OAuthClient oAuthClient : oAuthClients) {
+				ScheduledRefresh scheduledRefresh =
+					_scheduledRefreshes.computeIfAbsent(
+						oAuthClient, ScheduledRefresh::new);
+
+				scheduledRefresh.check(now);
+			}
+		}
+		catch (RuntimeException runtimeException) {
+			_log.error("Unable to check access tokens", runtimeException);
+		}
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		TokenRefreshScheduler.class);
+
+	private volatile long _jitterNanos;
+
+	@Reference
+	private OAuthServiceFactory _oAuthServiceFactory;
+
+	private volatile long _retryDelayNanos;
+	private ScheduledExecutorService _scheduledExecutorService;
+	private final Map<OAuthClient, ScheduledRefresh> _scheduledRefreshes =
+		new ConcurrentHashMap<>();
+	private ThreadPoolExecutor _threadPoolExecutor;
+
+	/**
+	 * The refresh schedule of a single client. The due time is recomputed
+	 * whenever the client's cache holds a newly fetched token.
+	 */
+	private class ScheduledRefresh {
+
+		public void check(long now) {
+			if (_running.get()) {
+				return;
+			}
+
+			AccessTokenCache accessTokenCache =
+				_oAuthClient.getAccessTokenCache();
+
+			long fetchCount = accessTokenCache.getFetchCount();
+
+			if (fetchCount != _fetchCount) {
+				long refreshDelay = accessTokenCache.getRefreshDelay();
+
+				_fetchCount = fetchCount;
+				_refreshTime = now + refreshDelay - getJitter(refreshDelay);
+			}
+
+			if ((now - _refreshTime) < 0) {
+				return;
+			}
+
+			_running.set(true);
+
+			try {
+				_threadPoolExecutor.execute(
+					() -> {
+						try {
+							accessTokenCache.refresh();
+						}
+						catch (RuntimeException runtimeException) {
+							_refreshTime = System.nanoTime() + _retryDelayNanos;
+
+							if (_log.isDebugEnabled()) {
+								_log.debug(
+									"Unable to refresh the access token of " +
+										"client " +
+											_oAuthClient.getClientName(),
+									runtimeException);
+							}
+						}
+						finally {
+							_running.set(false);
+						}
+					});
+			}
+			catch (RejectedExecutionException rejectedExecutionException) {
+				_running.set(false);
+			}
+		}
+
+		private ScheduledRefresh(OAuthClient oAuthClient) {
+			_oAuthClient = oAuthClient;
+		}
+
+		private volatile long _fetchCount = -1;
+		private final OAuthClient _oAuthClient;
+		private volatile long _refreshTime;
+		private final AtomicBoolean _running = new AtomicBoolean();
+
+	}
+
+}
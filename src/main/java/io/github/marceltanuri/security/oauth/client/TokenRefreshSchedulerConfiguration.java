@@ -0,0 +1,66 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Settings of the {@link TokenRefreshScheduler}, shared by every configured
+ * OAuth client.
+ *
+ * @author Marcel Tanuri
+ */
+@ObjectClassDefinition(
+	id = "io.github.marceltanuri.security.oauth.client.TokenRefreshSchedulerConfiguration",
+	name = "OAuth Token Refresh Scheduler Settings"
+)
+public @interface TokenRefreshSchedulerConfiguration {
+
+	/**
+	 * Whether access tokens are fetched and refreshed in the background.
+	 */
+	@AttributeDefinition(
+		description = "Whether access tokens are fetched and refreshed in the background.",
+		name = "Enabled"
+	)
+	boolean enabled() default true;
+
+	/**
+	 * The interval, in milliseconds, at which registered clients are checked
+	 * for a due refresh.
+	 */
+	@AttributeDefinition(
+		description = "The interval, in milliseconds, at which registered clients are checked for a due refresh.",
+		name = "Check Interval"
+	)
+	long checkInterval() default 1000;
+
+	/**
+	 * The maximum time, in milliseconds, a refresh is moved ahead of its due
+	 * time at random, so that clients and cluster nodes do not refresh at
+	 * once.
+	 */
+	@AttributeDefinition(
+		description = "The maximum time, in milliseconds, a refresh is moved ahead of its due time at random, so that clients and cluster nodes do not refresh at once.",
+		name = "Jitter"
+	)
+	long jitter() default 30000;
+
+	/**
+	 * The time, in milliseconds, to wait before retrying a failed refresh.
+	 */
+	@AttributeDefinition(
+		description = "The time, in milliseconds, to wait before retrying a failed refresh.",
+		name = "Retry Delay"
+	)
+	long retryDelay() default 5000;
+
+	/**
+	 * The maximum number of threads refreshing tokens concurrently.
+	 */
+	@AttributeDefinition(
+		description = "The maximum number of threads refreshing tokens concurrently.",
+		name = "Worker Threads"
+	)
+	int workerThreads() default 4;
+
+}
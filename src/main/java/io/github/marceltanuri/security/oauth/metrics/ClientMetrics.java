@@ -0,0 +1,217 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The latency and throughput metrics of a single OAuth client: the time spent
+ * acquiring access tokens, the round trip time of the calls to the downstream
+ * service, and the total time of the proxied requests. Downstream and total
+ * latencies are kept in a separate {@link LatencyHistogram} for each class of
+ * response status. Recording never locks or allocates.
+ *
+ * <p>
+ * The metrics survive configuration changes of the client and are exposed
+ * through JMX under {@code io.github.marceltanuri.security.oauth:
+ * type=ClientMetrics,name=<clientName>}.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class ClientMetrics implements ClientMetricsMXBean {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getCoalescedRequestCount() {
+		return _coalescedRequestCount.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRequestCount() {
+		return _requestCount.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencySummary> getRequestLatencies() {
+		return _getSummaries(_requestLatencyHistograms);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ResponseCacheSummary getResponseCache() {
+		Supplier<ResponseCacheSummary> responseCacheSummarySupplier =
+			_responseCacheSummarySupplier;
+
+		if (responseCacheSummarySupplier == null) {
+			return null;
+		}
+
+		return responseCacheSummarySupplier.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTokenFailureCount() {
+		return _tokenFailureCount.sum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public LatencySummary getTokenLatency() {
+		return _tokenLatencyHistogram.getSummary();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, LatencySummary> getUpstreamLatencies() {
+		return _getSummaries(_upstreamLatencyHistograms);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getVirtualThreadRequestCount() {
+		return _virtualThreadRequestCount.sum();
+	}
+
+	/**
+	 * Records a GET request that shared the downstream call of an identical
+	 * concurrent request instead of calling the downstream service itself.
+	 */
+	public void recordCoalescedRequest() {
+		_coalescedRequestCount.increment();
+	}
+
+	/**
+	 * Records the total time of a proxied request.
+	 *
+	 * @param nanos  The time, in nanoseconds, from the arrival of the request
+	 *               until its response was ready to be sent.
+	 * @param status The status of the response.
+	 */
+	public void recordRequest(long nanos, int status) {
+		_requestCount.increment();
+
+		_requestLatencyHistograms[_getStatusClass(status)].record(nanos);
+	}
+
+	/**
+	 * Records the acquisition of an access token.
+	 *
+	 * @param nanos   The time, in nanoseconds, spent acquiring the token.
+	 * @param success Whether a token was acquired.
+	 */
+	public void recordTokenAcquisition(long nanos, boolean success) {
+		if (!success) {
+			_tokenFailureCount.increment();
+		}
+
+		_tokenLatencyHistogram.record(nanos);
+	}
+
+	/**
+	 * Records a call to the downstream service.
+	 *
+	 * @param nanos  The round trip time, in nanoseconds, until the response
+	 *               headers were received.
+	 * @param status The status of the response, or {@code 0} if the call
+	 *               failed without a response.
+	 */
+	public void recordUpstream(long nanos, int status) {
+		_upstreamLatencyHistograms[_getStatusClass(status)].record(nanos);
+	}
+
+	/**
+	 * Records a proxied request executed on a virtual thread.
+	 */
+	public void recordVirtualThreadRequest() {
+		_virtualThreadRequestCount.increment();
+	}
+
+	/**
+	 * Sets the supplier of the statistics of the client's response cache,
+	 * which is kept by the proxy.
+	 *
+	 * @param responseCacheSummarySupplier The supplier of the {@link
+	 *                                     ResponseCacheSummary}, returning
+	 *                                     {@code null} while the client has
+	 *                                     no response cache.
+	 */
+	public void setResponseCacheSummarySupplier(
+		Supplier<ResponseCacheSummary> responseCacheSummarySupplier) {
+
+		_responseCacheSummarySupplier = responseCacheSummarySupplier;
+	}
+
+	private static int _getStatusClass(int status) {
+		if ((status < 100) || (status >= 600)) {
+			return 0;
+		}
+
+		return status / 100;
+	}
+
+	private static LatencyHistogram[] _newLatencyHistograms() {
+		LatencyHistogram[] latencyHistograms =
+			new LatencyHistogram[_STATUS_CLASSES.length];
+
+		for (int i = 0; i < latencyHistograms.length; i++) {
+			latencyHistograms[i] = new LatencyHistogram();
+		}
+
+		return latencyHistograms;
+	}
+
+	private Map<String, LatencySummary> _getSummaries(
+		LatencyHistogram[] latencyHistograms) {
+
+		Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+
+		for (int i = 0; i < latencyHistograms.length; i++) {
+			LatencySummary latencySummary = latencyHistograms[i].getSummary();
+
+			if (latencySummary.getCount() > 0) {
+				summaries.put(_STATUS_CLASSES[i], latencySummary);
+			}
+		}
+
+		return summaries;
+	}
+
+	private static final String[] _STATUS_CLASSES = {
+		"error", "1xx", "2xx", "3xx", "4xx", "5xx"
+	};
+
+	private final LongAdder _coalescedRequestCount = new LongAdder();
+	private final LongAdder _requestCount = new LongAdder();
+	private final LatencyHistogram[] _requestLatencyHistograms =
+		_newLatencyHistograms();
+	private volatile Supplier<ResponseCacheSummary>
+		_responseCacheSummarySupplier;
+	private final LongAdder _tokenFailureCount = new LongAdder();
+	private final LatencyHistogram _tokenLatencyHistogram =
+		new LatencyHistogram();
+	private final LatencyHistogram[] _upstreamLatencyHistograms =
+		_newLatencyHistograms();
+	private final LongAdder _virtualThreadRequestCount = new LongAdder();
+
+}
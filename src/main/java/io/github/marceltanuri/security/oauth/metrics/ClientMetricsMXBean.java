@@ -0,0 +1,75 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of the {@link ClientMetrics} of an OAuth
+ * client. Latencies are keyed by the class of the response status, such as
+ * {@code 2xx}, or {@code error} for requests that got no response.
+ *
+ * @author Marcel Tanuri
+ */
+public interface ClientMetricsMXBean {
+
+	/**
+	 * Returns the number of GET requests that shared the downstream call of
+	 * an identical concurrent request.
+	 *
+	 * @return The coalesced request count.
+	 */
+	public long getCoalescedRequestCount();
+
+	/**
+	 * Returns the number of proxied requests.
+	 *
+	 * @return The request count.
+	 */
+	public long getRequestCount();
+
+	/**
+	 * Returns the total time of the proxied requests, from their arrival until
+	 * their response is ready to be sent, by response status class.
+	 *
+	 * @return The latency summaries, keyed by status class.
+	 */
+	public Map<String, LatencySummary> getRequestLatencies();
+
+	/**
+	 * Returns the statistics of the response cache of the client.
+	 *
+	 * @return The response cache summary, or {@code null} if the client has
+	 *         not cached any response.
+	 */
+	public ResponseCacheSummary getResponseCache();
+
+	/**
+	 * Returns the number of access token acquisitions that failed.
+	 *
+	 * @return The token failure count.
+	 */
+	public long getTokenFailureCount();
+
+	/**
+	 * Returns the time proxied requests spent acquiring an access token,
+	 * whether it was cached or fetched from the identity provider.
+	 *
+	 * @return The latency summary.
+	 */
+	public LatencySummary getTokenLatency();
+
+	/**
+	 * Returns the round trip time of the calls to the downstream service,
+	 * until the response headers are received, by response status class.
+	 *
+	 * @return The latency summaries, keyed by status class.
+	 */
+	public Map<String, LatencySummary> getUpstreamLatencies();
+
+	/**
+	 * Returns the number of proxied requests executed on virtual threads.
+	 *
+	 * @return The virtual thread request count.
+	 */
+	public long getVirtualThreadRequestCount();
+
+}
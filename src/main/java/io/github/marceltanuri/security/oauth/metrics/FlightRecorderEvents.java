@@ -0,0 +1,55 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+/**
+ * Runtime detection of Java Flight Recorder. The bundle imports
+ * {@code jdk.jfr} optionally, since not every OSGi framework exports it, so
+ * the events of this package, which extend {@code jdk.jfr.Event}, must only
+ * be created once {@link #isAvailable()} returns {@code true}. The lookup is
+ * done once, through the class loader of the bundle.
+ *
+ * @author Marcel Tanuri
+ */
+public final class FlightRecorderEvents {
+
+	/**
+	 * Returns whether the {@code jdk.jfr} package is visible to the bundle.
+	 *
+	 * @return {@code true} if Flight Recorder events can be created.
+	 */
+	public static boolean isAvailable() {
+		return _available;
+	}
+
+	private FlightRecorderEvents() {
+	}
+
+	private static final Log _log = LogFactoryUtil.getLog(
+		FlightRecorderEvents.class);
+
+	private static final boolean _available;
+
+	static {
+		boolean available = false;
+
+		try {
+			Class.forName(
+				"jdk.jfr.Event", false,
+				FlightRecorderEvents.class.getClassLoader());
+
+			available = true;
+		}
+		catch (ClassNotFoundException | LinkageError throwable) {
+			if (_log.isInfoEnabled()) {
+				_log.info(
+					"Flight Recorder events are disabled because jdk.jfr " +
+						"is not available");
+			}
+		}
+
+		_available = available;
+	}
+
+}
@@ -0,0 +1,139 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, recorded with microsecond resolution in
+ * log-linear buckets, in the manner of an HDR histogram. Latencies below 64
+ * microseconds are counted exactly, and every power of two above that is
+ * split into 32 buckets, keeping the relative error of the reported
+ * percentiles within about 3%. Latencies longer than about 38 hours are
+ * counted in the last bucket.
+ *
+ * <p>
+ * Recording a latency updates a fixed set of atomic counters and never
+ * allocates, so it can be done on the request path. Summaries are computed
+ * from a non-atomic read of the counters, which is accurate enough for
+ * monitoring.
+ * </p>
+ *
+ * @author Marcel Tanuri
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Returns a summary of the recorded latencies.
+	 *
+	 * @return The {@link LatencySummary}.
+	 */
+	public LatencySummary getSummary() {
+		long[] counts = new long[_BUCKET_COUNT];
+		long count = 0;
+
+		for (int i = 0; i < _BUCKET_COUNT; i++) {
+			counts[i] = _counts.get(i);
+
+			count += counts[i];
+		}
+
+		if (count == 0) {
+			return new LatencySummary(0, 0, 0, 0, 0, 0, 0);
+		}
+
+		return new LatencySummary(
+			count, _toMillis(_maxMicros.get()),
+			_toMillis(_totalMicros.get()) / count,
+			_toMillis(_getPercentile(counts, count, 50)),
+			_toMillis(_getPercentile(counts, count, 90)),
+			_toMillis(_getPercentile(counts, count, 99)),
+			_toMillis(_getPercentile(counts, count, 99.9)));
+	}
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param nanos The latency, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		long micros = Math.min(
+			_MAX_MICROS,
+			Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+
+		_counts.incrementAndGet(_getIndex(micros));
+		_totalMicros.addAndGet(micros);
+
+		long maxMicros = _maxMicros.get();
+
+		while ((micros > maxMicros) &&
+			   !_maxMicros.compareAndSet(maxMicros, micros)) {
+
+			maxMicros = _maxMicros.get();
+		}
+	}
+
+	private static int _getIndex(long micros) {
+		if (micros < _LINEAR_BUCKET_COUNT) {
+			return (int)micros;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+
+		int shift = highestBit - _SUB_BUCKET_BITS;
+
+		return _LINEAR_BUCKET_COUNT + ((shift - 1) * _SUB_BUCKET_COUNT) +
+			(int)((micros >>> shift) & (_SUB_BUCKET_COUNT - 1));
+	}
+
+	/**
+	 * Returns the latency in the middle of the bucket holding the given
+	 * percentile.
+	 */
+	private static long _getPercentile(
+		long[] counts, long count, double percentile) {
+
+		long rank = Math.max(1, (long)Math.ceil(count * percentile / 100));
+
+		for (int i = 0; i < counts.length; i++) {
+			rank -= counts[i];
+
+			if (rank <= 0) {
+				return _getValue(i);
+			}
+		}
+
+		return _MAX_MICROS;
+	}
+
+	private static long _getValue(int index) {
+		if (index < _LINEAR_BUCKET_COUNT) {
+			return index;
+		}
+
+		int shift = ((index - _LINEAR_BUCKET_COUNT) / _SUB_BUCKET_COUNT) + 1;
+
+		long subBucket = (index - _LINEAR_BUCKET_COUNT) % _SUB_BUCKET_COUNT;
+
+		return ((_SUB_BUCKET_COUNT + subBucket) << shift) + (1L << (shift - 1));
+	}
+
+	private static double _toMillis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static final int _SUB_BUCKET_BITS = 5;
+
+	private static final int _SUB_BUCKET_COUNT = 1 << _SUB_BUCKET_BITS;
+
+	private static final int _LINEAR_BUCKET_COUNT = _SUB_BUCKET_COUNT * 2;
+
+	private static final long _MAX_MICROS = (1L << 37) - 1;
+
+	private static final int _BUCKET_COUNT = _getIndex(_MAX_MICROS) + 1;
+
+	private final AtomicLongArray _counts = new AtomicLongArray(_BUCKET_COUNT);
+	private final AtomicLong _maxMicros = new AtomicLong();
+	private final AtomicLong _totalMicros = new AtomicLong();
+
+}
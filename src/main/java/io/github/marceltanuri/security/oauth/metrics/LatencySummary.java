@@ -0,0 +1,109 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable summary of the latencies recorded by a
+ * {@link LatencyHistogram}. Latencies are reported in milliseconds.
+ *
+ * @author Marcel Tanuri
+ */
+public class LatencySummary {
+
+	/**
+	 * Constructs a new {@code LatencySummary}.
+	 *
+	 * @param count The number of recorded latencies.
+	 * @param max   The longest latency.
+	 * @param mean  The mean latency.
+	 * @param p50   The median latency.
+	 * @param p90   The 90th percentile latency.
+	 * @param p99   The 99th percentile latency.
+	 * @param p999  The 99.9th percentile latency.
+	 */
+	@ConstructorProperties({"count", "max", "mean", "p50", "p90", "p99", "p999"})
+	public LatencySummary(
+		long count, double max, double mean, double p50, double p90,
+		double p99, double p999) {
+
+		_count = count;
+		_max = max;
+		_mean = mean;
+		_p50 = p50;
+		_p90 = p90;
+		_p99 = p99;
+		_p999 = p999;
+	}
+
+	/**
+	 * Returns the number of recorded latencies.
+	 *
+	 * @return The count.
+	 */
+	public long getCount() {
+		return _count;
+	}
+
+	/**
+	 * Returns the longest recorded latency.
+	 *
+	 * @return The maximum, in milliseconds.
+	 */
+	public double getMax() {
+		return _max;
+	}
+
+	/**
+	 * Returns the mean of the recorded latencies.
+	 *
+	 * @return The mean, in milliseconds.
+	 */
+	public double getMean() {
+		return _mean;
+	}
+
+	/**
+	 * Returns the median of the recorded latencies.
+	 *
+	 * @return The 50th percentile, in milliseconds.
+	 */
+	public double getP50() {
+		return _p50;
+	}
+
+	/**
+	 * Returns the 90th percentile of the recorded latencies.
+	 *
+	 * @return The 90th percentile, in milliseconds.
+	 */
+	public double getP90() {
+		return _p90;
+	}
+
+	/**
+	 * Returns the 99th percentile of the recorded latencies.
+	 *
+	 * @return The 99th percentile, in milliseconds.
+	 */
+	public double getP99() {
+		return _p99;
+	}
+
+	/**
+	 * Returns the 99.9th percentile of the recorded latencies.
+	 *
+	 * @return The 99.9th percentile, in milliseconds.
+	 */
+	public double getP999() {
+		return _p999;
+	}
+
+	private final long _count;
+	private final double _max;
+	private final double _mean;
+	private final double _p50;
+	private final double _p90;
+	private final double _p99;
+	private final double _p999;
+
+}
@@ -0,0 +1,158 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event covering a single proxied request, from its
+ * arrival until its response is ready to be sent, with the time spent in each
+ * phase of the request. Callers should only set its fields once {@link
+ * #shouldCommit()} returns {@code true}, so the event costs nothing while
+ * it is not recorded.
+ *
+ * @author Marcel Tanuri
+ */
+@Category({"OAuth BFF", "Proxy"})
+@Description("A request proxied to the downstream service of an OAuth client")
+@Label("Proxy Request")
+@Name("io.github.marceltanuri.security.oauth.ProxyRequest")
+@StackTrace(false)
+public class ProxyRequestEvent extends Event {
+
+	/**
+	 * Sets the time spent reading a buffered downstream body.
+	 *
+	 * @param bodyDuration The time, in nanoseconds, or {@code 0} if the body
+	 *                     is streamed.
+	 */
+	public void setBodyDuration(long bodyDuration) {
+		_bodyDuration = bodyDuration;
+	}
+
+	/**
+	 * Sets the name of the OAuth client.
+	 *
+	 * @param clientName The client name.
+	 */
+	public void setClientName(String clientName) {
+		_clientName = clientName;
+	}
+
+	/**
+	 * Sets the HTTP method of the request.
+	 *
+	 * @param method The HTTP method.
+	 */
+	public void setMethod(String method) {
+		_method = method;
+	}
+
+	/**
+	 * Sets the path of the request, relative to the client.
+	 *
+	 * @param path The path.
+	 */
+	public void setPath(String path) {
+		_path = path;
+	}
+
+	/**
+	 * Sets the time spent waiting for a free request slot of the client.
+	 *
+	 * @param poolDuration The time, in nanoseconds.
+	 */
+	public void setPoolDuration(long poolDuration) {
+		_poolDuration = poolDuration;
+	}
+
+	/**
+	 * Sets the size of the response body.
+	 *
+	 * @param responseSize The size, in bytes, or {@code -1} if it is not
+	 *                     known.
+	 */
+	public void setResponseSize(long responseSize) {
+		_responseSize = responseSize;
+	}
+
+	/**
+	 * Sets the status of the response.
+	 *
+	 * @param status The response status.
+	 */
+	public void setStatus(int status) {
+		_status = status;
+	}
+
+	/**
+	 * Sets the time spent getting the access token.
+	 *
+	 * @param tokenDuration The time, in nanoseconds.
+	 */
+	public void setTokenDuration(long tokenDuration) {
+		_tokenDuration = tokenDuration;
+	}
+
+	/**
+	 * Sets the time spent until the downstream response headers
+	 * arrived, including retries.
+	 *
+	 * @param upstreamDuration The time, in nanoseconds.
+	 */
+	public void setUpstreamDuration(long upstreamDuration) {
+		_upstreamDuration = upstreamDuration;
+	}
+
+	@Description("Time spent reading a buffered downstream body")
+	@Label("Body Duration")
+	@Name("bodyDuration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long _bodyDuration;
+
+	@Label("Client Name")
+	@Name("clientName")
+	private String _clientName;
+
+	@Label("Method")
+	@Name("method")
+	private String _method;
+
+	@Label("Path")
+	@Name("path")
+	private String _path;
+
+	@Description("Time spent waiting for a free request slot of the client")
+	@Label("Pool Duration")
+	@Name("poolDuration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long _poolDuration;
+
+	@DataAmount(DataAmount.BYTES)
+	@Description("Size of the response body, or -1 if it is not known")
+	@Label("Response Size")
+	@Name("responseSize")
+	private long _responseSize;
+
+	@Label("Status")
+	@Name("status")
+	private int _status;
+
+	@Description("Time spent getting the access token")
+	@Label("Token Duration")
+	@Name("tokenDuration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long _tokenDuration;
+
+	@Description("Time spent until the downstream response headers arrived")
+	@Label("Upstream Duration")
+	@Name("upstreamDuration")
+	@Timespan(Timespan.NANOSECONDS)
+	private long _upstreamDuration;
+
+}
@@ -0,0 +1,129 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * An immutable summary of the statistics of the response cache of an OAuth
+ * client.
+ *
+ * @author Marcel Tanuri
+ */
+public class ResponseCacheSummary {
+
+	/**
+	 * Constructs a new {@code ResponseCacheSummary}.
+	 *
+	 * @param entryCount        The number of cached responses.
+	 * @param evictionCount     The number of evicted responses.
+	 * @param hitCount          The number of requests served from the cache.
+	 * @param hitRatio          The fraction of requests served from the
+	 *                          cache.
+	 * @param maxSize           The maximum size of the cache, in bytes.
+	 * @param missCount         The number of requests not served from the
+	 *                          cache.
+	 * @param revalidationCount The number of revalidated responses.
+	 * @param size              The size of the cache, in bytes.
+	 */
+	@ConstructorProperties(
+		{
+			"entryCount", "evictionCount", "hitCount", "hitRatio", "maxSize",
+			"missCount", "revalidationCount", "size"
+		}
+	)
+	public ResponseCacheSummary(
+		int entryCount, long evictionCount, long hitCount, double hitRatio,
+		long maxSize, long missCount, long revalidationCount, long size) {
+
+		_entryCount = entryCount;
+		_evictionCount = evictionCount;
+		_hitCount = hitCount;
+		_hitRatio = hitRatio;
+		_maxSize = maxSize;
+		_missCount = missCount;
+		_revalidationCount = revalidationCount;
+		_size = size;
+	}
+
+	/**
+	 * Returns the number of cached responses.
+	 *
+	 * @return The entry count.
+	 */
+	public int getEntryCount() {
+		return _entryCount;
+	}
+
+	/**
+	 * Returns the number of responses evicted to make room for new ones.
+	 *
+	 * @return The eviction count.
+	 */
+	public long getEvictionCount() {
+		return _evictionCount;
+	}
+
+	/**
+	 * Returns the number of requests served from the cache.
+	 *
+	 * @return The hit count.
+	 */
+	public long getHitCount() {
+		return _hitCount;
+	}
+
+	/**
+	 * Returns the fraction of requests served from the cache.
+	 *
+	 * @return The hit ratio, between {@code 0} and {@code 1}.
+	 */
+	public double getHitRatio() {
+		return _hitRatio;
+	}
+
+	/**
+	 * Returns the maximum memory used by the cached responses.
+	 *
+	 * @return The maximum size, in bytes.
+	 */
+	public long getMaxSize() {
+		return _maxSize;
+	}
+
+	/**
+	 * Returns the number of requests not served from the cache.
+	 *
+	 * @return The miss count.
+	 */
+	public long getMissCount() {
+		return _missCount;
+	}
+
+	/**
+	 * Returns the number of stale responses refreshed from a 304 (Not
+	 * Modified) response instead of being fetched again.
+	 *
+	 * @return The revalidation count.
+	 */
+	public long getRevalidationCount() {
+		return _revalidationCount;
+	}
+
+	/**
+	 * Returns the approximate memory used by the cached responses.
+	 *
+	 * @return The size, in bytes.
+	 */
+	public long getSize() {
+		return _size;
+	}
+
+	private final int _entryCount;
+	private final long _evictionCount;
+	private final long _hitCount;
+	private final double _hitRatio;
+	private final long _maxSize;
+	private final long _missCount;
+	private final long _revalidationCount;
+	private final long _size;
+
+}
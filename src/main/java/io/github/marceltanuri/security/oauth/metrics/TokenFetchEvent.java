@@ -0,0 +1,94 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event covering a single call to the token endpoint
+ * of an OAuth client, either because no valid token was cached or to refresh
+ * the cached token ahead of its expiry. Callers should only set its fields
+ * once {@link #shouldCommit()} returns {@code true}, so the event costs
+ * nothing while it is not recorded.
+ *
+ * @author Marcel Tanuri
+ */
+@Category({"OAuth BFF", "Token"})
+@Description("An access token fetched from the token endpoint of a client")
+@Label("Token Fetch")
+@Name("io.github.marceltanuri.security.oauth.TokenFetch")
+@StackTrace(false)
+public class TokenFetchEvent extends Event {
+
+	/**
+	 * Sets the name of the OAuth client.
+	 *
+	 * @param clientName The client name.
+	 */
+	public void setClientName(String clientName) {
+		_clientName = clientName;
+	}
+
+	/**
+	 * Sets the message of the failure of the fetch.
+	 *
+	 * @param error The error message, or {@code null} if the fetch
+	 *              succeeded.
+	 */
+	public void setError(String error) {
+		_error = error;
+	}
+
+	/**
+	 * Sets whether a valid cached token was replaced ahead of its expiry.
+	 *
+	 * @param refresh {@code true} if the fetch is a refresh.
+	 */
+	public void setRefresh(boolean refresh) {
+		_refresh = refresh;
+	}
+
+	/**
+	 * Sets whether a token was fetched.
+	 *
+	 * @param success {@code true} if the fetch succeeded.
+	 */
+	public void setSuccess(boolean success) {
+		_success = success;
+	}
+
+	/**
+	 * Sets the URL of the token endpoint.
+	 *
+	 * @param tokenEndpoint The token endpoint URL.
+	 */
+	public void setTokenEndpoint(String tokenEndpoint) {
+		_tokenEndpoint = tokenEndpoint;
+	}
+
+	@Label("Client Name")
+	@Name("clientName")
+	private String _clientName;
+
+	@Description("Message of the failure, if the fetch failed")
+	@Label("Error")
+	@Name("error")
+	private String _error;
+
+	@Description("Whether a valid cached token was replaced ahead of expiry")
+	@Label("Refresh")
+	@Name("refresh")
+	private boolean _refresh;
+
+	@Label("Success")
+	@Name("success")
+	private boolean _success;
+
+	@Label("Token Endpoint")
+	@Name("tokenEndpoint")
+	private String _tokenEndpoint;
+
+}
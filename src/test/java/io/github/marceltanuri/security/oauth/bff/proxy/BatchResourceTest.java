@@ -0,0 +1,365 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import java.lang.reflect.Proxy;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class BatchResourceTest {
+
+	@Before
+	public void setUp() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("batchMaxRequestSize", 256L);
+		properties.put("batchMaxRequests", 2);
+		properties.put("clientName", "test");
+
+		OAuthClient oAuthClient = OAuthTestUtil.createOAuthClient(properties);
+
+		OAuthServiceFactory oAuthServiceFactory = new OAuthServiceFactory();
+
+		OAuthTestUtil.setFieldValue(
+			oAuthServiceFactory, "_clients",
+			new ConcurrentHashMap<>(
+				Collections.singletonMap("test", oAuthClient)));
+
+		OAuthTestUtil.setFieldValue(
+			_batchResource, "_corsPolicyRegistry", new CorsPolicyRegistry());
+		OAuthTestUtil.setFieldValue(
+			_batchResource, "_oAuthServiceFactory", oAuthServiceFactory);
+		OAuthTestUtil.setFieldValue(
+			_batchResource, "_proxyService",
+			new ProxyService() {
+
+				@Override
+				public Response executeProxyRequest(
+					ProxyRequestContext context) {
+
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public List<CompletionStage<Response>>
+					executeProxyRequestsAsync(
+						List<ProxyRequestContext> contexts,
+						int maxConcurrency) {
+
+					List<CompletionStage<Response>> completionStages =
+						new ArrayList<>();
+
+					for (int i = 0; i < contexts.size(); i++) {
+						CompletableFuture<Response> completableFuture =
+							new CompletableFuture<>();
+
+						_completableFutures.add(completableFuture);
+
+						completionStages.add(completableFuture);
+					}
+
+					return completionStages;
+				}
+
+			});
+	}
+
+	@Test
+	public void testExecuteBatchRequest() throws Exception {
+		CompletableFuture<Object> completableFuture = _executeBatchRequest(
+			"test", _BATCH, Collections.emptyMap());
+
+		_completableFutures.get(
+			1
+		).complete(
+			Response.ok(
+				"{\"id\": 2}", MediaType.APPLICATION_JSON
+			).build()
+		);
+
+		Assert.assertFalse(completableFuture.isDone());
+
+		_completableFutures.get(
+			0
+		).complete(
+			Response.status(
+				Response.Status.NOT_FOUND
+			).build()
+		);
+
+		Response response = (Response)completableFuture.get(
+			10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals(
+			MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+
+		JsonNode jsonNode = _objectMapper.readTree(_write(response));
+
+		Assert.assertEquals(2, jsonNode.size());
+		Assert.assertEquals(
+			"a",
+			jsonNode.path(
+				0
+			).path(
+				"id"
+			).asText());
+		Assert.assertEquals(
+			404,
+			jsonNode.path(
+				0
+			).path(
+				"status"
+			).asInt());
+		Assert.assertEquals(
+			1,
+			jsonNode.path(
+				1
+			).path(
+				"id"
+			).asInt());
+		Assert.assertEquals(
+			2,
+			jsonNode.path(
+				1
+			).path(
+				"body"
+			).path(
+				"id"
+			).asInt());
+	}
+
+	@Test
+	public void testExecuteBatchRequestWithInvalidBatch() throws Exception {
+		_assertBadRequest("A batch must be a JSON array", "{}");
+		_assertBadRequest(
+			"A batch cannot have more than 2 requests",
+			"[{'path': '/a'}, {'path': '/b'}, {'path': '/c'}]");
+		_assertBadRequest("A sub-request must have a path", "[{}]");
+
+		Assert.assertTrue(_completableFutures.isEmpty());
+	}
+
+	@Test
+	public void testExecuteBatchRequestWithLargeBatch() throws Exception {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("[{'path': '/");
+
+		for (int i = 0; i < 256; i++) {
+			sb.append('a');
+		}
+
+		sb.append("'}]");
+
+		Response response = _getResponse(
+			_executeBatchRequest("test", sb.toString(), new HashMap<>()));
+
+		Assert.assertEquals(413, response.getStatus());
+		Assert.assertEquals(
+			"A batch cannot be larger than 256 bytes", response.getEntity());
+
+		response = _getResponse(
+			_executeBatchRequest(
+				"test", _BATCH,
+				Collections.singletonMap("Content-Length", "257")));
+
+		Assert.assertEquals(413, response.getStatus());
+		Assert.assertTrue(_completableFutures.isEmpty());
+	}
+
+	@Test
+	public void testExecuteBatchRequestWithNdjson() throws Exception {
+		CompletableFuture<Object> completableFuture = _executeBatchRequest(
+			"test", _BATCH,
+			Collections.singletonMap("Accept", "application/x-ndjson"));
+
+		Assert.assertFalse(completableFuture.isDone());
+
+		_completableFutures.get(
+			1
+		).complete(
+			Response.ok(
+			).build()
+		);
+
+		Response response = (Response)completableFuture.get(
+			10, TimeUnit.SECONDS);
+
+		Assert.assertEquals(200, response.getStatus());
+		Assert.assertEquals(
+			"application/x-ndjson", String.valueOf(response.getMediaType()));
+
+		_completableFutures.get(
+			0
+		).complete(
+			Response.noContent(
+			).build()
+		);
+
+		String[] lines = _write(
+			response
+		).split(
+			"\n"
+		);
+
+		Assert.assertEquals(2, lines.length);
+		Assert.assertEquals(
+			1,
+			_objectMapper.readTree(
+				lines[0]
+			).path(
+				"id"
+			).asInt());
+		Assert.assertEquals(
+			"a",
+			_objectMapper.readTree(
+				lines[1]
+			).path(
+				"id"
+			).asText());
+	}
+
+	@Test
+	public void testExecuteBatchRequestWithUnknownClient() throws Exception {
+		Response response = _getResponse(
+			_executeBatchRequest("unknown", _BATCH, Collections.emptyMap()));
+
+		Assert.assertEquals(404, response.getStatus());
+	}
+
+	private void _assertBadRequest(String message, String batch)
+		throws Exception {
+
+		Response response = _getResponse(
+			_executeBatchRequest("test", batch, Collections.emptyMap()));
+
+		Assert.assertEquals(400, response.getStatus());
+		Assert.assertEquals(message, response.getEntity());
+	}
+
+	private CompletableFuture<Object> _executeBatchRequest(
+		String clientName, String batch, Map<String, String> headers) {
+
+		CompletableFuture<Object> completableFuture = new CompletableFuture<>();
+
+		AsyncResponse asyncResponse = (AsyncResponse)Proxy.newProxyInstance(
+			AsyncResponse.class.getClassLoader(),
+			new Class<?>[] {AsyncResponse.class},
+			(proxy, method, arguments) -> {
+				String name = method.getName();
+
+				if (name.equals("resume")) {
+					return completableFuture.complete(arguments[0]);
+				}
+
+				throw new UnsupportedOperationException(name);
+			});
+
+		HttpHeaders httpHeaders = (HttpHeaders)Proxy.newProxyInstance(
+			HttpHeaders.class.getClassLoader(),
+			new Class<?>[] {HttpHeaders.class},
+			(proxy, method, arguments) -> {
+				String name = method.getName();
+
+				if (name.equals("getAcceptableMediaTypes")) {
+					String accept = headers.get("Accept");
+
+					if (accept == null) {
+						return Collections.singletonList(
+							MediaType.WILDCARD_TYPE);
+					}
+
+					return Collections.singletonList(
+						MediaType.valueOf(accept));
+				}
+
+				if (name.equals("getHeaderString")) {
+					return headers.get(arguments[0]);
+				}
+
+				if (name.equals("getLength")) {
+					String contentLength = headers.get("Content-Length");
+
+					if (contentLength == null) {
+						return -1;
+					}
+
+					return Integer.valueOf(contentLength);
+				}
+
+				throw new UnsupportedOperationException(name);
+			});
+
+		_batchResource.executeBatchRequest(
+			clientName,
+			new ByteArrayInputStream(
+				batch.replace(
+					'\'', '"'
+				).getBytes(
+					StandardCharsets.UTF_8
+				)),
+			httpHeaders, asyncResponse);
+
+		return completableFuture;
+	}
+
+	private Response _getResponse(CompletableFuture<Object> completableFuture)
+		throws Exception {
+
+		return (Response)completableFuture.get(10, TimeUnit.SECONDS);
+	}
+
+	private String _write(Response response) throws Exception {
+		ByteArrayOutputStream byteArrayOutputStream =
+			new ByteArrayOutputStream();
+
+		StreamingOutput streamingOutput = (StreamingOutput)response.getEntity();
+
+		streamingOutput.write(byteArrayOutputStream);
+
+		return byteArrayOutputStream.toString(StandardCharsets.UTF_8);
+	}
+
+	private static final String _BATCH =
+		"[{'id': 'a', 'path': '/a'}, {'method': 'post', 'path': '/b'}]";
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	private final BatchResource _batchResource = new BatchResource();
+	private final List<CompletableFuture<Response>> _completableFutures =
+		new ArrayList<>();
+
+}
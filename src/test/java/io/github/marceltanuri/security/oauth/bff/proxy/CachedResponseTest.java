@@ -0,0 +1,212 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class CachedResponseTest {
+
+	@Test
+	public void testGetFreshnessLifetime() {
+		Assert.assertEquals(
+			60,
+			CachedResponse.getFreshnessLifetime(
+				_headers("Cache-Control", "max-age=60")));
+		Assert.assertEquals(
+			120,
+			CachedResponse.getFreshnessLifetime(
+				_headers("Cache-Control", "max-age=60, s-maxage=120")));
+		Assert.assertEquals(
+			40,
+			CachedResponse.getFreshnessLifetime(
+				_headers("Age", "20", "Cache-Control", "max-age=60")));
+		Assert.assertEquals(
+			0,
+			CachedResponse.getFreshnessLifetime(
+				_headers("Age", "90", "Cache-Control", "max-age=60")));
+		Assert.assertEquals(
+			0,
+			CachedResponse.getFreshnessLifetime(
+				_headers("Cache-Control", "max-age=60, no-cache")));
+		Assert.assertEquals(
+			300,
+			CachedResponse.getFreshnessLifetime(
+				_headers(
+					"Date", "Mon, 06 Jan 2025 10:00:00 GMT", "Expires",
+					"Mon, 06 Jan 2025 10:05:00 GMT")));
+		Assert.assertEquals(
+			0, CachedResponse.getFreshnessLifetime(_headers()));
+	}
+
+	@Test
+	public void testIsFresh() {
+		CachedResponse cachedResponse = _createCachedResponse(
+			_headers("Cache-Control", "max-age=60"));
+
+		Assert.assertTrue(cachedResponse.isFresh(System.nanoTime()));
+
+		cachedResponse = _createCachedResponse(
+			_headers("Cache-Control", "no-cache", "ETag", "\"v1\""));
+
+		Assert.assertFalse(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertTrue(cachedResponse.hasValidators());
+	}
+
+	@Test
+	public void testIsNotModified() {
+		Map<String, List<String>> headers = _headers(
+			"ETag", "W/\"v1\"", "Last-Modified",
+			"Mon, 06 Jan 2025 10:00:00 GMT");
+
+		Assert.assertTrue(
+			CachedResponse.isNotModified(headers, "\"v0\", \"v1\"", null));
+		Assert.assertTrue(CachedResponse.isNotModified(headers, "*", null));
+		Assert.assertFalse(
+			CachedResponse.isNotModified(headers, "\"v2\"", null));
+		Assert.assertFalse(
+			CachedResponse.isNotModified(
+				headers, "\"v2\"", "Mon, 06 Jan 2025 10:00:00 GMT"));
+		Assert.assertTrue(
+			CachedResponse.isNotModified(
+				headers, null, "Mon, 06 Jan 2025 10:00:00 GMT"));
+		Assert.assertFalse(
+			CachedResponse.isNotModified(
+				headers, null, "Mon, 06 Jan 2025 09:59:59 GMT"));
+	}
+
+	@Test
+	public void testIsStorable() {
+		Assert.assertTrue(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60"), false));
+		Assert.assertTrue(
+			CachedResponse.isStorable(200, _headers("ETag", "\"v1\""), false));
+		Assert.assertFalse(CachedResponse.isStorable(200, _headers(), false));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				500, _headers("Cache-Control", "max-age=60"), false));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60, no-store"), false));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60, private"), false));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200,
+				_headers("Cache-Control", "max-age=60", "Set-Cookie", "a=b"),
+				false));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60", "Vary", "*"),
+				false));
+	}
+
+	@Test
+	public void testIsStorableForAuthorizedRequest() {
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60"), true));
+		Assert.assertFalse(
+			CachedResponse.isStorable(200, _headers("ETag", "\"v1\""), true));
+		Assert.assertTrue(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "max-age=60, public"), true));
+		Assert.assertTrue(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "s-maxage=60"), true));
+		Assert.assertTrue(
+			CachedResponse.isStorable(
+				200,
+				_headers("Cache-Control", "must-revalidate", "ETag", "\"v1\""),
+				true));
+		Assert.assertFalse(
+			CachedResponse.isStorable(
+				200, _headers("Cache-Control", "public, private"), true));
+	}
+
+	@Test
+	public void testMatches() {
+		Map<String, String> requestHeaders = new HashMap<>();
+
+		requestHeaders.put("Accept-Language", "en");
+
+		CachedResponse cachedResponse = new CachedResponse(
+			200,
+			_headers(
+				"Cache-Control", "max-age=60", "Vary",
+				"Accept-Language, Accept"),
+			new byte[0], 60, requestHeaders::get);
+
+		Assert.assertTrue(cachedResponse.matches(requestHeaders::get));
+
+		requestHeaders.put("Accept", "application/json");
+
+		Assert.assertFalse(cachedResponse.matches(requestHeaders::get));
+
+		requestHeaders.remove("Accept");
+		requestHeaders.put("Accept-Language", "fr");
+
+		Assert.assertFalse(cachedResponse.matches(requestHeaders::get));
+	}
+
+	@Test
+	public void testRevalidate() {
+		CachedResponse cachedResponse = _createCachedResponse(
+			_headers(
+				"Cache-Control", "no-cache", "Content-Length", "4", "ETag",
+				"\"v1\""));
+
+		Assert.assertFalse(cachedResponse.isFresh(System.nanoTime()));
+
+		CachedResponse revalidatedCachedResponse = cachedResponse.revalidate(
+			_headers(
+				"Cache-Control", "max-age=60", "Content-Length", "0", "ETag",
+				"\"v1\""),
+			_emptyRequestHeaders);
+
+		Assert.assertTrue(
+			revalidatedCachedResponse.isFresh(System.nanoTime()));
+		Assert.assertArrayEquals(
+			cachedResponse.getBody(), revalidatedCachedResponse.getBody());
+		Assert.assertEquals(
+			"4", revalidatedCachedResponse.getHeaderString("content-length"));
+	}
+
+	private CachedResponse _createCachedResponse(
+		Map<String, List<String>> headers) {
+
+		return new CachedResponse(
+			200, headers, new byte[] {1, 2, 3, 4},
+			CachedResponse.getFreshnessLifetime(headers),
+			_emptyRequestHeaders);
+	}
+
+	private Map<String, List<String>> _headers(String... namesAndValues) {
+		Map<String, List<String>> headers = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			headers.computeIfAbsent(
+				namesAndValues[i], name -> new ArrayList<>()
+			).add(
+				namesAndValues[i + 1]
+			);
+		}
+
+		return headers;
+	}
+
+	private final Function<String, String> _emptyRequestHeaders =
+		name -> null;
+
+}
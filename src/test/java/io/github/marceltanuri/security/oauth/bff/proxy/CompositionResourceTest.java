@@ -0,0 +1,257 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.marceltanuri.security.oauth.client.OAuthServiceFactory;
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.io.ByteArrayInputStream;
+
+import java.lang.reflect.Proxy;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class CompositionResourceTest {
+
+	@Before
+	public void setUp() throws Exception {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("compositionMaxCalls", 4);
+		properties.put("compositionMaxRequestSize", 256L);
+
+		_compositionResource.activate(
+			OAuthTestUtil.createConfigurable(
+				ProxyServiceConfiguration.class, properties));
+
+		OAuthTestUtil.setFieldValue(
+			_compositionResource, "_corsPolicyRegistry",
+			new CorsPolicyRegistry());
+		OAuthTestUtil.setFieldValue(
+			_compositionResource, "_oAuthServiceFactory",
+			new OAuthServiceFactory());
+	}
+
+	@Test
+	public void testExecuteCompositionRequest() throws Exception {
+		Response response = _executeCompositionRequest(
+			"{'a': {'clientName': 'users', 'path': '/users/1'}, " +
+				"'b': {'clientName': 'orders', 'path': '/orders', " +
+				"'query': 'userId=${a/id}'}}");
+
+		Assert.assertEquals(200, response.getStatus());
+
+		JsonNode jsonNode = _objectMapper.readTree(
+			String.valueOf(response.getEntity()));
+
+		Assert.assertEquals(
+			404,
+			jsonNode.path(
+				"a"
+			).path(
+				"status"
+			).asInt());
+		Assert.assertEquals(
+			424,
+			jsonNode.path(
+				"b"
+			).path(
+				"status"
+			).asInt());
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithDependencyCycle()
+		throws Exception {
+
+		_assertBadRequest(
+			"The composition plan has a dependency cycle through call a",
+			"{'a': {'clientName': 'users', 'path': '/a/${c/id}'}, " +
+				"'b': {'clientName': 'users', 'path': '/b', " +
+				"'dependsOn': ['a']}, 'c': {'clientName': 'users', " +
+				"'path': '/c', 'dependsOn': ['b']}}");
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithDisallowedOrigin()
+		throws Exception {
+
+		Map<String, String> headers = new HashMap<>();
+
+		headers.put("Host", "portal.example.com");
+		headers.put("Origin", "https://evil.example.com");
+
+		Response response = _executeCompositionRequest(
+			"{'a': {'clientName': 'users', 'path': '/users/1'}}", headers);
+
+		Assert.assertEquals(403, response.getStatus());
+		Assert.assertEquals(
+			"Origin https://evil.example.com is not allowed to call the " +
+				"composition endpoint",
+			response.getEntity());
+
+		headers.put("Origin", "https://portal.example.com");
+
+		response = _executeCompositionRequest(
+			"{'a': {'clientName': 'users', 'path': '/users/1'}}", headers);
+
+		Assert.assertEquals(200, response.getStatus());
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithInvalidPlan()
+		throws Exception {
+
+		_assertBadRequest("A composition plan must be a JSON object", "[]");
+		_assertBadRequest(
+			"A composition plan cannot have more than 4 calls",
+			"{'a': {}, 'b': {}, 'c': {}, 'd': {}, 'e': {}}");
+		_assertBadRequest(
+			"Call a must have a clientName", "{'a': {'path': '/a'}}");
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithLargePlan() throws Exception {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("{'a': {'clientName': 'users', 'path': '/");
+
+		for (int i = 0; i < 256; i++) {
+			sb.append('a');
+		}
+
+		sb.append("'}}");
+
+		Response response = _executeCompositionRequest(sb.toString());
+
+		Assert.assertEquals(413, response.getStatus());
+		Assert.assertEquals(
+			"A composition plan cannot be larger than 256 bytes",
+			response.getEntity());
+
+		Map<String, String> headers = new HashMap<>();
+
+		headers.put("Content-Length", "257");
+
+		response = _executeCompositionRequest(
+			"{'a': {'clientName': 'users', 'path': '/users/1'}}", headers);
+
+		Assert.assertEquals(413, response.getStatus());
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithSelfReference()
+		throws Exception {
+
+		_assertBadRequest(
+			"The composition plan has a dependency cycle through call a",
+			"{'a': {'clientName': 'users', 'path': '/a', " +
+				"'query': 'id=${a/id}'}}");
+		_assertBadRequest(
+			"The composition plan has a dependency cycle through call b",
+			"{'a': {'clientName': 'users', 'path': '/a'}, " +
+				"'b': {'clientName': 'users', 'path': '/b', " +
+				"'dependsOn': ['a', 'b']}}");
+	}
+
+	@Test
+	public void testExecuteCompositionRequestWithUnknownDependency()
+		throws Exception {
+
+		_assertBadRequest(
+			"Call a depends on unknown call z",
+			"{'a': {'clientName': 'users', 'path': '/a', " +
+				"'dependsOn': ['z']}}");
+	}
+
+	private void _assertBadRequest(String message, String plan)
+		throws Exception {
+
+		Response response = _executeCompositionRequest(plan);
+
+		Assert.assertEquals(400, response.getStatus());
+		Assert.assertEquals(message, response.getEntity());
+	}
+
+	private Response _executeCompositionRequest(String plan)
+		throws Exception {
+
+		return _executeCompositionRequest(plan, new HashMap<>());
+	}
+
+	private Response _executeCompositionRequest(
+			String plan, Map<String, String> headers)
+		throws Exception {
+
+		CompletableFuture<Object> completableFuture = new CompletableFuture<>();
+
+		AsyncResponse asyncResponse = (AsyncResponse)Proxy.newProxyInstance(
+			AsyncResponse.class.getClassLoader(),
+			new Class<?>[] {AsyncResponse.class},
+			(proxy, method, arguments) -> {
+				String name = method.getName();
+
+				if (name.equals("resume")) {
+					return completableFuture.complete(arguments[0]);
+				}
+
+				throw new UnsupportedOperationException(name);
+			});
+
+		HttpHeaders httpHeaders = (HttpHeaders)Proxy.newProxyInstance(
+			HttpHeaders.class.getClassLoader(),
+			new Class<?>[] {HttpHeaders.class},
+			(proxy, method, arguments) -> {
+				String name = method.getName();
+
+				if (name.equals("getHeaderString")) {
+					return headers.get(arguments[0]);
+				}
+
+				if (name.equals("getLength")) {
+					String contentLength = headers.get("Content-Length");
+
+					if (contentLength == null) {
+						return -1;
+					}
+
+					return Integer.valueOf(contentLength);
+				}
+
+				throw new UnsupportedOperationException(name);
+			});
+
+		_compositionResource.executeCompositionRequest(
+			new ByteArrayInputStream(
+				plan.replace(
+					'\'', '"'
+				).getBytes(
+					StandardCharsets.UTF_8
+				)),
+			httpHeaders, asyncResponse);
+
+		return (Response)completableFuture.get(10, TimeUnit.SECONDS);
+	}
+
+	private static final ObjectMapper _objectMapper = new ObjectMapper();
+
+	private final CompositionResource _compositionResource =
+		new CompositionResource();
+}
@@ -0,0 +1,196 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class CorsPolicyTest {
+
+	@Test
+	public void testApplyWithListedOrigin() {
+		CorsPolicy corsPolicy = _createCorsPolicy(
+			true, "https://app.example.com");
+
+		Response response = corsPolicy.apply(
+			Response.ok(
+			).build(),
+			"https://APP.example.com");
+
+		Assert.assertEquals(
+			"https://APP.example.com",
+			response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertEquals(
+			"true",
+			response.getHeaderString("Access-Control-Allow-Credentials"));
+		Assert.assertEquals(
+			"X-Request-Id",
+			response.getHeaderString("Access-Control-Expose-Headers"));
+		Assert.assertEquals("Origin", response.getHeaderString("Vary"));
+	}
+
+	@Test
+	public void testApplyWithUnlistedOrigin() {
+		CorsPolicy corsPolicy = _createCorsPolicy(
+			true, "https://app.example.com");
+
+		Assert.assertTrue(corsPolicy.isEnabled());
+		Assert.assertFalse(corsPolicy.isAllowedOrigin(null));
+		Assert.assertFalse(
+			corsPolicy.isAllowedOrigin("https://evil.example.com"));
+
+		Response response = corsPolicy.apply(
+			Response.ok(
+			).build(),
+			"https://evil.example.com");
+
+		Assert.assertNull(
+			response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertNull(
+			response.getHeaderString("Access-Control-Allow-Credentials"));
+	}
+
+	@Test
+	public void testApplyWithWildcardOrigin() {
+		CorsPolicy corsPolicy = _createCorsPolicy(
+			true, "*", "https://app.example.com");
+
+		Response response = corsPolicy.apply(
+			Response.ok(
+			).build(),
+			"https://other.example.com");
+
+		Assert.assertEquals(
+			"*", response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertNull(
+			response.getHeaderString("Access-Control-Allow-Credentials"));
+
+		response = corsPolicy.apply(
+			Response.ok(
+			).build(),
+			"https://app.example.com");
+
+		Assert.assertEquals(
+			"https://app.example.com",
+			response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertEquals(
+			"true",
+			response.getHeaderString("Access-Control-Allow-Credentials"));
+	}
+
+	@Test
+	public void testIsEnabled() {
+		CorsPolicy corsPolicy = _createCorsPolicy(false);
+
+		Assert.assertFalse(corsPolicy.isEnabled());
+		Assert.assertFalse(
+			corsPolicy.isAllowedOrigin("https://app.example.com"));
+
+		corsPolicy = new CorsPolicy(
+			OAuthTestUtil.createConfigurable(
+				ProxyServiceConfiguration.class,
+				Collections.singletonMap(
+					"compositionCorsAllowedOrigins",
+					new String[] {"https://app.example.com"})));
+
+		Assert.assertTrue(corsPolicy.isEnabled());
+		Assert.assertNull(corsPolicy.getOAuthClient());
+	}
+
+	@Test
+	public void testPreflight() {
+		CorsPolicy corsPolicy = _createCorsPolicy(
+			true, "https://app.example.com");
+
+		Response response = corsPolicy.preflight(
+			"https://app.example.com", "put", "Content-Type, if-match");
+
+		Assert.assertEquals(204, response.getStatus());
+		Assert.assertEquals(
+			"https://app.example.com",
+			response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertEquals(
+			"true",
+			response.getHeaderString("Access-Control-Allow-Credentials"));
+		Assert.assertEquals(
+			"Content-Type, if-match",
+			response.getHeaderString("Access-Control-Allow-Headers"));
+		Assert.assertEquals(
+			"DELETE, GET, HEAD, PATCH, POST, PUT",
+			response.getHeaderString("Access-Control-Allow-Methods"));
+		Assert.assertEquals(
+			"86400", response.getHeaderString("Access-Control-Max-Age"));
+
+		response = corsPolicy.preflight("https://app.example.com", "GET", "");
+
+		Assert.assertEquals(204, response.getStatus());
+		Assert.assertNull(
+			response.getHeaderString("Access-Control-Allow-Headers"));
+	}
+
+	@Test
+	public void testPreflightWithDisallowedRequest() {
+		CorsPolicy corsPolicy = _createCorsPolicy(
+			true, "https://app.example.com");
+
+		_assertForbidden(
+			corsPolicy.preflight("https://evil.example.com", "GET", null));
+		_assertForbidden(
+			corsPolicy.preflight("https://app.example.com", "TRACE", null));
+		_assertForbidden(
+			corsPolicy.preflight(
+				"https://app.example.com", "GET",
+				"Content-Type, X-Forwarded-For"));
+	}
+
+	@Test
+	public void testPreflightWithWildcardHeader() {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("corsAllowedHeaders", new String[] {"*"});
+		properties.put("corsAllowedOrigins", new String[] {"*"});
+
+		CorsPolicy corsPolicy = new CorsPolicy(
+			OAuthTestUtil.createOAuthClient(properties));
+
+		Response response = corsPolicy.preflight(
+			"https://app.example.com", "GET", "X-Custom-Header");
+
+		Assert.assertEquals(204, response.getStatus());
+		Assert.assertEquals(
+			"*", response.getHeaderString("Access-Control-Allow-Origin"));
+		Assert.assertEquals(
+			"X-Custom-Header",
+			response.getHeaderString("Access-Control-Allow-Headers"));
+	}
+
+	private void _assertForbidden(Response response) {
+		Assert.assertEquals(403, response.getStatus());
+		Assert.assertNull(
+			response.getHeaderString("Access-Control-Allow-Origin"));
+	}
+
+	private CorsPolicy _createCorsPolicy(
+		boolean allowCredentials, String... allowedOrigins) {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("corsAllowCredentials", allowCredentials);
+		properties.put("corsAllowedOrigins", allowedOrigins);
+		properties.put("corsExposedHeaders", new String[] {"X-Request-Id"});
+
+		return new CorsPolicy(OAuthTestUtil.createOAuthClient(properties));
+	}
+
+}
@@ -0,0 +1,53 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class FrequencySketchTest {
+
+	@Test
+	public void testFrequencyIsCapped() {
+		FrequencySketch frequencySketch = new FrequencySketch(64);
+
+		for (int i = 0; i < 20; i++) {
+			frequencySketch.increment(_HASH_CODE);
+		}
+
+		Assert.assertEquals(15, frequencySketch.frequency(_HASH_CODE));
+	}
+
+	@Test
+	public void testFrequencyIsHalvedAfterResetThreshold() {
+		FrequencySketch frequencySketch = new FrequencySketch(64);
+
+		for (int i = 0; i < 639; i++) {
+			frequencySketch.increment(_HASH_CODE);
+		}
+
+		Assert.assertEquals(15, frequencySketch.frequency(_HASH_CODE));
+
+		frequencySketch.increment(_HASH_CODE);
+
+		Assert.assertEquals(7, frequencySketch.frequency(_HASH_CODE));
+	}
+
+	@Test
+	public void testIncrement() {
+		FrequencySketch frequencySketch = new FrequencySketch(64);
+
+		Assert.assertEquals(0, frequencySketch.frequency(_HASH_CODE));
+
+		for (int i = 0; i < 3; i++) {
+			frequencySketch.increment(_HASH_CODE);
+		}
+
+		Assert.assertEquals(3, frequencySketch.frequency(_HASH_CODE));
+		Assert.assertEquals(0, frequencySketch.frequency(_HASH_CODE + 1));
+	}
+
+	private static final int _HASH_CODE = "key".hashCode();
+
+}
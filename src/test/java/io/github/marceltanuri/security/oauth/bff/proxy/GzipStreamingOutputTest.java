@@ -0,0 +1,188 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class GzipStreamingOutputTest {
+
+	@After
+	public void tearDown() {
+		_deflaterPool.close();
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		AtomicBoolean closed = new AtomicBoolean();
+
+		GzipStreamingOutput gzipStreamingOutput = new GzipStreamingOutput(
+			new ClosingStreamingOutput(closed), _deflaterPool, 6);
+
+		gzipStreamingOutput.close();
+
+		Assert.assertTrue(closed.get());
+	}
+
+	@Test
+	public void testWriteByteArray() throws Exception {
+		byte[] bytes = _createBytes(100000);
+
+		for (int level = 1; level <= 9; level++) {
+			Assert.assertArrayEquals(
+				bytes,
+				_gunzip(
+					_gzip(
+						new GzipStreamingOutput(bytes, _deflaterPool, level))));
+		}
+
+		Assert.assertArrayEquals(
+			new byte[0],
+			_gunzip(
+				_gzip(new GzipStreamingOutput(new byte[0], _deflaterPool, 6))));
+	}
+
+	@Test
+	public void testWriteFlushesStreamingOutput() throws Exception {
+		byte[] bytes = "first chunk".getBytes(StandardCharsets.UTF_8);
+
+		ByteArrayOutputStream byteArrayOutputStream =
+			new ByteArrayOutputStream();
+
+		GzipStreamingOutput gzipStreamingOutput = new GzipStreamingOutput(
+			(StreamingOutput)outputStream -> {
+				outputStream.write(bytes);
+				outputStream.flush();
+
+				byte[] flushedBytes = byteArrayOutputStream.toByteArray();
+
+				Inflater inflater = new Inflater(true);
+
+				try {
+					inflater.setInput(
+						flushedBytes, _HEADER_LENGTH,
+						flushedBytes.length - _HEADER_LENGTH);
+
+					byte[] inflatedBytes = new byte[bytes.length * 2];
+
+					int length = inflater.inflate(inflatedBytes);
+
+					Assert.assertArrayEquals(
+						bytes, Arrays.copyOf(inflatedBytes, length));
+				}
+				catch (Exception exception) {
+					throw new AssertionError(exception);
+				}
+				finally {
+					inflater.end();
+				}
+
+				outputStream.write('!');
+			},
+			_deflaterPool, 6);
+
+		gzipStreamingOutput.write(byteArrayOutputStream);
+
+		Assert.assertEquals(
+			"first chunk!",
+			new String(
+				_gunzip(byteArrayOutputStream.toByteArray()),
+				StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testWriteStreamingOutput() throws Exception {
+		byte[] bytes = _createBytes(100000);
+
+		StreamingOutput streamingOutput = outputStream -> {
+			for (int i = 0; i < bytes.length; i += 1000) {
+				outputStream.write(
+					bytes, i, Math.min(1000, bytes.length - i));
+			}
+		};
+
+		for (int i = 0; i < 3; i++) {
+			Assert.assertArrayEquals(
+				bytes,
+				_gunzip(
+					_gzip(
+						new GzipStreamingOutput(
+							streamingOutput, _deflaterPool, 6))));
+		}
+	}
+
+	private byte[] _createBytes(int length) {
+		Random random = new Random(length);
+
+		byte[] bytes = new byte[length];
+
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte)('a' + random.nextInt(8));
+		}
+
+		return bytes;
+	}
+
+	private byte[] _gunzip(byte[] bytes) throws IOException {
+		try (InputStream inputStream = new GZIPInputStream(
+				new ByteArrayInputStream(bytes))) {
+
+			return inputStream.readAllBytes();
+		}
+	}
+
+	private byte[] _gzip(GzipStreamingOutput gzipStreamingOutput)
+		throws IOException {
+
+		ByteArrayOutputStream byteArrayOutputStream =
+			new ByteArrayOutputStream();
+
+		gzipStreamingOutput.write(byteArrayOutputStream);
+
+		return byteArrayOutputStream.toByteArray();
+	}
+
+	private static final int _HEADER_LENGTH = 10;
+
+	private final DeflaterPool _deflaterPool = new DeflaterPool(1);
+
+	private static class ClosingStreamingOutput
+		implements Closeable, StreamingOutput {
+
+		@Override
+		public void close() {
+			_closed.set(true);
+		}
+
+		@Override
+		public void write(OutputStream outputStream) {
+		}
+
+		private ClosingStreamingOutput(AtomicBoolean closed) {
+			_closed = closed;
+		}
+
+		private final AtomicBoolean _closed;
+
+	}
+
+}
@@ -0,0 +1,206 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.io.IOException;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class RequestCoalescerTest {
+
+	@Test
+	public void testAwait() throws Exception {
+		CompletableFuture<CachedResponse> completableFuture =
+			_requestCoalescer.lead("/a");
+
+		Assert.assertNotNull(completableFuture);
+		Assert.assertNull(_requestCoalescer.lead("/a"));
+		Assert.assertNull(_requestCoalescer.await("/b", 1000));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+		try {
+			Future<CachedResponse> future1 = executorService.submit(
+				() -> _requestCoalescer.await("/a", 10000));
+			Future<CachedResponse> future2 = executorService.submit(
+				() -> _requestCoalescer.await("/a", 10000));
+
+			CachedResponse cachedResponse = _createCachedResponse();
+
+			completableFuture.complete(cachedResponse);
+
+			Assert.assertSame(
+				cachedResponse, future1.get(10, TimeUnit.SECONDS));
+			Assert.assertSame(
+				cachedResponse, future2.get(10, TimeUnit.SECONDS));
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+
+		_requestCoalescer.release("/a", completableFuture);
+
+		Assert.assertNull(_requestCoalescer.await("/a", 1000));
+		Assert.assertNotNull(_requestCoalescer.lead("/a"));
+	}
+
+	@Test
+	public void testAwaitWithFailedRequest() throws Exception {
+		CompletableFuture<CachedResponse> completableFuture =
+			_requestCoalescer.lead("/a");
+
+		completableFuture.completeExceptionally(new IOException("Failed"));
+
+		try {
+			_requestCoalescer.await("/a", 1000);
+
+			Assert.fail();
+		}
+		catch (IOException ioException) {
+			Assert.assertEquals("Failed", ioException.getMessage());
+		}
+	}
+
+	@Test
+	public void testAwaitWithTimeout() throws Exception {
+		_requestCoalescer.lead("/a");
+
+		Assert.assertNull(_requestCoalescer.await("/a", 10));
+	}
+
+	@Test
+	public void testFollow() throws Exception {
+		Assert.assertNull(_requestCoalescer.follow("/a", 10000));
+
+		CompletableFuture<CachedResponse> completableFuture =
+			_requestCoalescer.lead("/a");
+
+		CompletableFuture<CachedResponse> followerCompletableFuture =
+			_requestCoalescer.follow("/a", 10000);
+
+		Assert.assertFalse(followerCompletableFuture.isDone());
+
+		CachedResponse cachedResponse = _createCachedResponse();
+
+		completableFuture.complete(cachedResponse);
+
+		Assert.assertSame(cachedResponse, followerCompletableFuture.get());
+
+		followerCompletableFuture = _requestCoalescer.follow("/a", 10000);
+
+		_requestCoalescer.release("/a", completableFuture);
+
+		Assert.assertSame(cachedResponse, followerCompletableFuture.get());
+		Assert.assertNull(_requestCoalescer.follow("/a", 10000));
+	}
+
+	@Test
+	public void testFollowWithReleasedRequest() throws Exception {
+		CompletableFuture<CachedResponse> completableFuture =
+			_requestCoalescer.lead("/a");
+
+		CompletableFuture<CachedResponse> followerCompletableFuture =
+			_requestCoalescer.follow("/a", 10000);
+
+		_requestCoalescer.release("/a", completableFuture);
+
+		Assert.assertNull(followerCompletableFuture.get());
+	}
+
+	@Test
+	public void testFollowWithTimeout() throws Exception {
+		CompletableFuture<CachedResponse> completableFuture =
+			_requestCoalescer.lead("/a");
+
+		CompletableFuture<CachedResponse> followerCompletableFuture =
+			_requestCoalescer.follow("/a", 10);
+
+		try {
+			followerCompletableFuture.get();
+
+			Assert.fail();
+		}
+		catch (ExecutionException executionException) {
+			Assert.assertTrue(
+				executionException.getCause() instanceof TimeoutException);
+		}
+
+		Assert.assertFalse(completableFuture.isDone());
+	}
+
+	@Test
+	public void testIsCoalescable() {
+		OAuthClientSettings settings = OAuthTestUtil.createConfigurable(
+			OAuthClientSettings.class,
+			Collections.singletonMap("requestCoalescing", true));
+
+		Assert.assertTrue(
+			RequestCoalescer.isCoalescable(
+				_createContext(HttpMethodHandler.GET, null, null), settings));
+		Assert.assertTrue(
+			RequestCoalescer.isCoalescable(
+				_createContext(
+					HttpMethodHandler.GET, "If-None-Match", "\"v1\""),
+				settings));
+		Assert.assertFalse(
+			RequestCoalescer.isCoalescable(
+				_createContext(HttpMethodHandler.POST, null, null), settings));
+		Assert.assertFalse(
+			RequestCoalescer.isCoalescable(
+				_createContext(HttpMethodHandler.GET, "If-Match", "\"v1\""),
+				settings));
+		Assert.assertFalse(
+			RequestCoalescer.isCoalescable(
+				_createContext(
+					HttpMethodHandler.GET, "If-Unmodified-Since",
+					"Wed, 21 Oct 2015 07:28:00 GMT"),
+				settings));
+		Assert.assertFalse(
+			RequestCoalescer.isCoalescable(
+				_createContext(HttpMethodHandler.GET, null, null),
+				OAuthTestUtil.createConfigurable(
+					OAuthClientSettings.class, Collections.emptyMap())));
+	}
+
+	private CachedResponse _createCachedResponse() {
+		return new CachedResponse(
+			200, Collections.emptyMap(), new byte[0], 0, name -> null);
+	}
+
+	private ProxyRequestContext _createContext(
+		HttpMethodHandler methodHandler, String headerName,
+		String headerValue) {
+
+		ProxyRequestContext.Builder builder = ProxyRequestContext.builder(
+		).clientName(
+			"test"
+		).methodHandler(
+			methodHandler
+		);
+
+		if (headerName != null) {
+			builder.header(headerName, headerValue);
+		}
+
+		return builder.build();
+	}
+
+	private final RequestCoalescer _requestCoalescer = new RequestCoalescer();
+
+}
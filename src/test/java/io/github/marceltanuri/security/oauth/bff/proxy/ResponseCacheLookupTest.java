@@ -0,0 +1,160 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class ResponseCacheLookupTest {
+
+	@Test
+	public void testGetFreshResponse() {
+		Map<String, List<String>> headers = _headers(
+			"Cache-Control", "max-age=60");
+
+		_responseCache.put(
+			"/a",
+			new CachedResponse(
+				200, headers, new byte[0],
+				CachedResponse.getFreshnessLifetime(headers),
+				_emptyRequestHeaders));
+
+		ResponseCacheLookup responseCacheLookup = _createResponseCacheLookup(
+			"/a", false);
+
+		Assert.assertNotNull(responseCacheLookup.getFreshResponse());
+		Assert.assertNull(responseCacheLookup.getStaleResponse());
+
+		responseCacheLookup = _createResponseCacheLookup("/b", false);
+
+		Assert.assertNull(responseCacheLookup.getFreshResponse());
+		Assert.assertNull(responseCacheLookup.getStaleResponse());
+	}
+
+	@Test
+	public void testGetStaleResponse() {
+		_responseCache.put(
+			"/a",
+			new CachedResponse(
+				200, _headers("Cache-Control", "no-cache", "ETag", "\"v1\""),
+				new byte[0], 0, _emptyRequestHeaders));
+
+		ResponseCacheLookup responseCacheLookup = _createResponseCacheLookup(
+			"/a", false);
+
+		Assert.assertNull(responseCacheLookup.getFreshResponse());
+		Assert.assertNotNull(responseCacheLookup.getStaleResponse());
+
+		CachedResponse cachedResponse = responseCacheLookup.revalidate(
+			_headers("Cache-Control", "max-age=60"));
+
+		Assert.assertTrue(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertSame(
+			cachedResponse, _responseCache.get("/a", _emptyRequestHeaders));
+		Assert.assertEquals(1, _responseCache.getRevalidationCount());
+	}
+
+	@Test
+	public void testStore() {
+		ResponseCacheLookup responseCacheLookup = _createResponseCacheLookup(
+			"/a", false);
+
+		Assert.assertEquals(
+			10000,
+			responseCacheLookup.getMaxEntrySize(
+				200, _headers("Cache-Control", "public, max-age=60")));
+
+		CachedResponse cachedResponse = responseCacheLookup.store(
+			200, _headers("Cache-Control", "public, max-age=60"),
+			new byte[100]);
+
+		Assert.assertTrue(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertSame(
+			cachedResponse, _responseCache.get("/a", _emptyRequestHeaders));
+	}
+
+	@Test
+	public void testStoreWithAuthorizedResponse() {
+		ResponseCacheLookup responseCacheLookup = _createResponseCacheLookup(
+			"/a", false);
+
+		Assert.assertEquals(
+			0,
+			responseCacheLookup.getMaxEntrySize(
+				200, _headers("Cache-Control", "max-age=60")));
+
+		CachedResponse cachedResponse = responseCacheLookup.store(
+			200, _headers("Cache-Control", "max-age=60"), new byte[100]);
+
+		Assert.assertFalse(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertEquals(0, _responseCache.getEntryCount());
+
+		responseCacheLookup = _createResponseCacheLookup("/a", true);
+
+		cachedResponse = responseCacheLookup.store(
+			200, _headers("Cache-Control", "max-age=60"), new byte[100]);
+
+		Assert.assertTrue(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertEquals(1, _responseCache.getEntryCount());
+	}
+
+	@Test
+	public void testStoreWithUnstorableResponse() {
+		ResponseCacheLookup responseCacheLookup = _createResponseCacheLookup(
+			"/a", true);
+
+		CachedResponse cachedResponse = responseCacheLookup.store(
+			200, _headers("Cache-Control", "no-store"), new byte[100]);
+
+		Assert.assertEquals(200, cachedResponse.getStatus());
+		Assert.assertFalse(cachedResponse.isFresh(System.nanoTime()));
+		Assert.assertEquals(0, _responseCache.getEntryCount());
+	}
+
+	private ResponseCache _createResponseCache() {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("responseCacheMaxEntrySize", 10000L);
+		properties.put("responseCacheMaxSize", 10000L);
+
+		return new ResponseCache(OAuthTestUtil.createOAuthClient(properties));
+	}
+
+	private ResponseCacheLookup _createResponseCacheLookup(
+		String key, boolean cacheAuthorized) {
+
+		return new ResponseCacheLookup(
+			_responseCache, key, _emptyRequestHeaders, cacheAuthorized);
+	}
+
+	private Map<String, List<String>> _headers(String... namesAndValues) {
+		Map<String, List<String>> headers = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			headers.computeIfAbsent(
+				namesAndValues[i], name -> new ArrayList<>()
+			).add(
+				namesAndValues[i + 1]
+			);
+		}
+
+		return headers;
+	}
+
+	private final Function<String, String> _emptyRequestHeaders =
+		name -> null;
+	private final ResponseCache _responseCache = _createResponseCache();
+
+}
@@ -0,0 +1,245 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.metrics.ResponseCacheSummary;
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class ResponseCacheTest {
+
+	@Test
+	public void testGet() {
+		ResponseCache responseCache = _createResponseCache(10000);
+
+		Map<String, String> requestHeaders = new HashMap<>();
+
+		requestHeaders.put("Accept-Language", "en");
+
+		Assert.assertTrue(
+			responseCache.put(
+				"/a",
+				new CachedResponse(
+					200,
+					_headers(
+						"Cache-Control", "max-age=60", "Vary",
+						"Accept-Language"),
+					new byte[0], 60, requestHeaders::get)));
+
+		Assert.assertNotNull(responseCache.get("/a", requestHeaders::get));
+		Assert.assertNull(responseCache.get("/b", requestHeaders::get));
+
+		requestHeaders.put("Accept-Language", "fr");
+
+		Assert.assertNull(responseCache.get("/a", requestHeaders::get));
+
+		Assert.assertEquals(1, responseCache.getHitCount());
+		Assert.assertEquals(2, responseCache.getMissCount());
+	}
+
+	@Test
+	public void testGetDiscardsStaleResponseWithoutValidators() {
+		ResponseCache responseCache = _createResponseCache(10000);
+
+		Assert.assertTrue(
+			responseCache.put(
+				"/a", _createCachedResponse("Cache-Control", "no-cache")));
+		Assert.assertTrue(
+			responseCache.put(
+				"/b",
+				_createCachedResponse(
+					"Cache-Control", "no-cache", "ETag", "\"v1\"")));
+
+		Assert.assertNull(responseCache.get("/a", _emptyRequestHeaders));
+		Assert.assertNotNull(responseCache.get("/b", _emptyRequestHeaders));
+
+		Assert.assertEquals(1, responseCache.getEntryCount());
+		Assert.assertEquals(0, responseCache.getHitCount());
+		Assert.assertEquals(2, responseCache.getMissCount());
+	}
+
+	@Test
+	public void testGetKey() {
+		Assert.assertEquals(
+			"test\n/a~b%2F?a=%2F&b=2&c",
+			ResponseCache.getKey("test", "/a%7eb%2f", "c&b=2&a=%2f"));
+		Assert.assertEquals(
+			ResponseCache.getKey("test", "/a", "b=2&a=1"),
+			ResponseCache.getKey("test", "a", "a=1&b=2"));
+		Assert.assertEquals("test\n/a", ResponseCache.getKey("test", "/a", ""));
+		Assert.assertNotEquals(
+			ResponseCache.getKey("test", "/a", null),
+			ResponseCache.getKey("other", "/a", null));
+	}
+
+	@Test
+	public void testGetSummary() {
+		ResponseCache responseCache = _createResponseCache(1000);
+
+		Assert.assertTrue(responseCache.put("/a", _createCachedResponse()));
+
+		responseCache.get("/a", _emptyRequestHeaders);
+		responseCache.get("/a", _emptyRequestHeaders);
+		responseCache.get("/a", _emptyRequestHeaders);
+		responseCache.get("/b", _emptyRequestHeaders);
+
+		ResponseCacheSummary responseCacheSummary = responseCache.getSummary();
+
+		Assert.assertEquals(1, responseCacheSummary.getEntryCount());
+		Assert.assertEquals(0, responseCacheSummary.getEvictionCount());
+		Assert.assertEquals(3, responseCacheSummary.getHitCount());
+		Assert.assertEquals(0.75, responseCacheSummary.getHitRatio(), 0);
+		Assert.assertEquals(1000, responseCacheSummary.getMaxSize());
+		Assert.assertEquals(1, responseCacheSummary.getMissCount());
+		Assert.assertEquals(0, responseCacheSummary.getRevalidationCount());
+		Assert.assertEquals(
+			responseCache.getSize(), responseCacheSummary.getSize());
+	}
+
+	@Test
+	public void testPutAdmitsFrequentResponse() {
+		ResponseCache responseCache = _createResponseCache(1000);
+
+		Assert.assertTrue(responseCache.put("/a", _createCachedResponse()));
+		Assert.assertTrue(responseCache.put("/b", _createCachedResponse()));
+
+		responseCache.get("/c", _emptyRequestHeaders);
+		responseCache.get("/c", _emptyRequestHeaders);
+
+		Assert.assertTrue(responseCache.put("/c", _createCachedResponse()));
+
+		Assert.assertEquals(2, responseCache.getEntryCount());
+		Assert.assertEquals(1, responseCache.getEvictionCount());
+		Assert.assertNull(responseCache.get("/a", _emptyRequestHeaders));
+		Assert.assertNotNull(responseCache.get("/b", _emptyRequestHeaders));
+		Assert.assertNotNull(responseCache.get("/c", _emptyRequestHeaders));
+	}
+
+	@Test
+	public void testPutEvictsStaleResponse() {
+		ResponseCache responseCache = _createResponseCache(1000);
+
+		Assert.assertTrue(
+			responseCache.put(
+				"/a",
+				_createCachedResponse(
+					"Cache-Control", "no-cache", "ETag", "\"v1\"")));
+
+		responseCache.get("/a", _emptyRequestHeaders);
+		responseCache.get("/a", _emptyRequestHeaders);
+
+		Assert.assertTrue(responseCache.put("/b", _createCachedResponse()));
+		Assert.assertTrue(responseCache.put("/c", _createCachedResponse()));
+
+		Assert.assertEquals(2, responseCache.getEntryCount());
+		Assert.assertEquals(1, responseCache.getEvictionCount());
+	}
+
+	@Test
+	public void testPutRejectsInfrequentResponse() {
+		ResponseCache responseCache = _createResponseCache(1000);
+
+		Assert.assertTrue(responseCache.put("/a", _createCachedResponse()));
+		Assert.assertTrue(responseCache.put("/b", _createCachedResponse()));
+
+		long size = responseCache.getSize();
+
+		Assert.assertFalse(responseCache.put("/c", _createCachedResponse()));
+
+		Assert.assertEquals(2, responseCache.getEntryCount());
+		Assert.assertEquals(0, responseCache.getEvictionCount());
+		Assert.assertEquals(size, responseCache.getSize());
+		Assert.assertNull(responseCache.get("/c", _emptyRequestHeaders));
+	}
+
+	@Test
+	public void testPutRejectsResponseLargerThanCache() {
+		ResponseCache responseCache = _createResponseCache(200);
+
+		Assert.assertFalse(responseCache.put("/a", _createCachedResponse()));
+
+		Assert.assertEquals(0, responseCache.getEntryCount());
+		Assert.assertEquals(0, responseCache.getSize());
+	}
+
+	@Test
+	public void testRevalidate() {
+		ResponseCache responseCache = _createResponseCache(10000);
+
+		CachedResponse cachedResponse = _createCachedResponse(
+			"Cache-Control", "no-cache", "ETag", "\"v1\"");
+
+		Assert.assertTrue(responseCache.put("/a", cachedResponse));
+
+		CachedResponse revalidatedCachedResponse = responseCache.revalidate(
+			"/a", cachedResponse, _headers("Cache-Control", "max-age=60"),
+			_emptyRequestHeaders);
+
+		Assert.assertTrue(
+			revalidatedCachedResponse.isFresh(System.nanoTime()));
+		Assert.assertSame(
+			revalidatedCachedResponse,
+			responseCache.get("/a", _emptyRequestHeaders));
+		Assert.assertEquals(1, responseCache.getEntryCount());
+		Assert.assertEquals(1, responseCache.getHitCount());
+		Assert.assertEquals(1, responseCache.getRevalidationCount());
+		Assert.assertEquals(
+			revalidatedCachedResponse.getSize(), responseCache.getSize());
+	}
+
+	/**
+	 * Creates a response of 402 bytes, so that a cache of 1000 bytes holds two
+	 * of them.
+	 */
+	private CachedResponse _createCachedResponse(String... namesAndValues) {
+		Map<String, List<String>> headers = _headers(namesAndValues);
+
+		if (namesAndValues.length == 0) {
+			headers = _headers("Cache-Control", "max-age=60");
+		}
+
+		return new CachedResponse(
+			200, headers, new byte[100],
+			CachedResponse.getFreshnessLifetime(headers),
+			_emptyRequestHeaders);
+	}
+
+	private ResponseCache _createResponseCache(long maxSize) {
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("responseCacheMaxEntrySize", maxSize);
+		properties.put("responseCacheMaxSize", maxSize);
+
+		return new ResponseCache(OAuthTestUtil.createOAuthClient(properties));
+	}
+
+	private Map<String, List<String>> _headers(String... namesAndValues) {
+		Map<String, List<String>> headers = new TreeMap<>(
+			String.CASE_INSENSITIVE_ORDER);
+
+		for (int i = 0; i < namesAndValues.length; i += 2) {
+			headers.computeIfAbsent(
+				namesAndValues[i], name -> new ArrayList<>()
+			).add(
+				namesAndValues[i + 1]
+			);
+		}
+
+		return headers;
+	}
+
+	private final Function<String, String> _emptyRequestHeaders =
+		name -> null;
+
+}
@@ -0,0 +1,152 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.HttpMethodHandler;
+import io.github.marceltanuri.security.oauth.bff.proxy.DefaultOAuthProxyService.ProxyRequestContext;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class ResponseCompressorTest {
+
+	@After
+	public void tearDown() {
+		_responseCompressor.close();
+	}
+
+	@Test
+	public void testCompress() {
+		Response response = _responseCompressor.compress(
+			_createResponse(2048, "application/json", "\"v1\""),
+			_createContext("gzip, deflate"), _settings);
+
+		Assert.assertEquals(
+			"gzip", response.getHeaderString("Content-Encoding"));
+		Assert.assertEquals("W/\"v1\"", response.getHeaderString("ETag"));
+		Assert.assertEquals(
+			"Accept-Encoding", response.getHeaderString("Vary"));
+		Assert.assertNull(response.getHeaderString("Content-Length"));
+		Assert.assertTrue(
+			response.getEntity() instanceof GzipStreamingOutput);
+	}
+
+	@Test
+	public void testCompressWithoutAcceptedGzip() {
+		for (String acceptEncoding :
+				Arrays.asList(null, "br", "gzip;q=0", "*;q=0", "gzip;q=x")) {
+
+			Response response = _responseCompressor.compress(
+				_createResponse(2048, "application/json", null),
+				_createContext(acceptEncoding), _settings);
+
+			Assert.assertNull(
+				acceptEncoding, response.getHeaderString("Content-Encoding"));
+			Assert.assertEquals(
+				acceptEncoding, "Accept-Encoding",
+				response.getHeaderString("Vary"));
+		}
+
+		Response response = _responseCompressor.compress(
+			_createResponse(2048, "application/json", null),
+			_createContext("br, *;q=0.5"), _settings);
+
+		Assert.assertEquals(
+			"gzip", response.getHeaderString("Content-Encoding"));
+	}
+
+	@Test
+	public void testCompressWithUncompressibleResponse() {
+		Response response = _createResponse(512, "application/json", null);
+
+		Assert.assertSame(
+			response,
+			_responseCompressor.compress(
+				response, _createContext("gzip"), _settings));
+
+		response = _createResponse(2048, "image/png", null);
+
+		Assert.assertSame(
+			response,
+			_responseCompressor.compress(
+				response, _createContext("gzip"), _settings));
+
+		response = Response.ok(
+			new byte[2048], "application/json"
+		).header(
+			"Cache-Control", "no-transform"
+		).build();
+
+		Assert.assertSame(
+			response,
+			_responseCompressor.compress(
+				response, _createContext("gzip"), _settings));
+	}
+
+	@Test
+	public void testVaryOnAcceptEncoding() {
+		Map<String, List<String>> headers = new HashMap<>();
+
+		headers.put("Vary", Collections.singletonList("Accept-Language"));
+
+		UpstreamResponse upstreamResponse =
+			_responseCompressor.varyOnAcceptEncoding(
+				new UpstreamResponse(200, headers, null, null));
+
+		Assert.assertEquals(
+			Arrays.asList("Accept-Language", "Accept-Encoding"),
+			upstreamResponse.getHeaders(
+			).get(
+				"Vary"
+			));
+
+		headers.put("Vary", Collections.singletonList("*"));
+
+		upstreamResponse = new UpstreamResponse(200, headers, null, null);
+
+		Assert.assertSame(
+			upstreamResponse,
+			_responseCompressor.varyOnAcceptEncoding(upstreamResponse));
+	}
+
+	private ProxyRequestContext _createContext(String acceptEncoding) {
+		return ProxyRequestContext.builder(
+		).clientName(
+			"test"
+		).header(
+			"Accept-Encoding", acceptEncoding
+		).methodHandler(
+			HttpMethodHandler.GET
+		).build();
+	}
+
+	private Response _createResponse(
+		int length, String contentType, String entityTag) {
+
+		return Response.ok(
+			new byte[length], contentType
+		).header(
+			"ETag", entityTag
+		).build();
+	}
+
+	private final ResponseCompressor _responseCompressor =
+		new ResponseCompressor(1);
+	private final OAuthClientSettings _settings =
+		OAuthTestUtil.createConfigurable(
+			OAuthClientSettings.class,
+			Collections.singletonMap("compressionEnabled", true));
+
+}
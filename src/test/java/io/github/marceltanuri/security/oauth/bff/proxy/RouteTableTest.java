@@ -0,0 +1,151 @@
+package io.github.marceltanuri.security.oauth.bff.proxy;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class RouteTableTest {
+
+	@Test
+	public void testGetBaseURI() {
+		RouteTable routeTable = _createRouteTable("api.example.com/v1//");
+
+		Assert.assertEquals(
+			"https://api.example.com/v1",
+			String.valueOf(routeTable.getBaseURI()));
+	}
+
+	@Test
+	public void testGetRoute() {
+		RouteTable routeTable = _createRouteTable(
+			"https://api.example.com", "/orders;timeout=1000",
+			"/orders/items/;timeout=2000");
+
+		Assert.assertEquals("/orders", _getPrefix(routeTable, "/orders"));
+		Assert.assertEquals("/orders", _getPrefix(routeTable, "orders/42"));
+		Assert.assertEquals(
+			"/orders/items", _getPrefix(routeTable, "/orders/items/7"));
+		Assert.assertEquals(
+			"/orders/items", _getPrefix(routeTable, "/orders//items"));
+		Assert.assertEquals("", _getPrefix(routeTable, "/ordersx"));
+		Assert.assertEquals("", _getPrefix(routeTable, "/"));
+		Assert.assertEquals("", _getPrefix(routeTable, null));
+
+		RouteTable.Route route = routeTable.getRoute("/orders/items");
+
+		Assert.assertEquals(2000, route.getTimeout());
+	}
+
+	@Test
+	public void testGetRouteIgnoresInvalidRules() {
+		RouteTable routeTable = _createRouteTable(
+			"https://api.example.com", "/a;timeout", "/b;unknown=1",
+			"/c;retries=x", "  ", "/d;retries=-1");
+
+		List<RouteTable.Route> routes = routeTable.getRoutes();
+
+		Assert.assertEquals(routes.toString(), 1, routes.size());
+
+		RouteTable.Route route = routes.get(0);
+
+		Assert.assertEquals("/d", route.getPrefix());
+		Assert.assertEquals(0, route.getMaxRetries());
+
+		Assert.assertEquals("", _getPrefix(routeTable, "/a"));
+	}
+
+	@Test
+	public void testGetRoutePolicies() {
+		RouteTable routeTable = _createRouteTable(
+			"https://api.example.com", "/a;cache=false;retries=2",
+			"/b;cache=authorized", "/c");
+
+		RouteTable.Route route = routeTable.getRoute("/a");
+
+		Assert.assertFalse(route.isCacheEnabled());
+		Assert.assertEquals(2, route.getMaxRetries());
+		Assert.assertEquals(0, route.getTimeout());
+
+		route = routeTable.getRoute("/b");
+
+		Assert.assertTrue(route.isCacheEnabled());
+		Assert.assertTrue(route.isCacheAuthorized());
+
+		route = routeTable.getRoute("/c");
+
+		Assert.assertTrue(route.isCacheEnabled());
+		Assert.assertFalse(route.isCacheAuthorized());
+
+		route = routeTable.getRoute("/d");
+
+		Assert.assertTrue(route.isCacheEnabled());
+		Assert.assertFalse(route.isCacheAuthorized());
+		Assert.assertNull(route.getRewrite());
+	}
+
+	@Test
+	public void testGetTargetURI() throws Exception {
+		RouteTable routeTable = _createRouteTable(
+			"https://api.example.com/v1/", "/legacy;rewrite=v2/",
+			"/root;rewrite=", "/orders");
+
+		RouteTable.Route route = routeTable.getRoute("/legacy/a");
+
+		Assert.assertEquals("/v2", route.getRewrite());
+		Assert.assertEquals(
+			"https://api.example.com/v1/v2/a%41?b=%2F",
+			String.valueOf(route.getTargetURI("/legacy/a%41", "b=%2F")));
+		Assert.assertEquals(
+			"https://api.example.com/v1/v2",
+			String.valueOf(route.getTargetURI("/legacy", null)));
+
+		route = routeTable.getRoute("/root");
+
+		Assert.assertEquals(
+			"https://api.example.com/v1/",
+			String.valueOf(route.getTargetURI("/root", "")));
+		Assert.assertEquals(
+			"https://api.example.com/v1/x",
+			String.valueOf(route.getTargetURI("root/x", null)));
+
+		route = routeTable.getRoute("/orders/1");
+
+		Assert.assertEquals(
+			"https://api.example.com/v1/orders/1?a=1",
+			String.valueOf(route.getTargetURI("/orders/1", "a=1")));
+
+		route = routeTable.getRoute("other");
+
+		Assert.assertEquals(
+			"https://api.example.com/v1/other",
+			String.valueOf(route.getTargetURI("other", null)));
+	}
+
+	private RouteTable _createRouteTable(
+		String serviceBaseUrl, String... routes) {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("responseCacheEnabled", true);
+		properties.put("routes", routes);
+		properties.put("serviceBaseUrl", serviceBaseUrl);
+
+		return new RouteTable(OAuthTestUtil.createOAuthClient(properties));
+	}
+
+	private String _getPrefix(RouteTable routeTable, String path) {
+		RouteTable.Route route = routeTable.getRoute(path);
+
+		return route.getPrefix();
+	}
+
+}
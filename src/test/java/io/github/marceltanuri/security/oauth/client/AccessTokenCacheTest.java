@@ -0,0 +1,234 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class AccessTokenCacheTest {
+
+	@Test
+	public void testGetAccessTokenWithConcurrentRequests() throws Exception {
+		AtomicInteger callCount = new AtomicInteger();
+		CountDownLatch fetchingCountDownLatch = new CountDownLatch(1);
+		CountDownLatch fetchedCountDownLatch = new CountDownLatch(1);
+
+		AccessTokenCache accessTokenCache = _createAccessTokenCache(
+			0.75,
+			() -> {
+				fetchingCountDownLatch.countDown();
+
+				try {
+					fetchedCountDownLatch.await();
+				}
+				catch (InterruptedException interruptedException) {
+					throw new RuntimeException(interruptedException);
+				}
+
+				return "token" + callCount.incrementAndGet();
+			});
+
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<String>> futures = new ArrayList<>();
+
+			futures.add(
+				executorService.submit(accessTokenCache::getAccessToken));
+
+			Assert.assertTrue(
+				fetchingCountDownLatch.await(10, TimeUnit.SECONDS));
+
+			for (int i = 0; i < 7; i++) {
+				futures.add(
+					executorService.submit(accessTokenCache::getAccessToken));
+			}
+
+			while (accessTokenCache.getMissCount() < 8) {
+				Thread.sleep(1);
+			}
+
+			fetchedCountDownLatch.countDown();
+
+			for (Future<String> future : futures) {
+				Assert.assertEquals(
+					"token1", future.get(10, TimeUnit.SECONDS));
+			}
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+
+		Assert.assertEquals(1, callCount.get());
+		Assert.assertEquals(1, accessTokenCache.getFetchCount());
+	}
+
+	@Test
+	public void testGetAccessTokenWithRefreshDueToken() {
+		AccessTokenCache accessTokenCache = _createAccessTokenCache(
+			0.0, _countingSupplier());
+
+		Assert.assertEquals("token1", accessTokenCache.getAccessToken());
+		Assert.assertEquals(0, accessTokenCache.getRefreshDelay());
+		Assert.assertEquals("token1", accessTokenCache.getAccessToken());
+		Assert.assertEquals(1, accessTokenCache.getFetchCount());
+		Assert.assertEquals(1, accessTokenCache.getHitCount());
+		Assert.assertEquals(1, accessTokenCache.getMissCount());
+
+		accessTokenCache.refresh();
+
+		Assert.assertEquals("token2", accessTokenCache.getAccessToken());
+		Assert.assertEquals(2, accessTokenCache.getFetchCount());
+		Assert.assertEquals(1, accessTokenCache.getRefreshCount());
+	}
+
+	@Test
+	public void testGetAccessTokenWithTimedOutConcurrentRequest()
+		throws Exception {
+
+		CountDownLatch fetchingCountDownLatch = new CountDownLatch(1);
+		CountDownLatch fetchedCountDownLatch = new CountDownLatch(1);
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("tokenFetchTimeout", 10L);
+
+		AccessTokenCache accessTokenCache = new AccessTokenCache(
+			OAuthTestUtil.createConfigurable(
+				OAuthClientSettings.class, properties),
+			() -> {
+				fetchingCountDownLatch.countDown();
+
+				try {
+					fetchedCountDownLatch.await();
+				}
+				catch (InterruptedException interruptedException) {
+					throw new RuntimeException(interruptedException);
+				}
+
+				return "token";
+			});
+
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+		try {
+			Future<String> future = executorService.submit(
+				accessTokenCache::getAccessToken);
+
+			Assert.assertTrue(
+				fetchingCountDownLatch.await(10, TimeUnit.SECONDS));
+
+			try {
+				accessTokenCache.getAccessToken();
+
+				Assert.fail();
+			}
+			catch (OAuthClientException oAuthClientException) {
+				Assert.assertEquals(
+					"Timed out waiting for the access token of client test",
+					oAuthClientException.getMessage());
+			}
+
+			fetchedCountDownLatch.countDown();
+
+			Assert.assertEquals("token", future.get(10, TimeUnit.SECONDS));
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+
+		Assert.assertEquals(1, accessTokenCache.getFetchCount());
+	}
+
+	@Test
+	public void testGetRefreshDelay() {
+		String accessToken = _createJWT(
+			TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 100);
+
+		AccessTokenCache accessTokenCache = _createAccessTokenCache(
+			0.5, () -> accessToken);
+
+		Assert.assertEquals(0, accessTokenCache.getRefreshDelay());
+
+		Assert.assertEquals(accessToken, accessTokenCache.getAccessToken());
+
+		long refreshDelay = accessTokenCache.getRefreshDelay();
+
+		Assert.assertTrue(
+			String.valueOf(refreshDelay),
+			(refreshDelay > TimeUnit.SECONDS.toNanos(40)) &&
+			(refreshDelay <= TimeUnit.SECONDS.toNanos(50)));
+
+		accessTokenCache.invalidate();
+
+		Assert.assertEquals(0, accessTokenCache.getRefreshDelay());
+	}
+
+	@Test
+	public void testGetRefreshDelayWithOpaqueToken() {
+		AccessTokenCache accessTokenCache = _createAccessTokenCache(
+			0.5, _countingSupplier());
+
+		accessTokenCache.getAccessToken();
+
+		long refreshDelay = accessTokenCache.getRefreshDelay();
+
+		Assert.assertTrue(
+			String.valueOf(refreshDelay),
+			(refreshDelay > TimeUnit.SECONDS.toNanos(40)) &&
+			(refreshDelay <= TimeUnit.SECONDS.toNanos(50)));
+	}
+
+	private Supplier<String> _countingSupplier() {
+		AtomicInteger callCount = new AtomicInteger();
+
+		return () -> "token" + callCount.incrementAndGet();
+	}
+
+	private AccessTokenCache _createAccessTokenCache(
+		double tokenRefreshThreshold, Supplier<String> accessTokenSupplier) {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("tokenDefaultLifetime", 100L);
+		properties.put("tokenRefreshThreshold", tokenRefreshThreshold);
+
+		return new AccessTokenCache(
+			OAuthTestUtil.createConfigurable(
+				OAuthClientSettings.class, properties),
+			accessTokenSupplier);
+	}
+
+	private String _createJWT(long exp) {
+		Base64.Encoder encoder = Base64.getUrlEncoder(
+		).withoutPadding();
+
+		String header = encoder.encodeToString(
+			"{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+		String payload = encoder.encodeToString(
+			("{\"exp\":" + exp + "}").getBytes(StandardCharsets.UTF_8));
+
+		return header + "." + payload + ".signature";
+	}
+
+}
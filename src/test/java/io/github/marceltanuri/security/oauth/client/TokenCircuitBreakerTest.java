@@ -0,0 +1,197 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class TokenCircuitBreakerTest {
+
+	@Test
+	public void testCircuitClosesAfterSuccessfulProbe() {
+		TokenCircuitBreaker tokenCircuitBreaker = _createTokenCircuitBreaker(
+			1, 0, 0);
+
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.OPEN, tokenCircuitBreaker.getState());
+
+		Assert.assertEquals(
+			"token", tokenCircuitBreaker.execute(() -> "token"));
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.CLOSED, tokenCircuitBreaker.getState());
+		Assert.assertEquals(
+			0, tokenCircuitBreaker.getConsecutiveFailureCount());
+	}
+
+	@Test
+	public void testCircuitOpensAfterFailureThreshold() {
+		TokenCircuitBreaker tokenCircuitBreaker = _createTokenCircuitBreaker(
+			3, 60000, 0);
+
+		_fail(tokenCircuitBreaker);
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.CLOSED, tokenCircuitBreaker.getState());
+
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.OPEN, tokenCircuitBreaker.getState());
+		Assert.assertEquals(
+			3, tokenCircuitBreaker.getConsecutiveFailureCount());
+
+		AtomicInteger callCount = new AtomicInteger();
+
+		try {
+			tokenCircuitBreaker.execute(_countingSupplier(callCount));
+
+			Assert.fail();
+		}
+		catch (OAuthClientUnavailableException
+					oAuthClientUnavailableException) {
+
+			long retryAfter = oAuthClientUnavailableException.getRetryAfter();
+
+			Assert.assertTrue(
+				String.valueOf(retryAfter),
+				(retryAfter > 50) && (retryAfter <= 61));
+		}
+
+		Assert.assertEquals(0, callCount.get());
+	}
+
+	@Test
+	public void testCircuitReopensAfterFailedProbe() throws Exception {
+		TokenCircuitBreaker tokenCircuitBreaker = _createTokenCircuitBreaker(
+			3, 100, 0);
+
+		for (int i = 0; i < 3; i++) {
+			_fail(tokenCircuitBreaker);
+		}
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.OPEN, tokenCircuitBreaker.getState());
+
+		Thread.sleep(200);
+
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.OPEN, tokenCircuitBreaker.getState());
+
+		AtomicInteger callCount = new AtomicInteger();
+
+		try {
+			tokenCircuitBreaker.execute(_countingSupplier(callCount));
+
+			Assert.fail();
+		}
+		catch (OAuthClientUnavailableException
+					oAuthClientUnavailableException) {
+		}
+
+		Assert.assertEquals(0, callCount.get());
+	}
+
+	@Test
+	public void testFailureIsCachedWhileCircuitIsClosed() {
+		TokenCircuitBreaker tokenCircuitBreaker = _createTokenCircuitBreaker(
+			5, 60000, 60000);
+
+		RuntimeException runtimeException = _fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.CLOSED, tokenCircuitBreaker.getState());
+
+		AtomicInteger callCount = new AtomicInteger();
+
+		try {
+			tokenCircuitBreaker.execute(_countingSupplier(callCount));
+
+			Assert.fail();
+		}
+		catch (OAuthClientUnavailableException
+					oAuthClientUnavailableException) {
+
+			Assert.assertSame(
+				runtimeException, oAuthClientUnavailableException.getCause());
+		}
+
+		Assert.assertEquals(0, callCount.get());
+	}
+
+	@Test
+	public void testSuccessResetsConsecutiveFailureCount() {
+		TokenCircuitBreaker tokenCircuitBreaker = _createTokenCircuitBreaker(
+			3, 60000, 0);
+
+		_fail(tokenCircuitBreaker);
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			"token", tokenCircuitBreaker.execute(() -> "token"));
+		Assert.assertEquals(
+			0, tokenCircuitBreaker.getConsecutiveFailureCount());
+
+		_fail(tokenCircuitBreaker);
+		_fail(tokenCircuitBreaker);
+
+		Assert.assertEquals(
+			TokenCircuitBreaker.State.CLOSED, tokenCircuitBreaker.getState());
+	}
+
+	private Supplier<String> _countingSupplier(AtomicInteger callCount) {
+		return () -> {
+			callCount.incrementAndGet();
+
+			return "token";
+		};
+	}
+
+	private TokenCircuitBreaker _createTokenCircuitBreaker(
+		int failureThreshold, long openDuration, long failureCacheDuration) {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", "test");
+		properties.put("tokenCircuitOpenDuration", openDuration);
+		properties.put("tokenFailureCacheDuration", failureCacheDuration);
+		properties.put("tokenFailureThreshold", failureThreshold);
+
+		return new TokenCircuitBreaker(
+			OAuthTestUtil.createConfigurable(
+				OAuthClientSettings.class, properties));
+	}
+
+	private RuntimeException _fail(TokenCircuitBreaker tokenCircuitBreaker) {
+		RuntimeException runtimeException = new RuntimeException(
+			"Token endpoint failure");
+
+		try {
+			tokenCircuitBreaker.execute(
+				() -> {
+					throw runtimeException;
+				});
+
+			Assert.fail();
+		}
+		catch (RuntimeException caughtRuntimeException) {
+			Assert.assertSame(runtimeException, caughtRuntimeException);
+		}
+
+		return runtimeException;
+	}
+
+}
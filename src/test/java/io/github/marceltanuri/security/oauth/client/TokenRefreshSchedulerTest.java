@@ -0,0 +1,198 @@
+package io.github.marceltanuri.security.oauth.client;
+
+import io.github.marceltanuri.security.oauth.test.util.OAuthTestUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class TokenRefreshSchedulerTest {
+
+	@After
+	public void tearDown() {
+		_tokenRefreshScheduler.deactivate();
+	}
+
+	@Test
+	public void testActivateWithDisabledScheduler() throws Exception {
+		OAuthClient oAuthClient = _addOAuthClient("test", 0.75, () -> "token");
+
+		_activate(false, 0, 0);
+
+		Thread.sleep(100);
+
+		AccessTokenCache accessTokenCache = oAuthClient.getAccessTokenCache();
+
+		Assert.assertEquals(0, accessTokenCache.getFetchCount());
+	}
+
+	@Test
+	public void testGetJitter() throws Exception {
+		_activate(true, 30000, 0);
+
+		long refreshDelay = TimeUnit.SECONDS.toNanos(10);
+
+		for (int i = 0; i < 1000; i++) {
+			long jitter = _tokenRefreshScheduler.getJitter(refreshDelay);
+
+			Assert.assertTrue(
+				String.valueOf(jitter),
+				(jitter >= 0) && (jitter < (refreshDelay / 2)));
+		}
+
+		refreshDelay = TimeUnit.SECONDS.toNanos(600);
+
+		for (int i = 0; i < 1000; i++) {
+			long jitter = _tokenRefreshScheduler.getJitter(refreshDelay);
+
+			Assert.assertTrue(
+				String.valueOf(jitter),
+				(jitter >= 0) && (jitter < TimeUnit.SECONDS.toNanos(30)));
+		}
+
+		Assert.assertEquals(0, _tokenRefreshScheduler.getJitter(0));
+	}
+
+	@Test
+	public void testGetJitterWithoutJitter() throws Exception {
+		_activate(true, 0, 0);
+
+		Assert.assertEquals(
+			0,
+			_tokenRefreshScheduler.getJitter(TimeUnit.SECONDS.toNanos(600)));
+	}
+
+	@Test
+	public void testRefreshWithFailedFetch() throws Exception {
+		List<Long> fetchTimes = new CopyOnWriteArrayList<>();
+
+		OAuthClient oAuthClient = _addOAuthClient(
+			"test", 0.75,
+			() -> {
+				fetchTimes.add(System.nanoTime());
+
+				if (fetchTimes.size() == 1) {
+					throw new RuntimeException("Token endpoint failure");
+				}
+
+				return "token";
+			});
+
+		_activate(true, 0, 200);
+
+		AccessTokenCache accessTokenCache = oAuthClient.getAccessTokenCache();
+
+		_waitFor(() -> accessTokenCache.getFetchCount() == 1);
+
+		Assert.assertEquals(2, fetchTimes.size());
+		Assert.assertTrue(
+			(fetchTimes.get(1) - fetchTimes.get(0)) >=
+				TimeUnit.MILLISECONDS.toNanos(200));
+		Assert.assertTrue(accessTokenCache.hasAccessToken());
+	}
+
+	@Test
+	public void testRefreshWithRegisteredClient() throws Exception {
+		_activate(true, 0, 0);
+
+		OAuthClient oAuthClient = _addOAuthClient("test", 0.75, () -> "token");
+
+		AccessTokenCache accessTokenCache = oAuthClient.getAccessTokenCache();
+
+		_waitFor(accessTokenCache::hasAccessToken);
+
+		Thread.sleep(100);
+
+		Assert.assertEquals(1, accessTokenCache.getFetchCount());
+		Assert.assertEquals(1, accessTokenCache.getRefreshCount());
+	}
+
+	@Test
+	public void testRefreshWithUnregisteredClient() throws Exception {
+		_activate(true, 0, 0);
+
+		OAuthClient oAuthClient = _addOAuthClient("test", 0.0, () -> "token");
+
+		AccessTokenCache accessTokenCache = oAuthClient.getAccessTokenCache();
+
+		_waitFor(() -> accessTokenCache.getFetchCount() > 2);
+
+		_oAuthServiceFactory.removeOAuthService(
+			oAuthClient, Collections.singletonMap("clientName", "test"));
+
+		Thread.sleep(100);
+
+		long fetchCount = accessTokenCache.getFetchCount();
+
+		Thread.sleep(100);
+
+		Assert.assertEquals(fetchCount, accessTokenCache.getFetchCount());
+	}
+
+	private void _activate(boolean enabled, long jitter, long retryDelay)
+		throws Exception {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("checkInterval", 10L);
+		properties.put("enabled", enabled);
+		properties.put("jitter", jitter);
+		properties.put("retryDelay", retryDelay);
+		properties.put("workerThreads", 1);
+
+		OAuthTestUtil.setFieldValue(
+			_tokenRefreshScheduler, "_oAuthServiceFactory",
+			_oAuthServiceFactory);
+
+		_tokenRefreshScheduler.activate(
+			OAuthTestUtil.createConfigurable(
+				TokenRefreshSchedulerConfiguration.class, properties));
+	}
+
+	private OAuthClient _addOAuthClient(
+		String clientName, double tokenRefreshThreshold,
+		Supplier<String> accessTokenSupplier) {
+
+		Map<String, Object> properties = new HashMap<>();
+
+		properties.put("clientName", clientName);
+		properties.put("tokenFailureCacheDuration", 0L);
+		properties.put("tokenRefreshThreshold", tokenRefreshThreshold);
+
+		OAuthClient oAuthClient = OAuthTestUtil.createOAuthClient(
+			properties, accessTokenSupplier);
+
+		_oAuthServiceFactory.addOAuthService(
+			oAuthClient, Collections.singletonMap("clientName", clientName));
+
+		return oAuthClient;
+	}
+
+	private void _waitFor(BooleanSupplier booleanSupplier) throws Exception {
+		long timeout = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+		while (!booleanSupplier.getAsBoolean()) {
+			Assert.assertTrue((System.nanoTime() - timeout) < 0);
+
+			Thread.sleep(10);
+		}
+	}
+
+	private final OAuthServiceFactory _oAuthServiceFactory =
+		new OAuthServiceFactory();
+	private final TokenRefreshScheduler _tokenRefreshScheduler =
+		new TokenRefreshScheduler();
+
+}
@@ -0,0 +1,85 @@
+package io.github.marceltanuri.security.oauth.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Marcel Tanuri
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void testGetSummary() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+		for (int i = 1000; i > 0; i--) {
+			latencyHistogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		LatencySummary latencySummary = latencyHistogram.getSummary();
+
+		Assert.assertEquals(1000, latencySummary.getCount());
+		Assert.assertEquals(1000, latencySummary.getMax(), 0);
+		Assert.assertEquals(500.5, latencySummary.getMean(), 0.001);
+
+		_assertPercentile(500, latencySummary.getP50());
+		_assertPercentile(900, latencySummary.getP90());
+		_assertPercentile(990, latencySummary.getP99());
+		_assertPercentile(999, latencySummary.getP999());
+	}
+
+	@Test
+	public void testGetSummaryOfEmptyHistogram() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+		LatencySummary latencySummary = latencyHistogram.getSummary();
+
+		Assert.assertEquals(0, latencySummary.getCount());
+		Assert.assertEquals(0, latencySummary.getMax(), 0);
+		Assert.assertEquals(0, latencySummary.getMean(), 0);
+		Assert.assertEquals(0, latencySummary.getP50(), 0);
+		Assert.assertEquals(0, latencySummary.getP999(), 0);
+	}
+
+	@Test
+	public void testGetSummaryOfShortLatencies() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+		for (int i = 1; i <= 60; i++) {
+			latencyHistogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+
+		LatencySummary latencySummary = latencyHistogram.getSummary();
+
+		Assert.assertEquals(0.03, latencySummary.getP50(), 0);
+		Assert.assertEquals(0.054, latencySummary.getP90(), 0);
+		Assert.assertEquals(0.06, latencySummary.getP99(), 0);
+		Assert.assertEquals(0.06, latencySummary.getMax(), 0);
+	}
+
+	@Test
+	public void testRecordClampsOutOfRangeLatencies() {
+		LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+		latencyHistogram.record(-1);
+		latencyHistogram.record(Long.MAX_VALUE);
+
+		LatencySummary latencySummary = latencyHistogram.getSummary();
+
+		Assert.assertEquals(2, latencySummary.getCount());
+		Assert.assertEquals(0, latencySummary.getP50(), 0);
+
+		double maxMillis = ((1L << 37) - 1) / 1000.0;
+
+		Assert.assertEquals(maxMillis, latencySummary.getMax(), 0);
+		_assertPercentile(maxMillis, latencySummary.getP999());
+	}
+
+	private void _assertPercentile(double expected, double actual) {
+		Assert.assertEquals(
+			expected + " " + actual, expected, actual, expected * 0.03);
+	}
+
+}
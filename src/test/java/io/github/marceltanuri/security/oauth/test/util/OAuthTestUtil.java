@@ -0,0 +1,165 @@
+package io.github.marceltanuri.security.oauth.test.util;
+
+import io.github.marceltanuri.security.oauth.client.AccessTokenCache;
+import io.github.marceltanuri.security.oauth.client.OAuthClient;
+import io.github.marceltanuri.security.oauth.client.OAuthClientSettings;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Creates the configurations and OAuth clients used by unit tests, without an
+ * OSGi framework.
+ *
+ * @author Marcel Tanuri
+ */
+public class OAuthTestUtil {
+
+	/**
+	 * Creates an instance of the given configuration interface, returning the
+	 * given properties or, for the ones not given, the default values of the
+	 * interface.
+	 *
+	 * @param clazz      The configuration interface.
+	 * @param properties The configuration properties.
+	 * @return The configuration.
+	 */
+	public static <T> T createConfigurable(
+		Class<T> clazz, Map<String, Object> properties) {
+
+		return clazz.cast(
+			Proxy.newProxyInstance(
+				clazz.getClassLoader(), new Class<?>[] {clazz},
+				(proxy, method, arguments) -> {
+					String name = method.getName();
+
+					if (name.equals("annotationType")) {
+						return clazz;
+					}
+
+					if (name.equals("equals")) {
+						return proxy == arguments[0];
+					}
+
+					if (name.equals("hashCode")) {
+						return System.identityHashCode(proxy);
+					}
+
+					if (name.equals("toString")) {
+						return clazz.getName() + properties;
+					}
+
+					if (properties.containsKey(name)) {
+						return properties.get(name);
+					}
+
+					return method.getDefaultValue();
+				}));
+	}
+
+	/**
+	 * Creates an OAuth client backed by the given settings properties. Its
+	 * client name and service base URL are read from the settings, and every
+	 * other method returns {@code null}.
+	 *
+	 * @param properties The {@link OAuthClientSettings} properties.
+	 * @return The {@link OAuthClient}.
+	 */
+	public static OAuthClient createOAuthClient(
+		Map<String, Object> properties) {
+
+		return createOAuthClient(properties, null);
+	}
+
+	/**
+	 * Creates an OAuth client backed by the given settings properties, whose
+	 * access token cache fetches its tokens from the given supplier. Its
+	 * client name and service base URL are read from the settings, and every
+	 * other method returns {@code null}.
+	 *
+	 * @param properties          The {@link OAuthClientSettings} properties.
+	 * @param accessTokenSupplier The supplier fetching the access tokens, or
+	 *                            {@code null} if the client has no access
+	 *                            token cache.
+	 * @return The {@link OAuthClient}.
+	 */
+	public static OAuthClient createOAuthClient(
+		Map<String, Object> properties, Supplier<String> accessTokenSupplier) {
+
+		OAuthClientSettings settings = createConfigurable(
+			OAuthClientSettings.class, properties);
+
+		AccessTokenCache accessTokenCache = null;
+
+		if (accessTokenSupplier != null) {
+			accessTokenCache = new AccessTokenCache(
+				settings, accessTokenSupplier);
+		}
+
+		AccessTokenCache finalAccessTokenCache = accessTokenCache;
+
+		return (OAuthClient)Proxy.newProxyInstance(
+			OAuthClient.class.getClassLoader(),
+			new Class<?>[] {OAuthClient.class},
+			(proxy, method, arguments) -> {
+				String name = method.getName();
+
+				if (name.equals("getAccessTokenCache")) {
+					return finalAccessTokenCache;
+				}
+
+				if (name.equals("getClientName")) {
+					return settings.clientName();
+				}
+
+				if (name.equals("getServiceBaseUrl")) {
+					return settings.serviceBaseUrl();
+				}
+
+				if (name.equals("getSettings")) {
+					return settings;
+				}
+
+				if (name.equals("equals")) {
+					return proxy == arguments[0];
+				}
+
+				if (name.equals("hashCode")) {
+					return System.identityHashCode(proxy);
+				}
+
+				if (name.equals("toString")) {
+					return "OAuthClient " + settings.clientName();
+				}
+
+				return null;
+			});
+	}
+
+	/**
+	 * Sets the value of a field of the given object, regardless of its
+	 * visibility, in place of an OSGi reference or configuration.
+	 *
+	 * @param object    The object.
+	 * @param fieldName The name of the field.
+	 * @param value     The value of the field.
+	 * @throws Exception if the field does not exist.
+	 */
+	public static void setFieldValue(
+			Object object, String fieldName, Object value)
+		throws Exception {
+
+		Field field = object.getClass(
+		).getDeclaredField(
+			fieldName
+		);
+
+		field.setAccessible(true);
+
+		field.set(object, value);
+	}
+
+}